@@ -29,6 +29,9 @@ import org.tensorics.core.math.operations.BinaryOperation;
 import org.tensorics.core.tree.domain.AbstractDeferredExpression;
 import org.tensorics.core.tree.domain.Expression;
 import org.tensorics.core.tree.domain.Node;
+import org.tensorics.core.tree.domain.RebuildableNode;
+import org.tensorics.core.tree.domain.RebuildingContext;
+import org.tensorics.core.tree.domain.StructuralNode;
 
 import com.google.common.collect.ImmutableList;
 
@@ -39,7 +42,8 @@ import com.google.common.collect.ImmutableList;
  * @author kfuchsbe
  * @param <T> the type of the results of the operands (and the result of the expression)
  */
-public class BinaryOperationExpression<T> extends AbstractDeferredExpression<T> {
+public class BinaryOperationExpression<T> extends AbstractDeferredExpression<T> implements
+        RebuildableNode<BinaryOperationExpression<T>>, StructuralNode {
 
     private final BinaryOperation<T> operation;
     private final Expression<T> left;
@@ -69,4 +73,19 @@ public class BinaryOperationExpression<T> extends AbstractDeferredExpression<T>
         return ImmutableList.<Node> of(left, right);
     }
 
+    @Override
+    public List<?> getAttributes() {
+        return ImmutableList.of(operation);
+    }
+
+    @Override
+    public BinaryOperationExpression<T> rebuildWithNewChildren(RebuildingContext context) {
+        Expression<T> newLeft = context.getUpdatedOrSame(left);
+        Expression<T> newRight = context.getUpdatedOrSame(right);
+        if ((newLeft == left) && (newRight == right)) {
+            return this;
+        }
+        return new BinaryOperationExpression<>(operation, newLeft, newRight);
+    }
+
 }
@@ -24,6 +24,9 @@ import org.tensorics.core.math.predicates.BinaryPredicate;
 import org.tensorics.core.tree.domain.AbstractDeferredExpression;
 import org.tensorics.core.tree.domain.Expression;
 import org.tensorics.core.tree.domain.Node;
+import org.tensorics.core.tree.domain.RebuildableNode;
+import org.tensorics.core.tree.domain.RebuildingContext;
+import org.tensorics.core.tree.domain.StructuralNode;
 
 import java.util.List;
 
@@ -36,7 +39,8 @@ import static com.google.common.base.Preconditions.checkNotNull;
  * @param <T> the type of the results of the operands
  * @author caguiler
  */
-public class BinaryPredicateExpression<T> extends AbstractDeferredExpression<Boolean> {
+public class BinaryPredicateExpression<T> extends AbstractDeferredExpression<Boolean> implements
+        RebuildableNode<BinaryPredicateExpression<T>>, StructuralNode {
 
     private final BinaryPredicate<T> predicate;
     private final Expression<T> left;
@@ -65,4 +69,19 @@ public class BinaryPredicateExpression<T> extends AbstractDeferredExpression<Boo
     public List<Node> getChildren() {
         return ImmutableList.<Node>of(left, right);
     }
+
+    @Override
+    public List<?> getAttributes() {
+        return ImmutableList.of(predicate);
+    }
+
+    @Override
+    public BinaryPredicateExpression<T> rebuildWithNewChildren(RebuildingContext context) {
+        Expression<T> newLeft = context.getUpdatedOrSame(left);
+        Expression<T> newRight = context.getUpdatedOrSame(right);
+        if ((newLeft == left) && (newRight == right)) {
+            return this;
+        }
+        return new BinaryPredicateExpression<>(predicate, newLeft, newRight);
+    }
 }
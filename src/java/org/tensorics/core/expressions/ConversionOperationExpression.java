@@ -22,12 +22,16 @@
 
 package org.tensorics.core.expressions;
 
+import java.util.Collections;
 import java.util.List;
 
 import org.tensorics.core.commons.operations.Conversion;
 import org.tensorics.core.tree.domain.AbstractDeferredExpression;
 import org.tensorics.core.tree.domain.Expression;
 import org.tensorics.core.tree.domain.Node;
+import org.tensorics.core.tree.domain.RebuildableNode;
+import org.tensorics.core.tree.domain.RebuildingContext;
+import org.tensorics.core.tree.domain.StructuralNode;
 
 import com.google.common.collect.ImmutableList;
 
@@ -38,7 +42,8 @@ import com.google.common.collect.ImmutableList;
  * @param <T> the type of the values of the tensor
  * @param <R> the type of the tensorbacked object
  */
-public class ConversionOperationExpression<T, R> extends AbstractDeferredExpression<R> {
+public class ConversionOperationExpression<T, R> extends AbstractDeferredExpression<R> implements
+        RebuildableNode<ConversionOperationExpression<T, R>>, StructuralNode {
 
     private final Expression<T> sourceObject;
     private final Conversion<T, R> operation;
@@ -62,4 +67,18 @@ public class ConversionOperationExpression<T, R> extends AbstractDeferredExpress
         return operation;
     }
 
+    @Override
+    public List<?> getAttributes() {
+        return Collections.singletonList(operation);
+    }
+
+    @Override
+    public ConversionOperationExpression<T, R> rebuildWithNewChildren(RebuildingContext context) {
+        Expression<T> newSource = context.getUpdatedOrSame(sourceObject);
+        if (newSource == sourceObject) {
+            return this;
+        }
+        return new ConversionOperationExpression<>(operation, newSource);
+    }
+
 }
@@ -27,6 +27,7 @@ import java.util.List;
 import org.tensorics.core.math.operations.CreationOperation;
 import org.tensorics.core.tree.domain.AbstractDeferredExpression;
 import org.tensorics.core.tree.domain.Node;
+import org.tensorics.core.tree.domain.StructuralNode;
 
 /**
  * An expression which contains an operation which will create an object of a certain type just from nothing (with no
@@ -35,7 +36,7 @@ import org.tensorics.core.tree.domain.Node;
  * @author kfuchsbe
  * @param <T> the type of the object which will be created by the contained operation.
  */
-public class CreationOperationExpression<T> extends AbstractDeferredExpression<T> {
+public class CreationOperationExpression<T> extends AbstractDeferredExpression<T> implements StructuralNode {
 
     private final CreationOperation<T> operation;
 
@@ -53,4 +54,9 @@ public class CreationOperationExpression<T> extends AbstractDeferredExpression<T
         return operation;
     }
 
+    @Override
+    public List<?> getAttributes() {
+        return Collections.singletonList(operation);
+    }
+
 }
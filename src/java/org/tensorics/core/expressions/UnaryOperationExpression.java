@@ -29,6 +29,9 @@ import org.tensorics.core.math.operations.UnaryOperation;
 import org.tensorics.core.tree.domain.AbstractDeferredExpression;
 import org.tensorics.core.tree.domain.Expression;
 import org.tensorics.core.tree.domain.Node;
+import org.tensorics.core.tree.domain.RebuildableNode;
+import org.tensorics.core.tree.domain.RebuildingContext;
+import org.tensorics.core.tree.domain.StructuralNode;
 
 import com.google.common.collect.ImmutableList;
 
@@ -40,7 +43,8 @@ import com.google.common.collect.ImmutableList;
  * @author kfuchsbe
  * @param <T> the type of the unary operand on which to perform the unary operation
  */
-public class UnaryOperationExpression<T> extends AbstractDeferredExpression<T> {
+public class UnaryOperationExpression<T> extends AbstractDeferredExpression<T> implements
+        RebuildableNode<UnaryOperationExpression<T>>, StructuralNode {
 
     private final UnaryOperation<T> operation;
     private final Expression<T> operand;
@@ -64,4 +68,18 @@ public class UnaryOperationExpression<T> extends AbstractDeferredExpression<T> {
         return ImmutableList.<Node> of(operand);
     }
 
+    @Override
+    public List<?> getAttributes() {
+        return ImmutableList.of(operation);
+    }
+
+    @Override
+    public UnaryOperationExpression<T> rebuildWithNewChildren(RebuildingContext context) {
+        Expression<T> newOperand = context.getUpdatedOrSame(operand);
+        if (newOperand == operand) {
+            return this;
+        }
+        return new UnaryOperationExpression<>(operation, newOperand);
+    }
+
 }
@@ -24,6 +24,9 @@ import org.tensorics.core.math.predicates.BinaryPredicate;
 import org.tensorics.core.tree.domain.AbstractDeferredExpression;
 import org.tensorics.core.tree.domain.Expression;
 import org.tensorics.core.tree.domain.Node;
+import org.tensorics.core.tree.domain.RebuildableNode;
+import org.tensorics.core.tree.domain.RebuildingContext;
+import org.tensorics.core.tree.domain.StructuralNode;
 
 import java.util.List;
 
@@ -37,7 +40,8 @@ import static com.google.common.base.Preconditions.checkNotNull;
  * @param <T> the type of the results of the operands
  * @author caguiler
  */
-public class BinaryPredicateIterableExpression<T> extends AbstractDeferredExpression<Boolean> {
+public class BinaryPredicateIterableExpression<T> extends AbstractDeferredExpression<Boolean> implements
+        RebuildableNode<BinaryPredicateIterableExpression<T>>, StructuralNode {
 
     private final BinaryPredicate<T> predicate;
     private final Expression<Iterable<T>> left;
@@ -67,4 +71,19 @@ public class BinaryPredicateIterableExpression<T> extends AbstractDeferredExpres
         return ImmutableList.of(left, right);
     }
 
+    @Override
+    public List<?> getAttributes() {
+        return ImmutableList.of(predicate);
+    }
+
+    @Override
+    public BinaryPredicateIterableExpression<T> rebuildWithNewChildren(RebuildingContext context) {
+        Expression<Iterable<T>> newLeft = context.getUpdatedOrSame(left);
+        Expression<T> newRight = context.getUpdatedOrSame(right);
+        if ((newLeft == left) && (newRight == right)) {
+            return this;
+        }
+        return new BinaryPredicateIterableExpression<>(predicate, newLeft, newRight);
+    }
+
 }
@@ -25,6 +25,7 @@ package org.tensorics.core.iterable.expressions;
 import org.tensorics.core.commons.operations.Conversion;
 import org.tensorics.core.expressions.ConversionOperationExpression;
 import org.tensorics.core.tree.domain.Expression;
+import org.tensorics.core.tree.domain.RebuildingContext;
 
 /**
  * An unresolved expression which uses an operation on iterables to produce one value of the same type. An instance will
@@ -40,4 +41,13 @@ public class IterableOperationExpression<T> extends ConversionOperationExpressio
         super(operation, iterable);
     }
 
+    @Override
+    public IterableOperationExpression<T> rebuildWithNewChildren(RebuildingContext context) {
+        Expression<Iterable<T>> newSource = context.getUpdatedOrSame(getSource());
+        if (newSource == getSource()) {
+            return this;
+        }
+        return new IterableOperationExpression<>(getOperation(), newSource);
+    }
+
 }
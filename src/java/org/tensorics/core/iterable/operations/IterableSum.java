@@ -23,6 +23,7 @@
 package org.tensorics.core.iterable.operations;
 
 import org.tensorics.core.math.ExtendedField;
+import org.tensorics.core.math.operations.BinaryOperation;
 import org.tensorics.core.scalar.lang.ScalarSupport;
 
 /**
@@ -33,8 +34,11 @@ import org.tensorics.core.scalar.lang.ScalarSupport;
  */
 public class IterableSum<V> extends ScalarSupport<V> implements IterableOperation<V> {
 
+    private final ExtendedField<V> field;
+
     public IterableSum(ExtendedField<V> field) {
         super(field);
+        this.field = field;
     }
 
     @Override
@@ -46,4 +50,14 @@ public class IterableSum<V> extends ScalarSupport<V> implements IterableOperatio
         return sum;
     }
 
+    /**
+     * Provides the binary operation by which the values are summed up. This allows optimized implementations to
+     * accumulate the sum step by step, without first collecting all the values in an iterable.
+     * 
+     * @return the addition of the underlying field
+     */
+    public BinaryOperation<V> addition() {
+        return field.addition();
+    }
+
 }
@@ -32,6 +32,7 @@ import org.tensorics.core.quantity.options.UncorrelatedErrorPropagationStrategy;
 import org.tensorics.core.tensor.options.BroadcastMissingDimensionsStrategy;
 import org.tensorics.core.tensor.options.IntersectionShapingStrategy;
 import org.tensorics.core.tensor.options.LeftContextPreservedStrategy;
+import org.tensorics.core.tensor.options.SequentialExecutionStrategy;
 
 import com.google.common.collect.ImmutableList;
 
@@ -57,6 +58,7 @@ public final class ManipulationOptions {
      * <li> {@link UncorrelatedErrorPropagationStrategy}</li>
      * <li> {@link JScienceQuantificationStrategy}</li>
      * <li> {@link LeftContextPreservedStrategy}</li>
+     * <li> {@link SequentialExecutionStrategy}</li>
      * </ul>
      * 
      * @param field the for which to create the option-instances
@@ -70,7 +72,8 @@ public final class ManipulationOptions {
                 new RequireBothValidStrategy(), //
                 new UncorrelatedErrorPropagationStrategy<>(field), //
                 new JScienceQuantificationStrategy<>(field.cheating()), //
-                new LeftContextPreservedStrategy()));
+                new LeftContextPreservedStrategy(), //
+                new SequentialExecutionStrategy()));
     }
     // end::classdef[]
 }
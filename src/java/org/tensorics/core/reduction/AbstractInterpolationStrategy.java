@@ -4,11 +4,11 @@
 
 package org.tensorics.core.reduction;
 
-import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Set;
 
+import org.tensorics.core.tensor.SortedCoordinates;
 import org.tensorics.core.tensor.Tensor;
 
 /**
@@ -31,16 +31,25 @@ public abstract class AbstractInterpolationStrategy<C extends Comparable<C>, V>
     protected List<C> getOrderedListOfComparableCoodrinate(Tensor<V> tensorWithTheOnlyOneCoordinateOfC,
             C coordineteToInterpolate) {
 
+        return getSortedCoordinates(tensorWithTheOnlyOneCoordinateOfC, coordineteToInterpolate).asList();
+    }
+
+    /**
+     * Retrieves the sorted coordinates along which the interpolation will be done. They are cached within the shape of
+     * the tensor, so that repeated interpolations on the same tensor do not have to sort them again.
+     * 
+     * @param tensorWithTheOnlyOneCoordinateOfC tensor with only ONE coordinate
+     * @param coordineteToInterpolate the coordinate to extract
+     * @return the sorted coordinates, which allow binary search
+     */
+    protected SortedCoordinates<C> getSortedCoordinates(Tensor<V> tensorWithTheOnlyOneCoordinateOfC,
+            C coordineteToInterpolate) {
         checkIfOnlyCoordinatesOfTypeCAreIn(tensorWithTheOnlyOneCoordinateOfC, coordineteToInterpolate);
 
         /* we know that slice is the class of C */
         @SuppressWarnings("unchecked")
-        Set<C> coordinatesOfType = (Set<C>) tensorWithTheOnlyOneCoordinateOfC.shape().coordinatesOfType(
-                coordineteToInterpolate.getClass());
-
-        List<C> orderedList = new ArrayList<C>(coordinatesOfType);
-        Collections.sort(orderedList);
-        return orderedList;
+        Class<? extends C> dimension = (Class<? extends C>) coordineteToInterpolate.getClass();
+        return tensorWithTheOnlyOneCoordinateOfC.shape().sortedCoordinatesOf(dimension);
     }
 
     private void checkIfOnlyCoordinatesOfTypeCAreIn(Tensor<V> tensor, C coordineteToInterpolate) {
@@ -65,21 +74,10 @@ public abstract class AbstractInterpolationStrategy<C extends Comparable<C>, V>
      * @return the comparable coordinate BEFORE or AFTER the reference one.
      */
     protected C findIndex(List<C> orderedList, C referencePosition, int indexMove) {
-        int tempIndexToReturn = -1;
-        for (C one : orderedList) {
-            if (one.compareTo(referencePosition) < 0) {
-                tempIndexToReturn++;
-                break;
-            }
-        }
-        int indexToReturn = tempIndexToReturn + indexMove;
-
-        if (indexToReturn < 0) {
-            indexToReturn = 0;
-        } else if (indexToReturn > orderedList.size() - 2) {
-            indexToReturn = orderedList.size() - 2;
-        }
-        return orderedList.get(indexToReturn);
+        int searchIndex = Collections.binarySearch(orderedList, referencePosition);
+        int floorIndex = (searchIndex >= 0) ? searchIndex : -searchIndex - 2;
+        int previousIndex = Math.min(Math.max(floorIndex, 0), orderedList.size() - 2);
+        return orderedList.get(previousIndex + indexMove);
     }
 
 }
@@ -4,8 +4,10 @@
 
 package org.tensorics.core.reduction;
 
-import java.util.List;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
+import org.tensorics.core.tensor.SortedCoordinates;
 import org.tensorics.core.tensor.Tensor;
 
 /**
@@ -27,14 +29,37 @@ public abstract class AbstractLinearDoubleInterpolationStrategy<C extends Compar
     @Override
     public Double getInterpolatedValue(Tensor<Double> tensorWithTheOnlyOneCoordinateOfC, C coordineteToInterpolate) {
 
-        List<C> orderedList = getOrderedListOfComparableCoodrinate(tensorWithTheOnlyOneCoordinateOfC,
+        SortedCoordinates<C> coordinates = getSortedCoordinates(tensorWithTheOnlyOneCoordinateOfC,
                 coordineteToInterpolate);
-        C thePreviousComparable = findIndex(orderedList, coordineteToInterpolate, 0);
-        C theNextComparable = findIndex(orderedList, coordineteToInterpolate, 1);
+        return interpolate(tensorWithTheOnlyOneCoordinateOfC, coordinates, coordineteToInterpolate);
+    }
+
+    /**
+     * Interpolates at all the given coordinates, using the same sorted coordinates of the tensor for all of them. For
+     * each coordinate, the neighbours are found by binary search.
+     */
+    @Override
+    public Map<C, Double> getInterpolatedValues(Tensor<Double> tensorWithTheOnlyOneCoordinateOfC,
+            Iterable<C> coordinatesToInterpolate) {
+        Map<C, Double> values = new LinkedHashMap<>();
+        SortedCoordinates<C> coordinates = null;
+        for (C coordinate : coordinatesToInterpolate) {
+            if (coordinates == null) {
+                coordinates = getSortedCoordinates(tensorWithTheOnlyOneCoordinateOfC, coordinate);
+            }
+            values.put(coordinate, interpolate(tensorWithTheOnlyOneCoordinateOfC, coordinates, coordinate));
+        }
+        return values;
+    }
+
+    private Double interpolate(Tensor<Double> tensor, SortedCoordinates<C> coordinates, C coordinate) {
+        int previousIndex = coordinates.lowerNeighbourIndexOf(coordinate);
+        C thePreviousComparable = coordinates.get(previousIndex);
+        C theNextComparable = coordinates.get(previousIndex + 1);
 
-        Double firstPoint = tensorWithTheOnlyOneCoordinateOfC.get(thePreviousComparable);
-        return (tensorWithTheOnlyOneCoordinateOfC.get(theNextComparable) - firstPoint) + firstPoint
-                * ratio(thePreviousComparable, theNextComparable, coordineteToInterpolate);
+        Double firstPoint = tensor.get(thePreviousComparable);
+        return firstPoint + (tensor.get(theNextComparable) - firstPoint)
+                * ratio(thePreviousComparable, theNextComparable, coordinate);
     }
 
     public abstract double ratio(C previousComparable, C nextComparable, C value);
@@ -0,0 +1,64 @@
+// @formatter:off
+ /*******************************************************************************
+ *
+ * This file is part of tensorics.
+ * 
+ * Copyright (c) 2008-2011, CERN. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ ******************************************************************************/
+// @formatter:on
+
+package org.tensorics.core.reduction;
+
+import java.util.Map;
+
+import org.tensorics.core.tensor.Position;
+
+/**
+ * A reduction strategy which is based on an {@link Accumulator}. Reductions of tensors recognize this strategy and feed
+ * the values directly into one accumulation state per remaining position, so that no intermediate collection of the
+ * values to reduce has to be created.
+ * 
+ * @author kfuchsbe
+ * @param <S> the type of the values to reduce
+ * @param <A> the type of the accumulation state
+ */
+public class AccumulatingReduction<S, A> implements ReductionStrategy<Object, S> {
+
+    private final Accumulator<S, A> accumulator;
+
+    public AccumulatingReduction(Accumulator<S, A> accumulator) {
+        this.accumulator = accumulator;
+    }
+
+    @Override
+    public S reduce(Map<? extends Object, S> inputValues, Position position) {
+        A accumulation = accumulator.init();
+        for (S value : inputValues.values()) {
+            accumulation = accumulator.accumulate(accumulation, value);
+        }
+        return accumulator.finish(accumulation);
+    }
+
+    @Override
+    public Position context(Position originalContext) {
+        return originalContext;
+    }
+
+    public Accumulator<S, A> accumulator() {
+        return accumulator;
+    }
+
+}
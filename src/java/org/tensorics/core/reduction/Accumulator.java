@@ -0,0 +1,68 @@
+// @formatter:off
+ /*******************************************************************************
+ *
+ * This file is part of tensorics.
+ * 
+ * Copyright (c) 2008-2011, CERN. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ ******************************************************************************/
+// @formatter:on
+
+package org.tensorics.core.reduction;
+
+/**
+ * Describes a reduction of values which does not require all the values at once: The values are fed one by one into an
+ * accumulation state, which only has to hold what is necessary to calculate the final result (e.g. a count and a
+ * running mean). Accumulation states of two disjoint sets of values can be combined, which allows to accumulate parts
+ * of the values in parallel.
+ * <p>
+ * Accumulation states are allowed to be mutable: {@link #accumulate(Object, Object)} and
+ * {@link #combine(Object, Object)} may modify their first argument and return it. States which were passed to one of
+ * these methods must therefore not be used anymore afterwards, except for the returned one.
+ * 
+ * @author kfuchsbe
+ * @param <S> the type of the values to accumulate
+ * @param <A> the type of the accumulation state
+ * @see Accumulators
+ * @see AccumulatingReduction
+ */
+public interface Accumulator<S, A> {
+
+    /**
+     * @return a new accumulation state, which corresponds to no values accumulated yet
+     */
+    A init();
+
+    /**
+     * @param accumulation the state to which to add the value
+     * @param value the value to add
+     * @return the state which contains the value in addition to the ones of the given state
+     */
+    A accumulate(A accumulation, S value);
+
+    /**
+     * @param left the state of the one part of the values
+     * @param right the state of the other part of the values
+     * @return a state which represents all the values of both given states
+     */
+    A combine(A left, A right);
+
+    /**
+     * @param accumulation the state after all values were accumulated
+     * @return the result of the reduction
+     */
+    S finish(A accumulation);
+
+}
@@ -0,0 +1,369 @@
+// @formatter:off
+ /*******************************************************************************
+ *
+ * This file is part of tensorics.
+ * 
+ * Copyright (c) 2008-2011, CERN. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ ******************************************************************************/
+// @formatter:on
+
+package org.tensorics.core.reduction;
+
+import org.tensorics.core.math.ExtendedField;
+import org.tensorics.core.scalar.lang.ScalarSupport;
+
+/**
+ * Factory methods for accumulators of common statistical quantities. All of them only keep a constant number of field
+ * elements as state, independent of the number of accumulated values, and all of them can be combined.
+ * <p>
+ * The mean is calculated as the sum of the values divided by their count, exactly as {@link Averaging} does. The
+ * accumulators for the variance and the standard deviation use the online algorithm of Welford (and the one of Chan et
+ * al. for combining states), which is numerically more stable than summing up all squared values first.
+ * 
+ * @author kfuchsbe
+ */
+public final class Accumulators {
+
+    private Accumulators() {
+        /* only static methods */
+    }
+
+    /**
+     * @param field the field on which the accumulator is based
+     * @return an accumulator for the sum of the values (which is zero for no values)
+     */
+    public static <S> Accumulator<S, ?> sum(ExtendedField<S> field) {
+        return new SumAccumulator<>(field);
+    }
+
+    /**
+     * @param field the field on which the accumulator is based
+     * @return an accumulator which counts the values, expressed as a field element
+     */
+    public static <S> Accumulator<S, ?> count(ExtendedField<S> field) {
+        return new CountAccumulator<>(field);
+    }
+
+    /**
+     * @param field the field on which the accumulator is based
+     * @return an accumulator for the arithmetic mean of the values
+     */
+    public static <S> Accumulator<S, ?> mean(ExtendedField<S> field) {
+        return new SumsAccumulator<>(field, false);
+    }
+
+    /**
+     * @param field the field on which the accumulator is based
+     * @return an accumulator for the (population) variance of the values
+     */
+    public static <S> Accumulator<S, ?> variance(ExtendedField<S> field) {
+        return new MomentsAccumulator<>(field, Moment.VARIANCE);
+    }
+
+    /**
+     * @param field the field on which the accumulator is based
+     * @return an accumulator for the (population) standard deviation of the values
+     */
+    public static <S> Accumulator<S, ?> standardDeviation(ExtendedField<S> field) {
+        return new MomentsAccumulator<>(field, Moment.STANDARD_DEVIATION);
+    }
+
+    /**
+     * @param field the field on which the accumulator is based
+     * @return an accumulator for the root mean square of the values
+     */
+    public static <S> Accumulator<S, ?> rms(ExtendedField<S> field) {
+        return new SumsAccumulator<>(field, true);
+    }
+
+    /**
+     * @param field the field on which the accumulator is based
+     * @return an accumulator for the smallest of the values
+     */
+    public static <S> Accumulator<S, ?> min(ExtendedField<S> field) {
+        return new ExtremumAccumulator<>(field, false);
+    }
+
+    /**
+     * @param field the field on which the accumulator is based
+     * @return an accumulator for the biggest of the values
+     */
+    public static <S> Accumulator<S, ?> max(ExtendedField<S> field) {
+        return new ExtremumAccumulator<>(field, true);
+    }
+
+    /**
+     * A mutable holder for one field element.
+     */
+    private static final class Single<S> {
+        private S value;
+
+        Single(S value) {
+            this.value = value;
+        }
+    }
+
+    /**
+     * The state for the variance calculations: the count, the running mean and the sum of squared differences from
+     * the mean.
+     */
+    private static final class Moments<S> {
+        private long size;
+        private S count;
+        private S mean;
+        private S squaredDifferences;
+
+        Moments(S zero) {
+            this.count = zero;
+            this.mean = zero;
+            this.squaredDifferences = zero;
+        }
+    }
+
+    /**
+     * The state for the mean and rms calculations: the count and the sum of the values (or their squares).
+     */
+    private static final class Sums<S> {
+        private long size;
+        private S count;
+        private S sum;
+
+        Sums(S zero) {
+            this.count = zero;
+            this.sum = zero;
+        }
+    }
+
+    private enum Moment {
+        VARIANCE,
+        STANDARD_DEVIATION;
+    }
+
+    private static final class SumAccumulator<S> extends ScalarSupport<S> implements Accumulator<S, Single<S>> {
+
+        SumAccumulator(ExtendedField<S> field) {
+            super(field);
+        }
+
+        @Override
+        public Single<S> init() {
+            return new Single<>(zero());
+        }
+
+        @Override
+        public Single<S> accumulate(Single<S> accumulation, S value) {
+            accumulation.value = calculate(accumulation.value).plus(value);
+            return accumulation;
+        }
+
+        @Override
+        public Single<S> combine(Single<S> left, Single<S> right) {
+            return accumulate(left, right.value);
+        }
+
+        @Override
+        public S finish(Single<S> accumulation) {
+            return accumulation.value;
+        }
+    }
+
+    private static final class CountAccumulator<S> extends ScalarSupport<S> implements Accumulator<S, Single<S>> {
+
+        CountAccumulator(ExtendedField<S> field) {
+            super(field);
+        }
+
+        @Override
+        public Single<S> init() {
+            return new Single<>(zero());
+        }
+
+        @Override
+        public Single<S> accumulate(Single<S> accumulation, S value) {
+            accumulation.value = calculate(accumulation.value).plus(one());
+            return accumulation;
+        }
+
+        @Override
+        public Single<S> combine(Single<S> left, Single<S> right) {
+            left.value = calculate(left.value).plus(right.value);
+            return left;
+        }
+
+        @Override
+        public S finish(Single<S> accumulation) {
+            return accumulation.value;
+        }
+    }
+
+    private static final class ExtremumAccumulator<S> extends ScalarSupport<S> implements Accumulator<S, Single<S>> {
+
+        private final boolean maximum;
+
+        ExtremumAccumulator(ExtendedField<S> field, boolean maximum) {
+            super(field);
+            this.maximum = maximum;
+        }
+
+        @Override
+        public Single<S> init() {
+            return new Single<>(null);
+        }
+
+        @Override
+        public Single<S> accumulate(Single<S> accumulation, S value) {
+            if ((accumulation.value == null) || isBeyond(value, accumulation.value)) {
+                accumulation.value = value;
+            }
+            return accumulation;
+        }
+
+        private boolean isBeyond(S value, S extremum) {
+            if (maximum) {
+                return testIf(value).isGreaterThan(extremum);
+            }
+            return testIf(value).isLessThan(extremum);
+        }
+
+        @Override
+        public Single<S> combine(Single<S> left, Single<S> right) {
+            if (right.value == null) {
+                return left;
+            }
+            return accumulate(left, right.value);
+        }
+
+        @Override
+        public S finish(Single<S> accumulation) {
+            if (accumulation.value == null) {
+                throw new IllegalArgumentException("The extremum of an empty value set is not defined.");
+            }
+            return accumulation.value;
+        }
+    }
+
+    private static final class MomentsAccumulator<S> extends ScalarSupport<S> implements Accumulator<S, Moments<S>> {
+
+        private final Moment moment;
+
+        MomentsAccumulator(ExtendedField<S> field, Moment moment) {
+            super(field);
+            this.moment = moment;
+        }
+
+        @Override
+        public Moments<S> init() {
+            return new Moments<>(zero());
+        }
+
+        @Override
+        public Moments<S> accumulate(Moments<S> accumulation, S value) {
+            accumulation.size++;
+            accumulation.count = calculate(accumulation.count).plus(one());
+            S delta = calculate(value).minus(accumulation.mean);
+            accumulation.mean = calculate(accumulation.mean).plus(
+                    calculate(delta).dividedBy(accumulation.count));
+            S deltaToNewMean = calculate(value).minus(accumulation.mean);
+            accumulation.squaredDifferences = calculate(accumulation.squaredDifferences).plus(
+                    calculate(delta).times(deltaToNewMean));
+            return accumulation;
+        }
+
+        @Override
+        public Moments<S> combine(Moments<S> left, Moments<S> right) {
+            if (right.size == 0) {
+                return left;
+            }
+            if (left.size == 0) {
+                return right;
+            }
+            S count = calculate(left.count).plus(right.count);
+            S delta = calculate(right.mean).minus(left.mean);
+            S rightWeight = calculate(right.count).dividedBy(count);
+            left.mean = calculate(left.mean).plus(calculate(delta).times(rightWeight));
+            S crossTerm = calculate(squareOf(delta)).times(calculate(left.count).times(rightWeight));
+            left.squaredDifferences = calculate(calculate(left.squaredDifferences).plus(right.squaredDifferences))
+                    .plus(crossTerm);
+            left.count = count;
+            left.size += right.size;
+            return left;
+        }
+
+        @Override
+        public S finish(Moments<S> accumulation) {
+            if (accumulation.size == 0) {
+                throw new IllegalArgumentException("The " + moment.name().toLowerCase()
+                        + " of an empty value set is not defined.");
+            }
+            switch (moment) {
+            case VARIANCE:
+                return variance(accumulation);
+            default:
+                return squareRootOf(variance(accumulation));
+            }
+        }
+
+        private S variance(Moments<S> accumulation) {
+            return calculate(accumulation.squaredDifferences).dividedBy(accumulation.count);
+        }
+    }
+
+    private static final class SumsAccumulator<S> extends ScalarSupport<S> implements Accumulator<S, Sums<S>> {
+
+        private final boolean rootMeanSquare;
+
+        SumsAccumulator(ExtendedField<S> field, boolean rootMeanSquare) {
+            super(field);
+            this.rootMeanSquare = rootMeanSquare;
+        }
+
+        @Override
+        public Sums<S> init() {
+            return new Sums<>(zero());
+        }
+
+        @Override
+        public Sums<S> accumulate(Sums<S> accumulation, S value) {
+            accumulation.size++;
+            accumulation.count = calculate(accumulation.count).plus(one());
+            accumulation.sum = calculate(accumulation.sum).plus(rootMeanSquare ? squareOf(value) : value);
+            return accumulation;
+        }
+
+        @Override
+        public Sums<S> combine(Sums<S> left, Sums<S> right) {
+            left.size += right.size;
+            left.count = calculate(left.count).plus(right.count);
+            left.sum = calculate(left.sum).plus(right.sum);
+            return left;
+        }
+
+        @Override
+        public S finish(Sums<S> accumulation) {
+            if (rootMeanSquare) {
+                if (accumulation.size == 0) {
+                    throw new IllegalArgumentException("r.m.s. of empty value set is not possible.");
+                }
+                return squareRootOf(calculate(accumulation.sum).dividedBy(accumulation.count));
+            }
+            if (accumulation.size == 0) {
+                throw new IllegalArgumentException("The mean of an empty value set is not defined.");
+            }
+            return calculate(accumulation.sum).dividedBy(accumulation.count);
+        }
+    }
+
+}
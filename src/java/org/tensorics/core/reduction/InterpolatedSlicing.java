@@ -4,14 +4,31 @@
 
 package org.tensorics.core.reduction;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
 
-import org.tensorics.core.lang.Tensorics;
+import org.tensorics.core.tensor.Context;
+import org.tensorics.core.tensor.ImmutableTensor;
+import org.tensorics.core.tensor.ImmutableTensor.Builder;
 import org.tensorics.core.tensor.Position;
+import org.tensorics.core.tensor.Positions;
 import org.tensorics.core.tensor.Tensor;
+import org.tensorics.core.tensor.operations.TensorInternals;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Sets;
 
 /**
  * The extended slicing strategy that involves the possibility to interpolate over the specified, comparable coordinate
+ * <p>
+ * The values to interpolate are taken directly from the values which are passed to the reduction, so the original
+ * tensor does not have to be searched for every remaining position. To slice at many coordinates at once, use
+ * {@link #sliceAll(Tensor, Class, Iterable, InterpolationStrategy)}, which groups the tensor only once and lets the
+ * strategy interpolate all the slice positions of one group in one call.
  * 
  * @author agorzaws
  * @param <E> the type of the hold values
@@ -20,21 +37,93 @@ import org.tensorics.core.tensor.Tensor;
 public class InterpolatedSlicing<C extends Comparable<C>, E> extends Slicing<C, E> {
 
     private final InterpolationStrategy<C, E> strategy;
-    private final Tensor<E> tensor;
 
-    public InterpolatedSlicing(C slicePosition, InterpolationStrategy<C, E> strategy, Tensor<E> tensor) {
+    public InterpolatedSlicing(C slicePosition, InterpolationStrategy<C, E> strategy) {
         super(slicePosition);
         this.strategy = strategy;
-        this.tensor = tensor;
+    }
+
+    /**
+     * @deprecated the tensor is not required anymore, use {@link #InterpolatedSlicing(Comparable, InterpolationStrategy)}
+     */
+    @Deprecated
+    public InterpolatedSlicing(C slicePosition, InterpolationStrategy<C, E> strategy, Tensor<E> tensor) {
+        this(slicePosition, strategy);
     }
 
     @Override
     public E reduce(Map<? extends C, E> inputValues, Position position) {
         if (inputValues.get(slicePosition) == null) {
-            Tensor<E> extractedToInterpolate = Tensorics.from(tensor).extract(position);
-            return strategy.getInterpolatedValue(extractedToInterpolate, slicePosition);
+            return strategy.getInterpolatedValue(lineOf(inputValues, dimensionOf(slicePosition)), slicePosition);
         } else {
             return inputValues.get(slicePosition);
         }
     }
+
+    /**
+     * Slices the given tensor at all the given positions in the given dimension, interpolating where the tensor has no
+     * values. The tensor is grouped only once and for each group all the slice positions, which are not contained, are
+     * interpolated in one call of the strategy.
+     * 
+     * @param tensor the tensor to slice
+     * @param dimension the dimension in which to slice
+     * @param slicePositions the coordinates at which to slice
+     * @param strategy the strategy to use for interpolating the missing values
+     * @return the resulting tensor for each slice position (in the order of the given positions). Each of them has the
+     *         same dimensions as the tensor, except the given one.
+     */
+    public static <C extends Comparable<C>, E> Map<C, Tensor<E>> sliceAll(Tensor<E> tensor, Class<C> dimension,
+            Iterable<C> slicePositions, InterpolationStrategy<C, E> strategy) {
+        Set<Class<?>> remainingDimensions = Sets.difference(tensor.shape().dimensionSet(),
+                ImmutableSet.of(dimension));
+        Map<C, Builder<E>> builders = new LinkedHashMap<>();
+        for (C slicePosition : slicePositions) {
+            Builder<E> builder = ImmutableTensor.builder(remainingDimensions);
+            builder.setTensorContext(Context.of(Positions.union(tensor.context().getPosition(),
+                    Position.of(slicePosition)).coordinates()));
+            builders.put(slicePosition, builder);
+        }
+
+        Tensor<Map<C, E>> lines = TensorInternals.mapOut(tensor).inDirectionOf(dimension);
+        for (Entry<Position, Map<C, E>> line : lines.asMap().entrySet()) {
+            Map<C, E> values = line.getValue();
+            List<C> missing = new ArrayList<>();
+            for (Entry<C, Builder<E>> builder : builders.entrySet()) {
+                E value = values.get(builder.getKey());
+                if (value == null) {
+                    missing.add(builder.getKey());
+                } else {
+                    builder.getValue().putAt(value, line.getKey());
+                }
+            }
+            if (!missing.isEmpty()) {
+                Map<C, E> interpolated = strategy.getInterpolatedValues(lineOf(values, dimension), missing);
+                for (Entry<C, E> entry : interpolated.entrySet()) {
+                    if (entry.getValue() != null) {
+                        builders.get(entry.getKey()).putAt(entry.getValue(), line.getKey());
+                    }
+                }
+            }
+        }
+
+        Map<C, Tensor<E>> slices = new LinkedHashMap<>();
+        for (Entry<C, Builder<E>> builder : builders.entrySet()) {
+            slices.put(builder.getKey(), builder.getValue().build());
+        }
+        return slices;
+    }
+
+    private static <C> Class<? extends C> dimensionOf(C coordinate) {
+        @SuppressWarnings("unchecked")
+        Class<? extends C> dimension = (Class<? extends C>) coordinate.getClass();
+        return dimension;
+    }
+
+    private static <C, E> Tensor<E> lineOf(Map<? extends C, E> values, Class<? extends C> dimension) {
+        Builder<E> builder = ImmutableTensor.builder(dimension);
+        for (Entry<? extends C, E> entry : values.entrySet()) {
+            builder.putAt(entry.getValue(), Position.of(entry.getKey()));
+        }
+        return builder.build();
+    }
 }
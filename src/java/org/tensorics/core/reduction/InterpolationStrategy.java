@@ -4,6 +4,9 @@
 
 package org.tensorics.core.reduction;
 
+import java.util.LinkedHashMap;
+import java.util.Map;
+
 import org.tensorics.core.tensor.Tensor;
 
 /**
@@ -24,4 +27,21 @@ public interface InterpolationStrategy<C extends Comparable<C>, V> {
      */
     V getInterpolatedValue(Tensor<V> tensorWithTheOnlyOneCoordinateOfC, C coordineteToInterpolate);
 
+    /**
+     * Returns the interpolated values for several coordinates of C at once. Implementations should override this, if
+     * they can share work between the coordinates (e.g. searching the neighbours in the same sorted coordinates).
+     * 
+     * @param tensorWithTheOnlyOneCoordinateOfC the tensor where only C coordinates are kept
+     * @param coordinatesToInterpolate the coordinates for which to calculate the interpolated values
+     * @return the interpolated values per coordinate, in the order of the given coordinates
+     */
+    default Map<C, V> getInterpolatedValues(Tensor<V> tensorWithTheOnlyOneCoordinateOfC,
+            Iterable<C> coordinatesToInterpolate) {
+        Map<C, V> values = new LinkedHashMap<>();
+        for (C coordinate : coordinatesToInterpolate) {
+            values.put(coordinate, getInterpolatedValue(tensorWithTheOnlyOneCoordinateOfC, coordinate));
+        }
+        return values;
+    }
+
 }
@@ -22,6 +22,7 @@ package org.tensorics.core.resolve.engine;
 
 import org.tensorics.core.commons.options.OptionRegistry;
 import org.tensorics.core.resolve.domain.ResolvingException;
+import org.tensorics.core.resolve.options.ExpressionTransformationStrategy;
 import org.tensorics.core.resolve.options.ResolvingOption;
 import org.tensorics.core.resolve.options.ResolvingOptions;
 import org.tensorics.core.resolve.resolvers.ResolverRepository;
@@ -46,6 +47,7 @@ public class DefaultResolvingEngine implements ResolvingEngine {
     private static final int EMERGENCY_ABORT_LIMIT = 1000;
 
     private ResolverRepository resolverRepository;
+    private ResolvedExpressionCache cache;
 
     @Override
     public <R> R resolve(Expression<R> rootNode, ResolvingOption... options) {
@@ -59,12 +61,17 @@ public class DefaultResolvingEngine implements ResolvingEngine {
         int count = 0;
         EditableResolvingContext fullContext = Contexts.newResolvingContext();
         fullContext.putAllNew(initialContext);
+        if (cache != null) {
+            fullContext.putAllNew(cache.contextFor(rootNode, initialContext));
+        }
 
         OptionRegistry<ResolvingOption> optionsRegistry = ResolvingOptions.createRegistryWithDefaultsExcept(options);
-        while (!(fullContext.resolves(rootNode))) {
+        Expression<R> expression = optionsRegistry.get(ExpressionTransformationStrategy.class).transform(rootNode,
+                fullContext);
+        while (!(fullContext.resolves(expression))) {
             throwIfLimitReached(count);
             Dispatcher processor = new BiggestSubTreeDispatcher(resolverRepository);
-            ResolvingContext resolvedContext = processor.processTree(rootNode, fullContext, optionsRegistry);
+            ResolvingContext resolvedContext = processor.processTree(expression, fullContext, optionsRegistry);
             throwIfNoContexts(resolvedContext);
 
             int oldContextCount = fullContext.size();
@@ -74,7 +81,10 @@ public class DefaultResolvingEngine implements ResolvingEngine {
             }
             count++;
         }
-        return fullContext.resolvedValueOf(rootNode);
+        if (cache != null) {
+            cache.putAll(expression, fullContext, initialContext);
+        }
+        return fullContext.resolvedValueOf(expression);
     }
 
     private void throwIfNoContexts(ResolvingContext resolvedContext) {
@@ -92,4 +102,16 @@ public class DefaultResolvingEngine implements ResolvingEngine {
     public void setResolverRepository(ResolverRepository resolverRepository) {
         this.resolverRepository = resolverRepository;
     }
+
+    /**
+     * Sets a cache, from which the values of already known sub expressions are taken before resolving and into which
+     * all resolved values are stored afterwards. Values which are passed in the initial context take precedence over
+     * the cached ones, also for the expressions containing them: These are only taken from the cache, if they were
+     * resolved before with the same (identical) values in the initial context.
+     * 
+     * @param cache the cache to use, or {@code null} to resolve without cache
+     */
+    public void setCache(ResolvedExpressionCache cache) {
+        this.cache = cache;
+    }
 }
@@ -0,0 +1,264 @@
+// @formatter:off
+ /*******************************************************************************
+ *
+ * This file is part of tensorics.
+ * 
+ * Copyright (c) 2008-2011, CERN. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ ******************************************************************************/
+// @formatter:on
+
+package org.tensorics.core.resolve.engine;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.tensorics.core.resolve.options.ResolverSelectionStrategy;
+import org.tensorics.core.resolve.resolvers.Resolver;
+import org.tensorics.core.resolve.resolvers.ResolverRepository;
+import org.tensorics.core.tree.domain.Expression;
+import org.tensorics.core.tree.domain.Node;
+import org.tensorics.core.tree.domain.ResolvingContext;
+import org.tensorics.core.tree.walking.LoopDetectedException;
+
+/**
+ * The plan for resolving an expression: All the nodes, which cannot yet be resolved, collected into a graph of
+ * dependencies. Equal expressions, which appear several times in the tree, become one vertex of the graph and are thus
+ * resolved only once. The descent stops at nodes which can directly be resolved by one of the resolvers, so that
+ * resolvers which process whole sub trees at once still get the biggest possible chunks.
+ * <p>
+ * Each vertex counts its children, which are not yet resolved. The vertices which are ready from the beginning are
+ * determined by a topological sort, which also detects loops. While resolving, the engines report each resolved vertex
+ * by {@link #complete(Vertex)} and get the parents which became ready in return. The counters are thread safe, so the
+ * graph can be used by concurrent engines as well.
+ * 
+ * @author kfuchsbe
+ */
+final class ExpressionGraph {
+
+    private final Expression<?> rootNode;
+    private final ResolvingContext context;
+    private final ResolverRepository resolverRepository;
+    private final Map<Expression<?>, Vertex> vertices = new LinkedHashMap<>();
+    private final List<Vertex> readyVertices;
+
+    private ExpressionGraph(Expression<?> rootNode, ResolvingContext context, ResolverRepository resolverRepository) {
+        this.rootNode = rootNode;
+        this.context = context;
+        this.resolverRepository = resolverRepository;
+        buildGraph();
+        this.readyVertices = sortTopologically();
+    }
+
+    /**
+     * Plans the resolving of the given expression, based on the values which are already resolved in the given context.
+     * 
+     * @param rootNode the expression to resolve
+     * @param context the context containing the already resolved values
+     * @param resolverRepository the repository of the resolvers to use
+     * @return the plan for the expression
+     * @throws LoopDetectedException if the expression contains a loop
+     */
+    static ExpressionGraph plan(Expression<?> rootNode, ResolvingContext context,
+            ResolverRepository resolverRepository) {
+        return new ExpressionGraph(rootNode, context, resolverRepository);
+    }
+
+    /**
+     * Selects the resolver to use for the given expression, among all resolvers which are able to resolve it in the
+     * given context.
+     * 
+     * @return the selected resolver or {@code null}, if no resolver is able to resolve the expression
+     */
+    static <R> Resolver<R, Expression<R>> selectResolver(Expression<R> expression, ResolvingContext context,
+            ResolverRepository resolverRepository, ResolverSelectionStrategy resolverSelection) {
+        List<Resolver<R, Expression<R>>> capableResolvers = new ArrayList<>();
+        for (Resolver<R, Expression<R>> resolver : resolverRepository.resolversFor(expression)) {
+            if (resolver.canResolve(expression, context)) {
+                capableResolvers.add(resolver);
+            }
+        }
+        if (capableResolvers.isEmpty()) {
+            return null;
+        }
+        return resolverSelection.selectResolver(capableResolvers);
+    }
+
+    private void buildGraph() {
+        Deque<Vertex> toVisit = new ArrayDeque<>();
+        toVisit.push(vertexFor(rootNode));
+        while (!toVisit.isEmpty()) {
+            Vertex vertex = toVisit.pop();
+            if (isDirectlyResolvable(vertex.expression)) {
+                continue;
+            }
+            for (Node child : vertex.expression.getChildren()) {
+                if (!(child instanceof Expression<?>)) {
+                    throw new IllegalStateException("Node '" + child + "' is not an expression!");
+                }
+                Expression<?> childExpression = (Expression<?>) child;
+                if (context.resolves(childExpression)) {
+                    continue;
+                }
+                Vertex childVertex = vertices.get(childExpression);
+                if (childVertex == null) {
+                    childVertex = vertexFor(childExpression);
+                    toVisit.push(childVertex);
+                }
+                if (childVertex.parents.add(vertex)) {
+                    vertex.pendingChildren.incrementAndGet();
+                }
+            }
+        }
+    }
+
+    private Vertex vertexFor(Expression<?> expression) {
+        Vertex vertex = new Vertex(expression);
+        vertices.put(expression, vertex);
+        return vertex;
+    }
+
+    private <R> boolean isDirectlyResolvable(Expression<R> expression) {
+        for (Resolver<R, Expression<R>> resolver : resolverRepository.resolversFor(expression)) {
+            if (resolver.canResolve(expression, context)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private List<Vertex> sortTopologically() {
+        Map<Vertex, Integer> pending = new HashMap<>();
+        Deque<Vertex> sortable = new ArrayDeque<>();
+        List<Vertex> ready = new ArrayList<>();
+        for (Vertex vertex : vertices.values()) {
+            pending.put(vertex, vertex.pendingChildren.get());
+            if (vertex.pendingChildren.get() == 0) {
+                sortable.add(vertex);
+                ready.add(vertex);
+            }
+        }
+        int sorted = 0;
+        while (!sortable.isEmpty()) {
+            Vertex vertex = sortable.poll();
+            sorted++;
+            for (Vertex parent : vertex.parents) {
+                int remaining = pending.get(parent) - 1;
+                pending.put(parent, remaining);
+                if (remaining == 0) {
+                    sortable.add(parent);
+                }
+            }
+        }
+        if (sorted < vertices.size()) {
+            throw new LoopDetectedException("The expression '" + rootNode + "' contains a loop. "
+                    + (vertices.size() - sorted) + " nodes could not be sorted.");
+        }
+        return Collections.unmodifiableList(ready);
+    }
+
+    /**
+     * @return the vertices whose children are all resolved already at the time of planning
+     */
+    List<Vertex> readyVertices() {
+        return readyVertices;
+    }
+
+    /**
+     * @return the number of vertices, which had to be planned
+     */
+    int size() {
+        return vertices.size();
+    }
+
+    /**
+     * @return {@code true} if the given vertex is the one of the root node, {@code false} otherwise
+     */
+    boolean isRoot(Vertex vertex) {
+        return rootNode.equals(vertex.expression);
+    }
+
+    /**
+     * Marks the given vertex as resolved. Each vertex is completed only once; further calls have no effect.
+     * 
+     * @param vertex the vertex whose expression was resolved
+     * @return the parents of the vertex, which became ready by this call
+     */
+    List<Vertex> complete(Vertex vertex) {
+        if (!vertex.completed.compareAndSet(false, true)) {
+            return Collections.emptyList();
+        }
+        List<Vertex> nowReady = new ArrayList<>();
+        for (Vertex parent : vertex.parents) {
+            if (parent.pendingChildren.decrementAndGet() == 0) {
+                nowReady.add(parent);
+            }
+        }
+        return nowReady;
+    }
+
+    /**
+     * Finds all the ancestors of the given vertex, which are resolved in the context, but not yet completed (e.g.
+     * because an exception was handled by one of them).
+     * 
+     * @param vertex the vertex whose ancestors to check
+     * @return the resolved ancestors, which still have to be completed
+     */
+    List<Vertex> resolvedAncestorsOf(Vertex vertex) {
+        List<Vertex> resolved = new ArrayList<>();
+        Deque<Vertex> ancestors = new ArrayDeque<>(vertex.parents);
+        Set<Vertex> visited = new HashSet<>();
+        while (!ancestors.isEmpty()) {
+            Vertex ancestor = ancestors.pop();
+            if (!visited.add(ancestor)) {
+                continue;
+            }
+            if (context.resolves(ancestor.expression) && !ancestor.completed.get()) {
+                resolved.add(ancestor);
+            }
+            ancestors.addAll(ancestor.parents);
+        }
+        return resolved;
+    }
+
+    /**
+     * A node of the dependency graph.
+     */
+    static final class Vertex {
+        private final Expression<?> expression;
+        private final Set<Vertex> parents = new LinkedHashSet<>();
+        private final AtomicInteger pendingChildren = new AtomicInteger();
+        private final AtomicBoolean completed = new AtomicBoolean();
+
+        Vertex(Expression<?> expression) {
+            this.expression = expression;
+        }
+
+        Expression<?> expression() {
+            return expression;
+        }
+    }
+}
@@ -0,0 +1,324 @@
+// @formatter:off
+ /*******************************************************************************
+ *
+ * This file is part of tensorics.
+ * 
+ * Copyright (c) 2008-2011, CERN. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ ******************************************************************************/
+// @formatter:on
+
+package org.tensorics.core.resolve.engine;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.tensorics.core.commons.options.OptionRegistry;
+import org.tensorics.core.resolve.options.ExpressionTransformationStrategy;
+import org.tensorics.core.resolve.options.ResolvingOption;
+import org.tensorics.core.tree.domain.Contexts;
+import org.tensorics.core.tree.domain.EditableResolvingContext;
+import org.tensorics.core.tree.domain.Expression;
+import org.tensorics.core.tree.domain.Node;
+import org.tensorics.core.tree.domain.RebuildableNode;
+import org.tensorics.core.tree.domain.RebuildingContext;
+import org.tensorics.core.tree.domain.RebuildingContextImpl;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * Resolves one expression repeatedly, while some of its inputs change in between. All resolved values are kept from
+ * one call of {@link #resolve()} to the next. When the caller marks an input as changed (by
+ * {@link #update(Expression, Object)}, {@link #replace(Expression, Expression)} or {@link #invalidate(Node)}), only the
+ * values of the ancestors of this input are discarded, so that the next call to {@link #resolve()} recomputes only the
+ * affected paths.
+ * <p>
+ * For this purpose, the parents of each node of the tree are indexed once at construction. The
+ * {@link ExpressionTransformationStrategy} of the given options is applied only once, at construction, before the tree
+ * is indexed, so that e.g. common sub expressions are also resolved only once. The nodes of the original expression
+ * are mapped to the nodes which took their place in the transformed tree, so that inputs can still be referred to by
+ * the original nodes, while {@link #rootNode()} returns the transformed tree. Nodes which were merged with other nodes
+ * by the transformation (e.g. two resolved inputs of equal value) stand for all of them and therefore cannot be
+ * replaced on their own. Nodes which are put into the tree by {@link #replace(Expression, Expression)} are not
+ * transformed.
+ * Instances of this class are not thread safe.
+ * 
+ * @author kfuchsbe
+ * @param <R> the type of the result of the expression
+ */
+public final class IncrementalResolution<R> {
+
+    private final SinglePassResolvingEngine engine;
+    private final OptionRegistry<ResolvingOption> options;
+    private final EditableResolvingContext context = Contexts.newResolvingContext();
+    private final Map<Node, Set<Node>> parents = new HashMap<>();
+    private final Map<Node, Integer> heights = new HashMap<>();
+    private final Map<Node, Node> transformedNodes = new HashMap<>();
+    private final Set<Node> mergedNodes = new HashSet<>();
+    private Expression<R> rootNode;
+
+    IncrementalResolution(SinglePassResolvingEngine engine, Expression<R> rootNode,
+            OptionRegistry<ResolvingOption> options) {
+        this.engine = Preconditions.checkNotNull(engine, "engine must not be null.");
+        this.options = Preconditions.checkNotNull(options, "options must not be null.");
+        Preconditions.checkNotNull(rootNode, "rootNode must not be null.");
+        this.rootNode = options.get(ExpressionTransformationStrategy.class).transform(rootNode, context);
+        mapTransformed(rootNode, this.rootNode);
+        index(this.rootNode);
+    }
+
+    /**
+     * Resolves the expression, reusing all the values which were not invalidated since the last call.
+     * 
+     * @return the resolved value of the expression
+     */
+    public R resolve() {
+        engine.resolveInto(rootNode, context, options);
+        return context.resolvedValueOf(rootNode);
+    }
+
+    /**
+     * Sets a new value for an unresolved input of the expression (e.g. an expression whose value is provided from
+     * outside) and invalidates all its ancestors.
+     * 
+     * @param input the input expression, which must be part of the tree
+     * @param value the new value of the input
+     * @throws IllegalArgumentException if the input is not part of the expression or is a resolved expression
+     */
+    public <T> void update(Expression<T> input, T value) {
+        Preconditions.checkArgument(!input.isResolved(), "Resolved expression '" + input
+                + "' cannot be updated. Use replace() instead.");
+        invalidate(input);
+        context.put(transformed(input), value);
+    }
+
+    /**
+     * Replaces the given node of the expression (e.g. a {@link org.tensorics.core.tree.domain.ResolvedExpression} of an
+     * input tensor) by a new one. All its ancestors are rebuilt with the new node and have to be resolved again. All
+     * other values are kept.
+     * 
+     * @param oldInput the node to replace, which must be part of the tree
+     * @param newInput the node to put in place of the old one
+     * @throws IllegalArgumentException if the old node is not part of the expression, was merged with other nodes by
+     *             the expression transformation or one of its ancestors is not a {@link RebuildableNode}
+     */
+    public <T> void replace(Expression<T> oldInput, Expression<T> newInput) {
+        Preconditions.checkNotNull(newInput, "newInput must not be null.");
+        Expression<T> oldNode = transformed(oldInput);
+        Preconditions.checkArgument(!mergedNodes.contains(oldNode), "Node '" + oldInput + "' was merged with other"
+                + " nodes by the expression transformation. Therefore it cannot be replaced on its own.");
+        List<Node> affected = affectedBy(oldNode);
+        List<Node> ancestors = affected.subList(1, affected.size());
+        for (Node ancestor : ancestors) {
+            Preconditions.checkArgument(ancestor instanceof RebuildableNode, "Node '" + ancestor
+                    + "' cannot be rebuilt. Therefore '" + oldInput + "' cannot be replaced.");
+        }
+
+        index(newInput);
+        RebuildingContext rebuildingContext = new RebuildingContextImpl();
+        rebuildingContext.put(oldNode, newInput);
+        for (Node ancestor : ancestors) {
+            Node newAncestor = ((RebuildableNode<?>) ancestor).rebuildWithNewChildren(rebuildingContext);
+            rebuildingContext.put(ancestor, newAncestor);
+            indexParentOfIndexedChildren(newAncestor);
+        }
+        rootNode = rebuildingContext.getUpdatedOrSame(rootNode);
+
+        for (Node node : reversed(affected)) {
+            forgetIfUnused(node);
+        }
+        transformedNodes.remove(oldInput);
+        for (Map.Entry<Node, Node> entry : transformedNodes.entrySet()) {
+            entry.setValue(rebuildingContext.getUpdatedOrSame(entry.getValue()));
+        }
+    }
+
+    /**
+     * Discards the resolved values of the given node and all its ancestors, so that they are resolved again by the next
+     * call to {@link #resolve()}.
+     * 
+     * @param changedNode the node whose value changed
+     * @throws IllegalArgumentException if the node is not part of the expression
+     */
+    public void invalidate(Node changedNode) {
+        for (Node node : affectedBy(transformed(changedNode))) {
+            removeValueOf(node);
+        }
+    }
+
+    /**
+     * @return the current root node of the expression, which changes when inputs are replaced
+     */
+    public Expression<R> rootNode() {
+        return rootNode;
+    }
+
+    /**
+     * Walks the original and the transformed tree in parallel and remembers, which node of the transformed tree took
+     * the place of each original node which is not part of the transformed tree itself. Transformed nodes which took
+     * the place of more than one original node are remembered as merged. Sub trees whose structure was changed by the
+     * transformation are not mapped.
+     */
+    private void mapTransformed(Node originalRoot, Node transformedRoot) {
+        Map<Node, Node> originOf = new HashMap<>();
+        Set<Node> visited = new HashSet<>();
+        Deque<Node[]> toVisit = new ArrayDeque<>();
+        toVisit.push(new Node[] { originalRoot, transformedRoot });
+        while (!toVisit.isEmpty()) {
+            Node[] pair = toVisit.pop();
+            Node original = pair[0];
+            Node transformed = pair[1];
+            if (!visited.add(original)) {
+                continue;
+            }
+            Node otherOrigin = originOf.put(transformed, original);
+            if ((otherOrigin != null) && !otherOrigin.equals(original)) {
+                mergedNodes.add(transformed);
+            }
+            if (!original.equals(transformed)) {
+                transformedNodes.put(original, transformed);
+            }
+            List<? extends Node> originalChildren = original.getChildren();
+            List<? extends Node> transformedChildren = transformed.getChildren();
+            if (originalChildren.size() == transformedChildren.size()) {
+                for (int i = 0; i < originalChildren.size(); i++) {
+                    toVisit.push(new Node[] { originalChildren.get(i), transformedChildren.get(i) });
+                }
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private <N extends Node> N transformed(N node) {
+        Node transformed = transformedNodes.get(node);
+        return (transformed == null) ? node : (N) transformed;
+    }
+
+    /**
+     * Indexes all the nodes of the given sub tree, which are not yet known. The tree is walked only once, children
+     * before their parents, so that the height of each node can be calculated from the ones of its children.
+     */
+    private void index(Node subTreeRoot) {
+        Set<Node> expanded = new HashSet<>();
+        Deque<Node> toVisit = new ArrayDeque<>();
+        toVisit.push(subTreeRoot);
+        while (!toVisit.isEmpty()) {
+            Node node = toVisit.peek();
+            if (heights.containsKey(node)) {
+                toVisit.pop();
+            } else if (expanded.add(node)) {
+                for (Node child : node.getChildren()) {
+                    if (!heights.containsKey(child)) {
+                        toVisit.push(child);
+                    }
+                }
+            } else {
+                toVisit.pop();
+                indexParentOfIndexedChildren(node);
+            }
+        }
+    }
+
+    private void indexParentOfIndexedChildren(Node node) {
+        int height = 0;
+        for (Node child : node.getChildren()) {
+            parentsOf(child).add(node);
+            Integer childHeight = heights.get(child);
+            if (childHeight != null) {
+                height = Math.max(height, childHeight + 1);
+            }
+        }
+        heights.put(node, height);
+    }
+
+    private Set<Node> parentsOf(Node node) {
+        Set<Node> nodeParents = parents.get(node);
+        if (nodeParents == null) {
+            nodeParents = new LinkedHashSet<>();
+            parents.put(node, nodeParents);
+        }
+        return nodeParents;
+    }
+
+    /**
+     * @return the given node and all its ancestors, ordered such that each node comes before its parents
+     */
+    private List<Node> affectedBy(Node changedNode) {
+        Preconditions.checkArgument(heights.containsKey(changedNode), "Node '" + changedNode
+                + "' is not part of the expression '" + rootNode + "'.");
+        Set<Node> affected = new HashSet<>();
+        Deque<Node> toVisit = new ArrayDeque<>();
+        toVisit.push(changedNode);
+        while (!toVisit.isEmpty()) {
+            Node node = toVisit.pop();
+            if (affected.add(node) && parents.containsKey(node)) {
+                toVisit.addAll(parents.get(node));
+            }
+        }
+        List<Node> ordered = new ArrayList<>(affected);
+        Collections.sort(ordered, new Comparator<Node>() {
+            @Override
+            public int compare(Node left, Node right) {
+                return Integer.compare(heights.get(left), heights.get(right));
+            }
+        });
+        return ordered;
+    }
+
+    /**
+     * Removes the given node from the index, if it is no longer part of the tree. The same is done for all its
+     * descendants, which are not part of the tree anymore then.
+     */
+    private void forgetIfUnused(Node unusedCandidate) {
+        Deque<Node> candidates = new ArrayDeque<>();
+        candidates.push(unusedCandidate);
+        while (!candidates.isEmpty()) {
+            Node node = candidates.pop();
+            Set<Node> nodeParents = parents.get(node);
+            if (node.equals(rootNode) || !heights.containsKey(node)
+                    || ((nodeParents != null) && !nodeParents.isEmpty())) {
+                continue;
+            }
+            heights.remove(node);
+            parents.remove(node);
+            removeValueOf(node);
+            for (Node child : node.getChildren()) {
+                parentsOf(child).remove(node);
+                candidates.push(child);
+            }
+        }
+    }
+
+    private void removeValueOf(Node node) {
+        if (node instanceof Expression) {
+            context.remove((Expression<?>) node);
+        }
+    }
+
+    private static List<Node> reversed(List<Node> nodes) {
+        List<Node> reversed = new ArrayList<>(nodes);
+        Collections.reverse(reversed);
+        return reversed;
+    }
+}
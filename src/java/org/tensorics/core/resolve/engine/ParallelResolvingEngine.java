@@ -0,0 +1,252 @@
+// @formatter:off
+ /*******************************************************************************
+ *
+ * This file is part of tensorics.
+ * 
+ * Copyright (c) 2008-2011, CERN. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ ******************************************************************************/
+// @formatter:on
+
+package org.tensorics.core.resolve.engine;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.tensorics.core.commons.options.OptionRegistry;
+import org.tensorics.core.resolve.domain.ExceptionHandlingRequest;
+import org.tensorics.core.resolve.domain.ResolvingException;
+import org.tensorics.core.resolve.engine.ExpressionGraph.Vertex;
+import org.tensorics.core.resolve.options.ExceptionHandlingStrategy;
+import org.tensorics.core.resolve.options.ExpressionTransformationStrategy;
+import org.tensorics.core.resolve.options.ResolverSelectionStrategy;
+import org.tensorics.core.resolve.options.ResolvingOption;
+import org.tensorics.core.resolve.options.ResolvingOptions;
+import org.tensorics.core.resolve.resolvers.Resolver;
+import org.tensorics.core.resolve.resolvers.ResolverRepository;
+import org.tensorics.core.tree.domain.Contexts;
+import org.tensorics.core.tree.domain.EditableResolvingContext;
+import org.tensorics.core.tree.domain.Expression;
+import org.tensorics.core.tree.domain.ResolvingContext;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * A resolving engine, which resolves independent parts of an expression concurrently.
+ * <p>
+ * In contrast to the {@link DefaultResolvingEngine}, which walks the whole tree again after each round of resolving,
+ * this engine plans the expression only once (see {@link ExpressionGraph}) and submits each node to the executor as
+ * soon as all of its children are resolved.
+ * <p>
+ * Exceptions are treated by the {@link ExceptionHandlingStrategy} from the options, as in the default engine. If the
+ * strategy resolves an ancestor of the failing node, then the resolving continues from this ancestor.
+ * 
+ * @author kfuchsbe
+ */
+public class ParallelResolvingEngine implements ResolvingEngine {
+
+    private final Executor executor;
+    private ResolverRepository resolverRepository;
+
+    /**
+     * Creates an engine which executes the nodes in the common fork join pool.
+     */
+    public ParallelResolvingEngine() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Creates an engine which executes the nodes with the given executor.
+     * 
+     * @param executor the executor to use for resolving the nodes
+     */
+    public ParallelResolvingEngine(Executor executor) {
+        this.executor = Preconditions.checkNotNull(executor, "executor must not be null.");
+    }
+
+    @Override
+    public <R> R resolve(Expression<R> rootNode, ResolvingOption... options) {
+        return resolve(rootNode, Contexts.newResolvingContext(), options);
+    }
+
+    @Override
+    public <R> R resolve(Expression<R> rootNode, ResolvingContext initialContext, ResolvingOption... options) {
+        Preconditions.checkNotNull(resolverRepository, "resolverRepository must not be null.");
+        Preconditions.checkNotNull(initialContext, "initialContext must not be null.");
+        EditableResolvingContext fullContext = Contexts.newResolvingContext();
+        fullContext.putAllNew(initialContext);
+
+        OptionRegistry<ResolvingOption> optionsRegistry = ResolvingOptions.createRegistryWithDefaultsExcept(options);
+        Expression<R> expression = optionsRegistry.get(ExpressionTransformationStrategy.class).transform(rootNode,
+                fullContext);
+        if (!fullContext.resolves(expression)) {
+            new Execution(expression, fullContext, optionsRegistry).run();
+        }
+        return fullContext.resolvedValueOf(expression);
+    }
+
+    public void setResolverRepository(ResolverRepository resolverRepository) {
+        this.resolverRepository = resolverRepository;
+    }
+
+    /**
+     * The state of one call to the resolve method.
+     */
+    private final class Execution {
+
+        private final Expression<?> rootNode;
+        private final EditableResolvingContext context;
+        private final ExceptionHandlingStrategy exceptionHandling;
+        private final ResolverSelectionStrategy resolverSelection;
+        private final AtomicInteger runningTasks = new AtomicInteger();
+        private final AtomicReference<RuntimeException> failure = new AtomicReference<>();
+        private final CountDownLatch finished = new CountDownLatch(1);
+        private ExpressionGraph graph;
+
+        Execution(Expression<?> rootNode, EditableResolvingContext context, OptionRegistry<ResolvingOption> options) {
+            this.rootNode = rootNode;
+            this.context = context;
+            this.exceptionHandling = options.get(ExceptionHandlingStrategy.class);
+            this.resolverSelection = options.get(ResolverSelectionStrategy.class);
+        }
+
+        void run() {
+            graph = ExpressionGraph.plan(rootNode, context, resolverRepository);
+            runningTasks.incrementAndGet();
+            try {
+                submitAll(graph.readyVertices());
+            } finally {
+                taskFinished();
+            }
+            awaitFinished();
+            RuntimeException exception = failure.get();
+            if (exception != null) {
+                throw exception;
+            }
+        }
+
+        private void submitAll(List<Vertex> vertices) {
+            for (Vertex vertex : vertices) {
+                submit(vertex);
+            }
+        }
+
+        private void submit(final Vertex vertex) {
+            runningTasks.incrementAndGet();
+            try {
+                executor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        try {
+                            process(vertex);
+                        } finally {
+                            taskFinished();
+                        }
+                    }
+                });
+            } catch (RuntimeException e) {
+                taskFinished();
+                fail(e);
+            }
+        }
+
+        private void process(Vertex vertex) {
+            if (failure.get() != null) {
+                return;
+            }
+            try {
+                if (!context.resolves(vertex.expression())) {
+                    resolveNode(vertex.expression());
+                }
+            } catch (RuntimeException e) {
+                handle(vertex, e);
+                return;
+            }
+            complete(vertex);
+        }
+
+        private <R> void resolveNode(Expression<R> expression) {
+            Resolver<R, Expression<R>> resolver = ExpressionGraph.selectResolver(expression, context,
+                    resolverRepository, resolverSelection);
+            if (resolver == null) {
+                throw new ResolvingException("No resolver is able to resolve the expression '" + expression + "'.");
+            }
+            context.put(expression, resolver.resolve(expression, context));
+        }
+
+        private void handle(Vertex vertex, RuntimeException exception) {
+            try {
+                exceptionHandling.handleWithRootNodeFailingNodeException(ExceptionHandlingRequest.builder()
+                        .withRoot(rootNode).withThrowingNode(vertex.expression()).withException(exception)
+                        .withContext(context).build());
+            } catch (RuntimeException e) {
+                fail(e);
+                return;
+            }
+            for (Vertex ancestor : graph.resolvedAncestorsOf(vertex)) {
+                complete(ancestor);
+            }
+        }
+
+        private void complete(Vertex vertex) {
+            List<Vertex> nowReady = graph.complete(vertex);
+            if (graph.isRoot(vertex)) {
+                finished.countDown();
+            }
+            submitAll(nowReady);
+        }
+
+        private void fail(RuntimeException exception) {
+            failure.compareAndSet(null, exception);
+            finished.countDown();
+        }
+
+        /**
+         * Called at the end of each task. If no more tasks are running, but the root node is still not resolved, then
+         * nothing will resolve it anymore.
+         */
+        private void taskFinished() {
+            if ((runningTasks.decrementAndGet() == 0) && (finished.getCount() > 0)) {
+                fail(new ResolvingException("The expression '" + rootNode
+                        + "' could not be resolved: No more nodes are ready to be resolved."));
+            }
+        }
+
+        private void awaitFinished() {
+            try {
+                ForkJoinPool.managedBlock(new ForkJoinPool.ManagedBlocker() {
+                    @Override
+                    public boolean block() throws InterruptedException {
+                        finished.await();
+                        return true;
+                    }
+
+                    @Override
+                    public boolean isReleasable() {
+                        return finished.getCount() == 0;
+                    }
+                });
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new ResolvingException("Interrupted while waiting for the expression '" + rootNode
+                        + "' to be resolved.", e);
+            }
+        }
+    }
+}
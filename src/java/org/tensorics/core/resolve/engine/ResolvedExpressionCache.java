@@ -0,0 +1,290 @@
+// @formatter:off
+ /*******************************************************************************
+ *
+ * This file is part of tensorics.
+ * 
+ * Copyright (c) 2008-2011, CERN. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ ******************************************************************************/
+// @formatter:on
+
+package org.tensorics.core.resolve.engine;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.tensorics.core.tensor.Tensor;
+import org.tensorics.core.tree.domain.Contexts;
+import org.tensorics.core.tree.domain.EditableResolvingContext;
+import org.tensorics.core.tree.domain.Expression;
+import org.tensorics.core.tree.domain.Node;
+import org.tensorics.core.tree.domain.ResolvingContext;
+import org.tensorics.core.tree.domain.StructuralNode;
+
+import com.google.common.base.Preconditions;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.cache.Weigher;
+import com.google.common.collect.MapMaker;
+import com.google.common.collect.Sets;
+
+/**
+ * A bounded cache for the values of resolved expressions, which can be shared between several calls to a resolving
+ * engine (and between threads). Before resolving, the engine retrieves the values of all the sub expressions which are
+ * already known as initial context ({@link #contextFor(Expression, ResolvingContext)}) and afterwards stores the newly
+ * resolved values ({@link #putAll(Expression, ResolvingContext, ResolvingContext)}).
+ * <p>
+ * The values are not stored by the expression instances, but by a key which describes the structure of the
+ * expression: For {@link StructuralNode}s with children, this is the class, the attributes and the keys of the
+ * children, so that equal expressions, which are built again for each call on the same leaves, find the values of the
+ * previous call. Leaves and all other nodes are identified by their identity: They get a token when they are seen the
+ * first time, which is held in a weak identity map, so that neither the nodes nor their values (e.g. the tensors of
+ * {@link org.tensorics.core.tree.domain.ResolvedExpression}s) are retained by the keys and the keys are cheap to
+ * compare. {@link #inputChanged(Node)} gives a node a new token, whenever the value behind it changed. The keys of all
+ * the ancestors change with it, so that their values are resolved again. Expressions whose values are passed in by the
+ * initial context of the caller are identified by (the identity of) these values instead, so that the ancestors of an
+ * expression are not taken from the cache, as soon as a different value is passed in for it.
+ * <p>
+ * The values are weighted by their size (the number of elements for tensors, 1 for all others) and the least recently
+ * used ones are evicted, as soon as the total weight exceeds the given maximum.
+ * 
+ * @author kfuchsbe
+ */
+public final class ResolvedExpressionCache {
+
+    private final Cache<Key, Object> values;
+    private final ConcurrentMap<Node, Long> tokens = new MapMaker().weakKeys().makeMap();
+    private final ConcurrentMap<Object, Long> valueTokens = new MapMaker().weakKeys().makeMap();
+    private final AtomicLong lastToken = new AtomicLong();
+
+    private ResolvedExpressionCache(long maximumWeight) {
+        this.values = CacheBuilder.newBuilder().maximumWeight(maximumWeight).weigher(new ValueSizeWeigher())
+                .recordStats().build();
+    }
+
+    /**
+     * Creates a new cache, which will keep values up to the given total weight.
+     * 
+     * @param maximumWeight the maximum total weight of the cached values, where a tensor weighs its number of elements
+     *            and any other value weighs 1
+     * @return a new empty cache
+     */
+    public static ResolvedExpressionCache withMaximumWeight(long maximumWeight) {
+        Preconditions.checkArgument(maximumWeight >= 0, "maximumWeight must not be negative.");
+        return new ResolvedExpressionCache(maximumWeight);
+    }
+
+    /**
+     * Retrieves the values of all the sub expressions of the given expression (including itself), which are available
+     * in the cache.
+     * 
+     * @param rootNode the expression which is about to be resolved
+     * @param initialContext the values of expressions, which are passed in by the caller of the resolving
+     * @return a new context containing all the cached values
+     */
+    public ResolvingContext contextFor(Expression<?> rootNode, ResolvingContext initialContext) {
+        EditableResolvingContext context = Contexts.newResolvingContext();
+        for (Entry<Expression<?>, Key> entry : keysOf(rootNode, initialContext).entrySet()) {
+            Object value = values.getIfPresent(entry.getValue());
+            if (value != null) {
+                putTo(context, entry.getKey(), value);
+            }
+        }
+        return context;
+    }
+
+    /**
+     * Stores the values of all the sub expressions of the given expression (including itself), which are resolved in
+     * the given context.
+     * 
+     * @param rootNode the expression which was resolved
+     * @param context the context which contains the resolved values
+     * @param initialContext the values of expressions, which were passed in by the caller of the resolving
+     */
+    public void putAll(Expression<?> rootNode, ResolvingContext context, ResolvingContext initialContext) {
+        for (Entry<Expression<?>, Key> entry : keysOf(rootNode, initialContext).entrySet()) {
+            if (context.resolves(entry.getKey())) {
+                values.put(entry.getValue(), context.resolvedValueOf(entry.getKey()));
+            }
+        }
+    }
+
+    /**
+     * Marks the value behind the given node as changed. The cached values of the node and of all expressions
+     * containing it will not be used anymore.
+     * 
+     * @param input the node whose value changed
+     */
+    public void inputChanged(Node input) {
+        Preconditions.checkNotNull(input, "input must not be null.");
+        tokens.put(input, lastToken.incrementAndGet());
+    }
+
+    /**
+     * @return the hit and miss statistics of the lookups of the single expressions
+     */
+    public CacheStats stats() {
+        return values.stats();
+    }
+
+    /**
+     * @return the number of values currently in the cache
+     */
+    public long size() {
+        return values.size();
+    }
+
+    /**
+     * Removes all the values from the cache.
+     */
+    public void invalidateAll() {
+        values.invalidateAll();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <R> void putTo(EditableResolvingContext context, Expression<R> expression, Object value) {
+        context.put(expression, (R) value);
+    }
+
+    /**
+     * Determines the keys of all unresolved expressions of the tree. The tree is walked only once, children before their
+     * parents, so that the key of each node is built from the already known keys of its children.
+     */
+    private Map<Expression<?>, Key> keysOf(Node rootNode, ResolvingContext initialContext) {
+        Map<Node, Key> keys = new IdentityHashMap<>();
+        Set<Node> expanded = Sets.newIdentityHashSet();
+        Deque<Node> toVisit = new ArrayDeque<>();
+        toVisit.push(rootNode);
+        while (!toVisit.isEmpty()) {
+            Node node = toVisit.peek();
+            if (keys.containsKey(node)) {
+                toVisit.pop();
+            } else if (expanded.add(node)) {
+                for (Node child : node.getChildren()) {
+                    if (!keys.containsKey(child)) {
+                        toVisit.push(child);
+                    }
+                }
+            } else {
+                toVisit.pop();
+                keys.put(node, keyOf(node, keys, initialContext));
+            }
+        }
+
+        Map<Expression<?>, Key> expressionKeys = new HashMap<>();
+        for (Entry<Node, Key> entry : keys.entrySet()) {
+            if ((entry.getKey() instanceof Expression) && !((Expression<?>) entry.getKey()).isResolved()) {
+                expressionKeys.put((Expression<?>) entry.getKey(), entry.getValue());
+            }
+        }
+        return expressionKeys;
+    }
+
+    private Key keyOf(Node node, Map<Node, Key> keys, ResolvingContext initialContext) {
+        if ((node instanceof Expression) && initialContext.resolves((Expression<?>) node)) {
+            Object value = initialContext.resolvedValueOf((Expression<?>) node);
+            return new Key(Collections.singletonList(valueTokenOf(value)));
+        }
+        List<Key> childKeys = new ArrayList<>();
+        for (Node child : node.getChildren()) {
+            childKeys.add(keys.get(child));
+        }
+        if ((node instanceof StructuralNode) && !childKeys.isEmpty()) {
+            Long token = tokens.get(node);
+            return new Key(Arrays.asList(node.getClass(), ((StructuralNode) node).getAttributes(),
+                    (token == null) ? 0L : token, childKeys));
+        }
+        return new Key(Arrays.asList(tokenOf(node), childKeys));
+    }
+
+    private Long tokenOf(Node node) {
+        Long token = tokens.get(node);
+        if (token != null) {
+            return token;
+        }
+        Long newToken = lastToken.incrementAndGet();
+        token = tokens.putIfAbsent(node, newToken);
+        return (token == null) ? newToken : token;
+    }
+
+    private Long valueTokenOf(Object value) {
+        if (value == null) {
+            return 0L;
+        }
+        Long token = valueTokens.get(value);
+        if (token != null) {
+            return token;
+        }
+        Long newToken = lastToken.incrementAndGet();
+        token = valueTokens.putIfAbsent(value, newToken);
+        return (token == null) ? newToken : token;
+    }
+
+    /**
+     * The key of one expression in the cache. Since keys are nested into the keys of their parents, the hash code is
+     * calculated only once.
+     */
+    private static final class Key {
+        private final List<?> parts;
+        private final int hash;
+
+        Key(List<?> parts) {
+            this.parts = parts;
+            this.hash = parts.hashCode();
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) obj;
+            return (hash == other.hash) && parts.equals(other.parts);
+        }
+    }
+
+    /**
+     * Weighs tensors by their number of elements and all other values by 1.
+     */
+    private static final class ValueSizeWeigher implements Weigher<Key, Object> {
+        @Override
+        public int weigh(Key key, Object value) {
+            if (value instanceof Tensor) {
+                return Math.max(1, ((Tensor<?>) value).shape().size());
+            }
+            return 1;
+        }
+    }
+}
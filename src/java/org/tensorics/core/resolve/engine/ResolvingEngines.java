@@ -22,7 +22,11 @@
 
 package org.tensorics.core.resolve.engine;
 
+import java.util.concurrent.Executor;
+
+import org.tensorics.core.resolve.options.ResolvingOption;
 import org.tensorics.core.resolve.resolvers.Resolvers;
+import org.tensorics.core.tree.domain.Expression;
 
 /**
  * Provides utility methods for creating resolving engines.
@@ -32,6 +36,8 @@ import org.tensorics.core.resolve.resolvers.Resolvers;
 public final class ResolvingEngines {
 
     private static final ResolvingEngine DEFAULT_RESOLVING_ENGINE = createDefaultEngine();
+    private static final SinglePassResolvingEngine SINGLE_PASS_RESOLVING_ENGINE = createSinglePassEngine();
+    private static final ResolvingEngine PARALLEL_RESOLVING_ENGINE = createParallelEngine(new ParallelResolvingEngine());
 
     private ResolvingEngines() {
         /* only static methods */
@@ -41,6 +47,77 @@ public final class ResolvingEngines {
         return DEFAULT_RESOLVING_ENGINE;
     }
 
+    /**
+     * Returns an engine, which plans each expression once and resolves every node of it exactly once.
+     * 
+     * @return the single pass resolving engine
+     * @see SinglePassResolvingEngine
+     */
+    public static ResolvingEngine singlePassEngine() {
+        return SINGLE_PASS_RESOLVING_ENGINE;
+    }
+
+    /**
+     * Creates an incremental resolution of the given expression, which keeps the resolved values between the calls and
+     * resolves again only the parts of the expression affected by changed inputs.
+     * 
+     * @param rootNode the expression to resolve
+     * @param options the options to use for each resolving
+     * @return a new incremental resolution
+     * @see IncrementalResolution
+     */
+    public static <R> IncrementalResolution<R> incrementalResolutionOf(Expression<R> rootNode,
+            ResolvingOption... options) {
+        return SINGLE_PASS_RESOLVING_ENGINE.incrementally(rootNode, options);
+    }
+
+    /**
+     * Returns an engine, which resolves independent parts of expressions concurrently within the common fork join pool.
+     * 
+     * @return the parallel resolving engine
+     * @see ParallelResolvingEngine
+     */
+    public static ResolvingEngine parallelEngine() {
+        return PARALLEL_RESOLVING_ENGINE;
+    }
+
+    /**
+     * Creates a new engine, which resolves independent parts of expressions concurrently with the given executor.
+     * 
+     * @param executor the executor to use for resolving the nodes
+     * @return a new parallel resolving engine
+     * @see ParallelResolvingEngine
+     */
+    public static ResolvingEngine parallelEngine(Executor executor) {
+        return createParallelEngine(new ParallelResolvingEngine(executor));
+    }
+
+    /**
+     * Creates a new engine, which resolves like the default engine, but takes the values of already known sub
+     * expressions from the given cache and stores the newly resolved ones into it.
+     * 
+     * @param cache the cache to share between the calls to the engine
+     * @return a new caching resolving engine
+     * @see ResolvedExpressionCache
+     */
+    public static ResolvingEngine cachingEngine(ResolvedExpressionCache cache) {
+        DefaultResolvingEngine engine = new DefaultResolvingEngine();
+        engine.setResolverRepository(Resolvers.defaultRepository());
+        engine.setCache(cache);
+        return engine;
+    }
+
+    private static SinglePassResolvingEngine createSinglePassEngine() {
+        SinglePassResolvingEngine engine = new SinglePassResolvingEngine();
+        engine.setResolverRepository(Resolvers.defaultRepository());
+        return engine;
+    }
+
+    private static ResolvingEngine createParallelEngine(ParallelResolvingEngine engine) {
+        engine.setResolverRepository(Resolvers.defaultRepository());
+        return engine;
+    }
+
     private static ResolvingEngine createDefaultEngine() {
         DefaultResolvingEngine engine = new DefaultResolvingEngine();
         engine.setResolverRepository(Resolvers.defaultRepository());
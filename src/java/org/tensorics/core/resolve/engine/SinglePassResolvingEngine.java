@@ -0,0 +1,163 @@
+// @formatter:off
+ /*******************************************************************************
+ *
+ * This file is part of tensorics.
+ * 
+ * Copyright (c) 2008-2011, CERN. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ ******************************************************************************/
+// @formatter:on
+
+package org.tensorics.core.resolve.engine;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+import org.tensorics.core.commons.options.OptionRegistry;
+import org.tensorics.core.resolve.domain.ExceptionHandlingRequest;
+import org.tensorics.core.resolve.engine.ExpressionGraph.Vertex;
+import org.tensorics.core.resolve.options.ExceptionHandlingStrategy;
+import org.tensorics.core.resolve.options.ExpressionTransformationStrategy;
+import org.tensorics.core.resolve.options.ResolverSelectionStrategy;
+import org.tensorics.core.resolve.options.ResolvingOption;
+import org.tensorics.core.resolve.options.ResolvingOptions;
+import org.tensorics.core.resolve.resolvers.Resolver;
+import org.tensorics.core.resolve.resolvers.ResolverRepository;
+import org.tensorics.core.tree.domain.Contexts;
+import org.tensorics.core.tree.domain.EditableResolvingContext;
+import org.tensorics.core.tree.domain.Expression;
+import org.tensorics.core.tree.domain.ResolvingContext;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * A resolving engine, which plans the expression tree once and then resolves each node exactly once, in the order in
+ * which its children become available. The resolved values are put directly into one context, which is never copied.
+ * Thus, the time for resolving grows linearly with the size of the tree, while the {@link DefaultResolvingEngine}
+ * walks the whole tree again in each iteration.
+ * <p>
+ * Nodes for which no resolver is capable within one pass are left unresolved. In this case the tree is planned again,
+ * based on the values resolved so far, until either the root node is resolved, the context does not grow anymore or
+ * the maximum number of iterations is reached (as in the default engine).
+ * 
+ * @author kfuchsbe
+ */
+public class SinglePassResolvingEngine implements ResolvingEngine {
+
+    /**
+     * Limits the main loop to a max number of iterations. This is to avoid infinite loops. Infinite loops can happen,
+     * e.g. if some equals methods of some classes are not well defined or if some nodes cannot be resolved.
+     */
+    private static final int EMERGENCY_ABORT_LIMIT = 1000;
+
+    private ResolverRepository resolverRepository;
+
+    @Override
+    public <R> R resolve(Expression<R> rootNode, ResolvingOption... options) {
+        return resolve(rootNode, Contexts.newResolvingContext(), options);
+    }
+
+    @Override
+    public <R> R resolve(Expression<R> rootNode, ResolvingContext initialContext, ResolvingOption... options) {
+        Preconditions.checkNotNull(initialContext, "initialContext must not be null.");
+        EditableResolvingContext fullContext = Contexts.newResolvingContext();
+        fullContext.putAllNew(initialContext);
+
+        OptionRegistry<ResolvingOption> optionsRegistry = ResolvingOptions.createRegistryWithDefaultsExcept(options);
+        Expression<R> expression = optionsRegistry.get(ExpressionTransformationStrategy.class).transform(rootNode,
+                fullContext);
+        resolveInto(expression, fullContext, optionsRegistry);
+        return fullContext.resolvedValueOf(expression);
+    }
+
+    /**
+     * Creates an incremental resolution of the given expression, which uses the resolvers of this engine.
+     * 
+     * @param rootNode the expression to resolve
+     * @param options the options to use for each resolving
+     * @return a new incremental resolution, which did not yet resolve anything
+     * @see IncrementalResolution
+     */
+    public <R> IncrementalResolution<R> incrementally(Expression<R> rootNode, ResolvingOption... options) {
+        return new IncrementalResolution<>(this, rootNode, ResolvingOptions.createRegistryWithDefaultsExcept(options));
+    }
+
+    /**
+     * Resolves the given expression by putting all the resolved values directly into the given context. Values already
+     * contained in the context are not resolved again.
+     */
+    void resolveInto(Expression<?> rootNode, EditableResolvingContext context,
+            OptionRegistry<ResolvingOption> options) {
+        Preconditions.checkNotNull(resolverRepository, "resolverRepository must not be null.");
+        int count = 0;
+        while (!(context.resolves(rootNode))) {
+            throwIfLimitReached(count);
+            int oldContextCount = context.size();
+            resolveOnce(rootNode, context, options);
+            if (!(context.size() > oldContextCount)) {
+                throw new ResolvedContextDidNotGrowException();
+            }
+            count++;
+        }
+    }
+
+    private void resolveOnce(Expression<?> rootNode, EditableResolvingContext context,
+            OptionRegistry<ResolvingOption> options) {
+        ExceptionHandlingStrategy exceptionHandling = options.get(ExceptionHandlingStrategy.class);
+        ResolverSelectionStrategy resolverSelection = options.get(ResolverSelectionStrategy.class);
+
+        ExpressionGraph graph = ExpressionGraph.plan(rootNode, context, resolverRepository);
+        Deque<Vertex> readyVertices = new ArrayDeque<>(graph.readyVertices());
+        while (!readyVertices.isEmpty()) {
+            Vertex vertex = readyVertices.poll();
+            try {
+                if (!context.resolves(vertex.expression())
+                        && !resolve(vertex.expression(), context, resolverSelection)) {
+                    continue;
+                }
+            } catch (RuntimeException e) {
+                exceptionHandling.handleWithRootNodeFailingNodeException(ExceptionHandlingRequest.builder()
+                        .withRoot(rootNode).withThrowingNode(vertex.expression()).withException(e)
+                        .withContext(context).build());
+                for (Vertex ancestor : graph.resolvedAncestorsOf(vertex)) {
+                    readyVertices.addAll(graph.complete(ancestor));
+                }
+                continue;
+            }
+            readyVertices.addAll(graph.complete(vertex));
+        }
+    }
+
+    private <R> boolean resolve(Expression<R> expression, EditableResolvingContext context,
+            ResolverSelectionStrategy resolverSelection) {
+        Resolver<R, Expression<R>> resolver = ExpressionGraph.selectResolver(expression, context, resolverRepository,
+                resolverSelection);
+        if (resolver == null) {
+            return false;
+        }
+        context.put(expression, resolver.resolve(expression, context));
+        return true;
+    }
+
+    private void throwIfLimitReached(int count) {
+        if (count > EMERGENCY_ABORT_LIMIT) {
+            throw new EmergencyAbortLimitReachedException(EMERGENCY_ABORT_LIMIT);
+        }
+    }
+
+    public void setResolverRepository(ResolverRepository resolverRepository) {
+        this.resolverRepository = resolverRepository;
+    }
+}
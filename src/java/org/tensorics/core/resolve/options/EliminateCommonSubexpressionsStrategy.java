@@ -0,0 +1,49 @@
+// @formatter:off
+ /*******************************************************************************
+ *
+ * This file is part of tensorics.
+ * 
+ * Copyright (c) 2008-2011, CERN. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ ******************************************************************************/
+// @formatter:on
+
+package org.tensorics.core.resolve.options;
+
+import org.tensorics.core.tree.domain.Expression;
+import org.tensorics.core.tree.domain.ResolvingContext;
+import org.tensorics.core.tree.walking.CommonSubexpressions;
+
+/**
+ * A transformation strategy, which replaces sub expressions that occur several times in the tree (e.g. the same
+ * operation on the same operands, built in different branches of a script) by one single instance, so that they are
+ * resolved only once.
+ * 
+ * @author kfuchsbe
+ * @see CommonSubexpressions
+ */
+public class EliminateCommonSubexpressionsStrategy implements ExpressionTransformationStrategy {
+
+    @Override
+    public <R> Expression<R> transform(Expression<R> rootNode, ResolvingContext context) {
+        return CommonSubexpressions.eliminateIn(rootNode, context);
+    }
+
+    @Override
+    public Class<ExpressionTransformationStrategy> getMarkerInterface() {
+        return ExpressionTransformationStrategy.class;
+    }
+
+}
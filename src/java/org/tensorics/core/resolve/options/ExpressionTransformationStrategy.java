@@ -0,0 +1,45 @@
+// @formatter:off
+ /*******************************************************************************
+ *
+ * This file is part of tensorics.
+ * 
+ * Copyright (c) 2008-2011, CERN. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ ******************************************************************************/
+// @formatter:on
+
+package org.tensorics.core.resolve.options;
+
+import org.tensorics.core.tree.domain.Expression;
+import org.tensorics.core.tree.domain.ResolvingContext;
+
+/**
+ * A strategy which is applied by the resolving engines on the expression before it is resolved. It allows to rewrite
+ * the expression tree into one which gives the same result, but is cheaper to resolve.
+ * 
+ * @author kfuchsbe
+ */
+public interface ExpressionTransformationStrategy extends ResolvingOption {
+
+    /**
+     * Transforms the given expression into the one which shall be resolved instead.
+     * 
+     * @param rootNode the expression to transform
+     * @param context the context of the already resolved expressions
+     * @return the expression to resolve, which must give the same result as the given one
+     */
+    <R> Expression<R> transform(Expression<R> rootNode, ResolvingContext context);
+
+}
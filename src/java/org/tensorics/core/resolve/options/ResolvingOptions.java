@@ -43,7 +43,8 @@ public final class ResolvingOptions {
      * The list of default options.
      */
     private static final ImmutableList<ResolvingOption> DEFAULT_OPTIONS = ImmutableList.<ResolvingOption> of(
-            new RethrowExceptionHandlingStrategy(), new TakeFirstResolverSelectionStrategy());
+            new RethrowExceptionHandlingStrategy(), new TakeFirstResolverSelectionStrategy(),
+            new KeepExpressionStrategy());
 
     private ResolvingOptions() {
         /* only static methods */
@@ -70,6 +71,16 @@ public final class ResolvingOptions {
         return new HandleWithFirstCapableAncestorStrategy();
     }
 
+    /**
+     * Creates an option which makes the engines resolve sub expressions, that occur several times in an expression,
+     * only once.
+     * 
+     * @return the option to eliminate common sub expressions
+     */
+    public static ResolvingOption eliminateCommonSubexpressions() {
+        return new EliminateCommonSubexpressionsStrategy();
+    }
+
     public static Collection<ResolvingOption> defaultOptions() {
         return DEFAULT_OPTIONS;
     }
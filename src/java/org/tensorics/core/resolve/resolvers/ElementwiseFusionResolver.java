@@ -0,0 +1,71 @@
+// @formatter:off
+ /*******************************************************************************
+ *
+ * This file is part of tensorics.
+ * 
+ * Copyright (c) 2008-2011, CERN. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ ******************************************************************************/
+// @formatter:on
+
+package org.tensorics.core.resolve.resolvers;
+
+import java.util.concurrent.ConcurrentMap;
+
+import org.tensorics.core.tensor.Tensor;
+import org.tensorics.core.tensor.operations.ElementwiseFusion;
+import org.tensorics.core.tensor.operations.ElementwiseFusion.VerifiedShapes;
+import org.tensorics.core.tree.domain.Expression;
+import org.tensorics.core.tree.domain.ResolvingContext;
+
+import com.google.common.collect.MapMaker;
+
+/**
+ * A resolver for trees of element-wise tensor operations, which evaluates the whole tree in one pass over the positions
+ * (see {@link ElementwiseFusion}). It only feels responsible for trees of at least two such operations. Single
+ * operations are resolved by the {@link BinaryOperationResolver} and the {@link UnaryOperationResolver}.
+ * <p>
+ * The operand shapes verified by {@link #canResolve(Expression, ResolvingContext)} are remembered per resolving context
+ * (by identity and only as long as the context is in use), so that {@link #resolve(Expression, ResolvingContext)} does
+ * not compare them again within the same resolution.
+ * 
+ * @author kfuchsbe
+ * @param <V> the type of the values of the tensors
+ */
+public class ElementwiseFusionResolver<V> extends AbstractResolver<Tensor<V>, Expression<Tensor<V>>> {
+
+    private final ConcurrentMap<ResolvingContext, VerifiedShapes> verifiedShapes = new MapMaker().weakKeys().makeMap();
+
+    @Override
+    public boolean canResolve(Expression<Tensor<V>> expression, ResolvingContext context) {
+        return ElementwiseFusion.canFuse(expression, context, verifiedShapesFor(context));
+    }
+
+    @Override
+    public Tensor<V> resolve(Expression<Tensor<V>> expression, ResolvingContext context) {
+        return ElementwiseFusion.evaluate(expression, context, verifiedShapesFor(context));
+    }
+
+    private VerifiedShapes verifiedShapesFor(ResolvingContext context) {
+        VerifiedShapes shapes = verifiedShapes.get(context);
+        if (shapes != null) {
+            return shapes;
+        }
+        VerifiedShapes newShapes = new VerifiedShapes();
+        shapes = verifiedShapes.putIfAbsent(context, newShapes);
+        return (shapes == null) ? newShapes : shapes;
+    }
+
+}
@@ -51,6 +51,7 @@ public final class Resolvers {
         resolvers.add(new ConversionOperationResolver<>());
         resolvers.add(new BinaryPredicateResolver<>());
         resolvers.add(new BinaryPredicateIterableResolver<>());
+        resolvers.add(new ElementwiseFusionResolver<>());
 
         ListBackedResolverRepository repository = new ListBackedResolverRepository();
         repository.setResolvers(resolvers);
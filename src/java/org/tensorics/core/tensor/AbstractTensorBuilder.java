@@ -24,10 +24,12 @@ package org.tensorics.core.tensor;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 
+import java.util.Collection;
 import java.util.Map.Entry;
 import java.util.Set;
 
 import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableMultiset;
 import com.google.common.collect.ImmutableSet;
 
 /**
@@ -40,6 +42,7 @@ public abstract class AbstractTensorBuilder<E> implements TensorBuilder<E> {
     private final Set<? extends Class<?>> dimensions;
     private final VerificationCallback<E> callback;
     private Context context = Context.empty();
+    private PositionInterner positionInterner = PositionInterners.defaultInterner();
 
     public AbstractTensorBuilder(Set<? extends Class<?>> dimensions, VerificationCallback<E> callback) {
         Preconditions.checkArgument(dimensions != null, "Argument '" + "dimensions" + "' must not be null!");
@@ -82,17 +85,38 @@ public abstract class AbstractTensorBuilder<E> implements TensorBuilder<E> {
 
     @Override
     public final void putAt(E value, Object... coordinates) {
-        this.putAt(value, Position.of(coordinates));
+        this.putAt(value, positionOf(coordinates));
     }
 
     @Override
     public void putAt(E value, Set<?> coordinates) {
-        putAt(value, Position.of(coordinates));
+        putAt(value, positionOf(coordinates));
     }
 
     @Override
     public void putAllAt(Tensor<E> tensor, Set<?> coordinates) {
-        putAllAt(tensor, Position.of(coordinates));
+        putAllAt(tensor, positionOf(coordinates));
+    }
+
+    /**
+     * Sets the interner which is used for all the positions which are created by this builder (e.g. from coordinates or
+     * as union of positions when putting whole tensors). Positions which are passed in are used as they are. Per
+     * default, the default interner (see {@link PositionInterners#defaultInterner()}) is used. Using an arena (see
+     * {@link PositionInterners#newArena()}) avoids any contention with other threads, while still sharing equal
+     * positions within the tensor to build.
+     * 
+     * @param interner the interner to use for positions created by this builder
+     */
+    public final void setPositionInterner(PositionInterner interner) {
+        this.positionInterner = checkNotNull(interner, "interner must not be null");
+    }
+
+    protected final Position positionOf(Object... coordinates) {
+        return positionOf(ImmutableMultiset.copyOf(coordinates));
+    }
+
+    protected final Position positionOf(Collection<?> coordinates) {
+        return Position.of(coordinates, positionInterner);
     }
 
     @Override
@@ -114,13 +138,13 @@ public abstract class AbstractTensorBuilder<E> implements TensorBuilder<E> {
 
     @SuppressWarnings("PMD.ShortMethodName")
     public final OngoingPut<E> at(Set<?> coordinates) {
-        return this.at(Position.of(coordinates));
+        return this.at(positionOf(coordinates));
     }
 
     @SafeVarargs
     @SuppressWarnings("PMD.ShortMethodName")
     public final OngoingPut<E> at(Object... coordinates) {
-        return this.at(Position.of(coordinates));
+        return this.at(positionOf(coordinates));
     }
 
     @Override
@@ -128,14 +152,14 @@ public abstract class AbstractTensorBuilder<E> implements TensorBuilder<E> {
         checkNotNull(tensor, "The tensor must not be null!");
         checkNotNull(position, "The position must not be null!");
         for (Entry<Position, E> entry : tensor.asMap().entrySet()) {
-            putAt(entry.getValue(), Positions.union(position, entry.getKey()));
+            putAt(entry.getValue(), Positions.union(position, entry.getKey(), positionInterner));
         }
     }
 
     @Override
     @SafeVarargs
     public final void putAllAt(Tensor<E> tensor, Object... coordinates) {
-        putAllAt(tensor, Position.of(coordinates));
+        putAllAt(tensor, positionOf(coordinates));
     }
 
     @Deprecated
@@ -22,16 +22,18 @@
 
 package org.tensorics.core.tensor;
 
-import static org.tensorics.core.tensor.Positions.stripping;
+import static org.tensorics.core.tensor.Positions.memoizedStripping;
 import static org.tensorics.core.tensor.Shapes.outerProduct;
 
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
 
 import org.tensorics.core.tensor.Positions.DimensionStripper;
 
-import com.google.common.collect.ImmutableMap;
+import com.google.common.base.Function;
+import com.google.common.collect.Maps;
 
 /**
  * Lets a tensors appear as a tensor with a bigger shape. The final
@@ -47,13 +49,26 @@ import com.google.common.collect.ImmutableMap;
  * The resulting view will still be backed by the original tensor. Since the
  * broadcasted shape will never be updated from the original tensor, the results
  * might be unpredictable, if the original tensor would be mutable.
+ * <p>
+ * Neither the broadcasted shape nor the map returned by {@link #asMap()} create
+ * the broadcasted positions upfront (see
+ * {@link Shapes#outerProduct(Shape, Shape)}). If the original tensor is a
+ * {@link ProjectableTensor} (e.g. an array backed tensor), then values are
+ * looked up directly for the broadcasted positions, without creating the
+ * positions of the original tensor.
  * 
  * @author agorzaws
  * @author kfuchsbe
  * @param <V>
  *            the type of the values of the tensor
  */
-public final class BroadcastedTensorView<V> implements Tensor<V> {
+public final class BroadcastedTensorView<V> implements TensorView<V> {
+
+	/**
+	 * The maximum number of broadcasted positions for which the original
+	 * positions are remembered
+	 */
+	private static final int MAX_MEMOIZED_POSITIONS = 1 << 16;
 
 	/** The original (smaller) tensor */
 	private final Tensor<V> originalTensor;
@@ -67,6 +82,9 @@ public final class BroadcastedTensorView<V> implements Tensor<V> {
 	 */
 	private final DimensionStripper dimensionStripper;
 
+	/** The lazy map view on the broadcasted entries */
+	private final Map<Position, V> entries;
+
 	/**
 	 * Constructs a view of the given original tensor, broadcasted to the
 	 * additional shape.
@@ -81,11 +99,21 @@ public final class BroadcastedTensorView<V> implements Tensor<V> {
 		this.originalTensor = originalTensor;
 		this.broadcastedShape = outerProduct(originalTensor.shape(),
 				extendingShape);
-		this.dimensionStripper = stripping(extendingShape.dimensionSet());
+		this.dimensionStripper = memoizedStripping(extendingShape.dimensionSet(), MAX_MEMOIZED_POSITIONS);
+		this.entries = Collections.unmodifiableMap(Maps.asMap(broadcastedShape.positionSet(),
+				new Function<Position, V>() {
+					@Override
+					public V apply(Position position) {
+						return get(position);
+					}
+				}));
 	}
 
 	@Override
 	public V get(Position position) {
+		if (originalTensor instanceof ProjectableTensor) {
+			return ((ProjectableTensor<V>) originalTensor).getProjection(position);
+		}
 		return originalTensor.get(toOriginal(position));
 	}
 
@@ -104,13 +132,13 @@ public final class BroadcastedTensorView<V> implements Tensor<V> {
 		return entries;
 	}
 
+	/**
+	 * Returns an unmodifiable view on the broadcasted entries. The values are
+	 * looked up in the original tensor while iterating.
+	 */
 	@Override
 	public Map<Position, V> asMap() {
-		ImmutableMap.Builder<Position, V> builder = ImmutableMap.builder();
-		for (Position position : broadcastedShape.positionSet()) {
-			builder.put(position, get(position));
-		}
-		return builder.build();
+		return this.entries;
 	}
 
 	private Position toOriginal(Position position) {
@@ -127,4 +155,9 @@ public final class BroadcastedTensorView<V> implements Tensor<V> {
 		return originalTensor.context();
 	}
 
+	@Override
+	public Tensor<V> materialize() {
+		return ImmutableTensor.copyOf(this);
+	}
+
 }
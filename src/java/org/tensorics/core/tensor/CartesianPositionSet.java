@@ -0,0 +1,156 @@
+// @formatter:off
+ /*******************************************************************************
+ *
+ * This file is part of tensorics.
+ * 
+ * Copyright (c) 2008-2011, CERN. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ ******************************************************************************/
+// @formatter:on
+package org.tensorics.core.tensor;
+
+import java.io.Serializable;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.UnmodifiableIterator;
+
+/**
+ * A set of positions, which contains all the combinations of given coordinates per dimension (the cartesian product of
+ * the coordinate sets). Only the coordinate sets are stored: {@link #size()} and {@link #contains(Object)} are answered
+ * in O(number of dimensions) and positions are only created while iterating.
+ * 
+ * @author kfuchsbe
+ */
+final class CartesianPositionSet extends AbstractSet<Position> implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final List<Class<?>> dimensions;
+    private final List<ImmutableList<?>> coordinates;
+    private final List<ImmutableSet<?>> coordinateSets;
+    private final int size;
+
+    CartesianPositionSet(Map<? extends Class<?>, ? extends Set<?>> coordinatesByDimension) {
+        ImmutableList.Builder<Class<?>> dimensionsBuilder = ImmutableList.builder();
+        ImmutableList.Builder<ImmutableSet<?>> setsBuilder = ImmutableList.builder();
+        ImmutableList.Builder<ImmutableList<?>> listsBuilder = ImmutableList.builder();
+        long product = 1;
+        for (Entry<? extends Class<?>, ? extends Set<?>> entry : coordinatesByDimension.entrySet()) {
+            ImmutableSet<?> dimensionCoordinates = ImmutableSet.copyOf(entry.getValue());
+            for (Object coordinate : dimensionCoordinates) {
+                Preconditions.checkArgument(entry.getKey().isInstance(coordinate), "Coordinate '" + coordinate
+                        + "' is not an instance of dimension '" + entry.getKey() + "'.");
+            }
+            dimensionsBuilder.add(entry.getKey());
+            setsBuilder.add(dimensionCoordinates);
+            listsBuilder.add(dimensionCoordinates.asList());
+            product *= dimensionCoordinates.size();
+            Preconditions.checkArgument(product <= Integer.MAX_VALUE, "The cartesian product of the coordinates "
+                    + "contains more than Integer.MAX_VALUE positions.");
+        }
+        this.dimensions = dimensionsBuilder.build();
+        this.coordinateSets = setsBuilder.build();
+        this.coordinates = listsBuilder.build();
+        this.size = (int) product;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean contains(Object object) {
+        if (!(object instanceof Position)) {
+            return false;
+        }
+        Position position = (Position) object;
+        if (position.dimensionSet().size() != dimensions.size()) {
+            return false;
+        }
+        for (int i = 0; i < dimensions.size(); i++) {
+            Object coordinate = position.coordinateFor(dimensions.get(i));
+            if (coordinate == null || !coordinateSets.get(i).contains(coordinate)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Iterates over all the positions, where the coordinate of the last dimension changes fastest.
+     */
+    @Override
+    public Iterator<Position> iterator() {
+        return new UnmodifiableIterator<Position>() {
+            private final int[] ordinals = new int[dimensions.size()];
+            private int remaining = size;
+
+            @Override
+            public boolean hasNext() {
+                return remaining > 0;
+            }
+
+            @Override
+            public Position next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                Object[] positionCoordinates = new Object[ordinals.length];
+                for (int i = 0; i < ordinals.length; i++) {
+                    positionCoordinates[i] = coordinates.get(i).get(ordinals[i]);
+                }
+                advance();
+                return Position.of(positionCoordinates);
+            }
+
+            private void advance() {
+                remaining--;
+                for (int i = ordinals.length - 1; i >= 0; i--) {
+                    ordinals[i]++;
+                    if (ordinals[i] < coordinates.get(i).size()) {
+                        return;
+                    }
+                    ordinals[i] = 0;
+                }
+            }
+        };
+    }
+
+    List<Class<?>> dimensions() {
+        return dimensions;
+    }
+
+    /**
+     * @return the coordinates of the given dimension or {@code null} if the dimension is not part of this set
+     */
+    Set<?> coordinatesOf(Class<?> dimension) {
+        int index = dimensions.indexOf(dimension);
+        if (index < 0) {
+            return null;
+        }
+        return coordinateSets.get(index);
+    }
+
+}
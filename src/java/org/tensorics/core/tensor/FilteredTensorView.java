@@ -0,0 +1,241 @@
+// @formatter:off
+ /*******************************************************************************
+ *
+ * This file is part of tensorics.
+ * 
+ * Copyright (c) 2008-2011, CERN. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ ******************************************************************************/
+// @formatter:on
+
+package org.tensorics.core.tensor;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.io.Serializable;
+import java.util.AbstractSet;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import com.google.common.base.Predicate;
+import com.google.common.base.Predicates;
+import com.google.common.collect.Iterators;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Range;
+import com.google.common.collect.Sets;
+
+/**
+ * A view on a tensor, which only shows the entries whose positions fulfill a certain condition. Neither the positions
+ * nor the values of the original tensor are copied; the condition is only evaluated when the view is read. Filtering a
+ * filtered view again combines the conditions, so that chained filters are still backed directly by the original
+ * tensor.
+ * <p>
+ * Note that determining the size of the shape of such a view requires to evaluate the condition for all positions of
+ * the original tensor. This is only done once, the size is remembered afterwards.
+ * <p>
+ * A filtered view is equal to immutable tensors (and other filtered or sliced views) with the same shape, entries and
+ * context, like the copies which were returned by filtering before.
+ * 
+ * @author kfuchsbe
+ * @param <V> the type of the values of the tensor
+ */
+public final class FilteredTensorView<V> implements TensorView<V>, Serializable {
+
+    private static final long serialVersionUID = 1L;
+    private static final int TOSTRING_ENTRIES = 10;
+    private static final int UNKNOWN_SIZE = -1;
+
+    private final Tensor<V> originalTensor;
+    private final Predicate<Position> filter;
+    private final Shape shape;
+
+    private FilteredTensorView(Tensor<V> originalTensor, Predicate<Position> filter) {
+        this.originalTensor = originalTensor;
+        this.filter = filter;
+        this.shape = Shape.viewOf(originalTensor.shape().dimensionSet(), new FilteredPositionSet());
+    }
+
+    /**
+     * Creates a view on the given tensor, which only contains the entries whose positions fulfill the given condition.
+     * 
+     * @param tensor the tensor to filter
+     * @param filter the condition which has to be fulfilled by the positions of the visible entries
+     * @return a new view on the tensor
+     */
+    public static <V> FilteredTensorView<V> of(Tensor<V> tensor, Predicate<Position> filter) {
+        checkNotNull(tensor, "tensor must not be null");
+        checkNotNull(filter, "filter must not be null");
+        if (tensor instanceof FilteredTensorView) {
+            FilteredTensorView<V> filtered = (FilteredTensorView<V>) tensor;
+            return new FilteredTensorView<>(filtered.originalTensor, Predicates.and(filtered.filter, filter));
+        }
+        return new FilteredTensorView<>(tensor, filter);
+    }
+
+    /**
+     * Creates a view on the given tensor, which only contains the entries whose coordinates of the given dimension are
+     * within the given range.
+     * 
+     * @param tensor the tensor to filter
+     * @param dimension the dimension whose coordinates shall be checked
+     * @param range the range in which the coordinates have to be
+     * @return a new view on the tensor
+     */
+    public static <V, C extends Comparable<C>> FilteredTensorView<V> inRange(Tensor<V> tensor,
+            final Class<C> dimension, final Range<C> range) {
+        checkNotNull(dimension, "dimension must not be null");
+        checkNotNull(range, "range must not be null");
+        return of(tensor, new Predicate<Position>() {
+            @Override
+            public boolean apply(Position position) {
+                C coordinate = position.coordinateFor(dimension);
+                return (coordinate != null) && range.contains(coordinate);
+            }
+        });
+    }
+
+    /**
+     * Creates a view on the given tensor, which only contains the entries for which the mask contains {@code true}.
+     * The mask has to contain all the positions of the tensor. Since the mask is only read lazily, missing positions
+     * will only result in a {@link NoSuchElementException} when the view is read.
+     * 
+     * @param tensor the tensor to filter
+     * @param mask the tensor which defines which entries shall be visible
+     * @return a new view on the tensor
+     */
+    public static <V> FilteredTensorView<V> whereTrue(Tensor<V> tensor, final Tensor<Boolean> mask) {
+        checkNotNull(mask, "mask must not be null");
+        return of(tensor, new Predicate<Position>() {
+            @Override
+            public boolean apply(Position position) {
+                return mask.get(position).booleanValue();
+            }
+        });
+    }
+
+    @Override
+    public V get(Position position) {
+        if (originalTensor.shape().dimensionSet().equals(position.dimensionSet()) && !filter.apply(position)) {
+            throw new NoSuchElementException("Entry for position '" + position + "' is not contained in this view.");
+        }
+        return originalTensor.get(position);
+    }
+
+    @Override
+    public V get(Object... coordinates) {
+        return get(Position.of(coordinates));
+    }
+
+    @Override
+    @Deprecated
+    public Set<Tensor.Entry<V>> entrySet() {
+        Set<Tensor.Entry<V>> entries = new HashSet<>();
+        for (Map.Entry<Position, V> one : asMap().entrySet()) {
+            entries.add(new ImmutableEntry<>(one.getKey(), one.getValue()));
+        }
+        return entries;
+    }
+
+    /**
+     * Returns an unmodifiable view on the entries of the original tensor, which fulfill the condition.
+     */
+    @Override
+    public Map<Position, V> asMap() {
+        return Collections.unmodifiableMap(Maps.filterKeys(originalTensor.asMap(), filter));
+    }
+
+    @Override
+    public Shape shape() {
+        return this.shape;
+    }
+
+    @Override
+    public Context context() {
+        return originalTensor.context();
+    }
+
+    @Override
+    public Tensor<V> materialize() {
+        return ImmutableTensor.copyOf(this);
+    }
+
+    /**
+     * The view itself is not serializable, as it is backed by the original tensor. Therefore, an immutable copy of its
+     * entries is serialized instead, like the tensors which were returned by filtering before.
+     * 
+     * @return the tensor to be serialized instead of this view
+     */
+    private Object writeReplace() {
+        return materialize();
+    }
+
+    @Override
+    public int hashCode() {
+        return ImmutableTensor.contentHashCode(this);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        return ImmutableTensor.contentEquals(this, obj);
+    }
+
+    @Override
+    public String toString() {
+        return Coordinates.dimensionsWithoutClassPath(this) + ", Content:"
+                + Iterators.toString(Iterators.limit(asMap().entrySet().iterator(), TOSTRING_ENTRIES));
+    }
+
+    /**
+     * A set view on the positions of the original tensor which fulfill the condition. Its size is only counted once.
+     * 
+     * @author kfuchsbe
+     */
+    private final class FilteredPositionSet extends AbstractSet<Position> {
+
+        private final Set<Position> filtered = Sets.filter(originalTensor.shape().positionSet(), filter);
+        private volatile int size = UNKNOWN_SIZE;
+
+        @Override
+        public Iterator<Position> iterator() {
+            return filtered.iterator();
+        }
+
+        @Override
+        public boolean contains(Object object) {
+            return filtered.contains(object);
+        }
+
+        @Override
+        public boolean isEmpty() {
+            int knownSize = size;
+            return (knownSize == UNKNOWN_SIZE) ? filtered.isEmpty() : (knownSize == 0);
+        }
+
+        @Override
+        public int size() {
+            int knownSize = size;
+            if (knownSize == UNKNOWN_SIZE) {
+                knownSize = filtered.size();
+                size = knownSize;
+            }
+            return knownSize;
+        }
+    }
+
+}
@@ -28,8 +28,11 @@ import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.Objects;
 import java.util.Set;
 
+import org.tensorics.core.tensor.specific.ChunkedSeriesTensor;
+
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableMultiset;
 
@@ -327,7 +330,7 @@ public class ImmutableTensor<T> implements Tensor<T>, Serializable {
 		if (obj == null)
 			return false;
 		if (getClass() != obj.getClass())
-			return false;
+			return isContentView(obj) && obj.equals(this);
 		@SuppressWarnings("rawtypes")
 		ImmutableTensor other = (ImmutableTensor) obj;
 		if (context == null) {
@@ -348,4 +351,49 @@ public class ImmutableTensor<T> implements Tensor<T>, Serializable {
 		return true;
 	}
 
+	/**
+	 * The lazy views which are returned by filtering and slicing (instead of copies, as before) compare equal to
+	 * immutable tensors with the same context, entries and shape, and use the same hash code.
+	 */
+	private static boolean isContentView(Object obj) {
+		return (obj instanceof FilteredTensorView) || (obj instanceof SlicedTensorView)
+				|| (obj instanceof ChunkedSeriesTensor);
+	}
+
+	/**
+	 * Calculates the hash code of the given tensor in the same way as for an immutable tensor with the same context,
+	 * entries and shape. To be used by the tensors which are equal to immutable tensors with the same content.
+	 * 
+	 * @param tensor the tensor for which to calculate the hash code
+	 * @return the hash code of the content of the tensor
+	 */
+	public static int contentHashCode(Tensor<?> tensor) {
+		final int prime = 31;
+		int result = 1;
+		result = prime * result + Objects.hashCode(tensor.context());
+		result = prime * result + tensor.asMap().hashCode();
+		result = prime * result + tensor.shape().hashCode();
+		return result;
+	}
+
+	/**
+	 * Compares the given view to the given object by content: It is equal to immutable tensors and other content
+	 * views with the same context, entries and shape.
+	 * 
+	 * @param view the tensor to compare
+	 * @param obj the object to compare the tensor to
+	 * @return {@code true} if the object is a tensor with the same content, {@code false} otherwise
+	 */
+	public static boolean contentEquals(Tensor<?> view, Object obj) {
+		if (view == obj) {
+			return true;
+		}
+		if (!(obj instanceof ImmutableTensor) && !isContentView(obj)) {
+			return false;
+		}
+		Tensor<?> other = (Tensor<?>) obj;
+		return Objects.equals(view.context(), other.context()) && view.shape().equals(other.shape())
+				&& view.asMap().equals(other.asMap());
+	}
+
 }
@@ -0,0 +1,82 @@
+// @formatter:off
+ /*******************************************************************************
+ *
+ * This file is part of tensorics.
+ * 
+ * Copyright (c) 2008-2011, CERN. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ ******************************************************************************/
+// @formatter:on
+package org.tensorics.core.tensor;
+
+/**
+ * A snapshot of the usage statistics of a {@link PositionInterner}.
+ * 
+ * @author kfuchsbe
+ */
+public final class InterningStatistics {
+
+    /** The value returned by {@link #size()}, if the size of the interner cannot be determined. */
+    public static final int UNKNOWN_SIZE = -1;
+
+    private final long requestCount;
+    private final long hitCount;
+    private final int size;
+
+    InterningStatistics(long requestCount, long hitCount, int size) {
+        this.requestCount = requestCount;
+        this.hitCount = hitCount;
+        this.size = size;
+    }
+
+    /**
+     * @return the number of positions which were passed to the interner
+     */
+    public long requestCount() {
+        return requestCount;
+    }
+
+    /**
+     * @return the number of times an already interned instance was returned instead of the passed in one
+     */
+    public long hitCount() {
+        return hitCount;
+    }
+
+    /**
+     * @return the ratio of hits to requests or {@code 0.0} if there were no requests yet
+     */
+    public double hitRate() {
+        if (requestCount == 0) {
+            return 0.0;
+        }
+        return (double) hitCount / requestCount;
+    }
+
+    /**
+     * @return the number of positions currently held by the interner or {@link #UNKNOWN_SIZE} if this cannot be
+     *         determined
+     */
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public String toString() {
+        return "InterningStatistics [requestCount=" + requestCount + ", hitCount=" + hitCount + ", hitRate="
+                + hitRate() + ", size=" + size + "]";
+    }
+
+}
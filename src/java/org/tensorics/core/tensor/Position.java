@@ -25,6 +25,7 @@ package org.tensorics.core.tensor;
 import static org.tensorics.core.tensor.Coordinates.requireValidCoordinates;
 
 import java.io.Serializable;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.Set;
@@ -32,8 +33,6 @@ import java.util.Set;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.ClassToInstanceMap;
 import com.google.common.collect.ImmutableMultiset;
-import com.google.common.collect.Interner;
-import com.google.common.collect.Interners;
 
 /**
  * Defines the position of a value within a tensor in the N-dimensional
@@ -45,23 +44,19 @@ public final class Position implements Serializable {
 
 	private static final long serialVersionUID = 1L;
 
-	private static final Interner<Position> INTERNER = Interners.newWeakInterner();
-
-	/*
-	 * NOTE: This has to be after the cachedPositions initialization, because
-	 * the 'of' method uses it!
-	 */
 	private static final Position EMPTY_POSITION = Position.createFrom(Collections.emptySet());
 
 	@SuppressWarnings("PMD.AvoidFieldNameMatchingMethodName")
 	private final ClassToInstanceMap<Object> coordinates;
 
-	private Position(Set<?> coordinates) {
-		this.coordinates = Coordinates.mapOf(coordinates);
-		if (this.coordinates.containsKey(Position.class)) {
-			throw new IllegalArgumentException("A position is contained in the collection of coordinates."
-					+ "This is most-probably a programming mistake and therefore not allowed.");
-		}
+	/**
+	 * The hash code is cached, as positions are heavily used as keys in maps.
+	 * Zero means that it is not yet calculated.
+	 */
+	private transient int cachedHashCode;
+
+	private Position(ClassToInstanceMap<Object> coordinates) {
+		this.coordinates = coordinates;
 	}
 
 	@SuppressWarnings("PMD.ShortMethodName")
@@ -69,8 +64,35 @@ public final class Position implements Serializable {
 		return createFrom(requireValidCoordinates(coordinates));
 	}
 
+	/**
+	 * Creates a position from the given coordinates, using the given interner
+	 * instead of the default one. The coordinates are validated (only) here,
+	 * so that callers can pass them on as they are.
+	 */
+	static Position of(Collection<?> coordinates, PositionInterner interner) {
+		return createFrom(requireValidCoordinates(coordinates), interner);
+	}
+
 	private static Position createFrom(Set<?> coordinates) {
-		return INTERNER.intern(new Position(coordinates));
+		return createFrom(coordinates, PositionInterners.defaultInterner());
+	}
+
+	private static Position createFrom(Set<?> coordinates, PositionInterner interner) {
+		ClassToInstanceMap<Object> coordinateMap = Coordinates.mapOf(coordinates);
+		if (coordinateMap.containsKey(Position.class)) {
+			throw new IllegalArgumentException("A position is contained in the collection of coordinates."
+					+ "This is most-probably a programming mistake and therefore not allowed.");
+		}
+		return interner.intern(new Position(coordinateMap));
+	}
+
+	/**
+	 * Creates a position from a map of coordinates which is known to be valid
+	 * (e.g. because it was derived from the coordinates of another position).
+	 * No further checks are done.
+	 */
+	static Position fromValidCoordinates(ClassToInstanceMap<Object> coordinates) {
+		return PositionInterners.defaultInterner().intern(new Position(coordinates));
 	}
 
 	public static Position empty() {
@@ -121,9 +143,13 @@ public final class Position implements Serializable {
 
 	@Override
 	public int hashCode() {
-		final int prime = 31;
-		int result = 1;
-		result = prime * result + ((coordinates == null) ? 0 : coordinates.hashCode());
+		int result = cachedHashCode;
+		if (result == 0) {
+			final int prime = 31;
+			result = 1;
+			result = prime * result + ((coordinates == null) ? 0 : coordinates.hashCode());
+			cachedHashCode = result;
+		}
 		return result;
 	}
 
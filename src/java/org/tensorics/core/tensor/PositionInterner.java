@@ -0,0 +1,43 @@
+// @formatter:off
+ /*******************************************************************************
+ *
+ * This file is part of tensorics.
+ * 
+ * Copyright (c) 2008-2011, CERN. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ ******************************************************************************/
+// @formatter:on
+package org.tensorics.core.tensor;
+
+import com.google.common.collect.Interner;
+
+/**
+ * An interner for positions, which in addition provides statistics about its usage. Interning positions makes equal
+ * positions share the same instance, which saves memory and speeds up equality checks, but it has its own costs (e.g.
+ * contention, if many threads intern through the same instance). Different implementations (policies) are provided by
+ * {@link PositionInterners}.
+ * 
+ * @author kfuchsbe
+ */
+public interface PositionInterner extends Interner<Position> {
+
+    /**
+     * Retrieves a snapshot of the current statistics of this interner.
+     * 
+     * @return the statistics of this interner
+     */
+    InterningStatistics statistics();
+
+}
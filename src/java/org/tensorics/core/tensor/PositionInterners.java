@@ -0,0 +1,316 @@
+// @formatter:off
+ /*******************************************************************************
+ *
+ * This file is part of tensorics.
+ * 
+ * Copyright (c) 2008-2011, CERN. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ ******************************************************************************/
+// @formatter:on
+package org.tensorics.core.tensor;
+
+import java.lang.ref.WeakReference;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Logger;
+
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
+
+/**
+ * Provides the different policies for interning positions (see {@link PositionInterner}). The interner used by
+ * {@link Position#of(Object...)} and {@link Position#of(java.util.Set)} can be selected by the system property
+ * {@value #POLICY_PROPERTY}, with one of the following values:
+ * <ul>
+ * <li>{@code global} (default): One weak interner shared by all threads (see {@link #global()}).
+ * <li>{@code striped}: Positions are distributed to several weak interners by their hash code, which reduces the
+ * contention between threads (see {@link #striped()}).
+ * <li>{@code thread-local}: Each thread has its own weak interner (see {@link #threadLocal()}).
+ * <li>{@code none}: Positions are not interned at all (see {@link #none()}).
+ * </ul>
+ * An unknown value of the property is ignored with a warning and the global interner is used instead.
+ * Additionally, tensor builders can be configured to use their own interner (e.g. an arena, see {@link #newArena()})
+ * for the positions they create themselves (see {@link AbstractTensorBuilder#setPositionInterner(PositionInterner)}).
+ * 
+ * @author kfuchsbe
+ */
+public final class PositionInterners {
+
+    /** The name of the system property by which the default interning policy can be selected. */
+    public static final String POLICY_PROPERTY = "org.tensorics.core.tensor.positionInterning";
+
+    private static final Logger LOGGER = Logger.getLogger(PositionInterners.class.getName());
+    private static final String DEFAULT_POLICY = "global";
+    private static final int STRIPES = 32;
+
+    private static final PositionInterner NONE = new NoInterner();
+    private static final PositionInterner GLOBAL = new GlobalInterner();
+    private static final PositionInterner STRIPED = new StripedInterner(STRIPES);
+    private static final PositionInterner THREAD_LOCAL = new ThreadLocalInterner();
+
+    private static final PositionInterner DEFAULT = fromPolicyProperty(System.getProperty(POLICY_PROPERTY,
+            DEFAULT_POLICY));
+
+    private PositionInterners() {
+        /* only static methods */
+    }
+
+    /**
+     * @return the interner which is used by default when creating positions, as selected by the system property
+     *         {@value #POLICY_PROPERTY}
+     */
+    public static PositionInterner defaultInterner() {
+        return DEFAULT;
+    }
+
+    /**
+     * Retrieves the interner for the given policy name, as it is used in the system property
+     * {@value #POLICY_PROPERTY}.
+     * 
+     * @param policy the name of the policy (one of {@code global}, {@code striped}, {@code thread-local} or
+     *            {@code none})
+     * @return the interner for the given policy
+     * @throws IllegalArgumentException if the policy is unknown
+     */
+    public static PositionInterner fromPolicy(String policy) {
+        switch (policy) {
+        case "global":
+            return GLOBAL;
+        case "striped":
+            return STRIPED;
+        case "thread-local":
+            return THREAD_LOCAL;
+        case "none":
+            return NONE;
+        default:
+            throw new IllegalArgumentException("Unknown position interning policy '" + policy
+                    + "'. Valid policies are: global, striped, thread-local, none.");
+        }
+    }
+
+    /**
+     * Since the default interner is determined while initializing this class, an invalid property value must not throw
+     * (this would make the class {@link Position} unusable), but falls back to the global interner.
+     */
+    static PositionInterner fromPolicyProperty(String policy) {
+        try {
+            return fromPolicy(policy);
+        } catch (IllegalArgumentException e) {
+            LOGGER.warning("Invalid value of the system property '" + POLICY_PROPERTY + "': " + e.getMessage()
+                    + " Falling back to the '" + DEFAULT_POLICY + "' policy.");
+            return GLOBAL;
+        }
+    }
+
+    /**
+     * @return an interner which does not intern at all, but simply returns the given positions
+     */
+    public static PositionInterner none() {
+        return NONE;
+    }
+
+    /**
+     * Returns the interner which uses one weak interner for all threads. Its size cannot be determined.
+     * 
+     * @return the global interner
+     */
+    public static PositionInterner global() {
+        return GLOBAL;
+    }
+
+    /**
+     * Returns an interner which distributes the positions by their hash code to several independently locked weak
+     * maps. Threads only contend, if they intern positions which fall into the same stripe.
+     * 
+     * @return the striped interner
+     */
+    public static PositionInterner striped() {
+        return STRIPED;
+    }
+
+    /**
+     * Returns an interner which keeps one weak map per thread. Thus there is no contention at all, but positions are
+     * only shared within one thread. The size reported in the statistics is the one of the calling thread.
+     * 
+     * @return the thread local interner
+     */
+    public static PositionInterner threadLocal() {
+        return THREAD_LOCAL;
+    }
+
+    /**
+     * Creates a new arena interner, which strongly holds all the positions interned through it. It is intended to be
+     * used for a limited scope (e.g. one tensor builder) and can be dropped as a whole afterwards. It is not thread
+     * safe.
+     * 
+     * @return a new arena interner
+     */
+    public static PositionInterner newArena() {
+        return new ArenaInterner();
+    }
+
+    /**
+     * Base class for interners, which takes care of counting requests and hits.
+     */
+    private abstract static class AbstractCountingInterner implements PositionInterner {
+
+        private final LongAdder requests = new LongAdder();
+        private final LongAdder hits = new LongAdder();
+
+        @Override
+        public final Position intern(Position sample) {
+            requests.increment();
+            Position interned = doIntern(sample);
+            if (interned != sample) {
+                hits.increment();
+            }
+            return interned;
+        }
+
+        protected abstract Position doIntern(Position sample);
+
+        protected abstract int size();
+
+        @Override
+        public InterningStatistics statistics() {
+            return new InterningStatistics(requests.sum(), hits.sum(), size());
+        }
+    }
+
+    private static final class NoInterner extends AbstractCountingInterner {
+
+        @Override
+        protected Position doIntern(Position sample) {
+            return sample;
+        }
+
+        @Override
+        protected int size() {
+            return 0;
+        }
+    }
+
+    private static final class GlobalInterner extends AbstractCountingInterner {
+
+        private final Interner<Position> interner = Interners.newWeakInterner();
+
+        @Override
+        protected Position doIntern(Position sample) {
+            return interner.intern(sample);
+        }
+
+        @Override
+        protected int size() {
+            return InterningStatistics.UNKNOWN_SIZE;
+        }
+    }
+
+    private static final class StripedInterner extends AbstractCountingInterner {
+
+        private final WeakMapInterner[] stripes;
+
+        StripedInterner(int numberOfStripes) {
+            this.stripes = new WeakMapInterner[numberOfStripes];
+            for (int i = 0; i < numberOfStripes; i++) {
+                stripes[i] = new WeakMapInterner();
+            }
+        }
+
+        @Override
+        protected Position doIntern(Position sample) {
+            int hash = sample.hashCode();
+            WeakMapInterner stripe = stripes[((hash ^ (hash >>> 16)) & Integer.MAX_VALUE) % stripes.length];
+            synchronized (stripe) {
+                return stripe.intern(sample);
+            }
+        }
+
+        @Override
+        protected int size() {
+            int size = 0;
+            for (WeakMapInterner stripe : stripes) {
+                synchronized (stripe) {
+                    size += stripe.size();
+                }
+            }
+            return size;
+        }
+    }
+
+    private static final class ThreadLocalInterner extends AbstractCountingInterner {
+
+        private final ThreadLocal<WeakMapInterner> interners = new ThreadLocal<WeakMapInterner>() {
+            @Override
+            protected WeakMapInterner initialValue() {
+                return new WeakMapInterner();
+            }
+        };
+
+        @Override
+        protected Position doIntern(Position sample) {
+            return interners.get().intern(sample);
+        }
+
+        @Override
+        protected int size() {
+            return interners.get().size();
+        }
+    }
+
+    private static final class ArenaInterner extends AbstractCountingInterner {
+
+        private final Map<Position, Position> positions = new HashMap<>();
+
+        @Override
+        protected Position doIntern(Position sample) {
+            Position existing = positions.get(sample);
+            if (existing != null) {
+                return existing;
+            }
+            positions.put(sample, sample);
+            return sample;
+        }
+
+        @Override
+        protected int size() {
+            return positions.size();
+        }
+    }
+
+    /**
+     * A simple (not thread safe) interner, which holds its positions weakly.
+     */
+    private static final class WeakMapInterner {
+
+        private final Map<Position, WeakReference<Position>> positions = new WeakHashMap<>();
+
+        Position intern(Position sample) {
+            WeakReference<Position> reference = positions.get(sample);
+            Position existing = (reference == null) ? null : reference.get();
+            if (existing != null) {
+                return existing;
+            }
+            positions.put(sample, new WeakReference<Position>(sample));
+            return sample;
+        }
+
+        int size() {
+            return positions.size();
+        }
+    }
+
+}
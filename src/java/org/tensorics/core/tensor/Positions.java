@@ -24,15 +24,20 @@ package org.tensorics.core.tensor;
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import com.google.common.base.Function;
 import com.google.common.base.Objects;
+import com.google.common.collect.ClassToInstanceMap;
 import com.google.common.collect.HashMultiset;
+import com.google.common.collect.ImmutableClassToInstanceMap;
 import com.google.common.collect.ImmutableMultimap;
 import com.google.common.collect.ImmutableSet;
-import com.google.common.collect.ImmutableSet.Builder;
 import com.google.common.collect.ImmutableSetMultimap;
 import com.google.common.collect.Multimap;
 import com.google.common.collect.Multisets;
@@ -74,12 +79,27 @@ public final class Positions {
 	 *             therefor the union of the position is not well defined
 	 */
 	public static Position union(Position left, Position right) {
+		return union(left, right, PositionInterners.defaultInterner());
+	}
+
+	/**
+	 * Same as {@link #union(Position, Position)}, but uses the given interner
+	 * for the resulting position. If one of the positions is empty, then the
+	 * other one is returned as is.
+	 */
+	static Position union(Position left, Position right, PositionInterner interner) {
 		checkNotNull(left, "left position must not be null.");
 		checkNotNull(right, "right position must not be null.");
+		if (left.dimensionSet().isEmpty()) {
+			return right;
+		}
+		if (right.dimensionSet().isEmpty()) {
+			return left;
+		}
 		checkArgument(Sets.intersection(left.dimensionSet(), right.dimensionSet()).isEmpty(),
 				"Positions have overlapping dimensions. It is not possible to create the union of them.");
 		SetView<Object> coordinates = Sets.union(left.coordinates(), right.coordinates());
-		return Position.of(coordinates);
+		return Position.of(coordinates, interner);
 	}
 
 	/**
@@ -105,32 +125,103 @@ public final class Positions {
 	 *         positions.
 	 */
 	public static Positions.DimensionStripper stripping(final Set<? extends Class<?>> dimensionsToStrip) {
-		return new Positions.DimensionStripper(dimensionsToStrip);
+		return new Positions.DimensionStripper(dimensionsToStrip, 0);
+	}
+
+	/**
+	 * Factory method for a dimension stripper, which additionally remembers
+	 * the results for the positions it was applied to. This is useful if the
+	 * same positions are stripped over and over again (e.g. when looking up
+	 * values in broadcasted tensors). Memoized results are kept as long as
+	 * the stripper is referenced, however, not more than the given maximum
+	 * number of positions are remembered.
+	 * 
+	 * @param dimensionsToStrip
+	 *            the dimensions which shall be stripped from the positions
+	 *            passed to the stripper.
+	 * @param maxCacheSize
+	 *            the maximum number of positions, for which the results are
+	 *            remembered
+	 * @return a memoizing function object that can strip the given dimensions
+	 *         from positions.
+	 */
+	public static Positions.DimensionStripper memoizedStripping(final Set<? extends Class<?>> dimensionsToStrip,
+			int maxCacheSize) {
+		checkArgument(maxCacheSize > 0, "maxCacheSize must be positive, but was " + maxCacheSize + ".");
+		return new Positions.DimensionStripper(dimensionsToStrip, maxCacheSize);
 	}
 
 	/**
 	 * A functional object to transform positions to other positions with the
 	 * dimensions stripped as given in the constructor.
+	 * <p>
+	 * For each set of dimensions of incoming positions, the dimensions to keep
+	 * are determined only once. Stripping a position then only picks the
+	 * coordinates of these dimensions, without validating them again.
+	 * Positions which do not contain any of the dimensions to strip are
+	 * returned as they are.
 	 * 
 	 * @author kaifox
 	 */
 	public static class DimensionStripper implements Function<Position, Position> {
 
 		private final Set<? extends Class<?>> dimensionsToStrip;
+		private final ConcurrentMap<Set<Class<?>>, Class<?>[]> keptDimensions = new ConcurrentHashMap<>();
+		private final int maxCacheSize;
+		private final ConcurrentMap<Position, Position> cache;
 
-		DimensionStripper(Set<? extends Class<?>> dimensionsToStrip) {
+		DimensionStripper(Set<? extends Class<?>> dimensionsToStrip, int maxCacheSize) {
 			this.dimensionsToStrip = ImmutableSet.copyOf(dimensionsToStrip);
+			this.maxCacheSize = maxCacheSize;
+			this.cache = (maxCacheSize > 0) ? new ConcurrentHashMap<Position, Position>() : null;
 		}
 
 		@Override
 		public Position apply(Position position) {
-			Builder<Object> builder = ImmutableSet.builder();
-			for (Object coordinate : position.coordinates()) {
-				if (!dimensionsToStrip.contains(coordinate.getClass())) {
-					builder.add(coordinate);
+			if (cache == null) {
+				return strip(position);
+			}
+			Position stripped = cache.get(position);
+			if (stripped == null) {
+				stripped = strip(position);
+				if (cache.size() < maxCacheSize) {
+					cache.putIfAbsent(position, stripped);
+				}
+			}
+			return stripped;
+		}
+
+		private Position strip(Position position) {
+			Class<?>[] dimensionsToKeep = keptDimensionsFor(position.dimensionSet());
+			ClassToInstanceMap<Object> coordinates = position.getCoordinates();
+			if (dimensionsToKeep.length == coordinates.size()) {
+				return position;
+			}
+			ImmutableClassToInstanceMap.Builder<Object> builder = ImmutableClassToInstanceMap.builder();
+			for (Class<?> dimension : dimensionsToKeep) {
+				putCoordinate(builder, dimension, coordinates);
+			}
+			return Position.fromValidCoordinates(builder.build());
+		}
+
+		private static <C> void putCoordinate(ImmutableClassToInstanceMap.Builder<Object> builder, Class<C> dimension,
+				ClassToInstanceMap<Object> coordinates) {
+			builder.put(dimension, coordinates.getInstance(dimension));
+		}
+
+		private Class<?>[] keptDimensionsFor(Set<Class<?>> dimensions) {
+			Class<?>[] dimensionsToKeep = keptDimensions.get(dimensions);
+			if (dimensionsToKeep == null) {
+				List<Class<?>> kept = new ArrayList<>(dimensions.size());
+				for (Class<?> dimension : dimensions) {
+					if (!dimensionsToStrip.contains(dimension)) {
+						kept.add(dimension);
+					}
 				}
+				dimensionsToKeep = kept.toArray(new Class<?>[kept.size()]);
+				keptDimensions.putIfAbsent(ImmutableSet.copyOf(dimensions), dimensionsToKeep);
 			}
-			return Position.of(builder.build());
+			return dimensionsToKeep;
 		}
 
 	}
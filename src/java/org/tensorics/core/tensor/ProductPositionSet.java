@@ -0,0 +1,112 @@
+// @formatter:off
+ /*******************************************************************************
+ *
+ * This file is part of tensorics.
+ * 
+ * Copyright (c) 2008-2011, CERN. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ ******************************************************************************/
+// @formatter:on
+
+package org.tensorics.core.tensor;
+
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import org.tensorics.core.tensor.Positions.DimensionStripper;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.UnmodifiableIterator;
+
+/**
+ * A set of positions, which contains all the combinations of the positions of two sets with disjunct dimensions (the
+ * outer product of the two sets). Only the two original sets are referenced: {@link #size()} is the product of their
+ * sizes, {@link #contains(Object)} projects the position onto the dimensions of both sets and the combined positions
+ * are only created while iterating.
+ * 
+ * @author kfuchsbe
+ */
+final class ProductPositionSet extends AbstractSet<Position> {
+
+    private final Set<Position> left;
+    private final Set<Position> right;
+    private final int dimensionCount;
+    private final DimensionStripper toLeft;
+    private final DimensionStripper toRight;
+    private final int size;
+
+    ProductPositionSet(Shape left, Shape right) {
+        this.left = left.positionSet();
+        this.right = right.positionSet();
+        this.dimensionCount = left.dimensionality() + right.dimensionality();
+        this.toLeft = Positions.stripping(right.dimensionSet());
+        this.toRight = Positions.stripping(left.dimensionSet());
+        long product = (long) left.size() * right.size();
+        Preconditions.checkArgument(product <= Integer.MAX_VALUE, "The outer product of the shapes "
+                + "contains more than Integer.MAX_VALUE positions.");
+        this.size = (int) product;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean contains(Object object) {
+        if (!(object instanceof Position)) {
+            return false;
+        }
+        Position position = (Position) object;
+        if (position.dimensionSet().size() != dimensionCount) {
+            return false;
+        }
+        return left.contains(toLeft.apply(position)) && right.contains(toRight.apply(position));
+    }
+
+    /**
+     * Iterates over all the positions, where the positions of the right set change fastest.
+     */
+    @Override
+    public Iterator<Position> iterator() {
+        return new UnmodifiableIterator<Position>() {
+            private final Iterator<Position> leftIterator = left.iterator();
+            private Iterator<Position> rightIterator = right.iterator();
+            private Position leftPosition;
+            private int remaining = size;
+
+            @Override
+            public boolean hasNext() {
+                return remaining > 0;
+            }
+
+            @Override
+            public Position next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                if ((leftPosition == null) || !rightIterator.hasNext()) {
+                    leftPosition = leftIterator.next();
+                    rightIterator = right.iterator();
+                }
+                remaining--;
+                return Positions.union(leftPosition, rightIterator.next());
+            }
+        };
+    }
+
+}
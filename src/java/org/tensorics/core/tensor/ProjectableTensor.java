@@ -0,0 +1,46 @@
+// @formatter:off
+ /*******************************************************************************
+ *
+ * This file is part of tensorics.
+ * 
+ * Copyright (c) 2008-2011, CERN. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ ******************************************************************************/
+// @formatter:on
+
+package org.tensorics.core.tensor;
+
+/**
+ * A tensor, which can directly look up values for positions that contain more dimensions than the tensor itself. The
+ * additional coordinates are simply ignored, so that no stripped position has to be created. This is used by
+ * {@link BroadcastedTensorView} to avoid the creation of positions when looking up values in dense tensors.
+ * 
+ * @author kfuchsbe
+ * @param <V> the type of the values of the tensor
+ */
+public interface ProjectableTensor<V> extends Tensor<V> {
+
+    /**
+     * Retrieves the value at the position, which results from the given one by dropping all the coordinates whose
+     * dimensions are not dimensions of this tensor.
+     * 
+     * @param position a position containing (at least) a coordinate for each dimension of this tensor
+     * @return the value at the projected position
+     * @throws IllegalArgumentException if the position does not contain a coordinate for one of the dimensions
+     * @throws java.util.NoSuchElementException if the projected position is not contained in the tensor
+     */
+    V getProjection(Position position);
+
+}
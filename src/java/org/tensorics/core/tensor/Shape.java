@@ -26,19 +26,29 @@ import java.io.Serializable;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Consumer;
 
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Iterators;
 
 /**
  * Defines the shape of a tensor. This implies all the positions for which the tensor stores values.
  * <p>
+ * A shape either enumerates its positions or, if created by {@link #cartesianProduct(Map)}, only stores the
+ * coordinates per dimension. In the latter case, {@link #size()} and {@link #contains(Position)} only depend on the
+ * number of dimensions and positions are only created while iterating. None of the accessors copies the positions.
+ * <p>
  * This class is immutable
  * 
  * @author kfuchsbe
  */
 @SuppressWarnings({ "PMD.CyclomaticComplexity", "PMD.TooManyMethods" })
-public final class Shape implements Serializable {
+public final class Shape implements Serializable, Iterable<Position> {
 
     private static final long serialVersionUID = 1L;
 
@@ -47,6 +57,7 @@ public final class Shape implements Serializable {
 
     private final Set<? extends Class<?>> dimensions;
     private final Set<Position> positions;
+    private transient volatile ConcurrentMap<Class<?>, SortedCoordinates<?>> sortedCoordinates;
 
     Shape(Builder builder) {
         this(ImmutableSet.copyOf(builder.dimensions), ImmutableSet.copyOf(builder.setBuilder.build()));
@@ -58,21 +69,41 @@ public final class Shape implements Serializable {
     }
 
     /**
-     * Retrieves all the positions which are available in a tensor for this shape.
+     * Retrieves all the positions which are available in a tensor for this shape. The returned set is an unmodifiable
+     * view, so calling this method is cheap.
      * 
      * @return an immutable set of the positions for a tensor of this shape.
      */
     public Set<Position> positionSet() {
-        return new HashSet<>(this.positions);
+        return Collections.unmodifiableSet(this.positions);
     }
 
     /**
      * Retrieves all the dimensions of this shape.
      * 
-     * @return the dimensions
+     * @return an unmodifiable view on the dimensions
      */
     public Set<Class<?>> dimensionSet() {
-        return new HashSet<>(this.dimensions);
+        return Collections.<Class<?>> unmodifiableSet(this.dimensions);
+    }
+
+    /**
+     * Iterates over all the positions of this shape, without copying them.
+     */
+    @Override
+    public Iterator<Position> iterator() {
+        return Iterators.unmodifiableIterator(this.positions.iterator());
+    }
+
+    /**
+     * Calls the given action for each position of this shape.
+     * 
+     * @param action the action to call for each position
+     */
+    public void forEachPosition(Consumer<? super Position> action) {
+        for (Position position : this.positions) {
+            action.accept(position);
+        }
     }
 
     /**
@@ -102,7 +133,7 @@ public final class Shape implements Serializable {
      * @return {@code true} if the other shape is covered, {@code false} otherwise.
      */
     public boolean covers(Shape other) {
-        return this.positions.containsAll(other.positionSet());
+        return this.positions.containsAll(other.positions);
     }
 
     /**
@@ -196,6 +227,20 @@ public final class Shape implements Serializable {
         return of(Arrays.asList(positions));
     }
 
+    /**
+     * Creates a shape which contains all the combinations of the given coordinates (the cartesian product of the
+     * coordinate sets). The positions are not enumerated: The shape only keeps the given coordinates, which makes
+     * {@link #size()} and {@link #contains(Position)} independent of the number of positions.
+     * 
+     * @param coordinates the coordinates per dimension
+     * @return a new shape, containing all the combinations of the given coordinates
+     * @throws IllegalArgumentException if a coordinate is not an instance of its dimension or if the number of
+     *             positions would exceed {@link Integer#MAX_VALUE}
+     */
+    public static Shape cartesianProduct(Map<? extends Class<?>, ? extends Set<?>> coordinates) {
+        return new Shape(ImmutableSet.copyOf(coordinates.keySet()), new CartesianPositionSet(coordinates));
+    }
+
     /**
      * Returns an empty shape with no dimensions and no positions. The returned shape is equal to the shape of an zero
      * dimensional tensor. It is further equivalent to the call to {@code of()} (with no arguments). However, using this
@@ -223,9 +268,49 @@ public final class Shape implements Serializable {
      * @return a set of the extracted coordinates from provided shape
      */
     public <T> Set<T> coordinatesOfType(Class<T> ofClass) {
+        if ((positions instanceof CartesianPositionSet) && !positions.isEmpty()) {
+            Set<?> coordinates = ((CartesianPositionSet) positions).coordinatesOf(ofClass);
+            if (coordinates != null) {
+                @SuppressWarnings("unchecked")
+                Set<T> typedCoordinates = (Set<T>) coordinates;
+                return new HashSet<>(typedCoordinates);
+            }
+        }
         return Positions.coordinatesOfType(positions, ofClass);
     }
 
+    /**
+     * Retrieves the coordinates of the given dimension in ascending order. They are sorted only at the first call for
+     * a dimension and then cached within the shape, which makes this method efficient for repeated lookups (e.g. while
+     * interpolating).
+     * 
+     * @param dimension the (comparable) dimension for which to retrieve the sorted coordinates
+     * @return the sorted coordinates of the given dimension
+     */
+    public <C extends Comparable<? super C>> SortedCoordinates<C> sortedCoordinatesOf(Class<? extends C> dimension) {
+        ConcurrentMap<Class<?>, SortedCoordinates<?>> cache = this.sortedCoordinates;
+        if (cache == null) {
+            cache = new ConcurrentHashMap<>();
+            this.sortedCoordinates = cache;
+        }
+        @SuppressWarnings("unchecked")
+        SortedCoordinates<C> sorted = (SortedCoordinates<C>) cache.get(dimension);
+        if (sorted != null) {
+            return sorted;
+        }
+        SortedCoordinates<C> newSorted = SortedCoordinates.<C> of(coordinatesOfType(dimension));
+        @SuppressWarnings("unchecked")
+        SortedCoordinates<C> existing = (SortedCoordinates<C>) cache.putIfAbsent(dimension, newSorted);
+        return (existing == null) ? newSorted : existing;
+    }
+
+    /**
+     * @return the positions of this shape, without wrapping them. Only for internal use.
+     */
+    Set<Position> positions() {
+        return this.positions;
+    }
+
     /**
      * The builder for a tensor shape. It has to be instantiated with a set of dimensions and provides methods to add
      * positions to the shape. It is only allowed to add positions which provide exactly one coordinate per dimension as
@@ -276,6 +361,20 @@ public final class Shape implements Serializable {
 
     }
 
+    /**
+     * The positions of a shape might be a lazy view (e.g. on the index of an array backed tensor or on two other
+     * shapes), which is not serializable. Therefore, such shapes are serialized with immutable copies of their
+     * dimensions and positions.
+     * 
+     * @return the shape to be serialized instead of this one
+     */
+    private Object writeReplace() {
+        if ((dimensions instanceof ImmutableSet) && (positions instanceof ImmutableSet)) {
+            return this;
+        }
+        return new Shape(ImmutableSet.copyOf(dimensions), ImmutableSet.copyOf(positions));
+    }
+
     @Override
     @SuppressWarnings("PMD.CyclomaticComplexity")
     public boolean equals(Object obj) {
@@ -27,6 +27,8 @@ import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.collect.Collections2.transform;
 import static com.google.common.collect.Sets.union;
 
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Set;
 
 import com.google.common.collect.Sets;
@@ -88,6 +90,11 @@ public final class Shapes {
     public static Shape dimensionStripped(Shape shape, Set<? extends Class<?>> dimensionsToStrip) {
         checkNotNull(shape, "shape must not be null");
         checkNotNull(dimensionsToStrip, "dimensions must not be null");
+        if (isNonEmptyCartesianProduct(shape)) {
+            Map<Class<?>, Set<?>> coordinates = coordinatesOf(shape);
+            coordinates.keySet().removeAll(dimensionsToStrip);
+            return Shape.cartesianProduct(coordinates);
+        }
         return Shape.of(Positions.unique(transform(shape.positionSet(), Positions.stripping(dimensionsToStrip))));
     }
 
@@ -95,6 +102,10 @@ public final class Shapes {
      * Constructs a shape that contains all positions resulting from the outer product of the positions of the left
      * shape with those of the right shape. It is required that the two shapes have no overlap of dimensions (i.e. none
      * of the dimensions in the left shape are available in the right and vice versa).
+     * <p>
+     * The positions of the resulting shape are not created upfront: Its size is the product of the sizes of the two
+     * shapes, containment is checked by projecting a position onto both shapes and the combined positions are only
+     * created while iterating.
      * 
      * @param left the left shape to use for the outer product
      * @param right the right shape to use for the outer product
@@ -106,13 +117,26 @@ public final class Shapes {
     public static Shape outerProduct(Shape left, Shape right) {
         checkArgument(dimensionalIntersection(left, right).isEmpty(), "The two shapes have "
                 + "overlapping dimensions. The outer product is not foreseen to be used in this situation.");
-        Shape.Builder builder = Shape.builder(union(left.dimensionSet(), right.dimensionSet()));
-        for (Position leftPosition : left.positionSet()) {
-            for (Position rightPosition : right.positionSet()) {
-                builder.add(Positions.union(leftPosition, rightPosition));
-            }
+        if (isNonEmptyCartesianProduct(left) && isNonEmptyCartesianProduct(right)) {
+            Map<Class<?>, Set<?>> coordinates = coordinatesOf(left);
+            coordinates.putAll(coordinatesOf(right));
+            return Shape.cartesianProduct(coordinates);
+        }
+        return Shape.viewOf(union(left.dimensionSet(), right.dimensionSet()).immutableCopy(),
+                new ProductPositionSet(left, right));
+    }
+
+    private static boolean isNonEmptyCartesianProduct(Shape shape) {
+        return (shape.positions() instanceof CartesianPositionSet) && !shape.positions().isEmpty();
+    }
+
+    private static Map<Class<?>, Set<?>> coordinatesOf(Shape cartesianShape) {
+        CartesianPositionSet positions = (CartesianPositionSet) cartesianShape.positions();
+        Map<Class<?>, Set<?>> coordinates = new LinkedHashMap<>();
+        for (Class<?> dimension : positions.dimensions()) {
+            coordinates.put(dimension, positions.coordinatesOf(dimension));
         }
-        return builder.build();
+        return coordinates;
     }
 
     /**
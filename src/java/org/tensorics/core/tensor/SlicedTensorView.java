@@ -0,0 +1,237 @@
+// @formatter:off
+ /*******************************************************************************
+ *
+ * This file is part of tensorics.
+ * 
+ * Copyright (c) 2008-2011, CERN. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ ******************************************************************************/
+// @formatter:on
+
+package org.tensorics.core.tensor;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.io.Serializable;
+import java.util.AbstractSet;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+
+import org.tensorics.core.tensor.Positions.DimensionStripper;
+
+import com.google.common.base.Function;
+import com.google.common.base.Predicate;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Iterators;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+
+/**
+ * A view on the slice of a tensor at fixed coordinates of some of its dimensions. The dimensions of the slice
+ * coordinates do not appear in the view anymore, while the slice coordinates are added to the context of the view (as
+ * done by slicing through a {@link org.tensorics.core.reduction.Slicing} reduction). Neither the positions nor the
+ * values of the original tensor are copied: Values are looked up in the original tensor when they are read. Slicing a
+ * slice again combines the slice coordinates, so that chained slices are still backed directly by the original tensor.
+ * <p>
+ * Note that iterating over the shape of such a view (and determining its size) requires to iterate over all the
+ * positions of the original tensor. The size is only counted once and remembered afterwards.
+ * <p>
+ * A sliced view is equal to immutable tensors (and other filtered or sliced views) with the same shape, entries and
+ * context, like the copies which were returned by slicing before.
+ * 
+ * @author kfuchsbe
+ * @param <V> the type of the values of the tensor
+ */
+public final class SlicedTensorView<V> implements TensorView<V>, Serializable {
+
+    private static final long serialVersionUID = 1L;
+    private static final int TOSTRING_ENTRIES = 10;
+    private static final int UNKNOWN_SIZE = -1;
+
+    private final Tensor<V> originalTensor;
+    private final Position slicePosition;
+    private final Set<Class<?>> dimensions;
+    private final DimensionStripper stripper;
+    private final Context context;
+    private final Shape shape;
+
+    private SlicedTensorView(Tensor<V> originalTensor, Position slicePosition) {
+        this.originalTensor = originalTensor;
+        this.slicePosition = slicePosition;
+        this.dimensions = ImmutableSet.copyOf(Sets.difference(originalTensor.shape().dimensionSet(),
+                slicePosition.dimensionSet()));
+        this.stripper = Positions.stripping(slicePosition.dimensionSet());
+        this.context = Context.of(Positions.union(originalTensor.context().getPosition(), slicePosition));
+        this.shape = Shape.viewOf(dimensions, new SlicePositionSet());
+    }
+
+    /**
+     * Creates a view on the slice of the given tensor at the given coordinates.
+     * 
+     * @param tensor the tensor to slice
+     * @param slicePosition the coordinates at which to slice the tensor
+     * @return a new view on the slice
+     * @throws IllegalStateException if one of the dimensions of the slice position is not a dimension of the tensor
+     */
+    public static <V> SlicedTensorView<V> of(Tensor<V> tensor, Position slicePosition) {
+        checkNotNull(tensor, "tensor must not be null");
+        checkNotNull(slicePosition, "slicePosition must not be null");
+        if (!tensor.shape().dimensionSet().containsAll(slicePosition.dimensionSet())) {
+            throw new IllegalStateException("Cannot slice at " + slicePosition + ", because not all of its dimensions"
+                    + " are contained in the dimensions of the tensor (" + tensor.shape().dimensionSet() + ").");
+        }
+        if (tensor instanceof SlicedTensorView) {
+            SlicedTensorView<V> slice = (SlicedTensorView<V>) tensor;
+            return new SlicedTensorView<>(slice.originalTensor, Positions.union(slice.slicePosition, slicePosition));
+        }
+        return new SlicedTensorView<>(tensor, slicePosition);
+    }
+
+    @Override
+    public V get(Position position) {
+        if (!dimensions.equals(position.dimensionSet())) {
+            throw new IllegalArgumentException("Entry for position '" + position + "' is not contained in this view."
+                    + "\nThe dimensions of the view (" + dimensions
+                    + ") do not match the dimensions of the requested position (" + position.dimensionSet() + ").");
+        }
+        return originalTensor.get(toOriginal(position));
+    }
+
+    @Override
+    public V get(Object... coordinates) {
+        return get(Position.of(coordinates));
+    }
+
+    private Position toOriginal(Position position) {
+        return Positions.union(position, slicePosition);
+    }
+
+    @Override
+    @Deprecated
+    public Set<Tensor.Entry<V>> entrySet() {
+        Set<Tensor.Entry<V>> entries = new HashSet<>();
+        for (Map.Entry<Position, V> one : asMap().entrySet()) {
+            entries.add(new ImmutableEntry<>(one.getKey(), one.getValue()));
+        }
+        return entries;
+    }
+
+    /**
+     * Returns an unmodifiable view on the entries of the slice. The values are looked up in the original tensor while
+     * iterating.
+     */
+    @Override
+    public Map<Position, V> asMap() {
+        return Collections.unmodifiableMap(Maps.asMap(shape.positionSet(), new Function<Position, V>() {
+            @Override
+            public V apply(Position position) {
+                return originalTensor.get(toOriginal(position));
+            }
+        }));
+    }
+
+    @Override
+    public Shape shape() {
+        return this.shape;
+    }
+
+    @Override
+    public Context context() {
+        return this.context;
+    }
+
+    @Override
+    public Tensor<V> materialize() {
+        return ImmutableTensor.copyOf(this);
+    }
+
+    /**
+     * The view itself is not serializable, as it is backed by the original tensor. Therefore, an immutable copy of its
+     * entries is serialized instead, like the tensors which were returned by slicing before.
+     * 
+     * @return the tensor to be serialized instead of this view
+     */
+    private Object writeReplace() {
+        return materialize();
+    }
+
+    @Override
+    public int hashCode() {
+        return ImmutableTensor.contentHashCode(this);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        return ImmutableTensor.contentEquals(this, obj);
+    }
+
+    @Override
+    public String toString() {
+        return Coordinates.dimensionsWithoutClassPath(this) + ", Content:"
+                + Iterators.toString(Iterators.limit(asMap().entrySet().iterator(), TOSTRING_ENTRIES));
+    }
+
+    /**
+     * A set view on the positions of the original tensor which contain the slice coordinates, with the slice
+     * coordinates stripped.
+     * 
+     * @author kfuchsbe
+     */
+    private final class SlicePositionSet extends AbstractSet<Position> {
+
+        private volatile int size = UNKNOWN_SIZE;
+
+        @Override
+        public Iterator<Position> iterator() {
+            Iterator<Position> inSlice = Iterators.filter(originalTensor.shape().positionSet().iterator(),
+                    new Predicate<Position>() {
+                        @Override
+                        public boolean apply(Position position) {
+                            return position.coordinates().containsAll(slicePosition.coordinates());
+                        }
+                    });
+            return Iterators.transform(inSlice, stripper);
+        }
+
+        @Override
+        public boolean contains(Object object) {
+            if (!(object instanceof Position)) {
+                return false;
+            }
+            Position position = (Position) object;
+            return dimensions.equals(position.dimensionSet()) && originalTensor.shape().contains(toOriginal(position));
+        }
+
+        @Override
+        public boolean isEmpty() {
+            int knownSize = size;
+            return (knownSize == UNKNOWN_SIZE) ? !iterator().hasNext() : (knownSize == 0);
+        }
+
+        @Override
+        public int size() {
+            int knownSize = size;
+            if (knownSize == UNKNOWN_SIZE) {
+                knownSize = Iterators.size(iterator());
+                size = knownSize;
+            }
+            return knownSize;
+        }
+    }
+
+}
@@ -0,0 +1,114 @@
+// @formatter:off
+ /*******************************************************************************
+ *
+ * This file is part of tensorics.
+ * 
+ * Copyright (c) 2008-2011, CERN. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ ******************************************************************************/
+// @formatter:on
+
+package org.tensorics.core.tensor;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import com.google.common.collect.ImmutableList;
+
+/**
+ * An immutable, ascending list of the (comparable) coordinates of one dimension, which allows to find coordinates and
+ * their neighbours by binary search. Instances for the dimensions of a shape can be retrieved by
+ * {@link Shape#sortedCoordinatesOf(Class)}, which sorts the coordinates only once per shape and dimension.
+ * 
+ * @author kfuchsbe
+ * @param <C> the type of the coordinates
+ */
+public final class SortedCoordinates<C extends Comparable<? super C>> {
+
+    private final ImmutableList<C> coordinates;
+
+    private SortedCoordinates(ImmutableList<C> coordinates) {
+        this.coordinates = coordinates;
+    }
+
+    /**
+     * @param coordinates the coordinates to sort. They have to be unique.
+     * @return the sorted coordinates
+     */
+    public static <C extends Comparable<? super C>> SortedCoordinates<C> of(Collection<? extends C> coordinates) {
+        List<C> sorted = new ArrayList<>(coordinates);
+        Collections.sort(sorted);
+        return new SortedCoordinates<>(ImmutableList.copyOf(sorted));
+    }
+
+    /**
+     * @return the coordinates in ascending order
+     */
+    public List<C> asList() {
+        return coordinates;
+    }
+
+    public int size() {
+        return coordinates.size();
+    }
+
+    public C get(int index) {
+        return coordinates.get(index);
+    }
+
+    /**
+     * @param coordinate the coordinate to search for
+     * @return the index of the given coordinate, or {@code -1} if it is not contained
+     */
+    public int indexOf(C coordinate) {
+        int index = Collections.binarySearch(coordinates, coordinate);
+        return (index >= 0) ? index : -1;
+    }
+
+    /**
+     * @param coordinate the coordinate for which to search the floor
+     * @return the index of the biggest coordinate which is smaller or equal to the given one, or {@code -1} if all
+     *         coordinates are bigger
+     */
+    public int floorIndexOf(C coordinate) {
+        int index = Collections.binarySearch(coordinates, coordinate);
+        return (index >= 0) ? index : -index - 2;
+    }
+
+    /**
+     * Finds the two neighbouring coordinates which shall be used to interpolate (or extrapolate) at the given
+     * coordinate: Inside the range of the coordinates these are the two ones enclosing it, outside of the range the
+     * first two or the last two respectively.
+     * 
+     * @param coordinate the coordinate for which to find the neighbours
+     * @return the index of the lower one of the two neighbours (the upper one is at the next index)
+     * @throws IllegalStateException if there are less than two coordinates
+     */
+    public int lowerNeighbourIndexOf(C coordinate) {
+        if (coordinates.size() < 2) {
+            throw new IllegalStateException("At least two coordinates are required to find neighbours, but only "
+                    + coordinates + " are available.");
+        }
+        return Math.min(Math.max(floorIndexOf(coordinate), 0), coordinates.size() - 2);
+    }
+
+    @Override
+    public String toString() {
+        return "SortedCoordinates " + coordinates;
+    }
+
+}
@@ -25,10 +25,21 @@ package org.tensorics.core.tensor;
  * Marks a tensor, which is a view on one or more other tensor(s). The main purpose of this interface is currently to
  * make the fact of 'viewing' more explicit and let the user reflect on the consequences. (I.g. A tensor is not equal to
  * its own view.)
+ * <p>
+ * Views are evaluated lazily: Creating them is cheap, while their values are only looked up in the viewed tensor(s)
+ * when they are read. If the values are read many times, it might be better to {@link #materialize()} the view once.
  * 
  * @author kaifox
  * @param <V> the type of the values of the tensor
  */
 public interface TensorView<V> extends Tensor<V> {
-    /* Currently only a marker interface */
+
+    /**
+     * Copies all the values, which are currently visible through this view, into a new tensor, which is not backed by
+     * the viewed tensor(s) anymore.
+     * 
+     * @return a new immutable tensor with the same shape, values and context as this view
+     */
+    Tensor<V> materialize();
+
 }
@@ -23,13 +23,15 @@
 package org.tensorics.core.tensor.lang;
 
 import org.tensorics.core.math.ExtendedField;
-import org.tensorics.core.reduction.Averaging;
-import org.tensorics.core.reduction.RootMeanSquare;
+import org.tensorics.core.reduction.AccumulatingReduction;
+import org.tensorics.core.reduction.Accumulator;
+import org.tensorics.core.reduction.Accumulators;
 import org.tensorics.core.tensor.Tensor;
 
 /**
  * Part of the tensorics fluent API, that allows to further describe how a tensor dimesion shall be reduced (where the
- * field was not yet known in the previous expression part)
+ * field was not yet known in the previous expression part). All the reductions provided here are based on
+ * {@link Accumulators}, so they need only constant memory per resulting element.
  * 
  * @author kfuchsbe
  * @param <C> the type of the dimension in which the tensor shall be reduced
@@ -42,10 +44,38 @@ public final class OngoingDimensionReduction<C, S> extends OngoingStructuralRedu
     }
 
     public Tensor<S> byAveragingIn(ExtendedField<S> field) {
-        return reduceBy(new Averaging<>(field));
+        return byAccumulating(Accumulators.mean(field));
     }
 
     public Tensor<S> byRmsIn(ExtendedField<S> field) {
-        return reduceBy(new RootMeanSquare<>(field));
+        return byAccumulating(Accumulators.rms(field));
+    }
+
+    public Tensor<S> bySummingIn(ExtendedField<S> field) {
+        return byAccumulating(Accumulators.sum(field));
+    }
+
+    public Tensor<S> byCountingIn(ExtendedField<S> field) {
+        return byAccumulating(Accumulators.count(field));
+    }
+
+    public Tensor<S> byVarianceIn(ExtendedField<S> field) {
+        return byAccumulating(Accumulators.variance(field));
+    }
+
+    public Tensor<S> byStandardDeviationIn(ExtendedField<S> field) {
+        return byAccumulating(Accumulators.standardDeviation(field));
+    }
+
+    public Tensor<S> byMinimumIn(ExtendedField<S> field) {
+        return byAccumulating(Accumulators.min(field));
+    }
+
+    public Tensor<S> byMaximumIn(ExtendedField<S> field) {
+        return byAccumulating(Accumulators.max(field));
+    }
+
+    public <A> Tensor<S> byAccumulating(Accumulator<S, A> accumulator) {
+        return reduceBy(new AccumulatingReduction<>(accumulator));
     }
 }
\ No newline at end of file
@@ -0,0 +1,89 @@
+// @formatter:off
+ /*******************************************************************************
+ *
+ * This file is part of tensorics.
+ * 
+ * Copyright (c) 2008-2011, CERN. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ ******************************************************************************/
+// @formatter:on
+
+package org.tensorics.core.tensor.lang;
+
+import java.util.Set;
+
+import org.tensorics.core.math.ExtendedField;
+import org.tensorics.core.reduction.AccumulatingReduction;
+import org.tensorics.core.reduction.Accumulator;
+import org.tensorics.core.reduction.Accumulators;
+import org.tensorics.core.reduction.ReductionStrategy;
+import org.tensorics.core.tensor.Position;
+import org.tensorics.core.tensor.Tensor;
+import org.tensorics.core.tensor.options.ExecutionStrategy;
+import org.tensorics.core.tensor.options.SequentialExecutionStrategy;
+import org.tensorics.core.tensor.operations.MultiDimensionTensorReduction;
+
+/**
+ * Part of the tensorics fluent API, that allows to further describe how several dimensions of a tensor shall be
+ * reduced at once.
+ * 
+ * @author kfuchsbe
+ * @param <S> the type of the elements of the tensor to be reduced
+ */
+public final class OngoingMultiDimensionReduction<S> {
+
+    private final Tensor<S> tensor;
+    private final Set<? extends Class<?>> dimensions;
+    private final ExecutionStrategy executionStrategy;
+
+    public OngoingMultiDimensionReduction(Tensor<S> tensor, Set<? extends Class<?>> dimensions) {
+        this(tensor, dimensions, new SequentialExecutionStrategy());
+    }
+
+    private OngoingMultiDimensionReduction(Tensor<S> tensor, Set<? extends Class<?>> dimensions,
+            ExecutionStrategy executionStrategy) {
+        this.tensor = tensor;
+        this.dimensions = dimensions;
+        this.executionStrategy = executionStrategy;
+    }
+
+    /**
+     * Specifies how the reduction shall be executed (e.g. in parallel for big tensors).
+     * 
+     * @param strategy the execution strategy to use for the reduction
+     * @return a new ongoing reduction, which will use the given execution strategy
+     */
+    public OngoingMultiDimensionReduction<S> using(ExecutionStrategy strategy) {
+        return new OngoingMultiDimensionReduction<>(tensor, dimensions, strategy);
+    }
+
+    @SuppressWarnings("PMD.ShortMethodName")
+    public Tensor<S> by(ReductionStrategy<? super Position, S> strategy) {
+        return new MultiDimensionTensorReduction<>(dimensions, strategy, executionStrategy).perform(tensor);
+    }
+
+    public Tensor<S> byAveragingIn(ExtendedField<S> field) {
+        return byAccumulating(Accumulators.mean(field));
+    }
+
+    public Tensor<S> byRmsIn(ExtendedField<S> field) {
+        return byAccumulating(Accumulators.rms(field));
+    }
+
+    public <A> Tensor<S> byAccumulating(Accumulator<S, A> accumulator) {
+        return by(new AccumulatingReduction<>(accumulator));
+    }
+
+}
@@ -0,0 +1,61 @@
+// @formatter:off
+ /*******************************************************************************
+ *
+ * This file is part of tensorics.
+ * 
+ * Copyright (c) 2008-2011, CERN. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ ******************************************************************************/
+// @formatter:on
+
+package org.tensorics.core.tensor.lang;
+
+import java.util.Map;
+
+import org.tensorics.core.reduction.InterpolatedSlicing;
+import org.tensorics.core.reduction.InterpolationStrategy;
+import org.tensorics.core.tensor.Tensor;
+
+/**
+ * Part of the tensoric fluent API, which allows to specify how a tensor shall be interpolated, when it is sliced at
+ * several coordinates at once.
+ * 
+ * @author kfuchsbe
+ * @param <E> the type of the elements of the tensor
+ * @param <C> the type of the (comparable) coordinates at which to slice
+ */
+public class OngoingMultipleInterpolatedSlicing<E, C extends Comparable<C>> {
+
+    private final Tensor<E> tensor;
+    private final Iterable<C> slicePositions;
+    private final Class<C> dimension;
+
+    public OngoingMultipleInterpolatedSlicing(Iterable<C> slicePositions, Tensor<E> tensor, Class<C> dimension) {
+        this.tensor = tensor;
+        this.slicePositions = slicePositions;
+        this.dimension = dimension;
+    }
+
+    /**
+     * Defines the interpolation strategy and performs the slicing.
+     * 
+     * @param strategy the strategy to use for interpolating between the missing coordinates
+     * @return the slice for each of the slice positions, in the order of the positions
+     */
+    public Map<C, Tensor<E>> interpolatingWith(InterpolationStrategy<C, E> strategy) {
+        return InterpolatedSlicing.sliceAll(tensor, dimension, slicePositions, strategy);
+    }
+
+}
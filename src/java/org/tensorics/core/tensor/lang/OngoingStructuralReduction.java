@@ -26,6 +26,8 @@ import org.tensorics.core.reduction.InterpolatedSlicing;
 import org.tensorics.core.reduction.InterpolationStrategy;
 import org.tensorics.core.reduction.ReductionStrategy;
 import org.tensorics.core.reduction.Slicing;
+import org.tensorics.core.tensor.Position;
+import org.tensorics.core.tensor.SlicedTensorView;
 import org.tensorics.core.tensor.Tensor;
 import org.tensorics.core.tensor.operations.TensorReduction;
 
@@ -53,7 +55,18 @@ public class OngoingStructuralReduction<C, E> {
         return reduceBy(strategy);
     }
 
+    /**
+     * Slices the tensor at the given coordinate. If the coordinate is exactly of the type of the dimension, then the
+     * result is a view on the original tensor, which does not copy any values.
+     * 
+     * @param slicePosition the coordinate at which to slice the tensor
+     * @return the slice of the tensor
+     */
     public Tensor<E> bySlicingAt(C slicePosition) {
+        if ((slicePosition != null) && slicePosition.getClass().equals(dimension)
+                && tensor.shape().dimensionSet().contains(dimension)) {
+            return SlicedTensorView.of(tensor, Position.of(slicePosition));
+        }
         return reduceBy(new Slicing<C, E>(slicePosition));
     }
 
@@ -61,6 +74,19 @@ public class OngoingStructuralReduction<C, E> {
         return new OngoingStructuralReductionOptions(slicePosition, tensor, dimension);
     }
 
+    /**
+     * Starts to describe slicing the tensor at several coordinates at once, with interpolation where values are
+     * missing. This is considerably faster than slicing at each of the coordinates separately.
+     * 
+     * @param slicePositions the coordinates at which to slice
+     * @return an object which allows to specify the interpolation strategy
+     */
+    @SuppressWarnings("unchecked")
+    public <C1 extends Comparable<C1>> OngoingMultipleInterpolatedSlicing<E, C1> byInterpolatedSlicingAtAll(
+            Iterable<C1> slicePositions) {
+        return new OngoingMultipleInterpolatedSlicing<>(slicePositions, tensor, (Class<C1>) dimension);
+    }
+
     protected Tensor<E> reduceBy(ReductionStrategy<? super C, E> strategy) {
         return new TensorReduction<>(dimension, strategy).perform(tensor);
     }
@@ -35,7 +35,7 @@ public class OngoingStructuralReductionOptions<E, C extends Comparable<C>> {
      * @return slicing result with interpolation between the missing comparable coordinates.
      */
     public Tensor<E> interpolatingWith(InterpolationStrategy<C, E> strategy) {
-        return new TensorReduction<>(dimension, new InterpolatedSlicing<>(slicePosition, strategy, tensor))
+        return new TensorReduction<>(dimension, new InterpolatedSlicing<>(slicePosition, strategy))
                 .perform(tensor);
     }
 
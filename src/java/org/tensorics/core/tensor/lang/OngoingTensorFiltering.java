@@ -23,11 +23,9 @@ package org.tensorics.core.tensor.lang;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 
-import java.util.Map.Entry;
-
-import org.tensorics.core.tensor.ImmutableTensor;
-import org.tensorics.core.tensor.Position;
+import org.tensorics.core.tensor.FilteredTensorView;
 import org.tensorics.core.tensor.Tensor;
+import org.tensorics.core.tensor.specific.ChunkedSeriesTensor;
 
 import com.google.common.collect.Range;
 
@@ -46,17 +44,27 @@ public class OngoingTensorFiltering<E> {
         this.tensor = tensor;
     }
 
+    /**
+     * Retains only the entries whose coordinates of the given dimension are within the given range. The result is a
+     * view on the original tensor, which does not copy any values (or a window, if the tensor is a
+     * {@link ChunkedSeriesTensor} growing along the given dimension).
+     * 
+     * @param coordinateClass the dimension whose coordinates shall be checked
+     * @param coordinateRange the range in which the coordinates have to be
+     * @return a tensor containing only the entries within the range
+     */
     public <C extends Comparable<C>> Tensor<E> by(Class<C> coordinateClass, Range<C> coordinateRange) {
         checkNotNull(coordinateClass, "coordinateClass must not be null");
         checkNotNull(coordinateRange, "coordinateRange must not be null");
 
-        ImmutableTensor.Builder<E> builder = ImmutableTensor.builder(tensor.shape().dimensionSet());
-        builder.setTensorContext(tensor.context());
-        for (Entry<Position, E> entry : tensor.asMap().entrySet()) {
-            if (coordinateRange.contains(entry.getKey().coordinateFor(coordinateClass))) {
-                builder.putAt(entry.getValue(), entry.getKey());
-            }
+        if (tensor instanceof ChunkedSeriesTensor
+                && ((ChunkedSeriesTensor<?, E>) tensor).seriesDimension().equals(coordinateClass)) {
+            /* Chunks within the range are shared instead of copied */
+            @SuppressWarnings("unchecked")
+            ChunkedSeriesTensor<C, E> series = (ChunkedSeriesTensor<C, E>) tensor;
+            return series.window(coordinateRange);
         }
-        return builder.build();
+
+        return FilteredTensorView.inRange(tensor, coordinateClass, coordinateRange);
     }
 }
@@ -29,10 +29,11 @@ import java.util.Collection;
 import java.util.HashSet;
 import java.util.Set;
 
-import org.tensorics.core.tensor.ImmutableTensor;
-import org.tensorics.core.tensor.ImmutableTensor.Builder;
+import org.tensorics.core.tensor.FilteredTensorView;
 import org.tensorics.core.tensor.Position;
+import org.tensorics.core.tensor.SlicedTensorView;
 import org.tensorics.core.tensor.Tensor;
+import org.tensorics.core.tensor.TensorView;
 
 /**
  * Part of the tensoric fluent API which provides methods to describe misc manipulations on a given tensor.
@@ -52,19 +53,14 @@ public class OngoingTensorManipulation<V> {
     /**
      * Extracts from the tensor only those elements where the values in the given mask is {@code true}. The resulting
      * tensors will then have the same dimensionality as the original tensor, but will only have that many elements as
-     * there are {@code true} elements in the mask tensor.
+     * there are {@code true} elements in the mask tensor. The result is a view on the original tensor, which only reads
+     * the mask when the view is read; {@link TensorView#materialize()} can be used to evaluate it once.
      * 
      * @param mask the mask which determines which elements shall be present in the new tensor.
-     * @return A tensor which will contain only those elements which have {@code true} flags in the mask
+     * @return A view which will contain only those elements which have {@code true} flags in the mask
      */
     public Tensor<V> extractWhereTrue(Tensor<Boolean> mask) {
-        Builder<V> tensorBuilder = ImmutableTensor.builder(tensor.shape().dimensionSet());
-        for (java.util.Map.Entry<Position, V> entry : tensor.asMap().entrySet()) {
-            if (mask.get(entry.getKey()).booleanValue()) {
-                tensorBuilder.at(entry.getKey()).put(entry.getValue());
-            }
-        }
-        return tensorBuilder.build();
+        return FilteredTensorView.whereTrue(tensor, mask);
     }
 
     /**
@@ -89,10 +85,24 @@ public class OngoingTensorManipulation<V> {
         return tensor.get(coordinates);
     }
 
+    /**
+     * Extracts the slice of the tensor at the given coordinates. The result is a view on the original tensor, which
+     * does not copy any values.
+     * 
+     * @param position the coordinates at which to slice the tensor
+     * @return a view on the slice
+     */
     public Tensor<V> extract(Position position) {
         return extractTensor(position.coordinates());
     }
 
+    /**
+     * Extracts the slice of the tensor at the given coordinates. The result is a view on the original tensor, which
+     * does not copy any values.
+     * 
+     * @param coordinates the coordinates at which to slice the tensor
+     * @return a view on the slice
+     */
     public Tensor<V> extract(Object... coordinates) {
         return extractTensor(Arrays.asList(coordinates));
     }
@@ -106,25 +116,25 @@ public class OngoingTensorManipulation<V> {
         checkArgument(coordinates.size() > 0, "Coordinates must have at least one element.");
         for (Object coordinate : coordinates) {
             checkArgument(coordinate != null, "given coordinate must not be null!");
+            checkArgument(!(coordinate instanceof Position), "It is not allowed that a coordinate is of type position! "
+                    + "Most probably this is a programming mistake ;-)");
         }
-        Tensor<V> slice = tensor;
-        for (Object coordinate : coordinates) {
-            slice = slice(slice, coordinate);
-        }
-        return slice;
-    }
-
-    private static final <C, E> Tensor<E> slice(Tensor<E> tensor, C coordinate) {
-        checkArgument(coordinate != null, "Argument '" + "coordinate" + "' must not be null!");
-        checkArgument(!(coordinate instanceof Position), "It is not allowed that a coordinate is of type position! "
-                + "Most probably this is a programming mistake ;-)");
-        @SuppressWarnings("unchecked")
-        Class<C> dimension = (Class<C>) coordinate.getClass();
-        return TensorStructurals.from(tensor).reduce(dimension).bySlicingAt(coordinate);
+        return SlicedTensorView.of(tensor, Position.of(coordinates.toArray()));
     }
 
     public <C> OngoingDimensionReduction<C, V> reduce(Class<C> dimension) {
         return new OngoingDimensionReduction<>(tensor, dimension);
     }
 
+    /**
+     * Starts the description of a reduction of several dimensions at once. All values which only differ in their
+     * coordinates of the given dimensions are reduced into one value.
+     * 
+     * @param dimensions the dimensions to reduce
+     * @return an object which allows to specify how the dimensions shall be reduced
+     */
+    public OngoingMultiDimensionReduction<V> reduce(Set<? extends Class<?>> dimensions) {
+        return new OngoingMultiDimensionReduction<>(tensor, dimensions);
+    }
+
 }
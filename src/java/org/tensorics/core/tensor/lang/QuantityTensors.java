@@ -28,8 +28,10 @@ import org.tensorics.core.tensor.ImmutableTensor;
 import org.tensorics.core.tensor.ImmutableTensor.Builder;
 import org.tensorics.core.tensor.Position;
 import org.tensorics.core.tensor.Tensor;
+import org.tensorics.core.tensor.specific.ArrayBackedTensors;
 import org.tensorics.core.units.Unit;
 
+import com.google.common.base.Function;
 import com.google.common.base.Optional;
 
 /**
@@ -70,12 +72,20 @@ public final class QuantityTensors {
         return builder.build();
     }
 
-    public static <S> Tensor<Boolean> validitiesOf(Tensor<QuantifiedValue<S>> tensor) {
-        Builder<Boolean> builder = ImmutableTensor.builder(tensor.shape().dimensionSet());
-        for (java.util.Map.Entry<Position, QuantifiedValue<S>> entry : tensor.asMap().entrySet()) {
-            builder.at(entry.getKey()).put(entry.getValue().validity());
-        }
-        return builder.build();
+    /**
+     * Extracts the validity flags of all the quantities of the given tensor. If the shape of the tensor is a full
+     * cartesian product of its coordinates, then the resulting tensor is backed by a bit set.
+     * 
+     * @param tensor the tensor of quantities from which to extract the validities
+     * @return a tensor of the same shape, containing the validity flags of the quantities
+     */
+    public static <S> Tensor<Boolean> validitiesOf(final Tensor<QuantifiedValue<S>> tensor) {
+        return ArrayBackedTensors.booleanTensorOf(tensor.shape(), new Function<Position, Boolean>() {
+            @Override
+            public Boolean apply(Position position) {
+                return tensor.get(position).validity();
+            }
+        });
     }
 
     public static <S> Unit unitOf(Tensor<QuantifiedValue<S>> tensor) {
@@ -32,6 +32,7 @@ import org.tensorics.core.tensor.operations.ElementBinaryFunction;
 import org.tensorics.core.tensor.operations.ElementBinaryOperation;
 import org.tensorics.core.tensor.operations.ElementUnaryOperation;
 import org.tensorics.core.tensor.operations.SingleValueTensorCreationOperation;
+import org.tensorics.core.tensor.options.ExecutionStrategy;
 
 /**
  * Extends the usage of fields by operations defined on tensors
@@ -83,7 +84,8 @@ public class TensorSupport<V> extends ScalarIterableSupport<V> {
      * @return a {@link Tensor} with field inverse values
      */
     public Tensor<V> elementInverseOf(Tensor<V> tensor) {
-        return new ElementUnaryOperation<V>(environment.field().multiplicativeInversion()).perform(tensor);
+        return new ElementUnaryOperation<V>(environment.field().multiplicativeInversion(), executionStrategy())
+                .perform(tensor);
     }
 
     /**
@@ -91,7 +93,12 @@ public class TensorSupport<V> extends ScalarIterableSupport<V> {
      * @return a {@link Tensor} of negative values
      */
     public Tensor<V> negativeOf(Tensor<V> tensor) {
-        return new ElementUnaryOperation<V>(environment.field().additiveInversion()).perform(tensor);
+        return new ElementUnaryOperation<V>(environment.field().additiveInversion(), executionStrategy())
+                .perform(tensor);
+    }
+
+    private ExecutionStrategy executionStrategy() {
+        return environment.options().get(ExecutionStrategy.class);
     }
 
     public <S> Tensor<S> elementwise(BinaryOperation<S> operation, Tensor<S> left, Tensor<S> right) {
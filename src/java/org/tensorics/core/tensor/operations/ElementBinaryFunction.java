@@ -26,6 +26,7 @@ import java.util.Collections;
 import org.tensorics.core.commons.options.ManipulationOption;
 import org.tensorics.core.commons.options.OptionRegistry;
 import org.tensorics.core.math.operations.BinaryFunction;
+import org.tensorics.core.math.operations.BinaryOperation;
 import org.tensorics.core.tensor.Context;
 import org.tensorics.core.tensor.ImmutableTensor;
 import org.tensorics.core.tensor.ImmutableTensor.Builder;
@@ -35,7 +36,12 @@ import org.tensorics.core.tensor.Tensor;
 import org.tensorics.core.tensor.TensorPair;
 import org.tensorics.core.tensor.options.BroadcastingStrategy;
 import org.tensorics.core.tensor.options.ContextPropagationStrategy;
+import org.tensorics.core.tensor.options.ExecutionStrategy;
+import org.tensorics.core.tensor.options.IntersectionShapingStrategy;
 import org.tensorics.core.tensor.options.ShapingStrategy;
+import org.tensorics.core.tensor.specific.ArrayBackedTensors;
+import org.tensorics.core.tensor.specific.IndexRanges;
+import org.tensorics.core.tensor.specific.SparseTensors;
 
 public class ElementBinaryFunction<V, R> implements BinaryFunction<Tensor<V>, Tensor<R>> {
 
@@ -50,18 +56,63 @@ public class ElementBinaryFunction<V, R> implements BinaryFunction<Tensor<V>, Te
 
     @Override
     public Tensor<R> perform(Tensor<V> left, Tensor<V> right) {
+        if (canOperateOnArrays(left, right)) {
+            return performOnArrays(left, right);
+        }
+        if (canOperateOnSparse(left, right)) {
+            return performOnSparse(left, right);
+        }
         TensorPair<V> broadcastedPair = broadcast(left, right);
         Shape resultingShape = shape(broadcastedPair);
         Context resultingContext = contextLeftRight(left, right);
         return performOperation(broadcastedPair.left(), broadcastedPair.right(), resultingShape, resultingContext);
     }
 
+    /**
+     * Array backed double tensors with the same indexers (or combined with scalars) can be treated directly on their
+     * arrays, because broadcasting is a no-op for them and their shapes are identical. This is only possible for
+     * operations (not general functions), because then the resulting values are of the same type as the input.
+     */
+    private boolean canOperateOnArrays(Tensor<V> left, Tensor<V> right) {
+        return (operation instanceof BinaryOperation) && ArrayBackedTensors.canOperateElementwise(left, right);
+    }
+
+    @SuppressWarnings("unchecked")
+    private Tensor<R> performOnArrays(Tensor<V> left, Tensor<V> right) {
+        Context resultingContext = contextLeftRight(left, right);
+        return (Tensor<R>) ArrayBackedTensors.elementwise((BinaryOperation<Double>) operation,
+                (Tensor<Double>) left, (Tensor<Double>) right, resultingContext, executionStrategy());
+    }
+
+    /**
+     * Sparse tensors can be combined with scalars, other sparse tensors or double array backed tensors directly on
+     * their keys. Except for scalars, the result then only contains the positions present in both tensors, which
+     * corresponds to the intersection shaping strategy.
+     */
+    private boolean canOperateOnSparse(Tensor<V> left, Tensor<V> right) {
+        if (!(operation instanceof BinaryOperation) || !SparseTensors.canOperateElementwise(left, right)) {
+            return false;
+        }
+        return SparseTensors.involvesScalar(left, right)
+                || (optionRegistry.get(ShapingStrategy.class) instanceof IntersectionShapingStrategy);
+    }
+
+    @SuppressWarnings("unchecked")
+    private Tensor<R> performOnSparse(Tensor<V> left, Tensor<V> right) {
+        Context resultingContext = contextLeftRight(left, right);
+        return (Tensor<R>) SparseTensors.elementwise((BinaryOperation<Double>) operation, (Tensor<Double>) left,
+                (Tensor<Double>) right, resultingContext, executionStrategy());
+    }
+
     private Context contextLeftRight(Tensor<V> left, Tensor<V> right) {
         ContextPropagationStrategy strategy = optionRegistry.get(ContextPropagationStrategy.class);
         return strategy.contextForLeftRight(left.context(), right.context());
     }
 
     private Tensor<R> performOperation(Tensor<V> left, Tensor<V> right, Shape resultingShape, Context resultingContext) {
+        if (isParallelFor(resultingShape)) {
+            return performInParallel(left, right, resultingShape, resultingContext);
+        }
         Builder<R> tensorBuilder = ImmutableTensor.builder(resultingShape.dimensionSet());
         for (Position position : resultingShape.positionSet()) {
             tensorBuilder.at(position).put(operation.perform(left.get(position), right.get(position)));
@@ -70,6 +121,44 @@ public class ElementBinaryFunction<V, R> implements BinaryFunction<Tensor<V>, Te
         return tensorBuilder.build();
     }
 
+    private boolean isParallelFor(Shape resultingShape) {
+        ExecutionStrategy strategy = executionStrategy();
+        return (strategy != null) && strategy.isParallelFor(resultingShape.size());
+    }
+
+    ExecutionStrategy executionStrategy() {
+        return optionRegistry.get(ExecutionStrategy.class);
+    }
+
+    /**
+     * Splits the positions of the resulting shape into chunks, which are processed in the common fork-join pool (see
+     * {@link IndexRanges}). The results are collected in an array in the order of the positions and put into the
+     * builder afterwards.
+     */
+    private Tensor<R> performInParallel(final Tensor<V> left, final Tensor<V> right, Shape resultingShape,
+            Context resultingContext) {
+        final Position[] positions = resultingShape.positionSet().toArray(new Position[resultingShape.size()]);
+        final Object[] results = new Object[positions.length];
+        IndexRanges.forEach(positions.length, executionStrategy(), new IndexRanges.RangeBody() {
+            @Override
+            public void process(int from, int to) {
+                for (int i = from; i < to; i++) {
+                    Position position = positions[i];
+                    results[i] = operation.perform(left.get(position), right.get(position));
+                }
+            }
+        });
+
+        Builder<R> tensorBuilder = ImmutableTensor.builder(resultingShape.dimensionSet());
+        for (int i = 0; i < positions.length; i++) {
+            @SuppressWarnings("unchecked")
+            R result = (R) results[i];
+            tensorBuilder.putAt(result, positions[i]);
+        }
+        tensorBuilder.setTensorContext(resultingContext);
+        return tensorBuilder.build();
+    }
+
     private Shape shape(TensorPair<V> broadcasted) {
         ShapingStrategy strategy = optionRegistry.get(ShapingStrategy.class);
         return strategy.shapeLeftRight(broadcasted.left(), broadcasted.right());
@@ -22,15 +22,23 @@
 package org.tensorics.core.tensor.operations;
 
 import org.tensorics.core.math.operations.UnaryOperation;
+import org.tensorics.core.tensor.Context;
 import org.tensorics.core.tensor.ImmutableTensor;
 import org.tensorics.core.tensor.ImmutableTensor.Builder;
 import org.tensorics.core.tensor.Position;
 import org.tensorics.core.tensor.Shape;
 import org.tensorics.core.tensor.Tensor;
+import org.tensorics.core.tensor.options.ExecutionStrategy;
+import org.tensorics.core.tensor.options.SequentialExecutionStrategy;
+import org.tensorics.core.tensor.specific.ArrayBackedTensors;
+import org.tensorics.core.tensor.specific.ImmutableDoubleArrayBackedTensor;
+import org.tensorics.core.tensor.specific.ImmutableSparseDoubleTensor;
+import org.tensorics.core.tensor.specific.SparseTensors;
 
 /**
  * Operates on one tensor and produces a new tensor of the same shape by applying a unary operation on each value of the
- * tensor. Thus it is uniquely defined by the operation on the elements.
+ * tensor. Thus it is uniquely defined by the operation on the elements. Array backed and sparse tensors are
+ * transformed directly on their arrays, in parallel chunks if the execution strategy allows it for their size.
  * 
  * @author kfuchsbe
  * @param <V> the type of the value of the tensor
@@ -38,14 +46,29 @@ import org.tensorics.core.tensor.Tensor;
 public class ElementUnaryOperation<V> implements UnaryOperation<Tensor<V>> {
 
     private final UnaryOperation<V> elementOperation;
+    private final ExecutionStrategy executionStrategy;
 
     public ElementUnaryOperation(UnaryOperation<V> elementOperation) {
+        this(elementOperation, new SequentialExecutionStrategy());
+    }
+
+    public ElementUnaryOperation(UnaryOperation<V> elementOperation, ExecutionStrategy executionStrategy) {
         super();
         this.elementOperation = elementOperation;
+        this.executionStrategy = executionStrategy;
     }
 
     @Override
+    @SuppressWarnings("unchecked")
     public Tensor<V> perform(Tensor<V> tensor) {
+        if (ArrayBackedTensors.isDoubleArrayBacked(tensor)) {
+            return (Tensor<V>) ArrayBackedTensors.elementwise((UnaryOperation<Double>) elementOperation,
+                    (ImmutableDoubleArrayBackedTensor) tensor, Context.empty(), executionStrategy);
+        }
+        if (SparseTensors.isSparse(tensor)) {
+            return (Tensor<V>) SparseTensors.elementwise((UnaryOperation<Double>) elementOperation,
+                    (ImmutableSparseDoubleTensor) tensor, Context.empty(), executionStrategy);
+        }
         Shape shape = tensor.shape();
         Builder<V> builder = ImmutableTensor.builder(shape.dimensionSet());
         for (Position position : shape.positionSet()) {
@@ -54,4 +77,12 @@ public class ElementUnaryOperation<V> implements UnaryOperation<Tensor<V>> {
         return builder.build();
     }
 
+    UnaryOperation<V> elementOperation() {
+        return elementOperation;
+    }
+
+    ExecutionStrategy executionStrategy() {
+        return executionStrategy;
+    }
+
 }
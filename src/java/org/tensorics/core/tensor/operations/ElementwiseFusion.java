@@ -0,0 +1,375 @@
+// @formatter:off
+ /*******************************************************************************
+ *
+ * This file is part of tensorics.
+ * 
+ * Copyright (c) 2008-2011, CERN. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ ******************************************************************************/
+// @formatter:on
+
+package org.tensorics.core.tensor.operations;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentMap;
+
+import org.tensorics.core.expressions.BinaryOperationExpression;
+import org.tensorics.core.expressions.UnaryOperationExpression;
+import org.tensorics.core.math.operations.BinaryFunction;
+import org.tensorics.core.math.operations.UnaryOperation;
+import org.tensorics.core.tensor.Context;
+import org.tensorics.core.tensor.ImmutableTensor;
+import org.tensorics.core.tensor.ImmutableTensor.Builder;
+import org.tensorics.core.tensor.Position;
+import org.tensorics.core.tensor.Shape;
+import org.tensorics.core.tensor.Tensor;
+import org.tensorics.core.tensor.options.ContextPropagationStrategy;
+import org.tensorics.core.tensor.options.ExecutionStrategy;
+import org.tensorics.core.tensor.specific.ArrayBackedTensors;
+import org.tensorics.core.tensor.specific.IndexRanges;
+import org.tensorics.core.tensor.specific.IndexRanges.RangeBody;
+import org.tensorics.core.tensor.specific.SparseTensors;
+import org.tensorics.core.tree.domain.Expression;
+import org.tensorics.core.tree.domain.ResolvingContext;
+
+import com.google.common.collect.MapMaker;
+
+/**
+ * Evaluates trees of element-wise tensor operations (binary operation expressions of {@link ElementBinaryFunction}s
+ * and unary operation expressions of {@link ElementUnaryOperation}s) in one single pass over the positions, instead of
+ * creating an intermediate tensor for each operation. The whole tree is evaluated for one position, before continuing
+ * with the next one, so that only the final tensor is built.
+ * <p>
+ * This is only done, if all the operands (the leaves of the tree, which are not element-wise operations themselves)
+ * are already resolved and are tensors of the same shape. Then broadcasting and shaping do not change anything and the
+ * result is the same as when evaluating operation by operation. Trees whose operands are all array backed or sparse
+ * tensors are not fused, because they are already combined directly on their values.
+ * <p>
+ * Shapes are compared by identity first and by their dimensions and sizes, before their positions are compared. A
+ * resolver can pass the same {@link VerifiedShapes} to all the checks and evaluations within one resolution, so that
+ * the repeated checks by the resolving engine and by the evaluation do not compare the positions again. The
+ * positions are evaluated in parallel chunks, if the execution strategy of the root operation allows it for their
+ * number.
+ * 
+ * @author kfuchsbe
+ */
+public final class ElementwiseFusion {
+
+    private ElementwiseFusion() {
+        /* only static methods */
+    }
+
+    /**
+     * Checks if the given expression is the root of a tree of at least two element-wise operations, which can be
+     * evaluated in one pass within the given context.
+     * 
+     * @param expression the expression to check
+     * @param context the context containing the already resolved expressions
+     * @return {@code true} if {@link #evaluate(Expression, ResolvingContext)} can be used for the expression,
+     *         {@code false} otherwise
+     */
+    public static boolean canFuse(Expression<?> expression, ResolvingContext context) {
+        return canFuse(expression, context, new VerifiedShapes());
+    }
+
+    /**
+     * Checks if the given expression can be fused, like {@link #canFuse(Expression, ResolvingContext)}, but takes the
+     * operand shapes which were already found to be equal from the given instance and adds the newly verified ones.
+     * 
+     * @param expression the expression to check
+     * @param context the context containing the already resolved expressions
+     * @param verifiedShapes the shapes verified before within the same resolution
+     * @return {@code true} if the expression can be evaluated in one pass, {@code false} otherwise
+     */
+    public static boolean canFuse(Expression<?> expression, ResolvingContext context, VerifiedShapes verifiedShapes) {
+        if (!isElementwise(expression, context) || !hasElementwiseChild(expression, context)) {
+            return false;
+        }
+        List<Expression<?>> operands = new ArrayList<>();
+        collectOperands(expression, context, operands);
+        Shape[] shapes = new Shape[operands.size()];
+        boolean allKeyed = true;
+        for (int i = 0; i < shapes.length; i++) {
+            Expression<?> operand = operands.get(i);
+            if (!context.resolves(operand)) {
+                return false;
+            }
+            Object value = context.resolvedValueOf(operand);
+            if (!(value instanceof Tensor)) {
+                return false;
+            }
+            Tensor<?> tensor = (Tensor<?>) value;
+            shapes[i] = tensor.shape();
+            allKeyed &= ArrayBackedTensors.isDoubleArrayBacked(tensor) || SparseTensors.isSparse(tensor);
+        }
+        return !allKeyed && haveEqualShapes(expression, shapes, verifiedShapes);
+    }
+
+    /**
+     * Evaluates the tree of element-wise operations with the given expression as root in one pass. The preconditions
+     * checked by {@link #canFuse(Expression, ResolvingContext)} have to be fulfilled.
+     * 
+     * @param expression the root of the tree to evaluate
+     * @param context the context containing the resolved operands
+     * @return the resulting tensor
+     * @throws IllegalArgumentException if the expression cannot be evaluated in one pass
+     */
+    public static <V> Tensor<V> evaluate(Expression<Tensor<V>> expression, ResolvingContext context) {
+        return evaluate(expression, context, new VerifiedShapes());
+    }
+
+    /**
+     * Evaluates the tree of element-wise operations, like {@link #evaluate(Expression, ResolvingContext)}, but does not
+     * compare the operand shapes again, if they were already verified within the same resolution.
+     * 
+     * @param expression the root of the tree to evaluate
+     * @param context the context containing the resolved operands
+     * @param verifiedShapes the shapes verified before within the same resolution
+     * @return the resulting tensor
+     * @throws IllegalArgumentException if the expression cannot be evaluated in one pass
+     */
+    public static <V> Tensor<V> evaluate(Expression<Tensor<V>> expression, ResolvingContext context,
+            VerifiedShapes verifiedShapes) {
+        if (!canFuse(expression, context, verifiedShapes)) {
+            throw new IllegalArgumentException("Expression '" + expression
+                    + "' is not a tree of element-wise operations on tensors of the same shape.");
+        }
+        final Kernel<V> kernel = compile(expression, context);
+        Shape shape = kernel.shape();
+        final Position[] positions = shape.positionSet().toArray(new Position[shape.size()]);
+        final Object[] values = new Object[positions.length];
+        IndexRanges.forEach(positions.length, executionStrategyOf(expression), new RangeBody() {
+            @Override
+            public void process(int from, int to) {
+                for (int i = from; i < to; i++) {
+                    values[i] = kernel.valueAt(positions[i]);
+                }
+            }
+        });
+        Builder<V> builder = ImmutableTensor.builder(shape.dimensionSet());
+        for (int i = 0; i < positions.length; i++) {
+            @SuppressWarnings("unchecked")
+            V value = (V) values[i];
+            builder.putAt(value, positions[i]);
+        }
+        builder.setTensorContext(kernel.context());
+        return builder.build();
+    }
+
+    private static ExecutionStrategy executionStrategyOf(Expression<?> expression) {
+        if (expression instanceof BinaryOperationExpression) {
+            return ((ElementBinaryFunction<?, ?>) ((BinaryOperationExpression<?>) expression).getOperation())
+                    .executionStrategy();
+        }
+        return ((ElementUnaryOperation<?>) ((UnaryOperationExpression<?>) expression).getOperation())
+                .executionStrategy();
+    }
+
+    private static boolean haveEqualShapes(Expression<?> expression, Shape[] shapes, VerifiedShapes verifiedShapes) {
+        if (verifiedShapes.areSameAs(expression, shapes)) {
+            return true;
+        }
+        for (int i = 1; i < shapes.length; i++) {
+            if (!areEqual(shapes[0], shapes[i])) {
+                return false;
+            }
+        }
+        verifiedShapes.put(expression, shapes);
+        return true;
+    }
+
+    private static boolean areEqual(Shape left, Shape right) {
+        if (left == right) {
+            return true;
+        }
+        if ((left.size() != right.size()) || !left.dimensionSet().equals(right.dimensionSet())) {
+            return false;
+        }
+        return left.equals(right);
+    }
+
+    private static boolean isElementwise(Expression<?> expression, ResolvingContext context) {
+        if (context.resolves(expression)) {
+            return false;
+        }
+        if (expression instanceof BinaryOperationExpression) {
+            return ((BinaryOperationExpression<?>) expression).getOperation() instanceof ElementBinaryFunction;
+        }
+        if (expression instanceof UnaryOperationExpression) {
+            return ((UnaryOperationExpression<?>) expression).getOperation() instanceof ElementUnaryOperation;
+        }
+        return false;
+    }
+
+    private static boolean hasElementwiseChild(Expression<?> expression, ResolvingContext context) {
+        if (expression instanceof BinaryOperationExpression) {
+            BinaryOperationExpression<?> binary = (BinaryOperationExpression<?>) expression;
+            return isElementwise(binary.getLeft(), context) || isElementwise(binary.getRight(), context);
+        }
+        return isElementwise(((UnaryOperationExpression<?>) expression).getOperand(), context);
+    }
+
+    private static void collectOperands(Expression<?> expression, ResolvingContext context,
+            List<Expression<?>> operands) {
+        if (!isElementwise(expression, context)) {
+            operands.add(expression);
+        } else if (expression instanceof BinaryOperationExpression) {
+            BinaryOperationExpression<?> binary = (BinaryOperationExpression<?>) expression;
+            collectOperands(binary.getLeft(), context, operands);
+            collectOperands(binary.getRight(), context, operands);
+        } else {
+            collectOperands(((UnaryOperationExpression<?>) expression).getOperand(), context, operands);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <V> Kernel<V> compile(Expression<Tensor<V>> expression, ResolvingContext context) {
+        if (!isElementwise(expression, context)) {
+            return new OperandKernel<>(context.resolvedValueOf(expression));
+        }
+        if (expression instanceof BinaryOperationExpression) {
+            BinaryOperationExpression<Tensor<V>> binary = (BinaryOperationExpression<Tensor<V>>) expression;
+            ElementBinaryFunction<V, V> function = (ElementBinaryFunction<V, V>) binary.getOperation();
+            return new BinaryKernel<>(function, compile(binary.getLeft(), context),
+                    compile(binary.getRight(), context));
+        }
+        UnaryOperationExpression<Tensor<V>> unary = (UnaryOperationExpression<Tensor<V>>) expression;
+        ElementUnaryOperation<V> operation = (ElementUnaryOperation<V>) unary.getOperation();
+        return new UnaryKernel<>(operation.elementOperation(), compile(unary.getOperand(), context));
+    }
+
+    /**
+     * The operand shapes which were found to be equal for the expressions checked during one resolution. The shapes
+     * are only compared by identity. An instance should not outlive the resolving context it is used with, as it
+     * retains the shapes of the operands.
+     */
+    public static final class VerifiedShapes {
+
+        private final ConcurrentMap<Expression<?>, Shape[]> shapes = new MapMaker().weakKeys().makeMap();
+
+        boolean areSameAs(Expression<?> expression, Shape[] others) {
+            Shape[] verified = shapes.get(expression);
+            if ((verified == null) || (verified.length != others.length)) {
+                return false;
+            }
+            for (int i = 0; i < others.length; i++) {
+                if (verified[i] != others[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        void put(Expression<?> expression, Shape[] verified) {
+            shapes.put(expression, verified);
+        }
+    }
+
+    /**
+     * The compiled form of a node in the tree, which can calculate its value for one position.
+     */
+    private interface Kernel<V> {
+
+        V valueAt(Position position);
+
+        Shape shape();
+
+        Context context();
+    }
+
+    private static final class OperandKernel<V> implements Kernel<V> {
+
+        private final Tensor<V> tensor;
+
+        OperandKernel(Tensor<V> tensor) {
+            this.tensor = tensor;
+        }
+
+        @Override
+        public V valueAt(Position position) {
+            return tensor.get(position);
+        }
+
+        @Override
+        public Shape shape() {
+            return tensor.shape();
+        }
+
+        @Override
+        public Context context() {
+            return tensor.context();
+        }
+    }
+
+    private static final class BinaryKernel<V> implements Kernel<V> {
+
+        private final BinaryFunction<V, V> operation;
+        private final Kernel<V> left;
+        private final Kernel<V> right;
+        private final Context context;
+
+        BinaryKernel(ElementBinaryFunction<V, V> function, Kernel<V> left, Kernel<V> right) {
+            this.operation = function.operation;
+            this.left = left;
+            this.right = right;
+            ContextPropagationStrategy strategy = function.optionRegistry.get(ContextPropagationStrategy.class);
+            this.context = strategy.contextForLeftRight(left.context(), right.context());
+        }
+
+        @Override
+        public V valueAt(Position position) {
+            return operation.perform(left.valueAt(position), right.valueAt(position));
+        }
+
+        @Override
+        public Shape shape() {
+            return left.shape();
+        }
+
+        @Override
+        public Context context() {
+            return context;
+        }
+    }
+
+    private static final class UnaryKernel<V> implements Kernel<V> {
+
+        private final UnaryOperation<V> operation;
+        private final Kernel<V> operand;
+
+        UnaryKernel(UnaryOperation<V> operation, Kernel<V> operand) {
+            this.operation = operation;
+            this.operand = operand;
+        }
+
+        @Override
+        public V valueAt(Position position) {
+            return operation.perform(operand.valueAt(position));
+        }
+
+        @Override
+        public Shape shape() {
+            return operand.shape();
+        }
+
+        @Override
+        public Context context() {
+            /* the same as in ElementUnaryOperation */
+            return Context.empty();
+        }
+    }
+
+}
@@ -0,0 +1,146 @@
+// @formatter:off
+ /*******************************************************************************
+ *
+ * This file is part of tensorics.
+ * 
+ * Copyright (c) 2008-2011, CERN. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ ******************************************************************************/
+// @formatter:on
+
+package org.tensorics.core.tensor.operations;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+
+import org.tensorics.core.reduction.AccumulatingReduction;
+import org.tensorics.core.reduction.Accumulator;
+import org.tensorics.core.reduction.ReductionStrategy;
+import org.tensorics.core.tensor.Context;
+import org.tensorics.core.tensor.ImmutableTensor;
+import org.tensorics.core.tensor.ImmutableTensor.Builder;
+import org.tensorics.core.tensor.Position;
+import org.tensorics.core.tensor.Positions;
+import org.tensorics.core.tensor.Tensor;
+import org.tensorics.core.tensor.options.ExecutionStrategy;
+import org.tensorics.core.tensor.specific.IndexRanges;
+
+import com.google.common.base.Function;
+import com.google.common.collect.Sets;
+
+/**
+ * Reduces one or more dimensions of a tensor directly from its entries: In one pass over the source tensor, the values
+ * are grouped by their positions in the remaining dimensions and keyed (within each group) by a key derived from the
+ * reduced coordinates. Each group is then passed to the reduction strategy. If the execution strategy allows it, the
+ * groups are reduced in parallel in the common fork-join pool.
+ * <p>
+ * Accumulating reduction strategies are not given the groups as maps; their values are streamed into one accumulation
+ * state per group instead (see {@link StreamingReduction}).
+ * 
+ * @author kfuchsbe
+ * @param <K> the type of the keys by which the values within one group are identified
+ * @param <E> the type of the elements of the tensor
+ */
+final class GroupedReduction<K, E> {
+
+    /** The minimal number of groups which are reduced within one fork-join task */
+    private static final int MIN_CHUNK_SIZE = 64;
+
+    private final Set<? extends Class<?>> dimensions;
+    private final Function<Position, K> keyFunction;
+    private final ReductionStrategy<? super K, E> reductionStrategy;
+    private final ExecutionStrategy executionStrategy;
+
+    GroupedReduction(Set<? extends Class<?>> dimensions, Function<Position, K> keyFunction,
+            ReductionStrategy<? super K, E> reductionStrategy, ExecutionStrategy executionStrategy) {
+        this.dimensions = dimensions;
+        this.keyFunction = keyFunction;
+        this.reductionStrategy = reductionStrategy;
+        this.executionStrategy = executionStrategy;
+    }
+
+    Tensor<E> reduce(Tensor<E> tensor, Context resultingContext) {
+        if (reductionStrategy instanceof AccumulatingReduction) {
+            return reduceStreaming(tensor, accumulatorOf(reductionStrategy), resultingContext);
+        }
+        final List<Entry<Position, Map<K, E>>> groups = new ArrayList<>(group(tensor).entrySet());
+        final Object[] results = new Object[groups.size()];
+        /* The decision is taken on the number of elements, as the work per group grows with its size */
+        boolean parallel = executionStrategy.isParallelFor(tensor.shape().size());
+        IndexRanges.forEach(groups.size(), MIN_CHUNK_SIZE, parallel, new IndexRanges.RangeBody() {
+            @Override
+            public void process(int from, int to) {
+                reduceRange(groups, results, from, to);
+            }
+        });
+
+        Builder<E> builder = ImmutableTensor.builder(Sets.difference(tensor.shape().dimensionSet(), dimensions));
+        builder.setTensorContext(resultingContext);
+        for (int i = 0; i < results.length; i++) {
+            @SuppressWarnings("unchecked")
+            E reducedValue = (E) results[i];
+            if (reducedValue != null) {
+                builder.putAt(reducedValue, groups.get(i).getKey());
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * An accumulating reduction implements the reduction strategy for any coordinate type, so its accumulator can be
+     * used for the values of the tensor.
+     */
+    @SuppressWarnings("unchecked")
+    private static <E> Accumulator<E, ?> accumulatorOf(ReductionStrategy<?, E> reductionStrategy) {
+        return ((AccumulatingReduction<E, ?>) reductionStrategy).accumulator();
+    }
+
+    private <A> Tensor<E> reduceStreaming(Tensor<E> tensor, Accumulator<E, A> accumulator, Context resultingContext) {
+        return new StreamingReduction<>(dimensions, accumulator, executionStrategy).reduce(tensor, resultingContext);
+    }
+
+    private Map<Position, Map<K, E>> group(Tensor<E> tensor) {
+        Function<Position, Position> remaining = Positions.stripping(dimensions);
+        Map<Position, Map<K, E>> groups = new LinkedHashMap<>();
+        for (Entry<Position, E> entry : tensor.asMap().entrySet()) {
+            Position position = entry.getKey();
+            K key = keyFunction.apply(position);
+            if (key == null) {
+                throw new IllegalStateException("Cannot operate with " + dimensions + " while having only " + position);
+            }
+            Position groupPosition = remaining.apply(position);
+            Map<K, E> group = groups.get(groupPosition);
+            if (group == null) {
+                group = new LinkedHashMap<>();
+                groups.put(groupPosition, group);
+            }
+            group.put(key, entry.getValue());
+        }
+        return groups;
+    }
+
+    private void reduceRange(List<Entry<Position, Map<K, E>>> groups, Object[] results, int from, int to) {
+        for (int i = from; i < to; i++) {
+            Entry<Position, Map<K, E>> group = groups.get(i);
+            results[i] = reductionStrategy.reduce(Collections.unmodifiableMap(group.getValue()), group.getKey());
+        }
+    }
+
+}
@@ -24,35 +24,35 @@ package org.tensorics.core.tensor.operations;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 
-import java.util.Collection;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
 import org.tensorics.core.commons.options.ManipulationOption;
 import org.tensorics.core.commons.options.OptionRegistry;
-import org.tensorics.core.commons.util.ValuePair;
 import org.tensorics.core.iterable.operations.IterableOperation;
-import org.tensorics.core.iterable.operations.IterableOperations;
+import org.tensorics.core.iterable.operations.IterableSum;
 import org.tensorics.core.lang.Tensorics;
-import org.tensorics.core.math.Operations;
 import org.tensorics.core.math.operations.BinaryOperation;
 import org.tensorics.core.tensor.Context;
 import org.tensorics.core.tensor.Position;
-import org.tensorics.core.tensor.PositionPair;
 import org.tensorics.core.tensor.Positions;
 import org.tensorics.core.tensor.Positions.DimensionStripper;
 import org.tensorics.core.tensor.Tensor;
 import org.tensorics.core.tensor.TensorBuilder;
 import org.tensorics.core.tensor.TensorPair;
+import org.tensorics.core.tensor.options.BroadcastMissingDimensionsStrategy;
 import org.tensorics.core.tensor.options.BroadcastingStrategy;
 import org.tensorics.core.tensor.options.ContextPropagationStrategy;
+import org.tensorics.core.tensor.specific.BlockedMatrixMultiplication;
+import org.tensorics.core.tensor.specific.SparseTensors;
 import org.tensorics.core.tensor.variance.CoContraDimensionPair;
 import org.tensorics.core.tensor.variance.CoContraDimensionPairs;
 
-import com.google.common.collect.ImmutableMultimap;
-import com.google.common.collect.ListMultimap;
-import com.google.common.collect.Multimap;
 import com.google.common.collect.Sets;
 
 /**
@@ -114,6 +114,14 @@ public class InnerTensorOperation<V> implements BinaryOperation<Tensor<V>> {
 
         List<CoContraDimensionPair> allPairs = CoContraDimensionPairs.coContraPairsOf(left.shape(), right.shape());
         List<CoContraDimensionPair> pairsToReduce = CoContraDimensionPairs.chooseOnePerContravariantPart(allPairs);
+
+        if (canMultiplyAsMatrices(left, right, allPairs)) {
+            return multiplyAsMatrices(left, right, pairsToReduce.get(0));
+        }
+        if (canContractOnKeys(left, right)) {
+            return contractOnKeys(left, right, pairsToReduce);
+        }
+
         Set<Class<?>> dimensionsNotToBroadcast = CoContraDimensionPairs.allDimensionsIn(pairsToReduce);
 
         TensorPair<V> broadcasted = broadcast(left, right, dimensionsNotToBroadcast);
@@ -130,41 +138,50 @@ public class InnerTensorOperation<V> implements BinaryOperation<Tensor<V>> {
         Set<Class<?>> remainingCommonDimensions = Sets.intersection(remainingLeftDimensions, remainingRightDimensions);
 
         /*
-         * produce a multimap from positions, consisting of all but the unique right dimensions to positions.
+         * group the right entries by all but their unique right dimensions. For each entry, the part of the target
+         * position it contributes (its unique right coordinates) and its value are looked up only once.
          */
         Set<Class<?>> uniqueLeftDimensions = Sets.difference(remainingLeftDimensions, remainingCommonDimensions);
         Set<Class<?>> uniqueRightDimensions = Sets.difference(remainingRightDimensions, remainingCommonDimensions);
-        Multimap<Position, Position> nonUniqueToRightPositions = Positions.mapByStripping(broadcasted.right().shape()
-                .positionSet(), uniqueRightDimensions);
+        DimensionStripper rightGroupStripper = Positions.stripping(uniqueRightDimensions);
+        DimensionStripper rightTargetStripper = Positions.stripping(Sets.difference(broadcasted.right().shape()
+                .dimensionSet(), uniqueRightDimensions));
+        Map<Position, List<RightEntry<V>>> rightGroups = new HashMap<>();
+        for (Position rightPosition : broadcasted.right().shape().positionSet()) {
+            Position groupPosition = rightGroupStripper.apply(rightPosition);
+            List<RightEntry<V>> group = rightGroups.get(groupPosition);
+            if (group == null) {
+                group = new ArrayList<>();
+                rightGroups.put(groupPosition, group);
+            }
+            group.add(new RightEntry<>(rightTargetStripper.apply(rightPosition), broadcasted.right().get(
+                    rightPosition)));
+        }
 
+        /*
+         * stream through the left entries and accumulate the results of the element operation directly for each target
+         * position. The common dimensions are part of the group, so they are consistent by construction and the target
+         * position is the union of the remaining left position with the unique right part.
+         */
         DimensionStripper stripper = Positions.stripping(uniqueLeftDimensions);
-
         DimensionStripper targetLeftStripper = Positions.stripping(leftDimensionsToReduce);
-        DimensionStripper targetRightStripper = Positions.stripping(rightDimensionsToReduce);
-
-        ImmutableMultimap.Builder<Position, PositionPair> builder = ImmutableMultimap.builder();
+        Accumulation<V> accumulation = newAccumulation();
         for (Position leftPosition : broadcasted.left().shape().positionSet()) {
-            Position remainingLeftPosition = targetLeftStripper.apply(leftPosition);
-
             Position nonUniqueLeftPosition = stripper.apply(leftPosition);
             Position nonUniqueRightPosition = CoContraDimensionPairs.convertToRight(nonUniqueLeftPosition,
                     pairsToReduce);
-            Collection<Position> rightPositions = nonUniqueToRightPositions.get(nonUniqueRightPosition);
-            for (Position rightPosition : rightPositions) {
-                Position remainingRightPosition = targetRightStripper.apply(rightPosition);
-                Position targetPosition = Positions.combineDimensions(remainingLeftPosition, remainingRightPosition,
-                        targetDimensions);
-                builder.put(targetPosition, PositionPair.fromLeftRight(leftPosition, rightPosition));
+            List<RightEntry<V>> group = rightGroups.get(nonUniqueRightPosition);
+            if (group == null) {
+                continue;
+            }
+            Position remainingLeftPosition = targetLeftStripper.apply(leftPosition);
+            V leftValue = broadcasted.left().get(leftPosition);
+            for (RightEntry<V> rightEntry : group) {
+                Position targetPosition = Positions.union(remainingLeftPosition, rightEntry.targetPart);
+                accumulation.add(targetPosition, elementOperation.perform(leftValue, rightEntry.value));
             }
         }
-
-        Multimap<Position, PositionPair> targetPositionToPairs = builder.build();
-
-        ListMultimap<Position, ValuePair<V>> valuePairs = broadcasted.mapValues(targetPositionToPairs);
-
-        ListMultimap<Position, V> targetPositionToValueSet = Operations.mapAll(valuePairs, elementOperation);
-
-        Map<Position, V> result = IterableOperations.reduce(targetPositionToValueSet, reductionOperation);
+        Map<Position, V> result = accumulation.result();
 
         ContextPropagationStrategy cps = optionRegistry.get(ContextPropagationStrategy.class);
         Context resultingContext = cps.contextForLeftRight(left.context(), right.context());
@@ -175,9 +192,137 @@ public class InnerTensorOperation<V> implements BinaryOperation<Tensor<V>> {
         return finalBuilder.build();
     }
 
+    /**
+     * Two double array backed tensors with only one co- and contravariant pair can be multiplied like dense matrices, if
+     * the values are simply summed up and the broadcasting follows the default rules.
+     */
+    private boolean canMultiplyAsMatrices(Tensor<V> left, Tensor<V> right, List<CoContraDimensionPair> allPairs) {
+        return (reductionOperation instanceof IterableSum) && isDefaultBroadcasting()
+                && BlockedMatrixMultiplication.canMultiply(left, right, allPairs);
+    }
+
+    @SuppressWarnings("unchecked")
+    private Tensor<V> multiplyAsMatrices(Tensor<V> left, Tensor<V> right, CoContraDimensionPair pair) {
+        ContextPropagationStrategy cps = optionRegistry.get(ContextPropagationStrategy.class);
+        Context resultingContext = cps.contextForLeftRight(left.context(), right.context());
+        BinaryOperation<Double> addition = ((IterableSum<Double>) reductionOperation).addition();
+        Double zero = ((IterableSum<Double>) reductionOperation).perform(Collections.<Double> emptyList());
+        return (Tensor<V>) BlockedMatrixMultiplication.multiply((BinaryOperation<Double>) elementOperation, addition,
+                zero, (Tensor<Double>) left, (Tensor<Double>) right, pair, resultingContext);
+    }
+
+    /**
+     * Sparse and double array backed tensors can be contracted directly on their keys, if the values are simply summed
+     * up and the broadcasting follows the default rules.
+     */
+    private boolean canContractOnKeys(Tensor<V> left, Tensor<V> right) {
+        return (reductionOperation instanceof IterableSum) && SparseTensors.canContract(left, right)
+                && isDefaultBroadcasting();
+    }
+
+    private boolean isDefaultBroadcasting() {
+        return optionRegistry.get(BroadcastingStrategy.class) instanceof BroadcastMissingDimensionsStrategy;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Tensor<V> contractOnKeys(Tensor<V> left, Tensor<V> right, List<CoContraDimensionPair> pairsToReduce) {
+        ContextPropagationStrategy cps = optionRegistry.get(ContextPropagationStrategy.class);
+        Context resultingContext = cps.contextForLeftRight(left.context(), right.context());
+        BinaryOperation<Double> addition = ((IterableSum<Double>) reductionOperation).addition();
+        return (Tensor<V>) SparseTensors.contract((BinaryOperation<Double>) elementOperation, addition,
+                (Tensor<Double>) left, (Tensor<Double>) right, pairsToReduce, resultingContext);
+    }
+
+    /**
+     * A sum can be accumulated value by value, starting from the sum of no values. For all other reductions, the values
+     * have to be collected per target position first.
+     */
+    private Accumulation<V> newAccumulation() {
+        if (reductionOperation instanceof IterableSum) {
+            BinaryOperation<V> addition = ((IterableSum<V>) reductionOperation).addition();
+            return new SumAccumulation<>(addition, reductionOperation.perform(Collections.<V> emptyList()));
+        }
+        return new CollectingAccumulation<>(reductionOperation);
+    }
+
     private TensorPair<V> broadcast(Tensor<V> left, Tensor<V> right, Set<Class<?>> dimensionsNotToBroadcast) {
         BroadcastingStrategy broadcasting = optionRegistry.get(BroadcastingStrategy.class);
         return broadcasting.broadcast(left, right, dimensionsNotToBroadcast);
     }
 
+    /**
+     * The part of the target position and the value of one entry of the right tensor.
+     */
+    private static final class RightEntry<V> {
+        private final Position targetPart;
+        private final V value;
+
+        RightEntry(Position targetPart, V value) {
+            this.targetPart = targetPart;
+            this.value = value;
+        }
+    }
+
+    /**
+     * Collects the results of the element operation for the target positions and reduces them.
+     */
+    private interface Accumulation<V> {
+
+        void add(Position targetPosition, V value);
+
+        Map<Position, V> result();
+    }
+
+    private static final class SumAccumulation<V> implements Accumulation<V> {
+
+        private final BinaryOperation<V> addition;
+        private final V zero;
+        private final Map<Position, V> sums = new LinkedHashMap<>();
+
+        SumAccumulation(BinaryOperation<V> addition, V zero) {
+            this.addition = addition;
+            this.zero = zero;
+        }
+
+        @Override
+        public void add(Position targetPosition, V value) {
+            V sum = sums.get(targetPosition);
+            sums.put(targetPosition, addition.perform((sum == null) ? zero : sum, value));
+        }
+
+        @Override
+        public Map<Position, V> result() {
+            return sums;
+        }
+    }
+
+    private static final class CollectingAccumulation<V> implements Accumulation<V> {
+
+        private final IterableOperation<V> reduction;
+        private final Map<Position, List<V>> values = new LinkedHashMap<>();
+
+        CollectingAccumulation(IterableOperation<V> reduction) {
+            this.reduction = reduction;
+        }
+
+        @Override
+        public void add(Position targetPosition, V value) {
+            List<V> targetValues = values.get(targetPosition);
+            if (targetValues == null) {
+                targetValues = new ArrayList<>();
+                values.put(targetPosition, targetValues);
+            }
+            targetValues.add(value);
+        }
+
+        @Override
+        public Map<Position, V> result() {
+            Map<Position, V> result = new LinkedHashMap<>();
+            for (Map.Entry<Position, List<V>> entry : values.entrySet()) {
+                result.put(entry.getKey(), reduction.perform(entry.getValue()));
+            }
+            return result;
+        }
+    }
+
 }
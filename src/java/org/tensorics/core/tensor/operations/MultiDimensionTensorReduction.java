@@ -0,0 +1,86 @@
+// @formatter:off
+ /*******************************************************************************
+ *
+ * This file is part of tensorics.
+ * 
+ * Copyright (c) 2008-2011, CERN. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ ******************************************************************************/
+// @formatter:on
+
+package org.tensorics.core.tensor.operations;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import java.util.Set;
+
+import org.tensorics.core.math.operations.UnaryOperation;
+import org.tensorics.core.reduction.ReductionStrategy;
+import org.tensorics.core.tensor.Context;
+import org.tensorics.core.tensor.Position;
+import org.tensorics.core.tensor.Positions;
+import org.tensorics.core.tensor.Tensor;
+import org.tensorics.core.tensor.options.ExecutionStrategy;
+import org.tensorics.core.tensor.options.SequentialExecutionStrategy;
+
+import com.google.common.base.Function;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Sets;
+
+/**
+ * The operation which describes the reduction of a tensor in several directions at once (e.g. averaging over time and
+ * device together). The values are grouped in one pass over the source tensor by their coordinates in the remaining
+ * dimensions. Within each group, the values are passed to the reduction strategy keyed by the positions of their
+ * reduced coordinates. If the given execution strategy allows it, the groups are reduced in parallel.
+ * 
+ * @author kfuchsbe
+ * @param <E> the type of the elements of the tensor
+ */
+public class MultiDimensionTensorReduction<E> implements UnaryOperation<Tensor<E>> {
+
+    private final Set<Class<?>> dimensions;
+    private final ReductionStrategy<? super Position, E> reductionStrategy;
+    private final ExecutionStrategy executionStrategy;
+
+    public MultiDimensionTensorReduction(Set<? extends Class<?>> dimensions,
+            ReductionStrategy<? super Position, E> strategy) {
+        this(dimensions, strategy, new SequentialExecutionStrategy());
+    }
+
+    public MultiDimensionTensorReduction(Set<? extends Class<?>> dimensions,
+            ReductionStrategy<? super Position, E> strategy, ExecutionStrategy executionStrategy) {
+        super();
+        checkArgument(!dimensions.isEmpty(), "At least one dimension to reduce has to be given.");
+        this.dimensions = ImmutableSet.copyOf(dimensions);
+        this.reductionStrategy = strategy;
+        this.executionStrategy = executionStrategy;
+    }
+
+    @Override
+    public Tensor<E> perform(Tensor<E> value) {
+        Set<Class<?>> tensorDimensions = value.shape().dimensionSet();
+        checkArgument(tensorDimensions.containsAll(dimensions), "The dimensions to reduce " + dimensions
+                + " are not all contained in the dimensions of the tensor " + tensorDimensions + ".");
+        Function<Position, Position> reducedCoordinates = Positions.stripping(Sets.difference(tensorDimensions,
+                dimensions));
+        return new GroupedReduction<Position, E>(dimensions, reducedCoordinates, reductionStrategy,
+                executionStrategy).reduce(value, resultingContext(value));
+    }
+
+    private Context resultingContext(Tensor<E> value) {
+        return Context.of(reductionStrategy.context(value.context().getPosition()).coordinates());
+    }
+
+}
@@ -0,0 +1,164 @@
+// @formatter:off
+ /*******************************************************************************
+ *
+ * This file is part of tensorics.
+ * 
+ * Copyright (c) 2008-2011, CERN. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ ******************************************************************************/
+// @formatter:on
+
+package org.tensorics.core.tensor.operations;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import org.tensorics.core.reduction.Accumulator;
+import org.tensorics.core.tensor.Context;
+import org.tensorics.core.tensor.ImmutableTensor;
+import org.tensorics.core.tensor.ImmutableTensor.Builder;
+import org.tensorics.core.tensor.Position;
+import org.tensorics.core.tensor.Positions;
+import org.tensorics.core.tensor.Tensor;
+import org.tensorics.core.tensor.options.ExecutionStrategy;
+import org.tensorics.core.tensor.specific.IndexRanges;
+
+import com.google.common.base.Function;
+import com.google.common.collect.Sets;
+
+/**
+ * Reduces one or more dimensions of a tensor by feeding each value directly into the accumulation state of its group
+ * (the remaining position). Only one accumulation state per group is kept in memory. If the execution strategy allows
+ * it, the entries are split into chunks, which are accumulated in the common fork-join pool and whose states are
+ * combined afterwards.
+ * 
+ * @author kfuchsbe
+ * @param <E> the type of the elements of the tensor
+ * @param <A> the type of the accumulation states
+ */
+final class StreamingReduction<E, A> {
+
+    /** The minimal number of entries which are accumulated within one fork-join task */
+    private static final int MIN_CHUNK_SIZE = 4096;
+
+    private final Set<? extends Class<?>> dimensions;
+    private final Accumulator<E, A> accumulator;
+    private final ExecutionStrategy executionStrategy;
+
+    StreamingReduction(Set<? extends Class<?>> dimensions, Accumulator<E, A> accumulator,
+            ExecutionStrategy executionStrategy) {
+        this.dimensions = dimensions;
+        this.accumulator = accumulator;
+        this.executionStrategy = executionStrategy;
+    }
+
+    Tensor<E> reduce(Tensor<E> tensor, Context resultingContext) {
+        Set<Class<?>> tensorDimensions = tensor.shape().dimensionSet();
+        if (!tensorDimensions.containsAll(dimensions)) {
+            throw new IllegalStateException("Cannot operate with " + dimensions + " on a tensor with dimensions "
+                    + tensorDimensions);
+        }
+        Function<Position, Position> remaining = Positions.stripping(dimensions);
+
+        Map<Position, A> accumulations;
+        if (executionStrategy.isParallelFor(tensor.shape().size())) {
+            List<Entry<Position, E>> entries = new ArrayList<>(tensor.asMap().entrySet());
+            int chunkSize = IndexRanges.chunkSizeFor(entries.size(), MIN_CHUNK_SIZE);
+            accumulations = ForkJoinPool.commonPool().invoke(
+                    new ChunkTask(entries, remaining, 0, entries.size(), chunkSize));
+        } else {
+            accumulations = accumulate(tensor.asMap().entrySet(), remaining);
+        }
+
+        Builder<E> builder = ImmutableTensor.builder(Sets.difference(tensorDimensions, dimensions));
+        builder.setTensorContext(resultingContext);
+        for (Entry<Position, A> entry : accumulations.entrySet()) {
+            E reducedValue = accumulator.finish(entry.getValue());
+            if (reducedValue != null) {
+                builder.putAt(reducedValue, entry.getKey());
+            }
+        }
+        return builder.build();
+    }
+
+    private Map<Position, A> accumulate(Iterable<Entry<Position, E>> entries,
+            Function<Position, Position> remaining) {
+        Map<Position, A> accumulations = new LinkedHashMap<>();
+        for (Entry<Position, E> entry : entries) {
+            Position groupPosition = remaining.apply(entry.getKey());
+            A accumulation = accumulations.get(groupPosition);
+            if (accumulation == null) {
+                accumulation = accumulator.init();
+            }
+            accumulations.put(groupPosition, accumulator.accumulate(accumulation, entry.getValue()));
+        }
+        return accumulations;
+    }
+
+    private Map<Position, A> combine(Map<Position, A> left, Map<Position, A> right) {
+        for (Entry<Position, A> entry : right.entrySet()) {
+            A leftAccumulation = left.get(entry.getKey());
+            if (leftAccumulation == null) {
+                left.put(entry.getKey(), entry.getValue());
+            } else {
+                left.put(entry.getKey(), accumulator.combine(leftAccumulation, entry.getValue()));
+            }
+        }
+        return left;
+    }
+
+    /**
+     * Accumulates a range of entries. Ranges bigger than the chunk size are split in halves, whose states are
+     * combined afterwards.
+     */
+    private final class ChunkTask extends RecursiveTask<Map<Position, A>> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final List<Entry<Position, E>> entries;
+        private final Function<Position, Position> remaining;
+        private final int from;
+        private final int to;
+        private final int chunkSize;
+
+        ChunkTask(List<Entry<Position, E>> entries, Function<Position, Position> remaining, int from, int to,
+                int chunkSize) {
+            this.entries = entries;
+            this.remaining = remaining;
+            this.from = from;
+            this.to = to;
+            this.chunkSize = chunkSize;
+        }
+
+        @Override
+        protected Map<Position, A> compute() {
+            if (to - from <= chunkSize) {
+                return accumulate(entries.subList(from, to), remaining);
+            }
+            int middle = (from + to) >>> 1;
+            ChunkTask right = new ChunkTask(entries, remaining, middle, to, chunkSize);
+            right.fork();
+            Map<Position, A> left = new ChunkTask(entries, remaining, from, middle, chunkSize).compute();
+            return combine(left, right.join());
+        }
+    }
+
+}
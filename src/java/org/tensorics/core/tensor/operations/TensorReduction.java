@@ -22,20 +22,30 @@
 
 package org.tensorics.core.tensor.operations;
 
-import java.util.Map;
-import java.util.Map.Entry;
+import java.util.Collections;
 
 import org.tensorics.core.math.operations.UnaryOperation;
 import org.tensorics.core.reduction.ReductionStrategy;
 import org.tensorics.core.tensor.Context;
-import org.tensorics.core.tensor.ImmutableTensor;
-import org.tensorics.core.tensor.ImmutableTensor.Builder;
 import org.tensorics.core.tensor.Position;
 import org.tensorics.core.tensor.Tensor;
+import org.tensorics.core.tensor.options.ExecutionStrategy;
+import org.tensorics.core.tensor.options.SequentialExecutionStrategy;
+import org.tensorics.core.tensor.specific.AbstractArrayBackedTensor;
+import org.tensorics.core.tensor.specific.ArrayBackedTensors;
+import org.tensorics.core.tensor.specific.ImmutableSparseDoubleTensor;
+import org.tensorics.core.tensor.specific.SparseTensors;
+
+import com.google.common.base.Function;
 
 /**
  * The operation which describes the reduction of a tensor in one direction.
+ * <p>
+ * Array backed and sparse tensors are reduced by their specialized implementations. All other tensors are reduced
+ * directly from their entries, grouped by the remaining coordinates. These groups are reduced in parallel, if the
+ * given execution strategy allows it.
  * 
+ * @see MultiDimensionTensorReduction
  * @author kfuchsbe
  * @param <C> the dimension (direction, type of coordinate) in which the tensor will be reduced
  * @param <E> the type of the elements of the tensor
@@ -44,26 +54,53 @@ public class TensorReduction<C, E> implements UnaryOperation<Tensor<E>> {
 
     private final Class<? extends C> direction;
     private final ReductionStrategy<? super C, E> reductionStrategy;
+    private final ExecutionStrategy executionStrategy;
 
     public TensorReduction(Class<? extends C> direction, ReductionStrategy<? super C, E> strategy) {
+        this(direction, strategy, new SequentialExecutionStrategy());
+    }
+
+    public TensorReduction(Class<? extends C> direction, ReductionStrategy<? super C, E> strategy,
+            ExecutionStrategy executionStrategy) {
         super();
         this.direction = direction;
         this.reductionStrategy = strategy;
+        this.executionStrategy = executionStrategy;
     }
 
     @Override
     public Tensor<E> perform(Tensor<E> value) {
-        Tensor<Map<C, E>> mapped = TensorInternals.mapOut(value).inDirectionOf(direction);
+        if (ArrayBackedTensors.canReduce(value, direction)) {
+            return ArrayBackedTensors.reduce((AbstractArrayBackedTensor<E>) value, direction, reductionStrategy,
+                    resultingContext(value));
+        }
+        if (SparseTensors.canReduce(value, direction)) {
+            return reduceSparse(value);
+        }
+        return new GroupedReduction<C, E>(Collections.singleton(direction), coordinateIn(direction), reductionStrategy,
+                executionStrategy).reduce(value, resultingContext(value));
+    }
 
-        Builder<E> builder = ImmutableTensor.builder(mapped.shape().dimensionSet());
-        builder.setTensorContext(Context.of(reductionStrategy.context(value.context().getPosition()).coordinates()));
-        for (Entry<Position, Map<C, E>> entry : mapped.asMap().entrySet()) {
-            E reducedValue = reductionStrategy.reduce(entry.getValue(), entry.getKey());
-            if (reducedValue != null) {
-                builder.at(entry.getKey()).put(reducedValue);
+    private static <C> Function<Position, C> coordinateIn(final Class<? extends C> direction) {
+        return new Function<Position, C>() {
+            @Override
+            public C apply(Position position) {
+                return position.coordinateFor(direction);
             }
-        }
-        return builder.build();
+        };
+    }
+
+    /**
+     * Sparse tensors only contain doubles, so the strategy can safely be treated as one for doubles.
+     */
+    @SuppressWarnings("unchecked")
+    private Tensor<E> reduceSparse(Tensor<E> value) {
+        return (Tensor<E>) SparseTensors.reduce((ImmutableSparseDoubleTensor) value, direction,
+                (ReductionStrategy<? super C, Double>) reductionStrategy, resultingContext(value));
+    }
+
+    private Context resultingContext(Tensor<E> value) {
+        return Context.of(reductionStrategy.context(value.context().getPosition()).coordinates());
     }
 
 }
@@ -0,0 +1,44 @@
+// @formatter:off
+ /*******************************************************************************
+ *
+ * This file is part of tensorics.
+ * 
+ * Copyright (c) 2008-2011, CERN. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ ******************************************************************************/
+// @formatter:on
+
+package org.tensorics.core.tensor.options;
+
+import org.tensorics.core.commons.options.ManipulationOption;
+
+/**
+ * Defines if element-wise tensor operations are executed sequentially or split into chunks which are processed in
+ * parallel. Implementations decide depending on the number of elements to process, since for small tensors the
+ * overhead of splitting the work is bigger than the gain.
+ * 
+ * @author kfuchsbe
+ */
+public interface ExecutionStrategy extends ManipulationOption {
+
+    /**
+     * Decides, if an operation on the given number of elements shall be executed in parallel.
+     * 
+     * @param numberOfElements the number of elements which have to be processed by the operation
+     * @return {@code true} if the elements shall be processed in parallel, {@code false} if sequentially
+     */
+    boolean isParallelFor(int numberOfElements);
+
+}
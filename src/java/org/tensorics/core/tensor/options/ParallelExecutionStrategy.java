@@ -0,0 +1,75 @@
+// @formatter:off
+ /*******************************************************************************
+ *
+ * This file is part of tensorics.
+ * 
+ * Copyright (c) 2008-2011, CERN. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ ******************************************************************************/
+// @formatter:on
+
+package org.tensorics.core.tensor.options;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import org.tensorics.core.commons.options.ManipulationOption;
+
+/**
+ * An execution strategy which lets element-wise operations on tensors with at least a certain number of elements run
+ * in parallel (in the common fork-join pool). Smaller tensors are still processed sequentially.
+ * 
+ * @author kfuchsbe
+ */
+public class ParallelExecutionStrategy implements ExecutionStrategy {
+
+    /** The number of elements from which on operations are executed in parallel, if not specified otherwise */
+    public static final int DEFAULT_THRESHOLD = 10_000;
+
+    private final int threshold;
+
+    /**
+     * Creates a strategy which uses the {@link #DEFAULT_THRESHOLD}.
+     */
+    public ParallelExecutionStrategy() {
+        this(DEFAULT_THRESHOLD);
+    }
+
+    /**
+     * Creates a strategy which executes operations in parallel, as soon as they have to process at least the given
+     * number of elements.
+     * 
+     * @param threshold the minimal number of elements for which operations are executed in parallel
+     * @throws IllegalArgumentException if the threshold is not positive
+     */
+    public ParallelExecutionStrategy(int threshold) {
+        checkArgument(threshold > 0, "The threshold must be positive, but was " + threshold + ".");
+        this.threshold = threshold;
+    }
+
+    @Override
+    public boolean isParallelFor(int numberOfElements) {
+        return numberOfElements >= threshold;
+    }
+
+    public int threshold() {
+        return threshold;
+    }
+
+    @Override
+    public Class<? extends ManipulationOption> getMarkerInterface() {
+        return ExecutionStrategy.class;
+    }
+
+}
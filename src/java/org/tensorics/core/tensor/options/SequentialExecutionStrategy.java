@@ -0,0 +1,44 @@
+// @formatter:off
+ /*******************************************************************************
+ *
+ * This file is part of tensorics.
+ * 
+ * Copyright (c) 2008-2011, CERN. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ ******************************************************************************/
+// @formatter:on
+
+package org.tensorics.core.tensor.options;
+
+import org.tensorics.core.commons.options.ManipulationOption;
+
+/**
+ * The default execution strategy: All element-wise operations are executed sequentially in the calling thread.
+ * 
+ * @author kfuchsbe
+ */
+public class SequentialExecutionStrategy implements ExecutionStrategy {
+
+    @Override
+    public boolean isParallelFor(int numberOfElements) {
+        return false;
+    }
+
+    @Override
+    public Class<? extends ManipulationOption> getMarkerInterface() {
+        return ExecutionStrategy.class;
+    }
+
+}
@@ -0,0 +1,154 @@
+// @formatter:off
+ /*******************************************************************************
+ *
+ * This file is part of tensorics.
+ * 
+ * Copyright (c) 2008-2011, CERN. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ ******************************************************************************/
+// @formatter:on
+package org.tensorics.core.tensor.specific;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+import org.tensorics.core.tensor.Context;
+import org.tensorics.core.tensor.Coordinates;
+import org.tensorics.core.tensor.ImmutableEntry;
+import org.tensorics.core.tensor.Position;
+import org.tensorics.core.tensor.ProjectableTensor;
+import org.tensorics.core.tensor.Shape;
+import org.tensorics.core.tensor.Tensor;
+
+import com.google.common.base.Function;
+import com.google.common.collect.Iterators;
+import com.google.common.collect.Maps;
+import com.google.common.collect.UnmodifiableIterator;
+
+/**
+ * Base class for tensors which store their values in some kind of array, where the mapping from positions to array
+ * indizes is done by a {@link PositionIndexer}.
+ * <p>
+ * Positions are never stored within such a tensor: The shape, the map returned by {@link #asMap()} and the entries are
+ * lazy views, which reconstruct the positions from the array indizes only when they are iterated.
+ * 
+ * @author kfuchsbe
+ * @param <E> the type of the (boxed) values of the tensor
+ */
+public abstract class AbstractArrayBackedTensor<E> implements ProjectableTensor<E> {
+
+    private static final int TOSTRING_ENTRIES = 10;
+
+    private final PositionIndexer indexer;
+    private final Context tensorContext;
+    private final Shape shape;
+
+    protected AbstractArrayBackedTensor(PositionIndexer indexer, Context context) {
+        this.indexer = indexer;
+        this.tensorContext = context;
+        this.shape = Shape.viewOf(indexer.dimensions(), indexer.allPositions());
+    }
+
+    /**
+     * Has to return the value which is stored at the given array index.
+     * 
+     * @param index the array index for which to retrieve the value
+     * @return the (boxed) value at the given index
+     */
+    protected abstract E elementAt(int index);
+
+    @Override
+    public E get(Position position) {
+        return elementAt(indexer.indexFor(position));
+    }
+
+    @Override
+    public E getProjection(Position position) {
+        return elementAt(indexer.indexForProjectionOf(position));
+    }
+
+    @Override
+    public E get(Object... coordinates) {
+        return get(Position.of(coordinates));
+    }
+
+    @Override
+    @Deprecated
+    public Iterable<Tensor.Entry<E>> entrySet() {
+        return new Iterable<Tensor.Entry<E>>() {
+            @Override
+            public Iterator<Tensor.Entry<E>> iterator() {
+                return new UnmodifiableIterator<Tensor.Entry<E>>() {
+                    private int index = 0;
+
+                    @Override
+                    public boolean hasNext() {
+                        return index < size();
+                    }
+
+                    @Override
+                    public Tensor.Entry<E> next() {
+                        if (!hasNext()) {
+                            throw new NoSuchElementException();
+                        }
+                        Position position = indexer.positionAt(index);
+                        return new ImmutableEntry<E>(position, elementAt(index++));
+                    }
+                };
+            }
+        };
+    }
+
+    /**
+     * Returns an unmodifiable view on the content of the tensor. No positions are created by this call. They are only
+     * created while iterating over the returned map.
+     */
+    @Override
+    public Map<Position, E> asMap() {
+        return Collections.unmodifiableMap(Maps.asMap(indexer.allPositions(), new Function<Position, E>() {
+            @Override
+            public E apply(Position position) {
+                return get(position);
+            }
+        }));
+    }
+
+    @Override
+    public Shape shape() {
+        return this.shape;
+    }
+
+    @Override
+    public Context context() {
+        return this.tensorContext;
+    }
+
+    PositionIndexer indexer() {
+        return this.indexer;
+    }
+
+    int size() {
+        return indexer.arraySize();
+    }
+
+    @Override
+    public String toString() {
+        return Coordinates.dimensionsWithoutClassPath(this) + ", Content:"
+                + Iterators.toString(Iterators.limit(asMap().entrySet().iterator(), TOSTRING_ENTRIES));
+    }
+
+}
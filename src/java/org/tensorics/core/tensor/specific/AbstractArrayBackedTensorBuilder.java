@@ -0,0 +1,85 @@
+// @formatter:off
+ /*******************************************************************************
+ *
+ * This file is part of tensorics.
+ * 
+ * Copyright (c) 2008-2011, CERN. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ ******************************************************************************/
+// @formatter:on
+package org.tensorics.core.tensor.specific;
+
+import java.util.Map;
+
+import org.tensorics.core.tensor.AbstractTensorBuilder;
+import org.tensorics.core.tensor.Position;
+import org.tensorics.core.tensor.Tensor;
+
+/**
+ * Base class for builders of array backed tensors. The values are put into the array at the index which is determined
+ * by the indexer. Values can not be removed, since every position of the indexer always has a value in the array.
+ * 
+ * @author kfuchsbe
+ * @param <E> the type of the values of the tensor to build
+ */
+public abstract class AbstractArrayBackedTensorBuilder<E> extends AbstractTensorBuilder<E> {
+
+    private final PositionIndexer indexer;
+
+    AbstractArrayBackedTensorBuilder(PositionIndexer indexer) {
+        super(indexer.dimensions());
+        this.indexer = indexer;
+    }
+
+    @Override
+    protected final void putItAt(E value, Position position) {
+        putAtIndex(value, indexer.indexFor(position));
+    }
+
+    /**
+     * Has to store the given value at the given index in the array.
+     * 
+     * @param value the value to store
+     * @param index the index at which to store the value
+     */
+    protected abstract void putAtIndex(E value, int index);
+
+    @Override
+    public void putAllMap(Map<Position, E> newEntries) {
+        for (java.util.Map.Entry<Position, E> one : newEntries.entrySet()) {
+            putItAt(one.getValue(), one.getKey());
+        }
+    }
+
+    @Override
+    public void removeAt(Position position) {
+        throw new UnsupportedOperationException("Cannot remove a value");
+    }
+
+    @Override
+    public void put(java.util.Map.Entry<Position, E> entry) {
+        putAt(entry.getValue(), entry.getKey());
+    }
+
+    @Override
+    public void putAll(Tensor<E> tensor) {
+        putAllAt(tensor);
+    }
+
+    PositionIndexer indexer() {
+        return indexer;
+    }
+
+}
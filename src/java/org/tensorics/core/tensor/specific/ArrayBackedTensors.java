@@ -0,0 +1,379 @@
+// @formatter:off
+ /*******************************************************************************
+ *
+ * This file is part of tensorics.
+ * 
+ * Copyright (c) 2008-2011, CERN. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ ******************************************************************************/
+// @formatter:on
+package org.tensorics.core.tensor.specific;
+
+import java.util.List;
+import java.util.Map.Entry;
+
+import org.tensorics.core.math.operations.BinaryOperation;
+import org.tensorics.core.math.operations.UnaryOperation;
+import org.tensorics.core.reduction.AccumulatingReduction;
+import org.tensorics.core.reduction.Accumulator;
+import org.tensorics.core.reduction.ReductionStrategy;
+import org.tensorics.core.tensor.Context;
+import org.tensorics.core.tensor.ImmutableTensor;
+import org.tensorics.core.tensor.ImmutableTensor.Builder;
+import org.tensorics.core.tensor.Position;
+import org.tensorics.core.tensor.Shape;
+import org.tensorics.core.tensor.Tensor;
+import org.tensorics.core.tensor.TensorBuilder;
+import org.tensorics.core.tensor.options.ExecutionStrategy;
+import org.tensorics.core.tensor.specific.IndexRanges.RangeBody;
+
+import com.google.common.base.Function;
+import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableMap;
+
+/**
+ * Contains utility methods which allow to operate directly on the arrays of array backed tensors (see
+ * {@link AbstractArrayBackedTensor}). The operations in this class avoid the creation of position objects wherever
+ * possible.
+ * 
+ * @author kfuchsbe
+ */
+public final class ArrayBackedTensors {
+
+    private ArrayBackedTensors() {
+        /* only static methods */
+    }
+
+    /**
+     * Checks if the given tensor is backed by a double array.
+     * 
+     * @param tensor the tensor to check
+     * @return {@code true} if the tensor is backed by a double array, {@code false} otherwise
+     */
+    public static boolean isDoubleArrayBacked(Tensor<?> tensor) {
+        return tensor instanceof ImmutableDoubleArrayBackedTensor;
+    }
+
+    /**
+     * Checks if the two given tensors can be combined element by element directly on their arrays. This is the case if
+     * both tensors are double array backed with the same indexer, or if one of them is array backed and the other one is a
+     * zero dimensional tensor (a scalar), whose value will then be used for all the elements of the array backed one.
+     * <p>
+     * In all these cases, broadcasting is a no-op and the resulting shape is the shape of the array backed tensor(s).
+     * 
+     * @param left the left operand of a binary element wise operation
+     * @param right the right operand of a binary element wise operation
+     * @return {@code true} if {@link #elementwise(BinaryOperation, Tensor, Tensor, Context)} can be used for the two
+     *         tensors, {@code false} otherwise
+     */
+    public static boolean canOperateElementwise(Tensor<?> left, Tensor<?> right) {
+        if (isDoubleArrayBacked(left) && isDoubleArrayBacked(right)) {
+            return indexerOf(left).equals(indexerOf(right));
+        }
+        return (isDoubleArrayBacked(left) && isScalar(right)) || (isScalar(left) && isDoubleArrayBacked(right));
+    }
+
+    /**
+     * Applies the given operation to all the corresponding values of the two tensors. The two tensors have to fulfill
+     * the preconditions checked by {@link #canOperateElementwise(Tensor, Tensor)}.
+     * 
+     * @param operation the operation to apply to each pair of values
+     * @param left the left operand
+     * @param right the right operand
+     * @param resultingContext the context of the resulting tensor
+     * @return a new array backed tensor, with the same indexer as the array backed operand(s)
+     * @throws IllegalArgumentException if the two tensors cannot be combined on array level
+     */
+    public static ImmutableDoubleArrayBackedTensor elementwise(BinaryOperation<Double> operation, Tensor<Double> left,
+            Tensor<Double> right, Context resultingContext) {
+        return elementwise(operation, left, right, resultingContext, null);
+    }
+
+    /**
+     * Applies the given operation to all the corresponding values of the two tensors, splitting the arrays into chunks
+     * which are processed in parallel, if the given execution strategy allows it for the size of the arrays. The two
+     * tensors have to fulfill the preconditions checked by {@link #canOperateElementwise(Tensor, Tensor)}.
+     * 
+     * @param operation the operation to apply to each pair of values
+     * @param left the left operand
+     * @param right the right operand
+     * @param resultingContext the context of the resulting tensor
+     * @param executionStrategy the strategy deciding on parallel execution; {@code null} means sequential
+     * @return a new array backed tensor, with the same indexer as the array backed operand(s)
+     * @throws IllegalArgumentException if the two tensors cannot be combined on array level
+     */
+    public static ImmutableDoubleArrayBackedTensor elementwise(final BinaryOperation<Double> operation,
+            Tensor<Double> left, Tensor<Double> right, Context resultingContext, ExecutionStrategy executionStrategy) {
+        if (!canOperateElementwise(left, right)) {
+            throw new IllegalArgumentException("The given tensors cannot be combined elementwise on array level.");
+        }
+        if (!isDoubleArrayBacked(left)) {
+            return combineWithScalar(operation, scalarValueOf(left), (ImmutableDoubleArrayBackedTensor) right,
+                    resultingContext, executionStrategy);
+        }
+        final ImmutableDoubleArrayBackedTensor arrayLeft = (ImmutableDoubleArrayBackedTensor) left;
+        if (!isDoubleArrayBacked(right)) {
+            return combineWithScalar(operation, arrayLeft, scalarValueOf(right), resultingContext, executionStrategy);
+        }
+        final ImmutableDoubleArrayBackedTensor arrayRight = (ImmutableDoubleArrayBackedTensor) right;
+        final double[] result = new double[arrayLeft.size()];
+        IndexRanges.forEach(result.length, executionStrategy, new RangeBody() {
+            @Override
+            public void process(int from, int to) {
+                for (int i = from; i < to; i++) {
+                    result[i] = operation.perform(arrayLeft.valueAt(i), arrayRight.valueAt(i));
+                }
+            }
+        });
+        return new ImmutableDoubleArrayBackedTensor(arrayLeft.indexer(), result, resultingContext);
+    }
+
+    /**
+     * Applies the given unary operation to all the values of the given array backed tensor.
+     * 
+     * @param operation the operation to apply to each value
+     * @param tensor the tensor whose values to transform
+     * @param resultingContext the context of the resulting tensor
+     * @return a new array backed tensor, with the same indexer as the given one
+     */
+    public static ImmutableDoubleArrayBackedTensor elementwise(UnaryOperation<Double> operation,
+            ImmutableDoubleArrayBackedTensor tensor, Context resultingContext) {
+        return elementwise(operation, tensor, resultingContext, null);
+    }
+
+    /**
+     * Applies the given unary operation to all the values of the given array backed tensor, splitting the array into
+     * chunks which are processed in parallel, if the given execution strategy allows it for the size of the array.
+     * 
+     * @param operation the operation to apply to each value
+     * @param tensor the tensor whose values to transform
+     * @param resultingContext the context of the resulting tensor
+     * @param executionStrategy the strategy deciding on parallel execution; {@code null} means sequential
+     * @return a new array backed tensor, with the same indexer as the given one
+     */
+    public static ImmutableDoubleArrayBackedTensor elementwise(final UnaryOperation<Double> operation,
+            final ImmutableDoubleArrayBackedTensor tensor, Context resultingContext,
+            ExecutionStrategy executionStrategy) {
+        final double[] result = new double[tensor.size()];
+        IndexRanges.forEach(result.length, executionStrategy, new RangeBody() {
+            @Override
+            public void process(int from, int to) {
+                for (int i = from; i < to; i++) {
+                    result[i] = operation.perform(tensor.valueAt(i));
+                }
+            }
+        });
+        return new ImmutableDoubleArrayBackedTensor(tensor.indexer(), result, resultingContext);
+    }
+
+    private static ImmutableDoubleArrayBackedTensor combineWithScalar(final BinaryOperation<Double> operation,
+            final Double scalar, final ImmutableDoubleArrayBackedTensor right, Context resultingContext,
+            ExecutionStrategy executionStrategy) {
+        final double[] result = new double[right.size()];
+        IndexRanges.forEach(result.length, executionStrategy, new RangeBody() {
+            @Override
+            public void process(int from, int to) {
+                for (int i = from; i < to; i++) {
+                    result[i] = operation.perform(scalar, right.valueAt(i));
+                }
+            }
+        });
+        return new ImmutableDoubleArrayBackedTensor(right.indexer(), result, resultingContext);
+    }
+
+    private static ImmutableDoubleArrayBackedTensor combineWithScalar(final BinaryOperation<Double> operation,
+            final ImmutableDoubleArrayBackedTensor left, final Double scalar, Context resultingContext,
+            ExecutionStrategy executionStrategy) {
+        final double[] result = new double[left.size()];
+        IndexRanges.forEach(result.length, executionStrategy, new RangeBody() {
+            @Override
+            public void process(int from, int to) {
+                for (int i = from; i < to; i++) {
+                    result[i] = operation.perform(left.valueAt(i), scalar);
+                }
+            }
+        });
+        return new ImmutableDoubleArrayBackedTensor(left.indexer(), result, resultingContext);
+    }
+
+    /**
+     * Extracts from the given tensor only those elements where the values in the given mask is {@code true}. If the
+     * tensor and the mask share the same indexer, then only the {@code true} bits of the mask are visited (word-wise),
+     * otherwise the mask is queried for each position of the tensor.
+     * 
+     * @param tensor the tensor from which to extract the values
+     * @param mask the mask which determines which elements shall be present in the new tensor
+     * @return a new tensor containing only those elements for which the mask is {@code true}
+     */
+    @SuppressWarnings("unchecked")
+    public static <V> Tensor<V> extractWhereTrue(Tensor<V> tensor, ImmutableBitSetBackedTensor mask) {
+        if (!(tensor instanceof AbstractArrayBackedTensor)
+                || !((AbstractArrayBackedTensor<V>) tensor).indexer().equals(mask.indexer())) {
+            return extractWhereTrueByPositions(tensor, mask);
+        }
+        PositionIndexer indexer = mask.indexer();
+        Builder<V> builder = ImmutableTensor.builder(tensor.shape().dimensionSet());
+        for (int index = mask.nextTrueIndex(0); index >= 0; index = mask.nextTrueIndex(index + 1)) {
+            builder.putAt(((AbstractArrayBackedTensor<V>) tensor).elementAt(index), indexer.positionAt(index));
+        }
+        return builder.build();
+    }
+
+    private static <V> Tensor<V> extractWhereTrueByPositions(Tensor<V> tensor, Tensor<Boolean> mask) {
+        Builder<V> builder = ImmutableTensor.builder(tensor.shape().dimensionSet());
+        for (Entry<Position, V> entry : tensor.asMap().entrySet()) {
+            if (mask.get(entry.getKey()).booleanValue()) {
+                builder.putAt(entry.getValue(), entry.getKey());
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * Creates a tensor of boolean values, which is backed by a bit set, if the given shape is a full cartesian product
+     * of its coordinates. Otherwise, a default immutable tensor is created.
+     * 
+     * @param shape the shape of the tensor to create
+     * @param function the function which provides the boolean value for each position of the shape
+     * @return a new tensor of the given shape, containing the values provided by the function
+     */
+    public static Tensor<Boolean> booleanTensorOf(Shape shape, Function<Position, Boolean> function) {
+        Optional<PositionIndexer> indexer = PositionIndexer.exactlyCovering(shape);
+        TensorBuilder<Boolean> builder;
+        if (indexer.isPresent()) {
+            builder = ImmutableBitSetBackedTensor.builder(indexer.get());
+        } else {
+            builder = ImmutableTensor.builder(shape.dimensionSet());
+        }
+        for (Position position : shape.positionSet()) {
+            builder.putAt(function.apply(position), position);
+        }
+        return builder.build();
+    }
+
+    /**
+     * Checks if the given tensor can be reduced in the given dimension directly on its array. This is the case, if the
+     * tensor is array backed and the dimension is exactly one of its dimensions.
+     * 
+     * @param tensor the tensor to check
+     * @param dimension the dimension in which the tensor shall be reduced
+     * @return {@code true} if {@link #reduce(AbstractArrayBackedTensor, Class, ReductionStrategy, Context)} can be
+     *         used, {@code false} otherwise
+     */
+    public static boolean canReduce(Tensor<?> tensor, Class<?> dimension) {
+        return (tensor instanceof AbstractArrayBackedTensor)
+                && ((AbstractArrayBackedTensor<?>) tensor).indexer().dimensions().contains(dimension);
+    }
+
+    /**
+     * Reduces the given tensor in the given dimension. The values to be reduced together are found by their array
+     * indizes: They are all values which only differ in the ordinal of the reduced dimension. Positions are only created
+     * for the remaining entries (which are passed to the strategy).
+     * 
+     * @param tensor the tensor to reduce
+     * @param dimension the dimension in which to reduce the tensor
+     * @param strategy the strategy which reduces the values of one line in the given direction
+     * @param resultingContext the context of the resulting tensor
+     * @return a new tensor without the given dimension. It is double array backed if all the reduced values are non
+     *         null doubles.
+     */
+    @SuppressWarnings("unchecked")
+    public static <C, E> Tensor<E> reduce(AbstractArrayBackedTensor<E> tensor, Class<? extends C> dimension,
+            ReductionStrategy<? super C, E> strategy, Context resultingContext) {
+        PositionIndexer indexer = tensor.indexer();
+        int dimensionIndex = indexer.dimensionIndexOf(dimension);
+        PositionIndexer reducedIndexer = indexer.without(dimension);
+        if (indexer.sizeOf(dimensionIndex) == 0) {
+            Builder<E> builder = ImmutableTensor.builder(reducedIndexer.dimensions());
+            builder.setTensorContext(resultingContext);
+            return builder.build();
+        }
+
+        KeyTranslation toOriginal = KeyTranslation.onCommonDimensions(reducedIndexer, indexer);
+        List<?> coordinates = indexer.coordinatesFor(dimension);
+        int factor = (int) indexer.factorOf(dimensionIndex);
+        Accumulator<E, ?> accumulator = accumulatorOf(strategy);
+        Object[] reducedValues = new Object[reducedIndexer.arraySize()];
+        boolean allDoubles = true;
+        for (int reducedIndex = 0; reducedIndex < reducedValues.length; reducedIndex++) {
+            int baseIndex = (int) toOriginal.translate(reducedIndex);
+            E reducedValue;
+            if (accumulator != null) {
+                reducedValue = accumulateLine(tensor, accumulator, baseIndex, factor, coordinates.size());
+            } else {
+                ImmutableMap.Builder<C, E> lineBuilder = ImmutableMap.builder();
+                for (int ordinal = 0; ordinal < coordinates.size(); ordinal++) {
+                    lineBuilder.put((C) coordinates.get(ordinal), tensor.elementAt(baseIndex + ordinal * factor));
+                }
+                reducedValue = strategy.reduce(lineBuilder.build(), reducedIndexer.positionAt(reducedIndex));
+            }
+            reducedValues[reducedIndex] = reducedValue;
+            allDoubles &= reducedValue instanceof Double;
+        }
+
+        if (allDoubles) {
+            double[] doubles = new double[reducedValues.length];
+            for (int i = 0; i < doubles.length; i++) {
+                doubles[i] = (Double) reducedValues[i];
+            }
+            return (Tensor<E>) new ImmutableDoubleArrayBackedTensor(reducedIndexer, doubles, resultingContext);
+        }
+        Builder<E> builder = ImmutableTensor.builder(reducedIndexer.dimensions());
+        for (int i = 0; i < reducedValues.length; i++) {
+            if (reducedValues[i] != null) {
+                builder.putAt((E) reducedValues[i], reducedIndexer.positionAt(i));
+            }
+        }
+        builder.setTensorContext(resultingContext);
+        return builder.build();
+    }
+
+    /**
+     * @return the accumulator of the strategy, if it is an accumulating one, {@code null} otherwise
+     */
+    @SuppressWarnings("unchecked")
+    private static <E> Accumulator<E, ?> accumulatorOf(ReductionStrategy<?, E> strategy) {
+        if (strategy instanceof AccumulatingReduction) {
+            return ((AccumulatingReduction<E, ?>) strategy).accumulator();
+        }
+        return null;
+    }
+
+    /**
+     * Feeds the values of one line (which only differ in the ordinal of the reduced dimension) directly into the
+     * accumulator, without creating a map of them.
+     */
+    private static <E, A> E accumulateLine(AbstractArrayBackedTensor<E> tensor, Accumulator<E, A> accumulator,
+            int baseIndex, int factor, int lineLength) {
+        A accumulation = accumulator.init();
+        for (int ordinal = 0; ordinal < lineLength; ordinal++) {
+            accumulation = accumulator.accumulate(accumulation, tensor.elementAt(baseIndex + ordinal * factor));
+        }
+        return accumulator.finish(accumulation);
+    }
+
+    private static boolean isScalar(Tensor<?> tensor) {
+        return (tensor.shape().dimensionality() == 0) && tensor.shape().contains(Position.empty());
+    }
+
+    private static Double scalarValueOf(Tensor<Double> tensor) {
+        return tensor.get(Position.empty());
+    }
+
+    private static PositionIndexer indexerOf(Tensor<?> tensor) {
+        return ((ImmutableDoubleArrayBackedTensor) tensor).indexer();
+    }
+
+}
@@ -0,0 +1,297 @@
+// @formatter:off
+ /*******************************************************************************
+ *
+ * This file is part of tensorics.
+ * 
+ * Copyright (c) 2008-2011, CERN. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ ******************************************************************************/
+// @formatter:on
+
+package org.tensorics.core.tensor.specific;
+
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.tensorics.core.fields.doubles.Structures;
+import org.tensorics.core.math.operations.BinaryOperation;
+import org.tensorics.core.tensor.Context;
+import org.tensorics.core.tensor.Tensor;
+import org.tensorics.core.tensor.variance.CoContraDimensionPair;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Sets;
+
+/**
+ * Multiplies two double array backed tensors, which share exactly one pair of co- and contravariant dimensions, like
+ * matrices. The remaining dimensions of the left tensor are treated as the rows and the remaining dimensions of the
+ * right tensor as the columns of the result. The values are first copied into contiguous row-major arrays, which are
+ * then multiplied block by block, so that the blocks of both operands stay in the cache while they are used. Operands
+ * (and results) whose arrays are already in this row-major order are used directly, without copying them.
+ * <p>
+ * The contributions to each target value are summed up in the order of the contracted coordinates (as in the general
+ * inner product), starting from the given zero. For the multiplication and addition of the standard double field, this
+ * is done on primitive doubles; other operations are applied to boxed values.
+ * 
+ * @author kfuchsbe
+ */
+public final class BlockedMatrixMultiplication {
+
+    private static final int ROW_BLOCK = 64;
+    private static final int INNER_BLOCK = 256;
+    private static final int COLUMN_BLOCK = 512;
+
+    private static final BinaryOperation<Double> DOUBLE_MULTIPLICATION = Structures.doubles().multiplication();
+    private static final BinaryOperation<Double> DOUBLE_ADDITION = Structures.doubles().addition();
+
+    private BlockedMatrixMultiplication() {
+        /* only static methods */
+    }
+
+    /**
+     * Checks if the two tensors can be multiplied by
+     * {@link #multiply(BinaryOperation, BinaryOperation, double, Tensor, Tensor, CoContraDimensionPair, Context)}.
+     * This is the case if
+     * <ul>
+     * <li>both are double array backed,
+     * <li>exactly one pair of dimensions has to be contracted,
+     * <li>the remaining dimensions of the two tensors are disjoint (there are no common dimensions to broadcast),
+     * <li>the coordinates of the contracted dimensions correspond one to one and
+     * <li>the result fits into an array.
+     * </ul>
+     * 
+     * @param left the left operand
+     * @param right the right operand
+     * @param pairsToReduce the pairs of co- and contravariant dimensions which have to be contracted
+     * @return {@code true} if the tensors can be multiplied as matrices, {@code false} otherwise
+     */
+    public static boolean canMultiply(Tensor<?> left, Tensor<?> right, List<CoContraDimensionPair> pairsToReduce) {
+        if (pairsToReduce.size() != 1 || !ArrayBackedTensors.isDoubleArrayBacked(left)
+                || !ArrayBackedTensors.isDoubleArrayBacked(right)) {
+            return false;
+        }
+        CoContraDimensionPair pair = pairsToReduce.get(0);
+        PositionIndexer leftIndexer = ((ImmutableDoubleArrayBackedTensor) left).indexer();
+        PositionIndexer rightIndexer = ((ImmutableDoubleArrayBackedTensor) right).indexer();
+        Set<Class<?>> remainingLeft = Sets.difference(leftIndexer.dimensions(), ImmutableSet.<Class<?>> of(pair.left()));
+        Set<Class<?>> remainingRight = Sets.difference(rightIndexer.dimensions(), ImmutableSet.<Class<?>> of(pair.right()));
+        if (!Sets.intersection(remainingLeft, remainingRight).isEmpty()) {
+            return false;
+        }
+        int leftInnerIndex = leftIndexer.dimensionIndexOf(pair.left());
+        int rightInnerIndex = rightIndexer.dimensionIndexOf(pair.right());
+        int inner = leftIndexer.sizeOf(leftInnerIndex);
+        if (inner == 0 || inner != rightIndexer.sizeOf(rightInnerIndex)) {
+            return false;
+        }
+        for (int k = 0; k < inner; k++) {
+            Object rightCoordinate = pair.toRight(leftIndexer.coordinateAt(leftInnerIndex, k));
+            if (rightIndexer.ordinalFor(rightInnerIndex, rightCoordinate) < 0) {
+                return false;
+            }
+        }
+        long rows = leftIndexer.keySpaceSize() / inner;
+        long columns = rightIndexer.keySpaceSize() / inner;
+        return rows * columns <= Integer.MAX_VALUE;
+    }
+
+    /**
+     * Multiplies the two tensors, which have to fulfill the preconditions checked by
+     * {@link #canMultiply(Tensor, Tensor, List)}.
+     * 
+     * @param multiplication the operation to combine a left and a right value
+     * @param addition the operation to sum up the combined values
+     * @param zero the value from which to start the sums
+     * @param left the left operand
+     * @param right the right operand
+     * @param pair the pair of dimensions to contract
+     * @param resultingContext the context of the resulting tensor
+     * @return a new double array backed tensor, containing the remaining dimensions of both operands
+     * @throws IllegalArgumentException if the tensors cannot be multiplied as matrices
+     */
+    public static ImmutableDoubleArrayBackedTensor multiply(BinaryOperation<Double> multiplication,
+            BinaryOperation<Double> addition, double zero, Tensor<Double> left, Tensor<Double> right,
+            CoContraDimensionPair pair, Context resultingContext) {
+        if (!canMultiply(left, right, Arrays.asList(pair))) {
+            throw new IllegalArgumentException("The given tensors cannot be multiplied as dense matrices.");
+        }
+        ImmutableDoubleArrayBackedTensor denseLeft = (ImmutableDoubleArrayBackedTensor) left;
+        ImmutableDoubleArrayBackedTensor denseRight = (ImmutableDoubleArrayBackedTensor) right;
+        PositionIndexer leftIndexer = denseLeft.indexer();
+        PositionIndexer rightIndexer = denseRight.indexer();
+        PositionIndexer rowIndexer = leftIndexer.without(pair.left());
+        PositionIndexer columnIndexer = rightIndexer.without(pair.right());
+        PositionIndexer target = targetIndexer(rowIndexer, columnIndexer);
+
+        int rows = (int) rowIndexer.keySpaceSize();
+        int columns = (int) columnIndexer.keySpaceSize();
+        int leftInnerIndex = leftIndexer.dimensionIndexOf(pair.left());
+        int rightInnerIndex = rightIndexer.dimensionIndexOf(pair.right());
+        int inner = leftIndexer.sizeOf(leftInnerIndex);
+
+        int[] leftInnerOffsets = new int[inner];
+        int[] rightInnerOffsets = new int[inner];
+        for (int k = 0; k < inner; k++) {
+            Object rightCoordinate = pair.toRight(leftIndexer.coordinateAt(leftInnerIndex, k));
+            leftInnerOffsets[k] = (int) (k * leftIndexer.factorOf(leftInnerIndex));
+            rightInnerOffsets[k] = (int) (rightIndexer.ordinalFor(rightInnerIndex, rightCoordinate) * rightIndexer
+                    .factorOf(rightInnerIndex));
+        }
+
+        /* bring the operands into contiguous row-major arrays, if they are not yet */
+        int[] rowOffsets = offsets(KeyTranslation.onCommonDimensions(rowIndexer, leftIndexer), rows);
+        double[] a;
+        if (isStrided(rowOffsets, inner) && isStrided(leftInnerOffsets, 1)) {
+            a = denseLeft.values();
+        } else {
+            a = new double[rows * inner];
+            for (int m = 0; m < rows; m++) {
+                for (int k = 0; k < inner; k++) {
+                    a[m * inner + k] = denseLeft.valueAt(rowOffsets[m] + leftInnerOffsets[k]);
+                }
+            }
+        }
+        int[] columnOffsets = offsets(KeyTranslation.onCommonDimensions(columnIndexer, rightIndexer), columns);
+        double[] b;
+        if (isStrided(columnOffsets, 1) && isStrided(rightInnerOffsets, columns)) {
+            b = denseRight.values();
+        } else {
+            b = new double[inner * columns];
+            for (int n = 0; n < columns; n++) {
+                for (int k = 0; k < inner; k++) {
+                    b[k * columns + n] = denseRight.valueAt(rightInnerOffsets[k] + columnOffsets[n]);
+                }
+            }
+        }
+
+        double[] c;
+        if (multiplication == DOUBLE_MULTIPLICATION && addition == DOUBLE_ADDITION) {
+            c = multiplyBlocked(zero, a, b, rows, inner, columns);
+        } else {
+            c = multiplyBlocked(multiplication, addition, zero, a, b, rows, inner, columns);
+        }
+
+        /* scatter the row-major result into the order of the target indexer, if it differs */
+        int[] targetRowKeys = offsets(KeyTranslation.onCommonDimensions(rowIndexer, target), rows);
+        int[] targetColumnKeys = offsets(KeyTranslation.onCommonDimensions(columnIndexer, target), columns);
+        if (isStrided(targetRowKeys, columns) && isStrided(targetColumnKeys, 1)) {
+            return new ImmutableDoubleArrayBackedTensor(target, c, resultingContext);
+        }
+        double[] result = new double[rows * columns];
+        for (int m = 0; m < rows; m++) {
+            for (int n = 0; n < columns; n++) {
+                result[targetRowKeys[m] + targetColumnKeys[n]] = c[m * columns + n];
+            }
+        }
+        return new ImmutableDoubleArrayBackedTensor(target, result, resultingContext);
+    }
+
+    private static int[] offsets(KeyTranslation translation, int count) {
+        int[] offsets = new int[count];
+        for (int i = 0; i < count; i++) {
+            offsets[i] = (int) translation.translate(i);
+        }
+        return offsets;
+    }
+
+    /**
+     * Checks if the given offsets are the multiples of the given stride, i.e. if the indices they belong to are already
+     * laid out contiguously in this order.
+     */
+    private static boolean isStrided(int[] offsets, int stride) {
+        for (int i = 0; i < offsets.length; i++) {
+            if (offsets[i] != i * stride) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Calculates the product of the row-major matrices a (rows x inner) and b (inner x columns) on primitive doubles,
+     * in the same order as {@link #multiplyBlocked(BinaryOperation, BinaryOperation, double, double[], double[], int,
+     * int, int)} does for the standard double operations.
+     */
+    private static double[] multiplyBlocked(double zero, double[] a, double[] b, int rows, int inner, int columns) {
+        double[] c = new double[rows * columns];
+        Arrays.fill(c, zero);
+        for (int rowBlock = 0; rowBlock < rows; rowBlock += ROW_BLOCK) {
+            int rowEnd = Math.min(rowBlock + ROW_BLOCK, rows);
+            for (int innerBlock = 0; innerBlock < inner; innerBlock += INNER_BLOCK) {
+                int innerEnd = Math.min(innerBlock + INNER_BLOCK, inner);
+                for (int columnBlock = 0; columnBlock < columns; columnBlock += COLUMN_BLOCK) {
+                    int columnEnd = Math.min(columnBlock + COLUMN_BLOCK, columns);
+                    for (int m = rowBlock; m < rowEnd; m++) {
+                        int cRow = m * columns;
+                        for (int k = innerBlock; k < innerEnd; k++) {
+                            double aValue = a[m * inner + k];
+                            int bRow = k * columns;
+                            for (int n = columnBlock; n < columnEnd; n++) {
+                                c[cRow + n] += aValue * b[bRow + n];
+                            }
+                        }
+                    }
+                }
+            }
+        }
+        return c;
+    }
+
+    /**
+     * Calculates the product of the row-major matrices a (rows x inner) and b (inner x columns). For each result
+     * value, the inner index is traversed in ascending order, independent of the blocking.
+     */
+    private static double[] multiplyBlocked(BinaryOperation<Double> multiplication, BinaryOperation<Double> addition,
+            double zero, double[] a, double[] b, int rows, int inner, int columns) {
+        double[] c = new double[rows * columns];
+        Arrays.fill(c, zero);
+        for (int rowBlock = 0; rowBlock < rows; rowBlock += ROW_BLOCK) {
+            int rowEnd = Math.min(rowBlock + ROW_BLOCK, rows);
+            for (int innerBlock = 0; innerBlock < inner; innerBlock += INNER_BLOCK) {
+                int innerEnd = Math.min(innerBlock + INNER_BLOCK, inner);
+                for (int columnBlock = 0; columnBlock < columns; columnBlock += COLUMN_BLOCK) {
+                    int columnEnd = Math.min(columnBlock + COLUMN_BLOCK, columns);
+                    for (int m = rowBlock; m < rowEnd; m++) {
+                        int cRow = m * columns;
+                        for (int k = innerBlock; k < innerEnd; k++) {
+                            double aValue = a[m * inner + k];
+                            int bRow = k * columns;
+                            for (int n = columnBlock; n < columnEnd; n++) {
+                                c[cRow + n] = addition.perform(c[cRow + n], multiplication.perform(aValue, b[bRow
+                                        + n]));
+                            }
+                        }
+                    }
+                }
+            }
+        }
+        return c;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static PositionIndexer targetIndexer(PositionIndexer rowIndexer, PositionIndexer columnIndexer) {
+        PositionIndexer.Builder builder = PositionIndexer.builder();
+        for (Class<?> dimension : rowIndexer.dimensions()) {
+            builder.put((Class<Object>) dimension, new LinkedHashSet<>(rowIndexer.coordinatesFor(dimension)));
+        }
+        for (Class<?> dimension : columnIndexer.dimensions()) {
+            builder.put((Class<Object>) dimension, new LinkedHashSet<>(columnIndexer.coordinatesFor(dimension)));
+        }
+        return builder.build();
+    }
+
+}
@@ -0,0 +1,509 @@
+// @formatter:off
+ /*******************************************************************************
+ *
+ * This file is part of tensorics.
+ * 
+ * Copyright (c) 2008-2011, CERN. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ ******************************************************************************/
+// @formatter:on
+
+package org.tensorics.core.tensor.specific;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import org.tensorics.core.tensor.Context;
+import org.tensorics.core.tensor.Coordinates;
+import org.tensorics.core.tensor.ImmutableEntry;
+import org.tensorics.core.tensor.ImmutableTensor;
+import org.tensorics.core.tensor.Position;
+import org.tensorics.core.tensor.Positions;
+import org.tensorics.core.tensor.Shape;
+import org.tensorics.core.tensor.Tensor;
+
+import com.google.common.base.Function;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Iterators;
+import com.google.common.collect.Range;
+import com.google.common.collect.Sets;
+
+/**
+ * An immutable tensor which is optimized for growing along one comparable dimension (e.g. time), as it is typical for
+ * live acquisition: New slices are only appended at the end of the series. The entries are stored in chunks of a fixed
+ * number of slices. Each modifying operation returns a new tensor, which shares all unaffected chunks with the original
+ * one:
+ * <ul>
+ * <li>{@link #append(Comparable, Map)} only copies the last chunk (or starts a new one), so its cost is proportional
+ * to the chunk size and not to the size of the whole tensor.
+ * <li>{@link #window(Range)} shares all chunks which are completely contained in the range and only copies the parts
+ * of the (at most two) chunks at the boundaries of the range.
+ * <li>{@link #evictBefore(Comparable)} drops all chunks which only contain slices before a given coordinate.
+ * </ul>
+ * The shape and the map returned by {@link #asMap()} are views on the chunks, which are not copied. Looking up a value
+ * is done by a binary search for the chunk, followed by a hash lookup within the chunk.
+ * <p>
+ * Like the views returned by filtering, a series tensor (and therefore each window) is equal to immutable tensors with
+ * the same shape, entries and context.
+ * 
+ * @author kfuchsbe
+ * @param <C> the type of the coordinates along which the tensor grows
+ * @param <E> the type of the tensor elements
+ */
+public final class ChunkedSeriesTensor<C extends Comparable<? super C>, E> implements Tensor<E> {
+
+    private static final int TOSTRING_ENTRIES = 10;
+
+    private final Class<C> seriesDimension;
+    private final Set<Class<?>> dimensions;
+    private final int slicesPerChunk;
+    private final ImmutableList<Chunk<C, E>> chunks;
+    private final Context tensorContext;
+    private final int size;
+    private final Shape shape;
+
+    private ChunkedSeriesTensor(Class<C> seriesDimension, Set<Class<?>> dimensions, int slicesPerChunk,
+            ImmutableList<Chunk<C, E>> chunks, Context context) {
+        this.seriesDimension = seriesDimension;
+        this.dimensions = dimensions;
+        this.slicesPerChunk = slicesPerChunk;
+        this.chunks = chunks;
+        this.tensorContext = context;
+        int entryCount = 0;
+        for (Chunk<C, E> chunk : chunks) {
+            entryCount += chunk.entries.size();
+        }
+        this.size = entryCount;
+        this.shape = Shape.viewOf(dimensions, new ChunkedPositionSet());
+    }
+
+    /**
+     * Creates an empty tensor of the given dimensions, which can grow along the given series dimension.
+     * 
+     * @param seriesDimension the dimension along which slices will be appended
+     * @param dimensions all the dimensions of the tensor, including the series dimension
+     * @param slicesPerChunk the number of slices (coordinates of the series dimension) which are stored in one chunk
+     * @return a new empty tensor
+     * @throws IllegalArgumentException if the dimensions do not contain the series dimension or the number of slices
+     *             per chunk is not positive
+     */
+    public static <C extends Comparable<? super C>, E> ChunkedSeriesTensor<C, E> empty(Class<C> seriesDimension,
+            Set<? extends Class<?>> dimensions, int slicesPerChunk) {
+        checkNotNull(seriesDimension, "seriesDimension must not be null");
+        checkNotNull(dimensions, "dimensions must not be null");
+        checkArgument(dimensions.contains(seriesDimension), "The dimensions %s do not contain the series dimension '%s'.",
+                dimensions, seriesDimension);
+        checkArgument(slicesPerChunk > 0, "slicesPerChunk must be positive, but was %s", slicesPerChunk);
+        return new ChunkedSeriesTensor<>(seriesDimension, ImmutableSet.<Class<?>> copyOf(dimensions), slicesPerChunk,
+                ImmutableList.<Chunk<C, E>> of(), Context.empty());
+    }
+
+    /**
+     * Creates a new tensor with the same content as this one, but with the given context.
+     * 
+     * @param context the context of the new tensor
+     * @return a new tensor sharing all the chunks with this one
+     */
+    public ChunkedSeriesTensor<C, E> withContext(Context context) {
+        checkNotNull(context, "context must not be null");
+        return new ChunkedSeriesTensor<>(seriesDimension, dimensions, slicesPerChunk, chunks, context);
+    }
+
+    /**
+     * Appends one slice to the end of the series. The positions of the given values must contain all the dimensions of
+     * this tensor, except the series dimension. The resulting positions are the given ones, extended by the given
+     * coordinate.
+     * 
+     * @param coordinate the coordinate in the series dimension at which to append the slice
+     * @param slice the values of the slice
+     * @return a new tensor which shares all but the last chunk with this one
+     * @throws IllegalArgumentException if the coordinate is not greater than the last coordinate of the series, or if
+     *             the dimensions of a position do not match
+     */
+    public ChunkedSeriesTensor<C, E> append(C coordinate, Map<Position, ? extends E> slice) {
+        checkNotNull(coordinate, "coordinate must not be null");
+        checkNotNull(slice, "slice must not be null");
+        if (!chunks.isEmpty()) {
+            C last = lastCoordinate();
+            checkArgument(coordinate.compareTo(last) > 0, "Slices can only be appended at the end of the series: "
+                    + "The coordinate '%s' is not greater than the last one ('%s').", coordinate, last);
+        }
+
+        Set<Class<?>> sliceDimensions = Sets.difference(dimensions, ImmutableSet.of(seriesDimension));
+        Position coordinatePosition = Position.of(coordinate);
+        ImmutableMap.Builder<Position, E> sliceEntries = ImmutableMap.builder();
+        for (Map.Entry<Position, ? extends E> entry : slice.entrySet()) {
+            Position position = entry.getKey();
+            checkArgument(sliceDimensions.equals(position.dimensionSet()),
+                    "The dimensions of position '%s' do not match the dimensions of a slice (%s).", position,
+                    sliceDimensions);
+            sliceEntries.put(Positions.union(position, coordinatePosition), entry.getValue());
+        }
+
+        ImmutableList.Builder<Chunk<C, E>> newChunks = ImmutableList.builder();
+        if (chunks.isEmpty() || lastChunk().coordinates.size() >= slicesPerChunk) {
+            newChunks.addAll(chunks);
+            newChunks.add(new Chunk<C, E>(ImmutableList.of(coordinate), sliceEntries.build()));
+        } else {
+            newChunks.addAll(chunks.subList(0, chunks.size() - 1));
+            newChunks.add(lastChunk().with(coordinate, sliceEntries.build()));
+        }
+        return new ChunkedSeriesTensor<>(seriesDimension, dimensions, slicesPerChunk, newChunks.build(), tensorContext);
+    }
+
+    /**
+     * Convenience method for {@link #append(Comparable, Map)}, which takes the values of the slice from the given
+     * tensor. The context of the slice is ignored.
+     * 
+     * @param coordinate the coordinate in the series dimension at which to append the slice
+     * @param slice the tensor which contains the values of the slice
+     * @return a new tensor which shares all but the last chunk with this one
+     */
+    public ChunkedSeriesTensor<C, E> append(C coordinate, Tensor<? extends E> slice) {
+        checkNotNull(slice, "slice must not be null");
+        return append(coordinate, slice.asMap());
+    }
+
+    /**
+     * Returns a tensor which contains only the slices whose coordinates are contained in the given range. All the chunks
+     * which are completely within the range are shared with this tensor.
+     * 
+     * @param range the range of the coordinates of the series dimension to retain
+     * @return a new tensor containing only the slices within the range
+     */
+    public ChunkedSeriesTensor<C, E> window(Range<C> range) {
+        checkNotNull(range, "range must not be null");
+        ImmutableList.Builder<Chunk<C, E>> newChunks = ImmutableList.builder();
+        int startIndex = range.hasLowerBound() ? chunkIndexFor(range.lowerEndpoint()) : 0;
+        for (int i = startIndex; i < chunks.size(); i++) {
+            Chunk<C, E> chunk = chunks.get(i);
+            if (range.hasUpperBound() && range.upperEndpoint().compareTo(chunk.first()) < 0) {
+                break;
+            }
+            if (range.contains(chunk.first()) && range.contains(chunk.last())) {
+                newChunks.add(chunk);
+            } else {
+                Chunk<C, E> restricted = chunk.restrictedTo(range, seriesDimension);
+                if (restricted != null) {
+                    newChunks.add(restricted);
+                }
+            }
+        }
+        return new ChunkedSeriesTensor<>(seriesDimension, dimensions, slicesPerChunk, newChunks.build(), tensorContext);
+    }
+
+    /**
+     * Drops all the chunks, which only contain slices with coordinates lower than the given one. Slices before the given
+     * coordinate may still be contained in the resulting tensor, if they are stored in the same chunk as a slice at or
+     * after the given coordinate. Use {@link #window(Range)} to cut the series exactly.
+     * 
+     * @param coordinate the coordinate before which chunks shall be evicted
+     * @return a new tensor sharing all the retained chunks with this one
+     */
+    public ChunkedSeriesTensor<C, E> evictBefore(C coordinate) {
+        checkNotNull(coordinate, "coordinate must not be null");
+        int firstRetained = chunkIndexFor(coordinate);
+        if (firstRetained == 0) {
+            return this;
+        }
+        return new ChunkedSeriesTensor<>(seriesDimension, dimensions, slicesPerChunk,
+                chunks.subList(firstRetained, chunks.size()), tensorContext);
+    }
+
+    /**
+     * @return the dimension along which this tensor grows
+     */
+    public Class<C> seriesDimension() {
+        return seriesDimension;
+    }
+
+    /**
+     * @return all the coordinates of the series dimension, in ascending order
+     */
+    public List<C> seriesCoordinates() {
+        return ImmutableList.copyOf(Iterables.concat(Iterables.transform(chunks,
+                new Function<Chunk<C, E>, List<C>>() {
+                    @Override
+                    public List<C> apply(Chunk<C, E> chunk) {
+                        return chunk.coordinates;
+                    }
+                })));
+    }
+
+    /**
+     * @return the last (highest) coordinate of the series dimension
+     * @throws NoSuchElementException if the tensor is empty
+     */
+    public C lastCoordinate() {
+        if (chunks.isEmpty()) {
+            throw new NoSuchElementException("The tensor does not contain any slice yet.");
+        }
+        return lastChunk().last();
+    }
+
+    /**
+     * @return the number of chunks in which the entries of this tensor are stored
+     */
+    public int chunkCount() {
+        return chunks.size();
+    }
+
+    @Override
+    public E get(Position position) {
+        E value = findOrNull(position);
+        if (value == null) {
+            String message = "Entry for position '" + position + "' is not contained in this tensor.";
+            if (dimensions.equals(position.dimensionSet())) {
+                throw new NoSuchElementException(message);
+            }
+            throw new IllegalArgumentException(message + "\nThe dimensions of the tensor (" + dimensions
+                    + ") do not match the dimensions of the requested position (" + position.dimensionSet() + ").");
+        }
+        return value;
+    }
+
+    @Override
+    public E get(Object... coordinates) {
+        return get(Position.of(coordinates));
+    }
+
+    private E findOrNull(Position position) {
+        C coordinate = position.coordinateFor(seriesDimension);
+        if (coordinate == null) {
+            return null;
+        }
+        int index = chunkIndexFor(coordinate);
+        if (index >= chunks.size()) {
+            return null;
+        }
+        return chunks.get(index).entries.get(position);
+    }
+
+    /**
+     * @return the index of the first chunk whose last coordinate is not lower than the given coordinate, or the number
+     *         of chunks if there is no such chunk
+     */
+    private int chunkIndexFor(C coordinate) {
+        int low = 0;
+        int high = chunks.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (chunks.get(mid).last().compareTo(coordinate) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private Chunk<C, E> lastChunk() {
+        return chunks.get(chunks.size() - 1);
+    }
+
+    @Override
+    @Deprecated
+    public Iterable<Tensor.Entry<E>> entrySet() {
+        return Iterables.transform(asMap().entrySet(), new Function<Map.Entry<Position, E>, Tensor.Entry<E>>() {
+            @Override
+            public Tensor.Entry<E> apply(Map.Entry<Position, E> entry) {
+                return new ImmutableEntry<>(entry.getKey(), entry.getValue());
+            }
+        });
+    }
+
+    /**
+     * Returns an unmodifiable view on the content of the tensor, which iterates over the chunks in the order of the
+     * series dimension.
+     */
+    @Override
+    public Map<Position, E> asMap() {
+        return new ChunkedMap();
+    }
+
+    @Override
+    public Shape shape() {
+        return this.shape;
+    }
+
+    @Override
+    public Context context() {
+        return this.tensorContext;
+    }
+
+    @Override
+    public int hashCode() {
+        return ImmutableTensor.contentHashCode(this);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        return ImmutableTensor.contentEquals(this, obj);
+    }
+
+    @Override
+    public String toString() {
+        return Coordinates.dimensionsWithoutClassPath(this) + ", Content:"
+                + Iterators.toString(Iterators.limit(asMap().entrySet().iterator(), TOSTRING_ENTRIES));
+    }
+
+    private Iterator<Map.Entry<Position, E>> entryIterator() {
+        return Iterators.concat(Iterators.transform(chunks.iterator(),
+                new Function<Chunk<C, E>, Iterator<Map.Entry<Position, E>>>() {
+                    @Override
+                    public Iterator<Map.Entry<Position, E>> apply(Chunk<C, E> chunk) {
+                        return chunk.entries.entrySet().iterator();
+                    }
+                }));
+    }
+
+    /**
+     * A set view on the positions of all the chunks.
+     * 
+     * @author kfuchsbe
+     */
+    private final class ChunkedPositionSet extends AbstractSet<Position> {
+
+        @Override
+        public Iterator<Position> iterator() {
+            return Iterators.transform(entryIterator(), new Function<Map.Entry<Position, E>, Position>() {
+                @Override
+                public Position apply(Map.Entry<Position, E> entry) {
+                    return entry.getKey();
+                }
+            });
+        }
+
+        @Override
+        public boolean contains(Object object) {
+            return (object instanceof Position) && (findOrNull((Position) object) != null);
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+
+    /**
+     * A map view on the entries of all the chunks.
+     * 
+     * @author kfuchsbe
+     */
+    private final class ChunkedMap extends AbstractMap<Position, E> {
+
+        @Override
+        public Set<Map.Entry<Position, E>> entrySet() {
+            return new AbstractSet<Map.Entry<Position, E>>() {
+                @Override
+                public Iterator<Map.Entry<Position, E>> iterator() {
+                    return Iterators.unmodifiableIterator(entryIterator());
+                }
+
+                @Override
+                public int size() {
+                    return size;
+                }
+            };
+        }
+
+        @Override
+        public Set<Position> keySet() {
+            return shape.positionSet();
+        }
+
+        @Override
+        public E get(Object key) {
+            return (key instanceof Position) ? findOrNull((Position) key) : null;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return get(key) != null;
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+
+    /**
+     * An immutable block of consecutive slices. The coordinates are in ascending order.
+     * 
+     * @author kfuchsbe
+     * @param <C> the type of the coordinates of the series dimension
+     * @param <E> the type of the tensor elements
+     */
+    private static final class Chunk<C extends Comparable<? super C>, E> {
+
+        private final ImmutableList<C> coordinates;
+        private final ImmutableMap<Position, E> entries;
+
+        Chunk(ImmutableList<C> coordinates, ImmutableMap<Position, E> entries) {
+            this.coordinates = coordinates;
+            this.entries = entries;
+        }
+
+        C first() {
+            return coordinates.get(0);
+        }
+
+        C last() {
+            return coordinates.get(coordinates.size() - 1);
+        }
+
+        Chunk<C, E> with(C coordinate, ImmutableMap<Position, E> sliceEntries) {
+            ImmutableList<C> newCoordinates = ImmutableList.<C> builder().addAll(coordinates).add(coordinate).build();
+            ImmutableMap<Position, E> newEntries = ImmutableMap.<Position, E> builder().putAll(entries)
+                    .putAll(sliceEntries).build();
+            return new Chunk<>(newCoordinates, newEntries);
+        }
+
+        /**
+         * @return a new chunk containing only the slices within the range, or {@code null} if none is left
+         */
+        Chunk<C, E> restrictedTo(Range<C> range, Class<C> seriesDimension) {
+            ImmutableList.Builder<C> newCoordinates = ImmutableList.builder();
+            for (C coordinate : coordinates) {
+                if (range.contains(coordinate)) {
+                    newCoordinates.add(coordinate);
+                }
+            }
+            ImmutableList<C> retained = newCoordinates.build();
+            if (retained.isEmpty()) {
+                return null;
+            }
+            ImmutableMap.Builder<Position, E> newEntries = ImmutableMap.builder();
+            for (Map.Entry<Position, E> entry : entries.entrySet()) {
+                if (range.contains(entry.getKey().coordinateFor(seriesDimension))) {
+                    newEntries.put(entry);
+                }
+            }
+            return new Chunk<>(retained, newEntries.build());
+        }
+    }
+}
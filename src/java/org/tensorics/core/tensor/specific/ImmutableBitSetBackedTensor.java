@@ -0,0 +1,134 @@
+// @formatter:off
+ /*******************************************************************************
+ *
+ * This file is part of tensorics.
+ * 
+ * Copyright (c) 2008-2011, CERN. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ ******************************************************************************/
+// @formatter:on
+package org.tensorics.core.tensor.specific;
+
+import java.util.BitSet;
+
+import org.tensorics.core.tensor.Context;
+import org.tensorics.core.tensor.Position;
+
+/**
+ * A specific implementation of a tensor, that contains boolean values. The values are packed into a {@link BitSet}
+ * (one bit per value), which makes this tensor especially suited for masks and validity flags. Iterating over the
+ * {@code true} values (see {@link #nextTrueIndex(int)}) is done word-wise and therefore very fast, if only few values
+ * are set.
+ * 
+ * @author kfuchsbe
+ */
+public class ImmutableBitSetBackedTensor extends AbstractArrayBackedTensor<Boolean> {
+
+    private final BitSet bits;
+
+    public ImmutableBitSetBackedTensor(Builder builder) {
+        this(builder.indexer(), (BitSet) builder.bits.clone(), builder.getContext());
+    }
+
+    /**
+     * Directly uses the given bit set as storage, without copying it. Therefore, the caller has to ensure, that the bit
+     * set is not modified afterwards.
+     */
+    ImmutableBitSetBackedTensor(PositionIndexer indexer, BitSet bits, Context context) {
+        super(indexer, context);
+        this.bits = bits;
+    }
+
+    @Override
+    protected Boolean elementAt(int index) {
+        return bits.get(index);
+    }
+
+    /**
+     * Retrieves the index of the next {@code true} value, starting from the given index (inclusive).
+     * 
+     * @param fromIndex the index from which to start searching
+     * @return the index of the next {@code true} value or {@code -1} if there is none
+     */
+    int nextTrueIndex(int fromIndex) {
+        return bits.nextSetBit(fromIndex);
+    }
+
+    /**
+     * @return the number of {@code true} values in this tensor
+     */
+    public int trueCount() {
+        return bits.cardinality();
+    }
+
+    @Override
+    public int hashCode() {
+        final int prime = 31;
+        int result = 1;
+        result = prime * result + indexer().hashCode();
+        result = prime * result + context().hashCode();
+        result = prime * result + bits.hashCode();
+        return result;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj == null) {
+            return false;
+        }
+        if (getClass() != obj.getClass()) {
+            return false;
+        }
+        ImmutableBitSetBackedTensor other = (ImmutableBitSetBackedTensor) obj;
+        return indexer().equals(other.indexer()) && context().equals(other.context()) && bits.equals(other.bits);
+    }
+
+    public static Builder builder(PositionIndexer indexer) {
+        return new Builder(indexer);
+    }
+
+    /**
+     * A builder for tensor which only will contain boolean values. All values, which are not explicitly put, are
+     * {@code false}.
+     * 
+     * @author kfuchsbe
+     */
+    public static class Builder extends AbstractArrayBackedTensorBuilder<Boolean> {
+
+        private final BitSet bits;
+
+        Builder(PositionIndexer indexer) {
+            super(indexer);
+            this.bits = new BitSet(indexer.arraySize());
+        }
+
+        @Override
+        protected void putAtIndex(Boolean value, int index) {
+            this.bits.set(index, value);
+        }
+
+        public void putUncheckedAt(boolean value, Position position) {
+            this.bits.set(indexer().indexFor(position), value);
+        }
+
+        @Override
+        public ImmutableBitSetBackedTensor build() {
+            return new ImmutableBitSetBackedTensor(this);
+        }
+    }
+}
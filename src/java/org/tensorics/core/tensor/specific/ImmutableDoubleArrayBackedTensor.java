@@ -22,18 +22,9 @@
 package org.tensorics.core.tensor.specific;
 
 import java.util.Arrays;
-import java.util.Map;
-import java.util.Set;
 
-import org.tensorics.core.tensor.AbstractTensorBuilder;
 import org.tensorics.core.tensor.Context;
-import org.tensorics.core.tensor.ImmutableEntry;
 import org.tensorics.core.tensor.Position;
-import org.tensorics.core.tensor.Shape;
-import org.tensorics.core.tensor.Tensor;
-
-import com.google.common.collect.ImmutableMap;
-import com.google.common.collect.ImmutableSet;
 
 /**
  * A specific implementation of a tensor, that contains double values. It is backed by a simple double array to minimize
@@ -41,55 +32,68 @@ import com.google.common.collect.ImmutableSet;
  * 
  * @author kaifox
  */
-public class ImmutableDoubleArrayBackedTensor implements Tensor<Double> {
+public class ImmutableDoubleArrayBackedTensor extends AbstractArrayBackedTensor<Double> {
 
-    private final PositionIndexer indexer;
     private final double[] values;
-    private final Context tensorContext;
 
     public ImmutableDoubleArrayBackedTensor(Builder builder) {
-        this.indexer = builder.indexer;
-        this.values = Arrays.copyOf(builder.values, builder.values.length);
-        this.tensorContext = builder.getContext();
+        this(builder.indexer(), Arrays.copyOf(builder.values, builder.values.length), builder.getContext());
     }
 
-    @Override
-    public Double get(Position position) {
-        return values[indexer.indexFor(position)];
+    /**
+     * Directly uses the given array as storage, without copying it. Therefore, the caller has to ensure, that the array
+     * is not modified afterwards.
+     */
+    ImmutableDoubleArrayBackedTensor(PositionIndexer indexer, double[] values, Context context) {
+        super(indexer, context);
+        this.values = values;
     }
 
     @Override
-    public Double get(Object... coordinates) {
-        return get(Position.of(coordinates));
+    protected Double elementAt(int index) {
+        return values[index];
     }
 
-    @Override
-    @Deprecated
-    public Set<Tensor.Entry<Double>> entrySet() {
-        ImmutableSet.Builder<Tensor.Entry<Double>> builder = ImmutableSet.builder();
-        for (Position position : indexer.allPositions()) {
-            builder.add(new ImmutableEntry<Double>(position, get(position)));
-        }
-        return builder.build();
+    /**
+     * Retrieves the value at the given array index. This allows fast element wise operations on tensors which share the
+     * same indexer.
+     */
+    double valueAt(int index) {
+        return values[index];
     }
 
-    @Override
-    public Map<Position, Double> asMap() {
-        ImmutableMap.Builder<Position, Double> builder = ImmutableMap.builder();
-        for (Position position : indexer.allPositions()) {
-            builder.put(position, get(position));
-        }
-        return builder.build();
+    /**
+     * Gives direct access to the storage array, so that it can be read without copying it. The returned array must not
+     * be modified.
+     */
+    double[] values() {
+        return values;
     }
 
     @Override
-    public Shape shape() {
-        return Shape.viewOf(indexer.dimensions(), indexer.allPositions());
+    public int hashCode() {
+        final int prime = 31;
+        int result = 1;
+        result = prime * result + indexer().hashCode();
+        result = prime * result + context().hashCode();
+        result = prime * result + Arrays.hashCode(values);
+        return result;
     }
 
     @Override
-    public Context context() {
-        return this.tensorContext;
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj == null) {
+            return false;
+        }
+        if (getClass() != obj.getClass()) {
+            return false;
+        }
+        ImmutableDoubleArrayBackedTensor other = (ImmutableDoubleArrayBackedTensor) obj;
+        return indexer().equals(other.indexer()) && context().equals(other.context())
+                && Arrays.equals(values, other.values);
     }
 
     public static Builder builder(PositionIndexer indexer) {
@@ -101,51 +105,27 @@ public class ImmutableDoubleArrayBackedTensor implements Tensor<Double> {
      * 
      * @author kfuchsbe
      */
-    public static class Builder extends AbstractTensorBuilder<Double> {
+    public static class Builder extends AbstractArrayBackedTensorBuilder<Double> {
 
-        private final PositionIndexer indexer;
         private final double[] values;
 
         Builder(PositionIndexer indexer) {
-            super(indexer.dimensions());
-            this.indexer = indexer;
+            super(indexer);
             this.values = new double[indexer.arraySize()];
         }
 
         @Override
-        protected void putItAt(Double value, Position position) {
-            this.values[indexer.indexFor(position)] = value;
+        protected void putAtIndex(Double value, int index) {
+            this.values[index] = value;
         }
 
         public void putUncheckedAt(double value, Position position) {
-            this.values[indexer.indexFor(position)] = value;
+            this.values[indexer().indexFor(position)] = value;
         }
 
         @Override
         public ImmutableDoubleArrayBackedTensor build() {
             return new ImmutableDoubleArrayBackedTensor(this);
         }
-
-        @Override
-        public void putAllMap(Map<Position, Double> newEntries) {
-            for (java.util.Map.Entry<Position, Double> one : newEntries.entrySet()) {
-                putItAt(one.getValue(), one.getKey());
-            }
-        }
-
-        @Override
-        public void removeAt(Position position) {
-            throw new UnsupportedOperationException("Cannot remove a value");
-        }
-
-        @Override
-        public void put(java.util.Map.Entry<Position, Double> entry) {
-            putAt(entry.getValue(), entry.getKey());
-        }
-
-        @Override
-        public void putAll(Tensor<Double> tensor) {
-            putAllAt(tensor);
-        }
     }
 }
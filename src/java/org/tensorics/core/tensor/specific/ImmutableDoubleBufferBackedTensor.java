@@ -0,0 +1,292 @@
+// @formatter:off
+ /*******************************************************************************
+ *
+ * This file is part of tensorics.
+ * 
+ * Copyright (c) 2008-2011, CERN. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ ******************************************************************************/
+// @formatter:on
+package org.tensorics.core.tensor.specific;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import org.tensorics.core.tensor.Context;
+import org.tensorics.core.tensor.Position;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * A specific implementation of a tensor, that contains double values, which are stored outside of the java heap. The
+ * values are stored in {@link DoubleBuffer}s, which are either backed by a memory mapped file or by direct (off-heap)
+ * memory. The mapping from positions to buffer offsets is done by a {@link PositionIndexer}, exactly as for the array
+ * backed tensors.
+ * <p>
+ * For memory mapped files, opening a tensor (see {@link #openMapped(Path, PositionIndexer)}) does not read any values:
+ * The operating system pages them in on first access. Since the mapping is read-only, the same file can be shared
+ * between several processes. The file starts with a header, which describes the layout of the indexer (the dimensions
+ * in their order and the coordinates of each dimension), followed by the values as little endian doubles in the order
+ * of the indexer. When opening a file, the layout of the given indexer is checked against the header, so that a file
+ * is never read with a different layout than it was written with. Since the layout contains the coordinates as
+ * strings, the coordinates must have a {@link Object#toString()} method which gives the same result in all JVMs.
+ * <p>
+ * A single buffer can only address {@link Integer#MAX_VALUE} bytes. Therefore the values are split into segments of
+ * {@value #SEGMENT_SIZE} values, each one stored in its own buffer.
+ * 
+ * @author kfuchsbe
+ */
+public class ImmutableDoubleBufferBackedTensor extends AbstractArrayBackedTensor<Double> {
+
+    /** The number of values per buffer segment (1 GiB) */
+    private static final int SEGMENT_SIZE = 1 << 27;
+    private static final int SEGMENT_SHIFT = 27;
+    private static final int SEGMENT_MASK = SEGMENT_SIZE - 1;
+    private static final ByteOrder BYTE_ORDER = ByteOrder.LITTLE_ENDIAN;
+
+    /** Identifies files written by this class ('TNSRDBL1') */
+    private static final long MAGIC = 0x544E535244424C31L;
+    /** The magic number and the length of the layout */
+    private static final int HEADER_PREFIX_SIZE = Long.BYTES + Integer.BYTES;
+
+    private final DoubleBuffer[] segments;
+
+    /**
+     * Directly uses the given buffers as storage. The caller has to ensure, that the buffers are not modified
+     * afterwards.
+     */
+    ImmutableDoubleBufferBackedTensor(PositionIndexer indexer, DoubleBuffer[] segments, Context context) {
+        super(indexer, context);
+        this.segments = segments;
+    }
+
+    /**
+     * Opens a tensor from the given file (as previously written by a builder created by
+     * {@link #mappedBuilder(Path, PositionIndexer)}). The file is mapped read-only into memory, no values are read by
+     * this call.
+     * 
+     * @param file the file containing the values
+     * @param indexer the indexer which was used to write the file
+     * @return a new tensor, backed by the mapped file
+     * @throws IOException if the file cannot be opened or mapped
+     * @throws IllegalArgumentException if the file was not written with the same layout as the one of the given
+     *             indexer or if the size of the file does not correspond to the size of the indexer
+     */
+    public static ImmutableDoubleBufferBackedTensor openMapped(Path file, PositionIndexer indexer) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            String expectedLayout = layoutOf(indexer);
+            String fileLayout = readLayout(channel, file);
+            Preconditions.checkArgument(expectedLayout.equals(fileLayout), "The file '" + file
+                    + "' was written with the layout '" + fileLayout + "', which does not match the layout '"
+                    + expectedLayout + "' of the given indexer.");
+
+            long headerSize = headerSize(expectedLayout);
+            long expectedBytes = headerSize + byteSize(indexer.arraySize());
+            Preconditions.checkArgument(channel.size() == expectedBytes, "The size of the file '" + file + "' ("
+                    + channel.size() + " bytes) does not match the size required by the indexer (" + expectedBytes
+                    + " bytes).");
+            return new ImmutableDoubleBufferBackedTensor(indexer, readOnly(map(channel, MapMode.READ_ONLY,
+                    headerSize, indexer.arraySize())), Context.empty());
+        }
+    }
+
+    /**
+     * Creates a builder which writes the values directly into the given file. The file is created if it does not exist
+     * and truncated otherwise. Values which are not explicitely put will be zero.
+     * 
+     * @param file the file into which to write the values
+     * @param indexer the indexer to use for the tensor
+     * @return a new builder
+     * @throws IOException if the file cannot be created or mapped
+     */
+    public static Builder mappedBuilder(Path file, PositionIndexer indexer) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            long headerSize = writeHeader(channel, layoutOf(indexer));
+            MappedByteBuffer[] mappedSegments = map(channel, MapMode.READ_WRITE, headerSize, indexer.arraySize());
+            return new Builder(indexer, mappedSegments);
+        }
+    }
+
+    /**
+     * Creates a builder which writes the values into direct (off-heap) memory, which is not subject to garbage
+     * collection.
+     * 
+     * @param indexer the indexer to use for the tensor
+     * @return a new builder
+     */
+    public static Builder directBuilder(PositionIndexer indexer) {
+        int size = indexer.arraySize();
+        ByteBuffer[] byteSegments = new ByteBuffer[segmentCount(size)];
+        for (int i = 0; i < byteSegments.length; i++) {
+            byteSegments[i] = ByteBuffer.allocateDirect((int) byteSize(segmentLength(size, i)));
+        }
+        return new Builder(indexer, byteSegments);
+    }
+
+    private static MappedByteBuffer[] map(FileChannel channel, MapMode mode, long offset, int size)
+            throws IOException {
+        MappedByteBuffer[] mapped = new MappedByteBuffer[segmentCount(size)];
+        for (int i = 0; i < mapped.length; i++) {
+            long segmentOffset = offset + byteSize((long) i * SEGMENT_SIZE);
+            mapped[i] = channel.map(mode, segmentOffset, byteSize(segmentLength(size, i)));
+        }
+        return mapped;
+    }
+
+    /**
+     * Describes the layout of the values for the given indexer: The dimensions in the order of the indexer, each one
+     * with its coordinates in the order of their indizes.
+     */
+    private static String layoutOf(PositionIndexer indexer) {
+        StringBuilder layout = new StringBuilder();
+        for (Class<?> dimension : indexer.dimensions()) {
+            layout.append(dimension.getName()).append(indexer.coordinatesFor(dimension)).append(';');
+        }
+        return layout.toString();
+    }
+
+    /**
+     * The size of the header, padded to full doubles, so that the values are aligned within the file.
+     */
+    private static long headerSize(String layout) {
+        long size = HEADER_PREFIX_SIZE + layout.getBytes(StandardCharsets.UTF_8).length;
+        return ((size + Double.BYTES - 1) / Double.BYTES) * Double.BYTES;
+    }
+
+    private static long writeHeader(FileChannel channel, String layout) throws IOException {
+        byte[] layoutBytes = layout.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer header = ByteBuffer.allocate((int) headerSize(layout)).order(BYTE_ORDER);
+        header.putLong(MAGIC).putInt(layoutBytes.length).put(layoutBytes);
+        header.rewind();
+        while (header.hasRemaining()) {
+            channel.write(header);
+        }
+        return header.capacity();
+    }
+
+    private static String readLayout(FileChannel channel, Path file) throws IOException {
+        ByteBuffer prefix = read(channel, 0, HEADER_PREFIX_SIZE, file);
+        Preconditions.checkArgument(prefix.getLong() == MAGIC, "The file '" + file
+                + "' was not written by a buffer backed tensor.");
+        int layoutLength = prefix.getInt();
+        Preconditions.checkArgument((layoutLength >= 0) && (layoutLength <= channel.size() - HEADER_PREFIX_SIZE),
+                "The header of the file '" + file + "' is corrupt.");
+        return new String(read(channel, HEADER_PREFIX_SIZE, layoutLength, file).array(), StandardCharsets.UTF_8);
+    }
+
+    private static ByteBuffer read(FileChannel channel, long position, int length, Path file) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length).order(BYTE_ORDER);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IllegalArgumentException("The file '" + file + "' is too short to contain a header.");
+            }
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    private static DoubleBuffer[] readOnly(ByteBuffer[] byteSegments) {
+        DoubleBuffer[] doubleSegments = new DoubleBuffer[byteSegments.length];
+        for (int i = 0; i < byteSegments.length; i++) {
+            doubleSegments[i] = byteSegments[i].duplicate().order(BYTE_ORDER).asDoubleBuffer().asReadOnlyBuffer();
+        }
+        return doubleSegments;
+    }
+
+    private static int segmentCount(int size) {
+        return (size + SEGMENT_SIZE - 1) >>> SEGMENT_SHIFT;
+    }
+
+    private static int segmentLength(int size, int segment) {
+        return Math.min(SEGMENT_SIZE, size - segment * SEGMENT_SIZE);
+    }
+
+    private static long byteSize(long numberOfValues) {
+        return numberOfValues * Double.BYTES;
+    }
+
+    @Override
+    protected Double elementAt(int index) {
+        return valueAt(index);
+    }
+
+    /**
+     * Retrieves the value at the given index, without boxing it.
+     */
+    double valueAt(int index) {
+        return segments[index >>> SEGMENT_SHIFT].get(index & SEGMENT_MASK);
+    }
+
+    /**
+     * A builder for buffer backed tensors. The values are written directly into the buffers. As soon as the tensor is
+     * built, no further values can be put.
+     * 
+     * @author kfuchsbe
+     */
+    public static class Builder extends AbstractArrayBackedTensorBuilder<Double> {
+
+        private final ByteBuffer[] byteSegments;
+        private final DoubleBuffer[] segments;
+        private boolean built = false;
+
+        Builder(PositionIndexer indexer, ByteBuffer[] byteSegments) {
+            super(indexer);
+            this.byteSegments = byteSegments;
+            this.segments = new DoubleBuffer[byteSegments.length];
+            for (int i = 0; i < byteSegments.length; i++) {
+                this.segments[i] = byteSegments[i].order(BYTE_ORDER).asDoubleBuffer();
+            }
+        }
+
+        @Override
+        protected void putAtIndex(Double value, int index) {
+            write(value.doubleValue(), index);
+        }
+
+        private void write(double value, int index) {
+            Preconditions.checkState(!built, "The tensor was already built. No further values can be put.");
+            segments[index >>> SEGMENT_SHIFT].put(index & SEGMENT_MASK, value);
+        }
+
+        public void putUncheckedAt(double value, Position position) {
+            write(value, indexer().indexFor(position));
+        }
+
+        /**
+         * Builds the tensor. For memory mapped files, all the values are written to the file before the tensor is
+         * returned.
+         */
+        @Override
+        public ImmutableDoubleBufferBackedTensor build() {
+            built = true;
+            for (ByteBuffer segment : byteSegments) {
+                if (segment instanceof MappedByteBuffer) {
+                    ((MappedByteBuffer) segment).force();
+                }
+            }
+            return new ImmutableDoubleBufferBackedTensor(indexer(), readOnly(byteSegments), getContext());
+        }
+    }
+
+}
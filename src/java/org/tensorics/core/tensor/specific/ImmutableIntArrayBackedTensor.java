@@ -0,0 +1,123 @@
+// @formatter:off
+ /*******************************************************************************
+ *
+ * This file is part of tensorics.
+ * 
+ * Copyright (c) 2008-2011, CERN. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ ******************************************************************************/
+// @formatter:on
+package org.tensorics.core.tensor.specific;
+
+import java.util.Arrays;
+
+import org.tensorics.core.tensor.Context;
+import org.tensorics.core.tensor.Position;
+
+/**
+ * A specific implementation of a tensor, that contains int values. It is backed by a simple int array to minimize
+ * memory usage and improve performance.
+ * 
+ * @author kfuchsbe
+ */
+public class ImmutableIntArrayBackedTensor extends AbstractArrayBackedTensor<Integer> {
+
+    private final int[] values;
+
+    public ImmutableIntArrayBackedTensor(Builder builder) {
+        this(builder.indexer(), Arrays.copyOf(builder.values, builder.values.length), builder.getContext());
+    }
+
+    /**
+     * Directly uses the given array as storage, without copying it. Therefore, the caller has to ensure, that the array
+     * is not modified afterwards.
+     */
+    ImmutableIntArrayBackedTensor(PositionIndexer indexer, int[] values, Context context) {
+        super(indexer, context);
+        this.values = values;
+    }
+
+    @Override
+    protected Integer elementAt(int index) {
+        return values[index];
+    }
+
+    /**
+     * Retrieves the value at the given array index. This allows fast element wise operations on tensors which share the
+     * same indexer.
+     */
+    int valueAt(int index) {
+        return values[index];
+    }
+
+    @Override
+    public int hashCode() {
+        final int prime = 31;
+        int result = 1;
+        result = prime * result + indexer().hashCode();
+        result = prime * result + context().hashCode();
+        result = prime * result + Arrays.hashCode(values);
+        return result;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj == null) {
+            return false;
+        }
+        if (getClass() != obj.getClass()) {
+            return false;
+        }
+        ImmutableIntArrayBackedTensor other = (ImmutableIntArrayBackedTensor) obj;
+        return indexer().equals(other.indexer()) && context().equals(other.context())
+                && Arrays.equals(values, other.values);
+    }
+
+    public static Builder builder(PositionIndexer indexer) {
+        return new Builder(indexer);
+    }
+
+    /**
+     * A builder for tensor which only will contain int values
+     * 
+     * @author kfuchsbe
+     */
+    public static class Builder extends AbstractArrayBackedTensorBuilder<Integer> {
+
+        private final int[] values;
+
+        Builder(PositionIndexer indexer) {
+            super(indexer);
+            this.values = new int[indexer.arraySize()];
+        }
+
+        @Override
+        protected void putAtIndex(Integer value, int index) {
+            this.values[index] = value;
+        }
+
+        public void putUncheckedAt(int value, Position position) {
+            this.values[indexer().indexFor(position)] = value;
+        }
+
+        @Override
+        public ImmutableIntArrayBackedTensor build() {
+            return new ImmutableIntArrayBackedTensor(this);
+        }
+    }
+}
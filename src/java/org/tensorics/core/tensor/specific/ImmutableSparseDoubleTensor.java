@@ -0,0 +1,382 @@
+// @formatter:off
+ /*******************************************************************************
+ *
+ * This file is part of tensorics.
+ * 
+ * Copyright (c) 2008-2011, CERN. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ ******************************************************************************/
+// @formatter:on
+package org.tensorics.core.tensor.specific;
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import org.tensorics.core.tensor.AbstractTensorBuilder;
+import org.tensorics.core.tensor.Context;
+import org.tensorics.core.tensor.Coordinates;
+import org.tensorics.core.tensor.ImmutableEntry;
+import org.tensorics.core.tensor.Position;
+import org.tensorics.core.tensor.Shape;
+import org.tensorics.core.tensor.Tensor;
+
+import com.google.common.base.Function;
+import com.google.common.collect.Iterators;
+import com.google.common.collect.Maps;
+import com.google.common.collect.UnmodifiableIterator;
+
+/**
+ * A tensor of double values, which only stores the values for positions which are actually present. The coordinates of
+ * each position are stored in compressed form: A {@link PositionIndexer} maps each coordinate to its ordinal within its
+ * dimension and combines all the ordinals of a position into one {@code long} key. The tensor itself only holds a
+ * sorted array of these keys and a parallel array of the values.
+ * <p>
+ * In contrast to the array backed tensors (see {@link AbstractArrayBackedTensor}), the indexer of such a tensor does not
+ * have to fit into an array: It might span a huge cartesian product of coordinates, of which only a few combinations
+ * are present in the tensor. Retrieving a value is done by a binary search on the keys and thus takes O(log n). The
+ * shape as well as the map returned by {@link #asMap()} are lazy views, which reconstruct positions only while iterating.
+ * 
+ * @author kfuchsbe
+ */
+public class ImmutableSparseDoubleTensor implements Tensor<Double> {
+
+    private static final int TOSTRING_ENTRIES = 10;
+
+    private final PositionIndexer indexer;
+    private final long[] keys;
+    private final double[] values;
+    private final Context tensorContext;
+    private final Shape shape;
+
+    /**
+     * Directly uses the given arrays as storage, without copying them. The keys have to be sorted in ascending order and
+     * must not contain duplicates and both arrays have to be of the same length. The caller has to ensure, that the
+     * arrays are not modified afterwards.
+     */
+    ImmutableSparseDoubleTensor(PositionIndexer indexer, long[] keys, double[] values, Context context) {
+        this.indexer = indexer;
+        this.keys = keys;
+        this.values = values;
+        this.tensorContext = context;
+        this.shape = Shape.viewOf(indexer.dimensions(), new KeyPositionSet());
+    }
+
+    /**
+     * Creates a builder for a sparse tensor, whose positions are mapped by the given indexer. The indexer does not
+     * need to be usable for arrays, so it can be created by {@link PositionIndexer.Builder#buildUnbounded()}.
+     * 
+     * @param indexer the indexer to use for the tensor
+     * @return a new builder
+     */
+    public static Builder builder(PositionIndexer indexer) {
+        return new Builder(indexer);
+    }
+
+    /**
+     * Creates a sparse copy of the given tensor. The indexer is created from all the coordinates which are present in
+     * the tensor.
+     * 
+     * @param tensor the tensor to copy
+     * @return a new sparse tensor with the same content and context as the given tensor
+     */
+    public static ImmutableSparseDoubleTensor copyOf(Tensor<Double> tensor) {
+        Builder builder = builder(PositionIndexer.covering(tensor.shape()));
+        builder.putAllMap(tensor.asMap());
+        builder.setTensorContext(tensor.context());
+        return builder.build();
+    }
+
+    @Override
+    public Double get(Position position) {
+        int index = indexOf(position);
+        if (index < 0) {
+            throw new NoSuchElementException("Entry for position '" + position + "' is not contained in this tensor.");
+        }
+        return values[index];
+    }
+
+    @Override
+    public Double get(Object... coordinates) {
+        return get(Position.of(coordinates));
+    }
+
+    /**
+     * @return the index within the arrays at which the value for the position is stored, or a negative value if the
+     *         position is not contained in this tensor
+     * @throws IllegalArgumentException if the dimensions of the position do not match the dimensions of the tensor
+     */
+    private int indexOf(Position position) {
+        if (!indexer.contains(position)) {
+            return -1;
+        }
+        return Arrays.binarySearch(keys, indexer.keyFor(position));
+    }
+
+    @Override
+    @Deprecated
+    public Iterable<Tensor.Entry<Double>> entrySet() {
+        return new Iterable<Tensor.Entry<Double>>() {
+            @Override
+            public Iterator<Tensor.Entry<Double>> iterator() {
+                return new UnmodifiableIterator<Tensor.Entry<Double>>() {
+                    private int index = 0;
+
+                    @Override
+                    public boolean hasNext() {
+                        return index < keys.length;
+                    }
+
+                    @Override
+                    public Tensor.Entry<Double> next() {
+                        if (!hasNext()) {
+                            throw new NoSuchElementException();
+                        }
+                        Position position = indexer.positionForKey(keys[index]);
+                        return new ImmutableEntry<Double>(position, values[index++]);
+                    }
+                };
+            }
+        };
+    }
+
+    /**
+     * Returns an unmodifiable view on the content of the tensor. No positions are created by this call. They are only
+     * created while iterating over the returned map.
+     */
+    @Override
+    public Map<Position, Double> asMap() {
+        return Collections.unmodifiableMap(Maps.asMap(shape.positionSet(), new Function<Position, Double>() {
+            @Override
+            public Double apply(Position position) {
+                return get(position);
+            }
+        }));
+    }
+
+    @Override
+    public Shape shape() {
+        return this.shape;
+    }
+
+    @Override
+    public Context context() {
+        return this.tensorContext;
+    }
+
+    PositionIndexer indexer() {
+        return this.indexer;
+    }
+
+    /**
+     * @return the number of values which are stored in this tensor
+     */
+    public int storedSize() {
+        return keys.length;
+    }
+
+    long keyAt(int index) {
+        return keys[index];
+    }
+
+    double valueAt(int index) {
+        return values[index];
+    }
+
+    /**
+     * @return the index at which the given key is stored, or a negative value if it is not contained
+     */
+    int indexOfKey(long key) {
+        return Arrays.binarySearch(keys, key);
+    }
+
+    @Override
+    public int hashCode() {
+        final int prime = 31;
+        int result = 1;
+        result = prime * result + indexer.hashCode();
+        result = prime * result + tensorContext.hashCode();
+        result = prime * result + Arrays.hashCode(keys);
+        result = prime * result + Arrays.hashCode(values);
+        return result;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj == null) {
+            return false;
+        }
+        if (getClass() != obj.getClass()) {
+            return false;
+        }
+        ImmutableSparseDoubleTensor other = (ImmutableSparseDoubleTensor) obj;
+        return indexer.equals(other.indexer) && tensorContext.equals(other.tensorContext)
+                && Arrays.equals(keys, other.keys) && Arrays.equals(values, other.values);
+    }
+
+    @Override
+    public String toString() {
+        return Coordinates.dimensionsWithoutClassPath(this) + ", Content:"
+                + Iterators.toString(Iterators.limit(asMap().entrySet().iterator(), TOSTRING_ENTRIES));
+    }
+
+    /**
+     * A set view on the positions which are present in the tensor. Positions are only created when iterating.
+     * 
+     * @author kfuchsbe
+     */
+    private final class KeyPositionSet extends AbstractSet<Position> {
+
+        @Override
+        public Iterator<Position> iterator() {
+            return new UnmodifiableIterator<Position>() {
+                private int index = 0;
+
+                @Override
+                public boolean hasNext() {
+                    return index < keys.length;
+                }
+
+                @Override
+                public Position next() {
+                    if (!hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+                    return indexer.positionForKey(keys[index++]);
+                }
+            };
+        }
+
+        @Override
+        public boolean contains(Object object) {
+            return (object instanceof Position) && (indexOf((Position) object) >= 0);
+        }
+
+        @Override
+        public int size() {
+            return keys.length;
+        }
+    }
+
+    /**
+     * A builder for sparse double tensors. Values can be put in any order. If a value is put several times for the
+     * same position, then the last one wins.
+     * 
+     * @author kfuchsbe
+     */
+    public static class Builder extends AbstractTensorBuilder<Double> {
+
+        private static final int INITIAL_CAPACITY = 16;
+
+        private final PositionIndexer indexer;
+        private long[] keys = new long[INITIAL_CAPACITY];
+        private double[] values = new double[INITIAL_CAPACITY];
+        private final BitSet removals = new BitSet();
+        private int size = 0;
+
+        Builder(PositionIndexer indexer) {
+            super(indexer.dimensions());
+            this.indexer = indexer;
+        }
+
+        @Override
+        protected void putItAt(Double value, Position position) {
+            append(indexer.keyFor(position), value);
+        }
+
+        /**
+         * Puts the given primitive value at the given position, without any further checks of the position or the
+         * value.
+         * 
+         * @param value the value to put
+         * @param position the position at which to put the value
+         */
+        public void putUncheckedAt(double value, Position position) {
+            append(indexer.keyFor(position), value);
+        }
+
+        void putAtKey(double value, long key) {
+            append(key, value);
+        }
+
+        private void append(long key, double value) {
+            ensureCapacity(size + 1);
+            keys[size] = key;
+            values[size] = value;
+            size++;
+        }
+
+        private void ensureCapacity(int capacity) {
+            if (capacity > keys.length) {
+                int newCapacity = Math.max(capacity, keys.length * 2);
+                keys = Arrays.copyOf(keys, newCapacity);
+                values = Arrays.copyOf(values, newCapacity);
+            }
+        }
+
+        @Override
+        public void putAllMap(Map<Position, Double> newEntries) {
+            for (Map.Entry<Position, Double> entry : newEntries.entrySet()) {
+                putAt(entry.getValue(), entry.getKey());
+            }
+        }
+
+        @Override
+        public void removeAt(Position position) {
+            if (indexer.contains(position)) {
+                removals.set(size);
+                append(indexer.keyFor(position), 0.0);
+            }
+        }
+
+        @Override
+        public void put(Map.Entry<Position, Double> entry) {
+            putAt(entry.getValue(), entry.getKey());
+        }
+
+        @Override
+        public void putAll(Tensor<Double> tensor) {
+            putAllAt(tensor);
+        }
+
+        @Override
+        public ImmutableSparseDoubleTensor build() {
+            int[] order = KeySorting.sortedOrder(keys, size);
+            long[] resultKeys = new long[size];
+            double[] resultValues = new double[size];
+            int count = 0;
+            for (int i = 0; i < size; i++) {
+                int index = order[i];
+                boolean lastForKey = (i == size - 1) || (keys[order[i + 1]] != keys[index]);
+                if (lastForKey && !removals.get(index)) {
+                    resultKeys[count] = keys[index];
+                    resultValues[count] = values[index];
+                    count++;
+                }
+            }
+            return new ImmutableSparseDoubleTensor(indexer, Arrays.copyOf(resultKeys, count), Arrays.copyOf(
+                    resultValues, count), getContext());
+        }
+    }
+
+}
@@ -0,0 +1,134 @@
+// @formatter:off
+ /*******************************************************************************
+ *
+ * This file is part of tensorics.
+ * 
+ * Copyright (c) 2008-2011, CERN. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ ******************************************************************************/
+// @formatter:on
+package org.tensorics.core.tensor.specific;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import org.tensorics.core.tensor.options.ExecutionStrategy;
+
+/**
+ * Runs a loop over the indices {@code [0, size)} of an array, either sequentially in the calling thread or, if the
+ * given execution strategy allows it for the given size, split into chunks which are processed in the common
+ * fork-join pool. Each index is visited exactly once, so loop bodies which only write to their own index of an output
+ * array need no further synchronization.
+ * 
+ * @author kfuchsbe
+ */
+public final class IndexRanges {
+
+    /** The minimal number of indices which are processed by one task, when executing in parallel */
+    private static final int MIN_CHUNK_SIZE = 1024;
+
+    /** The number of chunks per thread of the pool, so that faster threads can take over more work */
+    private static final int CHUNKS_PER_THREAD = 4;
+
+    private IndexRanges() {
+        /* only static methods */
+    }
+
+    /**
+     * The body of a loop, which processes a contiguous range of indices.
+     */
+    public interface RangeBody {
+        /**
+         * Processes all indices from (inclusive) the first to (exclusive) the second given one.
+         * 
+         * @param from the first index to process
+         * @param to the index after the last one to process
+         */
+        void process(int from, int to);
+    }
+
+    /**
+     * Processes all indices from zero to the given size, in parallel if the given strategy allows it for this size.
+     * 
+     * @param size the number of indices to process
+     * @param strategy the strategy which decides on parallel execution; {@code null} means sequential
+     * @param body the body to apply to the ranges of indices
+     */
+    public static void forEach(int size, ExecutionStrategy strategy, RangeBody body) {
+        forEach(size, MIN_CHUNK_SIZE, (strategy != null) && strategy.isParallelFor(size), body);
+    }
+
+    /**
+     * Processes all indices from zero to the given size, either sequentially or in chunks of at least the given size in
+     * parallel. This is intended for loops whose bodies are expensive per index (e.g. each index stands for a group of
+     * elements), so that the decision about parallel execution is taken by the caller and smaller chunks are worth it.
+     * 
+     * @param size the number of indices to process
+     * @param minChunkSize the minimal number of indices which are processed by one task
+     * @param parallel {@code true} if the indices shall be processed in parallel, {@code false} if sequentially
+     * @param body the body to apply to the ranges of indices
+     */
+    public static void forEach(int size, int minChunkSize, boolean parallel, RangeBody body) {
+        if (!parallel) {
+            body.process(0, size);
+            return;
+        }
+        ForkJoinPool.commonPool().invoke(new RangeAction(body, 0, size, chunkSizeFor(size, minChunkSize)));
+    }
+
+    /**
+     * Determines the size of the chunks into which the given number of indices is split for parallel execution: A few
+     * chunks per thread of the common pool, so that faster threads can take over more work, but not smaller than the
+     * given minimum.
+     * 
+     * @param size the number of indices to process
+     * @param minChunkSize the minimal number of indices which are processed by one task
+     * @return the maximal number of indices to process within one task
+     */
+    public static int chunkSizeFor(int size, int minChunkSize) {
+        return Math.max(minChunkSize, size / (CHUNKS_PER_THREAD * ForkJoinPool.getCommonPoolParallelism()));
+    }
+
+    /**
+     * Applies the body to a range of indices. Ranges bigger than the chunk size are split in halves.
+     */
+    private static final class RangeAction extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final transient RangeBody body;
+        private final int from;
+        private final int to;
+        private final int chunkSize;
+
+        RangeAction(RangeBody body, int from, int to, int chunkSize) {
+            this.body = body;
+            this.from = from;
+            this.to = to;
+            this.chunkSize = chunkSize;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= chunkSize) {
+                body.process(from, to);
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new RangeAction(body, from, middle, chunkSize), new RangeAction(body, middle, to, chunkSize));
+        }
+    }
+
+}
@@ -0,0 +1,101 @@
+// @formatter:off
+ /*******************************************************************************
+ *
+ * This file is part of tensorics.
+ * 
+ * Copyright (c) 2008-2011, CERN. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ ******************************************************************************/
+// @formatter:on
+package org.tensorics.core.tensor.specific;
+
+/**
+ * Utility methods to sort keys (as used by sparse tensors) together with their associated values, without boxing them.
+ * 
+ * @author kfuchsbe
+ */
+final class KeySorting {
+
+    private KeySorting() {
+        /* only static methods */
+    }
+
+    /**
+     * Determines the order in which the first {@code length} of the given keys have to be traversed in order to visit
+     * them in ascending order. The sort is stable, i.e. equal keys are visited in the order in which they appear in
+     * the array.
+     * 
+     * @param keys the keys to sort
+     * @param length the number of keys to consider (starting from index zero)
+     * @return the indizes of the keys in the order of ascending keys
+     */
+    static int[] sortedOrder(long[] keys, int length) {
+        int[] order = new int[length];
+        for (int i = 0; i < length; i++) {
+            order[i] = i;
+        }
+        if (isSorted(keys, length)) {
+            return order;
+        }
+        int[] buffer = new int[length];
+        for (int width = 1; width < length; width *= 2) {
+            for (int low = 0; low < length - width; low += 2 * width) {
+                merge(keys, order, buffer, low, low + width, Math.min(low + 2 * width, length));
+            }
+        }
+        return order;
+    }
+
+    private static void merge(long[] keys, int[] order, int[] buffer, int low, int middle, int high) {
+        System.arraycopy(order, low, buffer, low, high - low);
+        int left = low;
+        int right = middle;
+        for (int i = low; i < high; i++) {
+            if (right >= high || (left < middle && keys[buffer[left]] <= keys[buffer[right]])) {
+                order[i] = buffer[left++];
+            } else {
+                order[i] = buffer[right++];
+            }
+        }
+    }
+
+    private static boolean isSorted(long[] keys, int length) {
+        for (int i = 1; i < length; i++) {
+            if (keys[i - 1] > keys[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Searches the first index within the given range of the (ascending sorted) array, at which a value is greater or
+     * equal than the given key.
+     */
+    static int lowerBound(long[] sortedKeys, int fromIndex, int toIndex, long key) {
+        int low = fromIndex;
+        int high = toIndex;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (sortedKeys[middle] < key) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+}
@@ -0,0 +1,170 @@
+// @formatter:off
+ /*******************************************************************************
+ *
+ * This file is part of tensorics.
+ * 
+ * Copyright (c) 2008-2011, CERN. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ ******************************************************************************/
+// @formatter:on
+package org.tensorics.core.tensor.specific;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.google.common.base.Function;
+import com.google.common.base.Functions;
+import com.google.common.base.Preconditions;
+import com.google.common.primitives.Ints;
+import com.google.common.primitives.Longs;
+
+/**
+ * Translates the keys of one {@link PositionIndexer} into (parts of) the keys of another one, without creating any
+ * positions. For each of the involved dimensions of the source indexer, a lookup table is created once, which maps the
+ * ordinals of the source coordinates to the ordinals of the target coordinates. The translation of a key then is
+ * simply the sum of the looked up ordinals, multiplied by the factors of the target dimensions.
+ * <p>
+ * Only those dimensions which were added to the translation are considered. This way, a translation can also be used
+ * to project a key onto some of its dimensions.
+ * 
+ * @author kfuchsbe
+ */
+final class KeyTranslation {
+
+    private static final int ABSENT = -1;
+
+    private final PositionIndexer source;
+    private final int[] sourceDimensions;
+    private final int[][] ordinalTables;
+    private final long[] targetFactors;
+    private final boolean identity;
+
+    private KeyTranslation(Builder builder) {
+        this.source = builder.source;
+        this.sourceDimensions = Ints.toArray(builder.sourceDimensions);
+        this.ordinalTables = builder.ordinalTables.toArray(new int[builder.ordinalTables.size()][]);
+        this.targetFactors = Longs.toArray(builder.targetFactors);
+        this.identity = builder.identity;
+    }
+
+    /**
+     * Creates a translation between two indexers, which have the same dimensions. Coordinates of the source which are
+     * not known to the target indexer will result in an absent key.
+     * 
+     * @param source the indexer whose keys shall be translated
+     * @param target the indexer into whose keys they shall be translated
+     * @return a new translation
+     */
+    static KeyTranslation between(PositionIndexer source, PositionIndexer target) {
+        Preconditions.checkArgument(source.dimensions().equals(target.dimensions()),
+                "Keys can only be translated between indexers of the same dimensions.");
+        return onCommonDimensions(source, target);
+    }
+
+    /**
+     * Creates a translation which only considers the dimensions which are present in both indexers. If the target
+     * contains less dimensions than the source, this projects the source keys onto the target dimensions; if the
+     * target contains more dimensions, then the translated keys correspond to the first coordinates of the additional
+     * dimensions.
+     * 
+     * @param source the indexer whose keys shall be translated
+     * @param target the indexer into whose keys they shall be translated
+     * @return a new translation
+     */
+    static KeyTranslation onCommonDimensions(PositionIndexer source, PositionIndexer target) {
+        Builder builder = from(source);
+        for (Class<?> dimension : source.dimensions()) {
+            if (target.dimensions().contains(dimension)) {
+                builder.map(dimension, target, dimension, target.factorOf(target.dimensionIndexOf(dimension)));
+            }
+        }
+        builder.identity = source.equals(target);
+        return builder.build();
+    }
+
+    static Builder from(PositionIndexer source) {
+        return new Builder(source);
+    }
+
+    /**
+     * Translates the given key of the source indexer.
+     * 
+     * @param sourceKey the key to translate
+     * @return the translated key or a negative value, if one of the coordinates is not known to the target
+     */
+    long translate(long sourceKey) {
+        if (identity) {
+            return sourceKey;
+        }
+        long targetKey = 0;
+        for (int i = 0; i < sourceDimensions.length; i++) {
+            int ordinal = ordinalTables[i][source.ordinalOf(sourceKey, sourceDimensions[i])];
+            if (ordinal == ABSENT) {
+                return ABSENT;
+            }
+            targetKey += ordinal * targetFactors[i];
+        }
+        return targetKey;
+    }
+
+    /**
+     * The builder for a key translation. It allows to add the dimensions of the source one by one.
+     * 
+     * @author kfuchsbe
+     */
+    static final class Builder {
+
+        private final PositionIndexer source;
+        private final List<Integer> sourceDimensions = new ArrayList<>();
+        private final List<int[]> ordinalTables = new ArrayList<>();
+        private final List<Long> targetFactors = new ArrayList<>();
+        private boolean identity = false;
+
+        Builder(PositionIndexer source) {
+            this.source = source;
+        }
+
+        /**
+         * Maps the given dimension of the source onto the given dimension of the target indexer. The coordinates are
+         * considered equal, if they are equal within the two indexers.
+         */
+        Builder map(Class<?> sourceDimension, PositionIndexer target, Class<?> targetDimension, long factor) {
+            return map(sourceDimension, target, targetDimension, Functions.identity(), factor);
+        }
+
+        /**
+         * Maps the given dimension of the source onto the given dimension of the target indexer. Each coordinate of the
+         * source is converted by the given function before it is looked up in the target.
+         */
+        Builder map(Class<?> sourceDimension, PositionIndexer target, Class<?> targetDimension,
+                Function<Object, ?> conversion, long factor) {
+            int sourceDimensionIndex = source.dimensionIndexOf(sourceDimension);
+            int targetDimensionIndex = target.dimensionIndexOf(targetDimension);
+            int[] table = new int[source.sizeOf(sourceDimensionIndex)];
+            for (int ordinal = 0; ordinal < table.length; ordinal++) {
+                Object coordinate = conversion.apply(source.coordinateAt(sourceDimensionIndex, ordinal));
+                table[ordinal] = target.ordinalFor(targetDimensionIndex, coordinate);
+            }
+            sourceDimensions.add(sourceDimensionIndex);
+            ordinalTables.add(table);
+            targetFactors.add(factor);
+            return this;
+        }
+
+        KeyTranslation build() {
+            return new KeyTranslation(this);
+        }
+    }
+}
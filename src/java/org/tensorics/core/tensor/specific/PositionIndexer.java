@@ -21,22 +21,46 @@
 // @formatter:on
 package org.tensorics.core.tensor.specific;
 
+import java.util.AbstractSet;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.NoSuchElementException;
 import java.util.Set;
 
 import org.tensorics.core.tensor.Position;
+import org.tensorics.core.tensor.Shape;
 
+import com.google.common.base.Optional;
 import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
-import com.google.common.collect.ImmutableSet;
-import com.google.common.collect.Sets;
+import com.google.common.collect.UnmodifiableIterator;
 
 /**
  * Encapsulates the mapping positions to integer indizes, which allow to address entries within an array.
+ * <p>
+ * The mapping is bidirectional: Besides calculating the index for a given position, an indexer can also reconstruct the
+ * position for a given index. This allows array backed tensors to provide their positions lazily, without ever storing
+ * them.
+ * <p>
+ * Internally, the index of a position is a mixed radix number, whose digits are the ordinals of the coordinates within
+ * their dimensions. For sparse storage (where not all positions are stored) this index is also available as a
+ * {@code long} key (see {@link #keyFor(Position)}), which allows to address coordinate spaces which are too large to be
+ * stored in an array. Such indexers can be created by {@link Builder#buildUnbounded()}.
+ * <p>
+ * The layout of the indizes only depends on the dimensions and coordinates, not on the order in which the dimensions
+ * were put into the builder: The dimensions are always ordered by their class names and the coordinates within each
+ * dimension by the iteration order of the given sets. Therefore, indexers built from the same dimensions and equally
+ * ordered coordinates give the same indizes, also in different JVMs (which is required e.g. for sharing files of
+ * values).
  * 
  * @author kaifox
  */
@@ -44,57 +68,403 @@ import com.google.common.collect.Sets;
 public final class PositionIndexer {
 
     private final Map<Class<?>, Map<?, Integer>> mapping;
-    private final Map<Class<?>, Integer> dimensionFactors;
-    private final int size;
+    private final Map<Class<?>, Long> dimensionFactors;
+    private final long keySpaceSize;
+
+    /*
+     * The following are derived from the two maps above, to allow a fast calculation of ordinals and a fast
+     * reconstruction of positions from indizes.
+     */
+    private final List<Class<?>> orderedDimensions;
+    private final List<Map<?, Integer>> orderedMappings;
+    private final List<List<?>> orderedCoordinates;
+    private final long[] factors;
 
     PositionIndexer(Builder builder) {
-        builder.checkBoundary();
         this.mapping = builder.createMapping();
         this.dimensionFactors = builder.createFactors();
-        this.size = (int) builder.arrayDimension();
+        this.keySpaceSize = builder.arrayDimension();
+        this.orderedDimensions = ImmutableList.copyOf(mapping.keySet());
+        this.orderedMappings = ImmutableList.copyOf(mapping.values());
+        this.orderedCoordinates = createOrderedCoordinates(orderedMappings);
+        this.factors = createFactorsArray(orderedDimensions, dimensionFactors);
+    }
+
+    private static List<List<?>> createOrderedCoordinates(List<Map<?, Integer>> mappings) {
+        ImmutableList.Builder<List<?>> builder = ImmutableList.builder();
+        for (Map<?, Integer> dimensionMapping : mappings) {
+            builder.add(ImmutableList.copyOf(dimensionMapping.keySet()));
+        }
+        return builder.build();
+    }
+
+    private static long[] createFactorsArray(List<Class<?>> dimensions, Map<Class<?>, Long> dimensionFactors) {
+        long[] factors = new long[dimensions.size()];
+        for (int i = 0; i < factors.length; i++) {
+            factors[i] = dimensionFactors.get(dimensions.get(i));
+        }
+        return factors;
     }
 
+    /**
+     * Calculates the index within the array for the given position.
+     * 
+     * @param position the position for which to calculate the index
+     * @return the index of the array at which the value for the given position is stored
+     * @throws IllegalArgumentException if the dimensions of the position do not match the dimensions of the indexer
+     * @throws NoSuchElementException if one of the coordinates of the position is not known to the indexer
+     * @throws TooLargeForArrayException if this indexer addresses more positions than an array can hold
+     */
     public int indexFor(Position position) {
+        checkArrayCapable();
+        return (int) keyFor(position);
+    }
+
+    /**
+     * Calculates the key for the given position. For indexers which can be used for arrays, this is the same as the
+     * index.
+     * 
+     * @param position the position for which to calculate the key
+     * @return the key of the position
+     * @throws IllegalArgumentException if the dimensions of the position do not match the dimensions of the indexer
+     * @throws NoSuchElementException if one of the coordinates of the position is not known to the indexer
+     */
+    public long keyFor(Position position) {
         Preconditions.checkArgument(position.dimensionSet().equals(mapping.keySet()),
                 "Dimensions of the position do not match the dimensions available in the mapping.");
-        int index = 0;
-        for (Entry<Class<?>, Integer> factor : dimensionFactors.entrySet()) {
-            Class<?> dimension = factor.getKey();
-            Object coordinate = position.coordinateFor(dimension);
-            index += (mapping.get(dimension).get(coordinate) * factor.getValue());
+        return keyOfProjection(position);
+    }
+
+    /**
+     * Calculates the index within the array for the projection of the given position onto the dimensions of this
+     * indexer. Coordinates of other dimensions are ignored, so the position might have more dimensions than this
+     * indexer.
+     * 
+     * @param position the position for which to calculate the index
+     * @return the index of the array at which the value for the projected position is stored
+     * @throws IllegalArgumentException if the position does not contain a coordinate for one of the dimensions
+     * @throws NoSuchElementException if one of the coordinates of the position is not known to the indexer
+     * @throws TooLargeForArrayException if this indexer addresses more positions than an array can hold
+     */
+    public int indexForProjectionOf(Position position) {
+        checkArrayCapable();
+        return (int) keyOfProjection(position);
+    }
+
+    private long keyOfProjection(Position position) {
+        long key = 0;
+        for (int i = 0; i < factors.length; i++) {
+            Object coordinate = position.coordinateFor(orderedDimensions.get(i));
+            Preconditions.checkArgument(coordinate != null, "Position '" + position
+                    + "' does not contain a coordinate for dimension '" + orderedDimensions.get(i) + "'.");
+            Integer ordinal = orderedMappings.get(i).get(coordinate);
+            if (ordinal == null) {
+                throw new NoSuchElementException("Coordinate '" + coordinate + "' of position '" + position
+                        + "' is not contained in the indexer.");
+            }
+            key += ordinal * factors[i];
         }
-        return index;
+        return key;
     }
 
-    public Set<Position> allPositions() {
-        ImmutableSet.Builder<Position> builder = ImmutableSet.builder();
-        Set<List<Object>> allCombinations = Sets.cartesianProduct(coordinateSets());
-        for (List<Object> coordinates : allCombinations) {
-            builder.add(Position.of(coordinates));
+    /**
+     * Reconstructs the position which corresponds to the given array index. This is the inverse operation of
+     * {@link #indexFor(Position)}.
+     * 
+     * @param index the index within the array
+     * @return the position which is mapped to the given index
+     * @throws IndexOutOfBoundsException if the index is outside the array size of this indexer
+     */
+    public Position positionAt(int index) {
+        return positionForKey(index);
+    }
+
+    /**
+     * Reconstructs the position which corresponds to the given key. This is the inverse operation of
+     * {@link #keyFor(Position)}.
+     * 
+     * @param key the key for which to retrieve the position
+     * @return the position which is mapped to the given key
+     * @throws IndexOutOfBoundsException if the key is outside the key space of this indexer
+     */
+    public Position positionForKey(long key) {
+        if (key < 0 || key >= keySpaceSize) {
+            throw new IndexOutOfBoundsException("Key " + key + " is outside the key space [0, " + keySpaceSize + ").");
         }
-        return builder.build();
+        Object[] coordinates = new Object[factors.length];
+        for (int i = 0; i < factors.length; i++) {
+            coordinates[i] = orderedCoordinates.get(i).get(ordinalOf(key, i));
+        }
+        return Position.of(coordinates);
     }
 
-    private List<Set<?>> coordinateSets() {
-        List<Set<?>> sets = new ArrayList<Set<?>>();
-        for (Map<?, Integer> map : mapping.values()) {
-            sets.add(map.keySet());
+    /**
+     * Checks if the given position can be mapped to an index by this indexer. This is the case, if the position has
+     * exactly the dimensions of the indexer and all its coordinates are known to the indexer.
+     * 
+     * @param position the position to check
+     * @return {@code true} if the position can be mapped to an index, {@code false} otherwise
+     */
+    public boolean contains(Position position) {
+        if (!position.dimensionSet().equals(mapping.keySet())) {
+            return false;
+        }
+        for (Entry<Class<?>, Map<?, Integer>> entry : mapping.entrySet()) {
+            if (!entry.getValue().containsKey(position.coordinateFor(entry.getKey()))) {
+                return false;
+            }
         }
-        return sets;
+        return true;
+    }
+
+    /**
+     * Returns all the positions, which can be addressed by this indexer. The returned set is a lazy (unmodifiable)
+     * view: The positions are only constructed while iterating and {@link Set#contains(Object)} as well as
+     * {@link Set#size()} are answered directly by the indexer without iterating.
+     * 
+     * @return a view on all the positions of this indexer
+     * @throws TooLargeForArrayException if this indexer addresses more positions than an array can hold
+     */
+    public Set<Position> allPositions() {
+        checkArrayCapable();
+        return new IndexedPositionSet(this);
     }
 
     public static Builder builder() {
         return new Builder();
     }
 
+    /**
+     * Creates an indexer which addresses exactly the positions of the given shape. This is only possible, if the shape
+     * is a full cartesian product of its coordinates (i.e. it contains a position for each combination of the
+     * coordinates in the individual dimensions) and if the shape is small enough to fit into an array.
+     * 
+     * @param shape the shape for which to create an indexer
+     * @return an indexer covering exactly the positions of the shape, or {@link Optional#absent()} if this is not
+     *         possible
+     */
+    public static Optional<PositionIndexer> exactlyCovering(Shape shape) {
+        Builder builder = coordinatesOf(shape);
+        if (builder.arrayDimension() != shape.size()) {
+            return Optional.absent();
+        }
+        return Optional.of(builder.build());
+    }
+
+    /**
+     * Creates an indexer which addresses all the combinations of the coordinates contained in the given shape. In
+     * contrast to {@link #exactlyCovering(Shape)}, this is always possible, but the resulting indexer might address
+     * more positions than are contained in the shape and might be too large to be used for arrays.
+     * 
+     * @param shape the shape from which to take the coordinates
+     * @return an indexer addressing at least all the positions of the given shape
+     */
+    public static PositionIndexer covering(Shape shape) {
+        return coordinatesOf(shape).buildUnbounded();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Builder coordinatesOf(Shape shape) {
+        Map<Class<?>, Set<Object>> coordinates = new HashMap<>();
+        for (Class<?> dimension : shape.dimensionSet()) {
+            coordinates.put(dimension, new LinkedHashSet<>());
+        }
+        for (Position position : shape.positionSet()) {
+            for (Entry<Class<?>, Set<Object>> entry : coordinates.entrySet()) {
+                entry.getValue().add(position.coordinateFor(entry.getKey()));
+            }
+        }
+        Builder builder = builder();
+        for (Entry<Class<?>, Set<Object>> entry : coordinates.entrySet()) {
+            builder.put((Class<Object>) entry.getKey(), entry.getValue());
+        }
+        return builder;
+    }
+
+    /**
+     * @return the number of array entries required to store a value for each position of this indexer
+     * @throws TooLargeForArrayException if this indexer addresses more positions than an array can hold
+     */
     public int arraySize() {
-        return size;
+        checkArrayCapable();
+        return (int) keySpaceSize;
+    }
+
+    /**
+     * @return the number of different keys (positions) this indexer can address
+     */
+    public long keySpaceSize() {
+        return keySpaceSize;
+    }
+
+    /**
+     * @return {@code true} if all positions of this indexer can be addressed in an array, {@code false} otherwise
+     */
+    public boolean isArrayCapable() {
+        return keySpaceSize <= Integer.MAX_VALUE;
+    }
+
+    private void checkArrayCapable() {
+        if (!isArrayCapable()) {
+            throw new TooLargeForArrayException("The total number of positions (" + keySpaceSize
+                    + ") exceeds Integer.MAX_VALUE (" + Integer.MAX_VALUE + "). This indexer can only be used with keys.");
+        }
     }
 
     public Set<Class<?>> dimensions() {
         return mapping.keySet();
     }
 
+    /**
+     * Returns the coordinates of the given dimension, in the order of their indizes.
+     * 
+     * @param dimension the dimension for which to retrieve the coordinates
+     * @return the coordinates of the given dimension
+     * @throws IllegalArgumentException if the dimension is not known to this indexer
+     */
+    public List<?> coordinatesFor(Class<?> dimension) {
+        return orderedCoordinates.get(dimensionIndexOf(dimension));
+    }
+
+    /**
+     * Creates an indexer which contains all the dimensions (with the same coordinates) of this indexer, except the given
+     * one. The keys of the two indexers can be translated into each other by a {@link KeyTranslation}.
+     * 
+     * @param dimension the dimension to omit
+     * @return a new indexer without the given dimension
+     */
+    @SuppressWarnings("unchecked")
+    PositionIndexer without(Class<?> dimension) {
+        Builder builder = builder();
+        for (int i = 0; i < orderedDimensions.size(); i++) {
+            Class<?> oneDimension = orderedDimensions.get(i);
+            if (!oneDimension.equals(dimension)) {
+                builder.put((Class<Object>) oneDimension, (Set<Object>) orderedMappings.get(i).keySet());
+            }
+        }
+        return builder.buildUnbounded();
+    }
+
+    /*
+     * The following methods give access to the individual digits of the keys. They are used by operations that work
+     * directly on keys, without constructing positions.
+     */
+
+    int dimensionCount() {
+        return factors.length;
+    }
+
+    int dimensionIndexOf(Class<?> dimension) {
+        int dimensionIndex = orderedDimensions.indexOf(dimension);
+        Preconditions.checkArgument(dimensionIndex >= 0, "Dimension '" + dimension
+                + "' is not contained in the indexer.");
+        return dimensionIndex;
+    }
+
+    Class<?> dimensionAt(int dimensionIndex) {
+        return orderedDimensions.get(dimensionIndex);
+    }
+
+    int sizeOf(int dimensionIndex) {
+        return orderedCoordinates.get(dimensionIndex).size();
+    }
+
+    long factorOf(int dimensionIndex) {
+        return factors[dimensionIndex];
+    }
+
+    int ordinalOf(long key, int dimensionIndex) {
+        return (int) ((key / factors[dimensionIndex]) % orderedCoordinates.get(dimensionIndex).size());
+    }
+
+    /**
+     * @return the ordinal of the given coordinate in the given dimension or {@code -1} if the coordinate is not known
+     */
+    int ordinalFor(int dimensionIndex, Object coordinate) {
+        Integer ordinal = orderedMappings.get(dimensionIndex).get(coordinate);
+        if (ordinal == null) {
+            return -1;
+        }
+        return ordinal;
+    }
+
+    Object coordinateAt(int dimensionIndex, int ordinal) {
+        return orderedCoordinates.get(dimensionIndex).get(ordinal);
+    }
+
+    @Override
+    public int hashCode() {
+        final int prime = 31;
+        int result = 1;
+        result = prime * result + dimensionFactors.hashCode();
+        result = prime * result + mapping.hashCode();
+        return result;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj == null) {
+            return false;
+        }
+        if (getClass() != obj.getClass()) {
+            return false;
+        }
+        PositionIndexer other = (PositionIndexer) obj;
+        return dimensionFactors.equals(other.dimensionFactors) && mapping.equals(other.mapping);
+    }
+
+    @Override
+    public String toString() {
+        return "PositionIndexer [dimensions=" + orderedDimensions + ", keySpaceSize=" + keySpaceSize + "]";
+    }
+
+    /**
+     * A set view on all the positions of an indexer. Positions are only created when iterating.
+     * 
+     * @author kfuchsbe
+     */
+    private static final class IndexedPositionSet extends AbstractSet<Position> {
+
+        private final PositionIndexer indexer;
+
+        IndexedPositionSet(PositionIndexer indexer) {
+            this.indexer = indexer;
+        }
+
+        @Override
+        public Iterator<Position> iterator() {
+            return new UnmodifiableIterator<Position>() {
+                private int index = 0;
+
+                @Override
+                public boolean hasNext() {
+                    return index < indexer.keySpaceSize;
+                }
+
+                @Override
+                public Position next() {
+                    if (!hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+                    return indexer.positionAt(index++);
+                }
+            };
+        }
+
+        @Override
+        public boolean contains(Object object) {
+            return (object instanceof Position) && indexer.contains((Position) object);
+        }
+
+        @Override
+        public int size() {
+            return (int) indexer.keySpaceSize;
+        }
+    }
+
     /**
      * The builder for a position indexer.
      * 
@@ -102,7 +472,7 @@ public final class PositionIndexer {
      */
     public static class Builder {
 
-        private final Map<Class<?>, Set<?>> coordinates = new HashMap<>();
+        private final Map<Class<?>, Set<?>> coordinates = new LinkedHashMap<>();
 
         Builder() {
             /* only created from within the class */
@@ -115,7 +485,25 @@ public final class PositionIndexer {
             return this;
         }
 
+        /**
+         * Builds an indexer which can be used to address arrays.
+         * 
+         * @return a new indexer
+         * @throws TooLargeForArrayException if the number of positions would exceed the maximum array size
+         */
         public PositionIndexer build() {
+            checkBoundary();
+            return new PositionIndexer(this);
+        }
+
+        /**
+         * Builds an indexer whose number of positions is not limited by the maximum array size. Such an indexer can
+         * only be used by its keys (e.g. for sparse storage).
+         * 
+         * @return a new indexer
+         * @throws IllegalArgumentException if the number of positions does not even fit into a long value
+         */
+        public PositionIndexer buildUnbounded() {
             return new PositionIndexer(this);
         }
 
@@ -131,19 +519,38 @@ public final class PositionIndexer {
         private long arrayDimension() {
             long totalNumberOfEntries = 1;
             for (Set<?> oneDimensionCoords : this.coordinates.values()) {
-                totalNumberOfEntries *= oneDimensionCoords.size();
+                int size = oneDimensionCoords.size();
+                if (size > 0 && totalNumberOfEntries > Long.MAX_VALUE / size) {
+                    throw new IllegalArgumentException("The total number of positions exceeds Long.MAX_VALUE.");
+                }
+                totalNumberOfEntries *= size;
             }
             return totalNumberOfEntries;
         }
 
         public Map<Class<?>, Map<?, Integer>> createMapping() {
             ImmutableMap.Builder<Class<?>, Map<?, Integer>> builder = ImmutableMap.builder();
-            for (Entry<Class<?>, Set<?>> entry : coordinates.entrySet()) {
+            for (Entry<Class<?>, Set<?>> entry : orderedEntries()) {
                 builder.put(entry.getKey(), createIndex(entry.getValue()));
             }
             return builder.build();
         }
 
+        /**
+         * Orders the dimensions by their class names, so that the layout does not depend on the order of the calls to
+         * {@link #put(Class, Set)} and is the same in all JVMs (in contrast e.g. to the hash codes of the classes).
+         */
+        private List<Entry<Class<?>, Set<?>>> orderedEntries() {
+            List<Entry<Class<?>, Set<?>>> entries = new ArrayList<>(coordinates.entrySet());
+            Collections.sort(entries, new Comparator<Entry<Class<?>, Set<?>>>() {
+                @Override
+                public int compare(Entry<Class<?>, Set<?>> left, Entry<Class<?>, Set<?>> right) {
+                    return left.getKey().getName().compareTo(right.getKey().getName());
+                }
+            });
+            return entries;
+        }
+
         private Map<?, Integer> createIndex(Set<?> value) {
             ImmutableMap.Builder<Object, Integer> builder = ImmutableMap.builder();
             int count = 0;
@@ -154,14 +561,11 @@ public final class PositionIndexer {
             return builder.build();
         }
 
-        private Map<Class<?>, Integer> createFactors() {
-            ImmutableMap.Builder<Class<?>, Integer> builder = ImmutableMap.builder();
-            /*
-             * We use a long here, because an int could run out of bounds in the last iteration
-             */
+        private Map<Class<?>, Long> createFactors() {
+            ImmutableMap.Builder<Class<?>, Long> builder = ImmutableMap.builder();
             long factor = 1;
-            for (Entry<Class<?>, Set<?>> entry : coordinates.entrySet()) {
-                builder.put(entry.getKey(), (int) factor);
+            for (Entry<Class<?>, Set<?>> entry : orderedEntries()) {
+                builder.put(entry.getKey(), factor);
                 factor *= entry.getValue().size();
             }
             return builder.build();
@@ -0,0 +1,635 @@
+// @formatter:off
+ /*******************************************************************************
+ *
+ * This file is part of tensorics.
+ * 
+ * Copyright (c) 2008-2011, CERN. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ ******************************************************************************/
+// @formatter:on
+package org.tensorics.core.tensor.specific;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.tensorics.core.math.operations.BinaryOperation;
+import org.tensorics.core.math.operations.UnaryOperation;
+import org.tensorics.core.reduction.ReductionStrategy;
+import org.tensorics.core.tensor.Context;
+import org.tensorics.core.tensor.Position;
+import org.tensorics.core.tensor.Tensor;
+import org.tensorics.core.tensor.options.ExecutionStrategy;
+import org.tensorics.core.tensor.specific.IndexRanges.RangeBody;
+import org.tensorics.core.tensor.variance.CoContraDimensionPair;
+import org.tensorics.core.tensor.variance.CoContraDimensionPairs;
+
+import com.google.common.base.Function;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Sets;
+
+/**
+ * Contains utility methods which operate directly on the keys and values of sparse tensors (see
+ * {@link ImmutableSparseDoubleTensor}), optionally combined with double array backed tensors (see
+ * {@link ImmutableDoubleArrayBackedTensor}). Coordinates are only compared via their ordinals within the indexers, so
+ * no position objects are created during these operations.
+ * 
+ * @author kfuchsbe
+ */
+public final class SparseTensors {
+
+    private SparseTensors() {
+        /* only static methods */
+    }
+
+    /**
+     * Checks if the given tensor is a sparse tensor.
+     * 
+     * @param tensor the tensor to check
+     * @return {@code true} if the tensor is a sparse double tensor, {@code false} otherwise
+     */
+    public static boolean isSparse(Tensor<?> tensor) {
+        return tensor instanceof ImmutableSparseDoubleTensor;
+    }
+
+    /**
+     * Checks if the two given tensors can be combined element by element directly on their keys. This is the case if
+     * at least one of them is sparse and the other one is either sparse or double array backed with the same
+     * dimensions, or if the other one is a zero dimensional tensor (a scalar).
+     * <p>
+     * Except for the combination with a scalar, the resulting shape is the intersection of the two shapes. Therefore,
+     * the caller has to ensure that this is the intended behaviour (see {@link #involvesScalar(Tensor, Tensor)}).
+     * 
+     * @param left the left operand of a binary element wise operation
+     * @param right the right operand of a binary element wise operation
+     * @return {@code true} if {@link #elementwise(BinaryOperation, Tensor, Tensor, Context)} can be used for the two
+     *         tensors, {@code false} otherwise
+     */
+    public static boolean canOperateElementwise(Tensor<?> left, Tensor<?> right) {
+        if (!isSparse(left) && !isSparse(right)) {
+            return false;
+        }
+        if (involvesScalar(left, right)) {
+            return true;
+        }
+        return isKeyed(left) && isKeyed(right) && indexerOf(left).dimensions().equals(indexerOf(right).dimensions());
+    }
+
+    /**
+     * Checks if one of the two given tensors is sparse and the other one is a scalar (zero dimensional tensor). In this
+     * case, the resulting shape of an element wise operation is always the shape of the sparse tensor.
+     * 
+     * @param left the left operand
+     * @param right the right operand
+     * @return {@code true} if one sparse tensor is combined with a scalar, {@code false} otherwise
+     */
+    public static boolean involvesScalar(Tensor<?> left, Tensor<?> right) {
+        return (isSparse(left) && isScalar(right)) || (isScalar(left) && isSparse(right));
+    }
+
+    /**
+     * Applies the given operation to all the corresponding values of the two tensors. Only positions which are present
+     * in both tensors are considered (respectively all positions of the sparse tensor if combined with a scalar). The
+     * two tensors have to fulfill the preconditions checked by {@link #canOperateElementwise(Tensor, Tensor)}.
+     * 
+     * @param operation the operation to apply to each pair of values
+     * @param left the left operand
+     * @param right the right operand
+     * @param resultingContext the context of the resulting tensor
+     * @return a new sparse tensor, with the same indexer as the (left most) sparse operand
+     * @throws IllegalArgumentException if the two tensors cannot be combined on key level
+     */
+    public static ImmutableSparseDoubleTensor elementwise(BinaryOperation<Double> operation, Tensor<Double> left,
+            Tensor<Double> right, Context resultingContext) {
+        return elementwise(operation, left, right, resultingContext, null);
+    }
+
+    /**
+     * Applies the given operation to all the corresponding values of the two tensors, like
+     * {@link #elementwise(BinaryOperation, Tensor, Tensor, Context)}, but splits the stored entries of the sparse
+     * operand into chunks which are processed in parallel, if the given execution strategy allows it for their number.
+     * 
+     * @param operation the operation to apply to each pair of values
+     * @param left the left operand
+     * @param right the right operand
+     * @param resultingContext the context of the resulting tensor
+     * @param executionStrategy the strategy deciding on parallel execution; {@code null} means sequential
+     * @return a new sparse tensor, with the same indexer as the (left most) sparse operand
+     * @throws IllegalArgumentException if the two tensors cannot be combined on key level
+     */
+    public static ImmutableSparseDoubleTensor elementwise(BinaryOperation<Double> operation, Tensor<Double> left,
+            Tensor<Double> right, Context resultingContext, ExecutionStrategy executionStrategy) {
+        if (!canOperateElementwise(left, right)) {
+            throw new IllegalArgumentException("The given tensors cannot be combined elementwise on key level.");
+        }
+        if (involvesScalar(left, right)) {
+            return combineWithScalar(operation, left, right, resultingContext, executionStrategy);
+        }
+        if (isSparse(left)) {
+            return combineSparseWithKeyed(operation, (ImmutableSparseDoubleTensor) left, KeyedValues.of(right), false,
+                    resultingContext, executionStrategy);
+        }
+        return combineSparseWithKeyed(operation, (ImmutableSparseDoubleTensor) right, KeyedValues.of(left), true,
+                resultingContext, executionStrategy);
+    }
+
+    private static ImmutableSparseDoubleTensor combineWithScalar(final BinaryOperation<Double> operation,
+            Tensor<Double> left, Tensor<Double> right, Context resultingContext, ExecutionStrategy executionStrategy) {
+        final boolean sparseLeft = isSparse(left);
+        final ImmutableSparseDoubleTensor sparse = (ImmutableSparseDoubleTensor) (sparseLeft ? left : right);
+        final Double scalar = (sparseLeft ? right : left).get(Position.empty());
+        int size = sparse.storedSize();
+        final long[] keys = new long[size];
+        final double[] values = new double[size];
+        IndexRanges.forEach(size, executionStrategy, new RangeBody() {
+            @Override
+            public void process(int from, int to) {
+                for (int i = from; i < to; i++) {
+                    keys[i] = sparse.keyAt(i);
+                    Double value = sparse.valueAt(i);
+                    values[i] = sparseLeft ? operation.perform(value, scalar) : operation.perform(scalar, value);
+                }
+            }
+        });
+        return new ImmutableSparseDoubleTensor(sparse.indexer(), keys, values, resultingContext);
+    }
+
+    /**
+     * Walks through all the keys of the sparse tensor and looks up the corresponding values in the other tensor. Since
+     * the keys of the sparse tensor are sorted, also the keys of the result will be sorted. The values are first
+     * computed at the index of the sparse entry (so that ranges of entries can be processed in parallel) and the
+     * matched entries are compacted afterwards.
+     */
+    private static ImmutableSparseDoubleTensor combineSparseWithKeyed(final BinaryOperation<Double> operation,
+            final ImmutableSparseDoubleTensor sparse, final KeyedValues other, final boolean sparseIsRight,
+            Context resultingContext, ExecutionStrategy executionStrategy) {
+        final KeyTranslation translation = KeyTranslation.between(sparse.indexer(), other.indexer);
+        int size = sparse.storedSize();
+        final double[] computed = new double[size];
+        final boolean[] matched = new boolean[size];
+        IndexRanges.forEach(size, executionStrategy, new RangeBody() {
+            @Override
+            public void process(int from, int to) {
+                for (int i = from; i < to; i++) {
+                    long otherKey = translation.translate(sparse.keyAt(i));
+                    int otherIndex = (otherKey < 0) ? -1 : other.indexOfKey(otherKey);
+                    if (otherIndex < 0) {
+                        continue;
+                    }
+                    Double sparseValue = sparse.valueAt(i);
+                    Double otherValue = other.valueAt(otherIndex);
+                    computed[i] = sparseIsRight ? operation.perform(otherValue, sparseValue) : operation.perform(
+                            sparseValue, otherValue);
+                    matched[i] = true;
+                }
+            }
+        });
+        long[] keys = new long[size];
+        double[] values = new double[size];
+        int count = 0;
+        for (int i = 0; i < size; i++) {
+            if (matched[i]) {
+                keys[count] = sparse.keyAt(i);
+                values[count] = computed[i];
+                count++;
+            }
+        }
+        return new ImmutableSparseDoubleTensor(sparse.indexer(), Arrays.copyOf(keys, count),
+                Arrays.copyOf(values, count), resultingContext);
+    }
+
+    /**
+     * Applies the given unary operation to all the values of the given sparse tensor.
+     * 
+     * @param operation the operation to apply to each value
+     * @param tensor the tensor whose values to transform
+     * @param resultingContext the context of the resulting tensor
+     * @return a new sparse tensor, with the same indexer and keys as the given one
+     */
+    public static ImmutableSparseDoubleTensor elementwise(UnaryOperation<Double> operation,
+            ImmutableSparseDoubleTensor tensor, Context resultingContext) {
+        return elementwise(operation, tensor, resultingContext, null);
+    }
+
+    /**
+     * Applies the given unary operation to all the values of the given sparse tensor, splitting the stored entries into
+     * chunks which are processed in parallel, if the given execution strategy allows it for their number.
+     * 
+     * @param operation the operation to apply to each value
+     * @param tensor the tensor whose values to transform
+     * @param resultingContext the context of the resulting tensor
+     * @param executionStrategy the strategy deciding on parallel execution; {@code null} means sequential
+     * @return a new sparse tensor, with the same indexer and keys as the given one
+     */
+    public static ImmutableSparseDoubleTensor elementwise(final UnaryOperation<Double> operation,
+            final ImmutableSparseDoubleTensor tensor, Context resultingContext, ExecutionStrategy executionStrategy) {
+        int size = tensor.storedSize();
+        final long[] keys = new long[size];
+        final double[] values = new double[size];
+        IndexRanges.forEach(size, executionStrategy, new RangeBody() {
+            @Override
+            public void process(int from, int to) {
+                for (int i = from; i < to; i++) {
+                    keys[i] = tensor.keyAt(i);
+                    values[i] = operation.perform(tensor.valueAt(i));
+                }
+            }
+        });
+        return new ImmutableSparseDoubleTensor(tensor.indexer(), keys, values, resultingContext);
+    }
+
+    /**
+     * Checks if the given tensor can be reduced in the given dimension directly on its keys. This is the case, if the
+     * tensor is sparse and the dimension is exactly one of its dimensions.
+     * 
+     * @param tensor the tensor to check
+     * @param dimension the dimension in which the tensor shall be reduced
+     * @return {@code true} if {@link #reduce(ImmutableSparseDoubleTensor, Class, ReductionStrategy, Context)} can be
+     *         used, {@code false} otherwise
+     */
+    public static boolean canReduce(Tensor<?> tensor, Class<?> dimension) {
+        return isSparse(tensor) && ((ImmutableSparseDoubleTensor) tensor).indexer().dimensions().contains(dimension);
+    }
+
+    /**
+     * Reduces the given sparse tensor in the given dimension. The keys are projected onto the remaining dimensions and
+     * sorted by these projections, so that all the values which have to be reduced together are adjacent. Positions
+     * are only created for the remaining entries (which are passed to the strategy).
+     * 
+     * @param tensor the tensor to reduce
+     * @param dimension the dimension in which to reduce the tensor
+     * @param strategy the strategy which reduces the values of one line in the given direction
+     * @param resultingContext the context of the resulting tensor
+     * @return a new sparse tensor without the given dimension
+     */
+    @SuppressWarnings("unchecked")
+    public static <C> ImmutableSparseDoubleTensor reduce(ImmutableSparseDoubleTensor tensor,
+            Class<? extends C> dimension, ReductionStrategy<? super C, Double> strategy, Context resultingContext) {
+        PositionIndexer indexer = tensor.indexer();
+        int dimensionIndex = indexer.dimensionIndexOf(dimension);
+        PositionIndexer reducedIndexer = indexer.without(dimension);
+        KeyTranslation projection = KeyTranslation.onCommonDimensions(indexer, reducedIndexer);
+
+        int size = tensor.storedSize();
+        long[] projectedKeys = new long[size];
+        for (int i = 0; i < size; i++) {
+            projectedKeys[i] = projection.translate(tensor.keyAt(i));
+        }
+        int[] order = KeySorting.sortedOrder(projectedKeys, size);
+
+        long[] keys = new long[size];
+        double[] values = new double[size];
+        int count = 0;
+        int lineStart = 0;
+        while (lineStart < size) {
+            long reducedKey = projectedKeys[order[lineStart]];
+            ImmutableMap.Builder<C, Double> lineBuilder = ImmutableMap.builder();
+            int lineEnd = lineStart;
+            for (; lineEnd < size && projectedKeys[order[lineEnd]] == reducedKey; lineEnd++) {
+                int index = order[lineEnd];
+                C coordinate = (C) indexer.coordinateAt(dimensionIndex, indexer.ordinalOf(tensor.keyAt(index),
+                        dimensionIndex));
+                lineBuilder.put(coordinate, tensor.valueAt(index));
+            }
+            Double reducedValue = strategy.reduce(lineBuilder.build(), reducedIndexer.positionForKey(reducedKey));
+            if (reducedValue != null) {
+                keys[count] = reducedKey;
+                values[count] = reducedValue;
+                count++;
+            }
+            lineStart = lineEnd;
+        }
+        return new ImmutableSparseDoubleTensor(reducedIndexer, Arrays.copyOf(keys, count), Arrays.copyOf(values,
+                count), resultingContext);
+    }
+
+    /**
+     * Checks if the two given tensors can be contracted directly on their keys by
+     * {@link #contract(BinaryOperation, BinaryOperation, Tensor, Tensor, List, Context)}. This is the case if both of
+     * them are either sparse or double array backed.
+     * 
+     * @param left the left operand of an inner product
+     * @param right the right operand of an inner product
+     * @return {@code true} if the tensors can be contracted on key level, {@code false} otherwise
+     */
+    public static boolean canContract(Tensor<?> left, Tensor<?> right) {
+        return isKeyed(left) && isKeyed(right);
+    }
+
+    /**
+     * Calculates the inner product of the two given tensors, using the given element operation and summing up the
+     * results by the given addition. The semantics are the same as the ones of the
+     * {@link org.tensorics.core.tensor.operations.InnerTensorOperation} with a sum as reduction and the default
+     * broadcasting strategy: Each pair of entries, whose coordinates agree in all common (not reduced) dimensions and
+     * in all the given co- and contravariant pairs, contributes to the target entry which is composed of all the
+     * remaining coordinates of the two entries.
+     * <p>
+     * The right entries are sorted by their join keys (composed of the ordinals of the coordinates which have to
+     * match) once. Then for each left entry, the matching right entries are found by a binary search. If the key space
+     * of the target is not bigger than the bigger operand, the contributions are summed up directly in an array over
+     * the target keys (e.g. for matrix-vector products of dense tensors). Otherwise, the contributions are collected,
+     * sorted by their target key and summed up afterwards.
+     * 
+     * @param elementOperation the operation to apply to each pair of matching values
+     * @param addition the operation by which the contributions to one target entry are summed up
+     * @param left the left operand
+     * @param right the right operand
+     * @param pairsToReduce the pairs of dimensions to reduce
+     * @param resultingContext the context of the resulting tensor
+     * @return a new tensor, which is double array backed if it contains a value for all the combinations of its
+     *         coordinates and sparse otherwise
+     */
+    public static Tensor<Double> contract(BinaryOperation<Double> elementOperation, BinaryOperation<Double> addition,
+            Tensor<Double> left, Tensor<Double> right, List<CoContraDimensionPair> pairsToReduce,
+            Context resultingContext) {
+        if (!canContract(left, right)) {
+            throw new IllegalArgumentException("The given tensors cannot be contracted on key level.");
+        }
+        return new Contraction(KeyedValues.of(left), KeyedValues.of(right), pairsToReduce).perform(elementOperation,
+                addition, resultingContext);
+    }
+
+    private static boolean isKeyed(Tensor<?> tensor) {
+        return isSparse(tensor) || ArrayBackedTensors.isDoubleArrayBacked(tensor);
+    }
+
+    private static boolean isScalar(Tensor<?> tensor) {
+        return !isSparse(tensor) && (tensor.shape().dimensionality() == 0)
+                && tensor.shape().contains(Position.empty());
+    }
+
+    private static PositionIndexer indexerOf(Tensor<?> tensor) {
+        if (isSparse(tensor)) {
+            return ((ImmutableSparseDoubleTensor) tensor).indexer();
+        }
+        return ((ImmutableDoubleArrayBackedTensor) tensor).indexer();
+    }
+
+    /**
+     * Uniform access to the keys and values of sparse and double array backed tensors. For the latter, the keys are
+     * simply the array indizes.
+     */
+    private static final class KeyedValues {
+
+        private final PositionIndexer indexer;
+        private final ImmutableSparseDoubleTensor sparse;
+        private final ImmutableDoubleArrayBackedTensor dense;
+
+        private KeyedValues(PositionIndexer indexer, ImmutableSparseDoubleTensor sparse,
+                ImmutableDoubleArrayBackedTensor dense) {
+            this.indexer = indexer;
+            this.sparse = sparse;
+            this.dense = dense;
+        }
+
+        static KeyedValues of(Tensor<Double> tensor) {
+            if (isSparse(tensor)) {
+                ImmutableSparseDoubleTensor sparse = (ImmutableSparseDoubleTensor) tensor;
+                return new KeyedValues(sparse.indexer(), sparse, null);
+            }
+            ImmutableDoubleArrayBackedTensor dense = (ImmutableDoubleArrayBackedTensor) tensor;
+            return new KeyedValues(dense.indexer(), null, dense);
+        }
+
+        int size() {
+            return (sparse == null) ? dense.size() : sparse.storedSize();
+        }
+
+        long keyAt(int index) {
+            return (sparse == null) ? index : sparse.keyAt(index);
+        }
+
+        double valueAt(int index) {
+            return (sparse == null) ? dense.valueAt(index) : sparse.valueAt(index);
+        }
+
+        int indexOfKey(long key) {
+            return (sparse == null) ? (int) key : sparse.indexOfKey(key);
+        }
+    }
+
+    /**
+     * Encapsulates the translations of keys which are required for one contraction of two tensors.
+     */
+    private static final class Contraction {
+
+        private final KeyedValues left;
+        private final KeyedValues right;
+        private final PositionIndexer target;
+        private final KeyTranslation leftJoin;
+        private final KeyTranslation rightJoin;
+        private final KeyTranslation leftTarget;
+        private final KeyTranslation rightTarget;
+
+        Contraction(KeyedValues left, KeyedValues right, List<CoContraDimensionPair> pairsToReduce) {
+            this.left = left;
+            this.right = right;
+
+            Set<Class<?>> remainingLeft = Sets.difference(left.indexer.dimensions(),
+                    CoContraDimensionPairs.leftDimensionsIn(pairsToReduce));
+            Set<Class<?>> remainingRight = Sets.difference(right.indexer.dimensions(),
+                    CoContraDimensionPairs.rightDimensionsIn(pairsToReduce));
+            Set<Class<?>> common = Sets.intersection(remainingLeft, remainingRight);
+            Set<Class<?>> uniqueRight = Sets.difference(remainingRight, common);
+
+            this.target = createTarget(remainingLeft, common, uniqueRight);
+
+            KeyTranslation.Builder leftJoinBuilder = KeyTranslation.from(left.indexer);
+            KeyTranslation.Builder rightJoinBuilder = KeyTranslation.from(right.indexer);
+            long joinFactor = 1;
+            for (Class<?> dimension : common) {
+                leftJoinBuilder.map(dimension, target, dimension, joinFactor);
+                rightJoinBuilder.map(dimension, target, dimension, joinFactor);
+                joinFactor *= target.sizeOf(target.dimensionIndexOf(dimension));
+            }
+            for (final CoContraDimensionPair pair : pairsToReduce) {
+                leftJoinBuilder.map(pair.left(), right.indexer, pair.right(), new Function<Object, Object>() {
+                    @Override
+                    public Object apply(Object coordinate) {
+                        return pair.toRight(coordinate);
+                    }
+                }, joinFactor);
+                rightJoinBuilder.map(pair.right(), right.indexer, pair.right(), joinFactor);
+                joinFactor *= right.indexer.sizeOf(right.indexer.dimensionIndexOf(pair.right()));
+            }
+            this.leftJoin = leftJoinBuilder.build();
+            this.rightJoin = rightJoinBuilder.build();
+
+            KeyTranslation.Builder leftTargetBuilder = KeyTranslation.from(left.indexer);
+            for (Class<?> dimension : remainingLeft) {
+                leftTargetBuilder.map(dimension, target, dimension, target.factorOf(target.dimensionIndexOf(dimension)));
+            }
+            this.leftTarget = leftTargetBuilder.build();
+
+            KeyTranslation.Builder rightTargetBuilder = KeyTranslation.from(right.indexer);
+            for (Class<?> dimension : uniqueRight) {
+                rightTargetBuilder
+                        .map(dimension, target, dimension, target.factorOf(target.dimensionIndexOf(dimension)));
+            }
+            this.rightTarget = rightTargetBuilder.build();
+        }
+
+        /**
+         * The target indexer contains all the remaining dimensions of both sides. For the common dimensions, only
+         * coordinates which are present in both indexers can occur in the result.
+         */
+        @SuppressWarnings("unchecked")
+        private PositionIndexer createTarget(Set<Class<?>> remainingLeft, Set<Class<?>> common,
+                Set<Class<?>> uniqueRight) {
+            PositionIndexer.Builder builder = PositionIndexer.builder();
+            for (Class<?> dimension : remainingLeft) {
+                Set<Object> coordinates = new LinkedHashSet<>();
+                int rightDimensionIndex = common.contains(dimension) ? right.indexer.dimensionIndexOf(dimension) : -1;
+                for (Object coordinate : left.indexer.coordinatesFor(dimension)) {
+                    if (rightDimensionIndex < 0 || right.indexer.ordinalFor(rightDimensionIndex, coordinate) >= 0) {
+                        coordinates.add(coordinate);
+                    }
+                }
+                builder.put((Class<Object>) dimension, coordinates);
+            }
+            for (Class<?> dimension : uniqueRight) {
+                builder.put((Class<Object>) dimension, new LinkedHashSet<>(right.indexer.coordinatesFor(dimension)));
+            }
+            return builder.buildUnbounded();
+        }
+
+        Tensor<Double> perform(BinaryOperation<Double> elementOperation, BinaryOperation<Double> addition,
+                Context resultingContext) {
+            /* Sort the right entries by their join keys */
+            int rightSize = right.size();
+            long[] rightJoinKeys = new long[rightSize];
+            int[] rightIndizes = new int[rightSize];
+            int rightCount = 0;
+            for (int i = 0; i < rightSize; i++) {
+                long joinKey = rightJoin.translate(right.keyAt(i));
+                if (joinKey >= 0) {
+                    rightJoinKeys[rightCount] = joinKey;
+                    rightIndizes[rightCount] = i;
+                    rightCount++;
+                }
+            }
+            int[] order = KeySorting.sortedOrder(rightJoinKeys, rightCount);
+            long[] sortedJoinKeys = new long[rightCount];
+            long[] sortedTargetKeys = new long[rightCount];
+            double[] sortedValues = new double[rightCount];
+            for (int i = 0; i < rightCount; i++) {
+                int index = rightIndizes[order[i]];
+                sortedJoinKeys[i] = rightJoinKeys[order[i]];
+                sortedTargetKeys[i] = rightTarget.translate(right.keyAt(index));
+                sortedValues[i] = right.valueAt(index);
+            }
+
+            if (target.isArrayCapable() && target.keySpaceSize() <= Math.max(left.size(), rightCount)) {
+                return accumulateDense(elementOperation, addition, sortedJoinKeys, sortedTargetKeys, sortedValues,
+                        resultingContext);
+            }
+
+            /* Find the matching right entries for each left one and collect the contributions */
+            long[] contributionKeys = new long[Math.max(left.size(), rightCount)];
+            double[] contributionValues = new double[contributionKeys.length];
+            int count = 0;
+            for (int i = 0; i < left.size(); i++) {
+                long joinKey = leftJoin.translate(left.keyAt(i));
+                if (joinKey < 0) {
+                    continue;
+                }
+                long leftTargetKey = leftTarget.translate(left.keyAt(i));
+                Double leftValue = left.valueAt(i);
+                for (int j = KeySorting.lowerBound(sortedJoinKeys, 0, rightCount, joinKey); j < rightCount
+                        && sortedJoinKeys[j] == joinKey; j++) {
+                    if (count == contributionKeys.length) {
+                        contributionKeys = Arrays.copyOf(contributionKeys, 2 * count + 1);
+                        contributionValues = Arrays.copyOf(contributionValues, contributionKeys.length);
+                    }
+                    contributionKeys[count] = leftTargetKey + sortedTargetKeys[j];
+                    contributionValues[count] = elementOperation.perform(leftValue, sortedValues[j]);
+                    count++;
+                }
+            }
+
+            /* Sum up all contributions to the same target key */
+            int[] contributionOrder = KeySorting.sortedOrder(contributionKeys, count);
+            long[] resultKeys = new long[count];
+            double[] resultValues = new double[count];
+            int resultCount = 0;
+            for (int i = 0; i < count; i++) {
+                int index = contributionOrder[i];
+                if (resultCount > 0 && resultKeys[resultCount - 1] == contributionKeys[index]) {
+                    resultValues[resultCount - 1] = addition.perform(resultValues[resultCount - 1],
+                            contributionValues[index]);
+                } else {
+                    resultKeys[resultCount] = contributionKeys[index];
+                    resultValues[resultCount] = contributionValues[index];
+                    resultCount++;
+                }
+            }
+
+            if (target.isArrayCapable() && resultCount == target.keySpaceSize()) {
+                return new ImmutableDoubleArrayBackedTensor(target, Arrays.copyOf(resultValues, resultCount),
+                        resultingContext);
+            }
+            return new ImmutableSparseDoubleTensor(target, Arrays.copyOf(resultKeys, resultCount), Arrays.copyOf(
+                    resultValues, resultCount), resultingContext);
+        }
+
+        /**
+         * Sums up the contributions directly into an array over all the target keys. The first contribution to a target
+         * key is taken as is, the following ones are added to it, in the same order as they would be when sorting.
+         */
+        private Tensor<Double> accumulateDense(BinaryOperation<Double> elementOperation,
+                BinaryOperation<Double> addition, long[] sortedJoinKeys, long[] sortedTargetKeys,
+                double[] sortedValues, Context resultingContext) {
+            int rightCount = sortedJoinKeys.length;
+            double[] sums = new double[(int) target.keySpaceSize()];
+            BitSet present = new BitSet(sums.length);
+            for (int i = 0; i < left.size(); i++) {
+                long joinKey = leftJoin.translate(left.keyAt(i));
+                if (joinKey < 0) {
+                    continue;
+                }
+                long leftTargetKey = leftTarget.translate(left.keyAt(i));
+                Double leftValue = left.valueAt(i);
+                for (int j = KeySorting.lowerBound(sortedJoinKeys, 0, rightCount, joinKey); j < rightCount
+                        && sortedJoinKeys[j] == joinKey; j++) {
+                    int targetIndex = (int) (leftTargetKey + sortedTargetKeys[j]);
+                    double contribution = elementOperation.perform(leftValue, sortedValues[j]);
+                    if (present.get(targetIndex)) {
+                        sums[targetIndex] = addition.perform(sums[targetIndex], contribution);
+                    } else {
+                        sums[targetIndex] = contribution;
+                        present.set(targetIndex);
+                    }
+                }
+            }
+
+            int resultCount = present.cardinality();
+            if (resultCount == sums.length) {
+                return new ImmutableDoubleArrayBackedTensor(target, sums, resultingContext);
+            }
+            long[] resultKeys = new long[resultCount];
+            double[] resultValues = new double[resultCount];
+            int index = 0;
+            for (int key = present.nextSetBit(0); key >= 0; key = present.nextSetBit(key + 1)) {
+                resultKeys[index] = key;
+                resultValues[index] = sums[key];
+                index++;
+            }
+            return new ImmutableSparseDoubleTensor(target, resultKeys, resultValues, resultingContext);
+        }
+    }
+
+}
@@ -44,4 +44,11 @@ public interface EditableResolvingContext extends ResolvingContext {
      */
     void putAllNew(ResolvingContext context);
 
+    /**
+     * Removes the resolved value of the given expression from the context, so that it has to be resolved again
+     * 
+     * @param expression the expression whose value shall be removed
+     */
+    void remove(Expression<?> expression);
+
 }
@@ -31,7 +31,7 @@ import java.util.List;
  * @author kfuchsbe
  * @param <R> the type of the resulting value of the expression
  */
-public final class ResolvedExpression<R> implements Expression<R> {
+public final class ResolvedExpression<R> implements Expression<R>, StructuralNode {
 
     private final R value;
 
@@ -59,4 +59,9 @@ public final class ResolvedExpression<R> implements Expression<R> {
         return Collections.emptyList();
     }
 
+    @Override
+    public List<?> getAttributes() {
+        return Collections.singletonList(value);
+    }
+
 }
\ No newline at end of file
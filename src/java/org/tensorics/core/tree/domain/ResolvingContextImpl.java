@@ -22,7 +22,6 @@
 
 package org.tensorics.core.tree.domain;
 
-import java.util.HashMap;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.concurrent.ConcurrentHashMap;
@@ -39,7 +38,7 @@ public class ResolvingContextImpl implements EditableResolvingContext {
 
     @Override
     public void putAllNew(ResolvingContext context) {
-        for (Entry<Object, Object> entry : ((ResolvingContextImpl) context).getRebuildingMap().entrySet()) {
+        for (Entry<Object, Object> entry : ((ResolvingContextImpl) context).resolvedExpressions.entrySet()) {
             if (!resolvedExpressions.containsKey(entry.getKey())) {
                 resolvedExpressions.put(entry.getKey(), entry.getValue());
             }
@@ -51,16 +50,6 @@ public class ResolvingContextImpl implements EditableResolvingContext {
         return this.resolvedExpressions.size();
     }
 
-    /**
-     * Returns a map of instruction nodes to instruction nodes, which contains the nodes to be replaced as key and the
-     * nodes which shall replace the old nodes as values.
-     * 
-     * @return the replacement mapping
-     */
-    private Map<Object, Object> getRebuildingMap() {
-        return new HashMap<>(resolvedExpressions);
-    }
-
     @Override
     public <E extends Expression<?>> boolean resolves(E expression) {
         return expression.isResolved() || resolvedExpressions.containsKey(expression);
@@ -88,4 +77,9 @@ public class ResolvingContextImpl implements EditableResolvingContext {
         resolvedExpressions.put(key, value);
     }
 
+    @Override
+    public void remove(Expression<?> expression) {
+        resolvedExpressions.remove(expression);
+    }
+
 }
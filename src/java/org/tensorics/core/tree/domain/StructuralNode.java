@@ -0,0 +1,43 @@
+// @formatter:off
+ /*******************************************************************************
+ *
+ * This file is part of tensorics.
+ * 
+ * Copyright (c) 2008-2011, CERN. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ ******************************************************************************/
+// @formatter:on
+
+package org.tensorics.core.tree.domain;
+
+import java.util.List;
+
+/**
+ * This interface represents a {@link Node}, whose result is completely determined by its children and some additional
+ * attributes (e.g. the operation to apply). Two nodes of the same class with equal attributes and the same children
+ * therefore always give the same result and can be replaced by one of them.
+ * 
+ * @author kfuchsbe
+ */
+public interface StructuralNode extends Node {
+
+    /**
+     * Retrieves all the attributes, except the children, which determine the result of the node.
+     * 
+     * @return the attributes of the node
+     */
+    List<?> getAttributes();
+
+}
@@ -0,0 +1,125 @@
+// @formatter:off
+ /*******************************************************************************
+ *
+ * This file is part of tensorics.
+ * 
+ * Copyright (c) 2008-2011, CERN. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ ******************************************************************************/
+// @formatter:on
+
+package org.tensorics.core.tree.walking;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.tensorics.core.tree.domain.Expression;
+import org.tensorics.core.tree.domain.Node;
+import org.tensorics.core.tree.domain.RebuildableNode;
+import org.tensorics.core.tree.domain.RebuildingContext;
+import org.tensorics.core.tree.domain.RebuildingContextImpl;
+import org.tensorics.core.tree.domain.ResolvingContext;
+import org.tensorics.core.tree.domain.StructuralNode;
+
+/**
+ * Utility methods to find sub trees, which occur several times within a tree and to replace them by one single
+ * instance. Since the resolving context identifies the nodes by their equals method (which in most cases is identity),
+ * each sub tree is then resolved only once.
+ * 
+ * @author kfuchsbe
+ */
+public final class CommonSubexpressions {
+
+    private CommonSubexpressions() {
+        /* only static methods */
+    }
+
+    /**
+     * Rebuilds the given tree such that all the {@link StructuralNode}s of the same class, with equal attributes and
+     * the same children, are replaced by the first one of them. The tree is walked only once, children before their
+     * parents, so that equal children are already unified when the parent is compared. Only {@link RebuildableNode}s
+     * are rebuilt and they are rebuilt only if one of their children changed. Nodes which are already resolved in the
+     * given context are kept as they are, as well as their sub trees.
+     * 
+     * @param rootNode the root node of the tree in which to eliminate the common sub expressions
+     * @param context the context of the already resolved expressions
+     * @return the new root node, or the same node, if nothing had to be replaced
+     */
+    public static <T extends Node> T eliminateIn(T rootNode, ResolvingContext context) {
+        RebuildingContext rebuildingContext = new RebuildingContextImpl();
+        Map<List<?>, Node> uniqueNodes = new HashMap<>();
+        Set<Node> expanded = new HashSet<>();
+        Deque<Node> toVisit = new ArrayDeque<>();
+        toVisit.push(rootNode);
+        while (!toVisit.isEmpty()) {
+            Node node = toVisit.peek();
+            if (rebuildingContext.containsUpdated(node)) {
+                toVisit.pop();
+                continue;
+            }
+            boolean isResolvedInContext = isResolvedInContext(node, context);
+            if (!isResolvedInContext && (node instanceof RebuildableNode) && expanded.add(node)) {
+                for (Node child : node.getChildren()) {
+                    if (!rebuildingContext.containsUpdated(child)) {
+                        toVisit.push(child);
+                    }
+                }
+                continue;
+            }
+            toVisit.pop();
+            if (isResolvedInContext) {
+                rebuildingContext.put(node, node);
+            } else {
+                rebuildingContext.put(node, uniqueNode(rebuilt(node, rebuildingContext), uniqueNodes));
+            }
+        }
+        return rebuildingContext.getUpdatedOrSame(rootNode);
+    }
+
+    private static boolean isResolvedInContext(Node node, ResolvingContext context) {
+        if (!(node instanceof Expression)) {
+            return false;
+        }
+        Expression<?> expression = (Expression<?>) node;
+        return !expression.isResolved() && context.resolves(expression);
+    }
+
+    private static Node rebuilt(Node node, RebuildingContext rebuildingContext) {
+        if (node instanceof RebuildableNode) {
+            return ((RebuildableNode<?>) node).rebuildWithNewChildren(rebuildingContext);
+        }
+        return node;
+    }
+
+    private static Node uniqueNode(Node node, Map<List<?>, Node> uniqueNodes) {
+        if (!(node instanceof StructuralNode)) {
+            return node;
+        }
+        List<?> key = Arrays.asList(node.getClass(), ((StructuralNode) node).getAttributes(), node.getChildren());
+        Node uniqueNode = uniqueNodes.get(key);
+        if (uniqueNode == null) {
+            uniqueNodes.put(key, node);
+            return node;
+        }
+        return uniqueNode;
+    }
+
+}
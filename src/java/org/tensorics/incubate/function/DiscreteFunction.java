@@ -23,6 +23,7 @@
 package org.tensorics.incubate.function;
 
 import java.io.Serializable;
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -46,4 +47,19 @@ public interface DiscreteFunction<X extends Comparable<? super X>, Y> extends Ke
     List<Y> getYs();
 
     List<Y> getYsErr();
+
+    /**
+     * Evaluates the function at several x values at once. Implementations should override this method, if they can
+     * make use of the ordering of the x values (e.g. by walking through their own x values only once).
+     * 
+     * @param sortedXValues the x values at which to evaluate the function, in ascending order
+     * @return the y values, in the same order as the given x values
+     */
+    default List<Y> getYs(List<X> sortedXValues) {
+        List<Y> ys = new ArrayList<>(sortedXValues.size());
+        for (X xValue : sortedXValues) {
+            ys.add(getY(xValue));
+        }
+        return ys;
+    }
 }
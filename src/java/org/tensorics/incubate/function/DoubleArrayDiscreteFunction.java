@@ -0,0 +1,370 @@
+// @formatter:off
+ /*******************************************************************************
+ *
+ * This file is part of tensorics.
+ * 
+ * Copyright (c) 2008-2011, CERN. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ ******************************************************************************/
+// @formatter:on
+
+package org.tensorics.incubate.function;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import com.google.common.primitives.Doubles;
+
+/**
+ * A discrete function of doubles, which keeps its values in primitive arrays, sorted by the x values. Compared to
+ * {@link SortedMapBackedDiscreteFunction} this avoids one boxed object per value and map entry, which makes it suitable
+ * for functions with millions of samples. The lists returned by {@link #getXs()}, {@link #getYs()} and
+ * {@link #getYsErr()} are unmodifiable views on the arrays, so retrieving them does not copy anything.
+ * <p>
+ * Values are found by binary search. If a value is requested for an x value which is not contained, it is interpolated
+ * by the interpolation strategy, if one is given. Otherwise an {@link IllegalDiscreteFunctionUsageException} is thrown.
+ * <p>
+ * This class is immutable.
+ * 
+ * @author kfuchsbe
+ */
+public final class DoubleArrayDiscreteFunction implements DiscreteFunction<Double, Double> {
+    private static final long serialVersionUID = 1L;
+
+    private static final String NO_NAME = "NO NAME";
+    private static final double[] NO_VALUES = new double[0];
+
+    private final String name;
+    private final double[] xs;
+    private final double[] ys;
+    private final double[] errors;
+    private final InterpolationStrategy<Double, Double> interpolationStrategy;
+
+    private DoubleArrayDiscreteFunction(String name, double[] xs, double[] ys, double[] errors,
+            InterpolationStrategy<Double, Double> interpolationStrategy) {
+        this.name = name;
+        this.xs = xs;
+        this.ys = ys;
+        this.errors = errors;
+        this.interpolationStrategy = interpolationStrategy;
+    }
+
+    /**
+     * Creates a function without errors from the given values. The arrays are copied and sorted by the x values, if
+     * necessary.
+     * 
+     * @param xs the x values of the function, which must be unique
+     * @param ys the y values, corresponding to the x values
+     * @return a new function with the given values
+     * @throws IllegalArgumentException if the arrays are of different length or if x values are duplicated
+     */
+    public static DoubleArrayDiscreteFunction of(double[] xs, double[] ys) {
+        return of(xs, ys, NO_VALUES);
+    }
+
+    /**
+     * Creates a function from the given values and errors. The arrays are copied and sorted by the x values, if
+     * necessary.
+     * 
+     * @param xs the x values of the function, which must be unique
+     * @param ys the y values, corresponding to the x values
+     * @param errors the errors of the y values. This array may also be empty, if there are no errors.
+     * @return a new function with the given values
+     * @throws IllegalArgumentException if the arrays are of different length or if x values are duplicated
+     */
+    public static DoubleArrayDiscreteFunction of(double[] xs, double[] ys, double[] errors) {
+        return sorted(NO_NAME, xs.clone(), ys.clone(), errors.clone(), null);
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    private static DoubleArrayDiscreteFunction sorted(String name, double[] xs, double[] ys, double[] errors,
+            InterpolationStrategy<Double, Double> strategy) {
+        if ((xs.length != ys.length) || ((errors.length != 0) && (errors.length != xs.length))) {
+            throw new IllegalArgumentException("Cannot create discrete function from two diffrent size arrays");
+        }
+        if (!isAscending(xs)) {
+            sortByXs(xs, ys, errors);
+        }
+        for (int i = 1; i < xs.length; i++) {
+            if (xs[i - 1] == xs[i]) {
+                throw new IllegalArgumentException("Multiple values given for x=" + xs[i] + ".");
+            }
+        }
+        return new DoubleArrayDiscreteFunction(name, xs, ys, errors, strategy);
+    }
+
+    private static boolean isAscending(double[] values) {
+        for (int i = 1; i < values.length; i++) {
+            if (values[i - 1] > values[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void sortByXs(double[] xs, double[] ys, double[] errors) {
+        Integer[] order = new Integer[xs.length];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        final double[] originalXs = xs.clone();
+        Arrays.sort(order, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer left, Integer right) {
+                return Double.compare(originalXs[left], originalXs[right]);
+            }
+        });
+        double[] originalYs = ys.clone();
+        double[] originalErrors = errors.clone();
+        for (int i = 0; i < order.length; i++) {
+            xs[i] = originalXs[order[i]];
+            ys[i] = originalYs[order[i]];
+            if (errors.length != 0) {
+                errors[i] = originalErrors[order[i]];
+            }
+        }
+    }
+
+    /**
+     * @param newName the name of the new function
+     * @return a function with the same values, but the given name. The values are shared, not copied.
+     */
+    public DoubleArrayDiscreteFunction withName(String newName) {
+        return new DoubleArrayDiscreteFunction(newName, xs, ys, errors, interpolationStrategy);
+    }
+
+    /**
+     * @param strategy the strategy to interpolate values which are not contained in the function
+     * @return a function with the same values, but the given strategy. The values are shared, not copied.
+     */
+    public DoubleArrayDiscreteFunction withInterpolationStrategy(InterpolationStrategy<Double, Double> strategy) {
+        return new DoubleArrayDiscreteFunction(name, xs, ys, errors, strategy);
+    }
+
+    /**
+     * @param scale the factor by which to multiply the y values (and their errors)
+     * @return a new function with the same x values (shared with this function) and scaled y values
+     */
+    public DoubleArrayDiscreteFunction scaledBy(double scale) {
+        double[] scaledYs = new double[ys.length];
+        for (int i = 0; i < ys.length; i++) {
+            scaledYs[i] = ys[i] * scale;
+        }
+        double[] scaledErrors = new double[errors.length];
+        for (int i = 0; i < errors.length; i++) {
+            scaledErrors[i] = errors[i] * Math.abs(scale);
+        }
+        return new DoubleArrayDiscreteFunction(name, xs, scaledYs, scaledErrors, interpolationStrategy);
+    }
+
+    public int size() {
+        return xs.length;
+    }
+
+    public double xAt(int index) {
+        return xs[index];
+    }
+
+    public double yAt(int index) {
+        return ys[index];
+    }
+
+    /**
+     * @param xValue the x value to search
+     * @return the index of the given x value, or a negative value (as {@link Arrays#binarySearch(double[], double)}),
+     *         if it is not contained
+     */
+    public int indexOf(double xValue) {
+        return Arrays.binarySearch(xs, xValue);
+    }
+
+    @Override
+    public Double getY(Double xValue) {
+        int index = indexOf(xValue);
+        if (index >= 0) {
+            return ys[index];
+        }
+        return interpolationStrategy().interpolate(xValue, this);
+    }
+
+    /**
+     * Evaluates the function at all the given x values, walking once through the x values of the function. If the
+     * interpolation strategy is linear, also the interpolation is done directly on the arrays.
+     * 
+     * @param sortedXValues the x values at which to evaluate the function, in ascending order
+     * @return the values of the function at the given x values
+     */
+    public double[] getYs(double[] sortedXValues) {
+        if (interpolationStrategy instanceof LinearInterpolationStrategy) {
+            return LinearInterpolationStrategy.interpolate(sortedXValues, xs, ys);
+        }
+        double[] result = new double[sortedXValues.length];
+        List<Integer> missingIndices = new ArrayList<>();
+        List<Double> missingXs = new ArrayList<>();
+        int index = 0;
+        for (int i = 0; i < sortedXValues.length; i++) {
+            double xValue = sortedXValues[i];
+            while ((index < xs.length) && (xs[index] < xValue)) {
+                index++;
+            }
+            if ((index < xs.length) && (xs[index] == xValue)) {
+                result[i] = ys[index];
+            } else {
+                missingIndices.add(i);
+                missingXs.add(xValue);
+            }
+        }
+        if (!missingXs.isEmpty()) {
+            List<Double> interpolated = interpolationStrategy().interpolate(missingXs, this);
+            for (int i = 0; i < missingIndices.size(); i++) {
+                result[missingIndices.get(i)] = interpolated.get(i);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public List<Double> getYs(List<Double> sortedXValues) {
+        return Doubles.asList(getYs(Doubles.toArray(sortedXValues)));
+    }
+
+    private InterpolationStrategy<Double, Double> interpolationStrategy() {
+        if (interpolationStrategy == null) {
+            throw new IllegalDiscreteFunctionUsageException(
+                    "No interpolation Strategy found and No values can be found for given argument.");
+        }
+        return interpolationStrategy;
+    }
+
+    @Override
+    public List<Double> getXs() {
+        return Collections.unmodifiableList(Doubles.asList(xs));
+    }
+
+    @Override
+    public List<Double> getYs() {
+        return Collections.unmodifiableList(Doubles.asList(ys));
+    }
+
+    @Override
+    public List<Double> getYsErr() {
+        return Collections.unmodifiableList(Doubles.asList(errors));
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Sums up y * dx for all the x values between (and including) the given borders, where dx is the distance to the
+     * previous x value within the borders (or to the start for the first one).
+     * 
+     * @param start the lower border of the integration
+     * @param end the upper border of the integration
+     * @return the value of the numerical integral
+     */
+    public double integrate(double start, double end) {
+        int index = indexOf(start);
+        if (index < 0) {
+            index = -index - 1;
+        }
+        double sum = 0.0;
+        double lastX = start;
+        for (; (index < xs.length) && (xs[index] <= end); index++) {
+            sum += ys[index] * (xs[index] - lastX);
+            lastX = xs[index];
+        }
+        return sum;
+    }
+
+    @Override
+    public String toString() {
+        return "DoubleArrayDiscreteFunction [name=" + name + ", size=" + xs.length + "]";
+    }
+
+    /**
+     * The builder for functions based on double arrays. The values can be put in any order; they are sorted when the
+     * function is built.
+     * 
+     * @author kfuchsbe
+     */
+    public static final class Builder implements DiscreteFunctionBuilder<Double, Double> {
+
+        private static final int INITIAL_CAPACITY = 16;
+
+        private String name = NO_NAME;
+        private InterpolationStrategy<Double, Double> interpolationStrategy = null;
+        private double[] xs = new double[INITIAL_CAPACITY];
+        private double[] ys = new double[INITIAL_CAPACITY];
+        private double[] errors = new double[INITIAL_CAPACITY];
+        private boolean hasErrors = false;
+        private int size = 0;
+
+        Builder() {
+            /* Should only be instantiated from the static method */
+        }
+
+        @Override
+        public Builder put(Double key, Double value) {
+            return put(key.doubleValue(), value.doubleValue(), 0.0);
+        }
+
+        @Override
+        public Builder put(Double key, Double value, Double error) {
+            hasErrors = true;
+            return put(key.doubleValue(), value.doubleValue(), error.doubleValue());
+        }
+
+        private Builder put(double key, double value, double error) {
+            if (size == xs.length) {
+                int capacity = 2 * xs.length;
+                xs = Arrays.copyOf(xs, capacity);
+                ys = Arrays.copyOf(ys, capacity);
+                errors = Arrays.copyOf(errors, capacity);
+            }
+            xs[size] = key;
+            ys[size] = value;
+            errors[size] = error;
+            size++;
+            return this;
+        }
+
+        @Override
+        public Builder withInterpolationStrategy(InterpolationStrategy<Double, Double> strategy) {
+            this.interpolationStrategy = strategy;
+            return this;
+        }
+
+        @Override
+        public Builder withName(String newName) {
+            this.name = newName;
+            return this;
+        }
+
+        @Override
+        public DoubleArrayDiscreteFunction build() {
+            return sorted(name, Arrays.copyOf(xs, size), Arrays.copyOf(ys, size),
+                    hasErrors ? Arrays.copyOf(errors, size) : NO_VALUES, interpolationStrategy);
+        }
+    }
+
+}
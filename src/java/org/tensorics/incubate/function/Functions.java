@@ -27,6 +27,8 @@ import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 
+import com.google.common.primitives.Doubles;
+
 /**
  * Provides utility methods which deal with functions.
  * <p>
@@ -62,6 +64,9 @@ public final class Functions {
         double upperLimit = Math.min(firstTs.get(firstTs.size() - 1), secondTs.get(secondTs.size() - 1));
         double lowerLimit = Math.max(firstTs.get(0), secondTs.get(0));
 
+        if (first instanceof DoubleArrayDiscreteFunction) {
+            return xsStrictlyBetween((DoubleArrayDiscreteFunction) first, lowerLimit, upperLimit);
+        }
         for (Double one : firstTs) {
             if (one > lowerLimit && one < upperLimit)
                 tsToReturn.add(one);
@@ -69,17 +74,35 @@ public final class Functions {
         return tsToReturn;
     }
 
-    @SuppressWarnings("boxing")
+    private static List<Double> xsStrictlyBetween(DoubleArrayDiscreteFunction function, double lowerLimit,
+            double upperLimit) {
+        int from = function.indexOf(lowerLimit);
+        from = (from >= 0) ? from + 1 : -from - 1;
+        int to = function.indexOf(upperLimit);
+        to = (to >= 0) ? to : -to - 1;
+        double[] xs = new double[Math.max(0, to - from)];
+        for (int i = 0; i < xs.length; i++) {
+            xs[i] = function.xAt(from + i);
+        }
+        return Doubles.asList(xs);
+    }
+
+    /**
+     * Creates a discrete function from the given arrays. The function is backed by primitive arrays (see
+     * {@link DoubleArrayDiscreteFunction}).
+     * 
+     * @param times the x values of the function
+     * @param values the y values of the function
+     * @param errors the errors of the y values
+     * @return a new function containing the given values
+     * @throws IllegalArgumentException if the arrays are not of the same size
+     */
     public static DiscreteFunction<Double, Double> convertToDiscreteFunctionFrom(double[] times, double[] values,
             double[] errors) {
-        if (times.length != values.length && values.length != errors.length) {
+        if (times.length != values.length || values.length != errors.length) {
             throw new IllegalArgumentException("Cannot create discrete function from two diffrent size arrays");
         }
-        DiscreteFunctionBuilder<Double, Double> builder = SortedMapBackedDiscreteFunction.builder();
-        for (int i = 0; i < times.length; i++) {
-            builder.put(times[i], values[i], errors[i]);
-        }
-        return builder.withName("NoName").build();
+        return DoubleArrayDiscreteFunction.of(times, values, errors).withName("NoName");
     }
 
     public static DiscreteFunction<Double, Double> convertToDiscreteFunctionFrom(Map<Double, Double> map, String name) {
@@ -91,21 +114,32 @@ public final class Functions {
     }
 
     public static DiscreteFunction<Double, Double> emptyDiscreteFunction() {
-        DiscreteFunctionBuilder<Double, Double> builder = SortedMapBackedDiscreteFunction.builder();
-        return builder.withName("EMPTY").build();
+        return DoubleArrayDiscreteFunction.of(new double[0], new double[0]).withName("EMPTY");
     }
 
     public static DiscreteFunction<Double, Double> createInterpolatedFunctionFromTwoPoints(double startPoint,
             double endPoint, double length) {
-        DiscreteFunctionBuilder<Double, Double> builder = SortedMapBackedDiscreteFunction.builder();
-        builder.put(0.0, startPoint, ZERO);
-        builder.put(length, endPoint, ZERO);
-        return builder.withName("INTERPOLATED_TWO_POINTS").withInterpolationStrategy(new LinearInterpolationStrategy())
-                .build();
+        return DoubleArrayDiscreteFunction
+                .of(new double[] { ZERO, length }, new double[] { startPoint, endPoint }, new double[] { ZERO, ZERO })
+                .withName("INTERPOLATED_TWO_POINTS").withInterpolationStrategy(new LinearInterpolationStrategy());
+    }
+
+    /**
+     * Evaluates the given function at all the given x values in one call (see {@link DiscreteFunction#getYs(List)}).
+     * Resampling a function onto another grid this way is linear in the number of points, instead of requiring a
+     * search in the function for every single value.
+     * 
+     * @param function the function to evaluate
+     * @param sortedXValues the x values at which to evaluate the function, in ascending order
+     * @return the values of the function at the given x values
+     */
+    public static double[] evaluateAt(DiscreteFunction<Double, Double> function, double[] sortedXValues) {
+        return Doubles.toArray(function.getYs(Doubles.asList(sortedXValues)));
     }
 
     /**
-     * Multiplies the Y values of the given function with the value {@code scale}.
+     * Multiplies the Y values of the given function with the value {@code scale}. Functions backed by double arrays
+     * are scaled directly on their arrays (see {@link DoubleArrayDiscreteFunction#scaledBy(double)}).
      * 
      * @param function the function to scale
      * @param scale the factor, by which to multiply the function Y values
@@ -113,6 +147,9 @@ public final class Functions {
      */
     public static DiscreteFunction<Double, Double> //
     scaleFunction(DiscreteFunction<Double, Double> function, double scale) {
+        if (function instanceof DoubleArrayDiscreteFunction) {
+            return ((DoubleArrayDiscreteFunction) function).scaledBy(scale);
+        }
 
         DiscreteFunctionBuilder<Double, Double> builder = SortedMapBackedDiscreteFunction.builder();
         builder.withName(function.getName());
@@ -130,6 +167,10 @@ public final class Functions {
      * @return the value of the numerical integral
      */
     public static double integrate(DiscreteFunction<Double, Double> function) {
+        if (function instanceof DoubleArrayDiscreteFunction) {
+            DoubleArrayDiscreteFunction arrayFunction = (DoubleArrayDiscreteFunction) function;
+            return arrayFunction.integrate(arrayFunction.xAt(0), arrayFunction.xAt(arrayFunction.size() - 1));
+        }
         List<Double> xValues = function.getXs();
         double firstTime = xValues.get(0);
         double endTime = xValues.get(xValues.size() - 1);
@@ -145,6 +186,9 @@ public final class Functions {
      * @return the value calculated from the integration
      */
     public static double integrate(DiscreteFunction<Double, Double> function, double start, double end) {
+        if (function instanceof DoubleArrayDiscreteFunction) {
+            return ((DoubleArrayDiscreteFunction) function).integrate(start, end);
+        }
         double sum = 0.0;
         List<Double> xValues = function.getXs();
         double lastT = start;
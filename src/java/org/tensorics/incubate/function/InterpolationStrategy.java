@@ -23,6 +23,8 @@
 package org.tensorics.incubate.function;
 
 import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * A strategy defines how to calculate output values of a function from the a finite set of discrete values (from a
@@ -36,4 +38,20 @@ public interface InterpolationStrategy<X extends Comparable<? super X>, Y> exten
 
     Y interpolate(X xValue, DiscreteFunction<X, Y> function);
 
+    /**
+     * Interpolates the function at several x values at once. Strategies should override this method, if they can
+     * share work between the values, e.g. by walking through the x values of the function only once.
+     * 
+     * @param sortedXValues the x values at which to interpolate, in ascending order
+     * @param function the function to interpolate
+     * @return the interpolated values, in the same order as the given x values
+     */
+    default List<Y> interpolate(List<X> sortedXValues, DiscreteFunction<X, Y> function) {
+        List<Y> ys = new ArrayList<>(sortedXValues.size());
+        for (X xValue : sortedXValues) {
+            ys.add(interpolate(xValue, function));
+        }
+        return ys;
+    }
+
 }
@@ -22,11 +22,18 @@
 
 package org.tensorics.incubate.function;
 
+import java.util.Collections;
 import java.util.List;
 
+import com.google.common.primitives.Doubles;
+
 /**
  * A strategy for interpolating linearly between two values of doubles, with also the x-direction of the function being
  * double values.
+ * <p>
+ * Single values are interpolated by searching the neighbours with a binary search. For several values at once, the x
+ * and y values of the function are copied into primitive arrays once and walked through together with the (sorted)
+ * values to interpolate, so that the effort is linear in the number of points.
  * 
  * @author agorzaws
  */
@@ -36,9 +43,6 @@ public class LinearInterpolationStrategy implements InterpolationStrategy<Double
     @SuppressWarnings("boxing")
     @Override
     public Double interpolate(Double xValue, DiscreteFunction<Double, Double> function) {
-        double timeBefore = 0;
-        double timeAfter = 0;
-        boolean nextBreak = false;
         List<Double> timesInFunction = function.getXs();
 
         int size = timesInFunction.size();
@@ -46,26 +50,74 @@ public class LinearInterpolationStrategy implements InterpolationStrategy<Double
             throw new IllegalStateException(
                     "Cannot interpolate beyond function time series for only one or none points!");
         }
+        checkInRange(xValue, timesInFunction.get(0), timesInFunction.get(size - 1));
 
-        Double lastTime = timesInFunction.get(size - 1);
-        Double firstTime = timesInFunction.get(0);
-        if (xValue < firstTime || xValue > lastTime) {
-            throw new IllegalStateException("Cannot interpolate beyond function time series [" + firstTime + ", "
-                    + lastTime + "]" + " asked for " + xValue);
+        int index = Collections.binarySearch(timesInFunction, xValue);
+        List<Double> valuesInFunction = function.getYs();
+        if (index >= 0) {
+            return valuesInFunction.get(index);
         }
+        int after = -index - 1;
+        return interpolate(xValue, timesInFunction.get(after - 1), timesInFunction.get(after),
+                valuesInFunction.get(after - 1), valuesInFunction.get(after));
+    }
 
-        for (Double xVal : timesInFunction) {
-            if (nextBreak) {
-                break;
+    @Override
+    public List<Double> interpolate(List<Double> sortedXValues, DiscreteFunction<Double, Double> function) {
+        double[] ys = interpolate(Doubles.toArray(sortedXValues), Doubles.toArray(function.getXs()),
+                Doubles.toArray(function.getYs()));
+        return Doubles.asList(ys);
+    }
+
+    /**
+     * Interpolates linearly at all the given x values, by walking once through the sorted arrays.
+     * 
+     * @param sortedXValues the values at which to interpolate, in ascending order
+     * @param xs the x values of the function, in ascending order
+     * @param ys the y values of the function, corresponding to the x values
+     * @return the interpolated values, corresponding to the given x values
+     * @throws IllegalArgumentException if the x values to interpolate are not sorted
+     * @throws IllegalStateException if one of the x values is outside the range of the function
+     */
+    public static double[] interpolate(double[] sortedXValues, double[] xs, double[] ys) {
+        if (sortedXValues.length == 0) {
+            return new double[0];
+        }
+        if (xs.length < 1) {
+            throw new IllegalStateException(
+                    "Cannot interpolate beyond function time series for only one or none points!");
+        }
+        double[] interpolated = new double[sortedXValues.length];
+        int after = 0;
+        for (int i = 0; i < sortedXValues.length; i++) {
+            double xValue = sortedXValues[i];
+            if ((i > 0) && (xValue < sortedXValues[i - 1])) {
+                throw new IllegalArgumentException("The values to interpolate at have to be sorted, but "
+                        + sortedXValues[i - 1] + " is followed by " + xValue + ".");
+            }
+            checkInRange(xValue, xs[0], xs[xs.length - 1]);
+            while (xs[after] < xValue) {
+                after++;
             }
-            if (xVal >= xValue) {
-                timeAfter = xVal;
-                nextBreak = true;
+            if (xs[after] == xValue) {
+                interpolated[i] = ys[after];
+            } else {
+                interpolated[i] = interpolate(xValue, xs[after - 1], xs[after], ys[after - 1], ys[after]);
             }
         }
-        timeBefore = timesInFunction.get(timesInFunction.indexOf(timeAfter) - 1);
+        return interpolated;
+    }
+
+    private static double interpolate(double xValue, double timeBefore, double timeAfter, double valueBefore,
+            double valueAfter) {
+        return valueBefore + (Math.abs(xValue - timeBefore) / Math.abs(timeAfter - timeBefore))
+                * (valueAfter - valueBefore);
+    }
 
-        return function.getY(timeBefore) + (Math.abs(xValue - timeBefore) / Math.abs(timeAfter - timeBefore))
-                * (function.getY(timeAfter) - function.getY(timeBefore));
+    private static void checkInRange(double xValue, double firstTime, double lastTime) {
+        if (xValue < firstTime || xValue > lastTime) {
+            throw new IllegalStateException("Cannot interpolate beyond function time series [" + firstTime + ", "
+                    + lastTime + "]" + " asked for " + xValue);
+        }
     }
 }
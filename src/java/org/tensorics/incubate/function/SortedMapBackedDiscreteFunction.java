@@ -24,10 +24,10 @@ package org.tensorics.incubate.function;
 
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
-import java.util.SortedMap;
 
 import com.google.common.collect.ImmutableSortedMap;
 
@@ -43,8 +43,8 @@ public class SortedMapBackedDiscreteFunction<X extends Comparable<X>, Y> impleme
         Serializable {
     private static final long serialVersionUID = 1L;
 
-    private final SortedMap<X, Y> function;
-    private final SortedMap<X, Y> errors;
+    private final ImmutableSortedMap<X, Y> function;
+    private final ImmutableSortedMap<X, Y> errors;
     private final InterpolationStrategy<X, Y> interpolationStrategy;
     private final String name;
 
@@ -73,19 +73,63 @@ public class SortedMapBackedDiscreteFunction<X extends Comparable<X>, Y> impleme
         return interpolationStrategy.interpolate(xValue, this);
     }
 
+    /**
+     * Walks once through the x values of this function and the given ones. Values which are not available in the
+     * function are interpolated by the interpolation strategy in one call.
+     */
+    @Override
+    public List<Y> getYs(List<X> sortedXValues) {
+        List<X> xs = getXs();
+        List<Y> ys = getYs();
+        List<Y> result = new ArrayList<>(Collections.<Y> nCopies(sortedXValues.size(), null));
+        List<Integer> missingIndices = new ArrayList<>();
+        List<X> missingXs = new ArrayList<>();
+        int index = 0;
+        for (int i = 0; i < sortedXValues.size(); i++) {
+            X xValue = sortedXValues.get(i);
+            while ((index < xs.size()) && (xs.get(index).compareTo(xValue) < 0)) {
+                index++;
+            }
+            if ((index < xs.size()) && (xs.get(index).compareTo(xValue) == 0)) {
+                result.set(i, ys.get(index));
+            } else {
+                missingIndices.add(i);
+                missingXs.add(xValue);
+            }
+        }
+        if (missingXs.isEmpty()) {
+            return result;
+        }
+        if (interpolationStrategy == null) {
+            throw new IllegalDiscreteFunctionUsageException(
+                    "No interpolation Strategy found and No values can be found for given arguments: " + missingXs);
+        }
+        List<Y> interpolated = interpolationStrategy.interpolate(missingXs, this);
+        for (int i = 0; i < missingIndices.size(); i++) {
+            result.set(missingIndices.get(i), interpolated.get(i));
+        }
+        return result;
+    }
+
+    /**
+     * @return an immutable view of the x values, which does not copy them
+     */
     @Override
     public List<X> getXs() {
-        return new ArrayList<>(function.keySet());
+        return function.keySet().asList();
     }
 
+    /**
+     * @return an immutable view of the y values, which does not copy them
+     */
     @Override
     public List<Y> getYs() {
-        return new ArrayList<>(function.values());
+        return function.values().asList();
     }
 
     @Override
     public List<Y> getYsErr() {
-        return new ArrayList<>(errors.values());
+        return errors.values().asList();
     }
 
     @Override
@@ -0,0 +1,148 @@
+// @formatter:off
+ /*******************************************************************************
+ *
+ * This file is part of tensorics.
+ * 
+ * Copyright (c) 2008-2011, CERN. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ ******************************************************************************/
+// @formatter:on
+
+package org.tensorics.core.reduction;
+
+import static org.junit.Assert.assertEquals;
+import static org.tensorics.core.fields.doubles.Structures.doubles;
+
+import java.util.List;
+import java.util.Map.Entry;
+
+import org.junit.Test;
+import org.tensorics.core.lang.Tensorics;
+import org.tensorics.core.tensor.ImmutableTensor;
+import org.tensorics.core.tensor.Position;
+import org.tensorics.core.tensor.Tensor;
+import org.tensorics.core.tensor.options.ParallelExecutionStrategy;
+import org.tensorics.core.tensor.operations.TensorReduction;
+
+import com.google.common.collect.ImmutableList;
+
+public class AccumulatorsTest {
+
+    private static final double PRECISION = 1e-9;
+
+    private static final List<Double> VALUES = ImmutableList.of(2.0, 4.0, 4.0, 4.0, 5.0, 5.0, 7.0, 9.0);
+
+    @Test
+    public void statisticsOfValues() {
+        assertEquals(40.0, accumulate(Accumulators.sum(doubles()), VALUES), PRECISION);
+        assertEquals(8.0, accumulate(Accumulators.count(doubles()), VALUES), PRECISION);
+        assertEquals(5.0, accumulate(Accumulators.mean(doubles()), VALUES), PRECISION);
+        assertEquals(4.0, accumulate(Accumulators.variance(doubles()), VALUES), PRECISION);
+        assertEquals(2.0, accumulate(Accumulators.standardDeviation(doubles()), VALUES), PRECISION);
+        assertEquals(Math.sqrt(29.0), accumulate(Accumulators.rms(doubles()), VALUES), PRECISION);
+        assertEquals(2.0, accumulate(Accumulators.min(doubles()), VALUES), PRECISION);
+        assertEquals(9.0, accumulate(Accumulators.max(doubles()), VALUES), PRECISION);
+    }
+
+    @Test
+    public void combinedStatesEqualOneState() {
+        assertCombinable(Accumulators.sum(doubles()));
+        assertCombinable(Accumulators.count(doubles()));
+        assertCombinable(Accumulators.mean(doubles()));
+        assertCombinable(Accumulators.variance(doubles()));
+        assertCombinable(Accumulators.standardDeviation(doubles()));
+        assertCombinable(Accumulators.rms(doubles()));
+        assertCombinable(Accumulators.min(doubles()));
+        assertCombinable(Accumulators.max(doubles()));
+    }
+
+    @Test
+    public void sumOfNoValuesIsZero() {
+        assertEquals(0.0, accumulate(Accumulators.sum(doubles()), ImmutableList.<Double> of()), 0.0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void meanOfNoValuesThrows() {
+        accumulate(Accumulators.mean(doubles()), ImmutableList.<Double> of());
+    }
+
+    @Test
+    public void reductionByAccumulatorsEqualsMapBasedReduction() {
+        Tensor<Double> tensor = createTensor(7, 50);
+
+        assertEqualValues(Tensorics.from(tensor).reduce(Long.class).by(new Averaging<>(doubles())),
+                Tensorics.from(tensor).reduce(Long.class).byAveragingIn(doubles()));
+        assertEqualValues(Tensorics.from(tensor).reduce(Long.class).by(new RootMeanSquare<>(doubles())),
+                Tensorics.from(tensor).reduce(Long.class).byRmsIn(doubles()));
+    }
+
+    @Test
+    public void parallelStreamingReductionEqualsSequential() {
+        Tensor<Double> tensor = createTensor(13, 20_000);
+        AccumulatingReduction<Double, ?> variance = new AccumulatingReduction<>(Accumulators.variance(doubles()));
+
+        Tensor<Double> sequential = new TensorReduction<>(Long.class, variance).perform(tensor);
+        Tensor<Double> parallel = new TensorReduction<>(Long.class, variance, new ParallelExecutionStrategy(1))
+                .perform(tensor);
+
+        assertEquals(13, parallel.shape().size());
+        assertEqualValues(sequential, parallel);
+    }
+
+    private static <A> void assertCombinable(Accumulator<Double, A> accumulator) {
+        A left = accumulator.init();
+        for (Double value : VALUES.subList(0, 3)) {
+            left = accumulator.accumulate(left, value);
+        }
+        A right = accumulator.init();
+        for (Double value : VALUES.subList(3, VALUES.size())) {
+            right = accumulator.accumulate(right, value);
+        }
+        double expected = accumulate(accumulator, VALUES);
+        assertEquals(expected, accumulator.finish(accumulator.combine(left, right)), PRECISION);
+        assertEquals(expected, accumulator.finish(accumulator.combine(accumulator.init(), accumulate(accumulator,
+                VALUES, accumulator.init()))), PRECISION);
+    }
+
+    private static <A> double accumulate(Accumulator<Double, A> accumulator, List<Double> values) {
+        return accumulator.finish(accumulate(accumulator, values, accumulator.init()));
+    }
+
+    private static <A> A accumulate(Accumulator<Double, A> accumulator, List<Double> values, A initial) {
+        A accumulation = initial;
+        for (Double value : values) {
+            accumulation = accumulator.accumulate(accumulation, value);
+        }
+        return accumulation;
+    }
+
+    private static void assertEqualValues(Tensor<Double> expected, Tensor<Double> actual) {
+        assertEquals(expected.shape(), actual.shape());
+        for (Entry<Position, Double> entry : expected.asMap().entrySet()) {
+            assertEquals(entry.getValue(), actual.get(entry.getKey()), PRECISION * Math.abs(entry.getValue()));
+        }
+    }
+
+    private static Tensor<Double> createTensor(int integers, int longs) {
+        ImmutableTensor.Builder<Double> builder = ImmutableTensor.builder(Integer.class, Long.class);
+        for (int i = 0; i < integers; i++) {
+            for (long l = 0; l < longs; l++) {
+                builder.putAt(Math.sin(i + l) * 100.0 + i, i, l);
+            }
+        }
+        return builder.build();
+    }
+
+}
@@ -6,17 +6,23 @@ package org.tensorics.core.reduction;
 
 import static org.junit.Assert.assertEquals;
 
+import java.util.List;
+import java.util.Map;
+
 import org.junit.Test;
 import org.tensorics.core.lang.Tensorics;
 import org.tensorics.core.tensor.Tensor;
 import org.tensorics.core.tensor.TensorBuilder;
 
+import com.google.common.collect.ImmutableList;
+
 public class InterpolationAtTest {
 
     private static final int SIMPLE_TENSOR_PROPER_SLICE_SIZE = 2;
     private static final int BIG_TENSOR_PROPER_SLICE_SIZE = 4;
     private static final int NUMBER_OF_INCOPLETE_IN_THE_MIDDLE = 1;
     private static final int NUMBER_OF_INCOPLETE_AT_THE_END = 2;
+    private static final double PRECISION = 1e-12;
 
     private final ComparableCoordinate NOT_COMPLETE_COMPARABLE_COORDINATE_IN_THE_MIDDLE = new ComparableCoordinate(2);
     private final ComparableCoordinate NOT_COMPLETE_COMPARABLE_COORDINATE_AT_THE_END = new ComparableCoordinate(5);
@@ -82,6 +88,39 @@ public class InterpolationAtTest {
 
     }
 
+    @Test
+    public void testInterpolatedValuesBetweenAndBeyondTheNeighbours() {
+        testTenosor = getTensorThreeCoordinates();
+
+        Tensor<Double> inTheMiddle = Tensorics.from(testTenosor).reduce(ComparableCoordinate.class)
+                .byInterpolatedSlicingAt(NOT_COMPLETE_COMPARABLE_COORDINATE_IN_THE_MIDDLE)
+                .interpolatingWith(new TestInterpolation());
+        assertEquals(2.0, inTheMiddle.get(new TestNameCoordinate("TEST2"), TestEnum.ENUM1), PRECISION);
+
+        Tensor<Double> atTheEnd = Tensorics.from(testTenosor).reduce(ComparableCoordinate.class)
+                .byInterpolatedSlicingAt(NOT_COMPLETE_COMPARABLE_COORDINATE_AT_THE_END)
+                .interpolatingWith(new TestInterpolation());
+        assertEquals(3.0, atTheEnd.get(new TestNameCoordinate("TEST1"), TestEnum.ENUM1), PRECISION);
+    }
+
+    @Test
+    public void testSlicingAtAllEqualsSlicingAtEach() {
+        testTenosor = getTensorThreeCoordinates();
+        List<ComparableCoordinate> slicePositions = ImmutableList.of(new ComparableCoordinate(1),
+                NOT_COMPLETE_COMPARABLE_COORDINATE_IN_THE_MIDDLE, NOT_COMPLETE_COMPARABLE_COORDINATE_AT_THE_END);
+
+        Map<ComparableCoordinate, Tensor<Double>> slices = Tensorics.from(testTenosor)
+                .reduce(ComparableCoordinate.class).byInterpolatedSlicingAtAll(slicePositions)
+                .interpolatingWith(new TestInterpolation());
+
+        assertEquals(slicePositions, ImmutableList.copyOf(slices.keySet()));
+        for (ComparableCoordinate slicePosition : slicePositions) {
+            Tensor<Double> slice = Tensorics.from(testTenosor).reduce(ComparableCoordinate.class)
+                    .byInterpolatedSlicingAt(slicePosition).interpolatingWith(new TestInterpolation());
+            assertEquals(slice.asMap(), slices.get(slicePosition).asMap());
+        }
+    }
+
     private Tensor<Double> getTensorTwoCoordinates() {
         TensorBuilder<Double> builder = Tensorics.builder(ComparableCoordinate.class, TestNameCoordinate.class);
 
@@ -0,0 +1,205 @@
+// @formatter:off
+ /*******************************************************************************
+ *
+ * This file is part of tensorics.
+ * 
+ * Copyright (c) 2008-2011, CERN. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ ******************************************************************************/
+// @formatter:on
+
+package org.tensorics.core.resolve.engine;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.tensorics.core.expressions.BinaryOperationExpression;
+import org.tensorics.core.math.operations.BinaryOperation;
+import org.tensorics.core.resolve.options.ResolvingOptions;
+import org.tensorics.core.tree.domain.AbstractDeferredExpression;
+import org.tensorics.core.tree.domain.Expression;
+import org.tensorics.core.tree.domain.Node;
+import org.tensorics.core.tree.domain.ResolvedExpression;
+
+public class IncrementalResolutionTest {
+
+    private static final int INPUT_COUNT = 10;
+
+    private AtomicInteger sumCount;
+    private BinaryOperation<Double> sum;
+    private List<Expression<Double>> inputs;
+    private IncrementalResolution<Double> resolution;
+
+    @Before
+    public void setUp() {
+        sumCount = new AtomicInteger();
+        sum = new BinaryOperation<Double>() {
+            @Override
+            public Double perform(Double left, Double right) {
+                sumCount.incrementAndGet();
+                return left + right;
+            }
+        };
+        inputs = new ArrayList<>();
+        for (int i = 1; i <= INPUT_COUNT; i++) {
+            inputs.add(ResolvedExpression.of((double) i));
+        }
+        resolution = ResolvingEngines.incrementalResolutionOf(sumOf(inputs));
+        assertEquals(55.0, resolution.resolve(), 0.0);
+        sumCount.set(0);
+    }
+
+    @Test
+    public void unchangedExpressionIsNotResolvedAgain() {
+        assertEquals(55.0, resolution.resolve(), 0.0);
+        assertEquals(0, sumCount.get());
+    }
+
+    @Test
+    public void replacingOneInputResolvesOnlyItsAncestors() {
+        resolution.replace(inputs.get(0), ResolvedExpression.of(11.0));
+        assertEquals(65.0, resolution.resolve(), 0.0);
+        assertEquals(3, sumCount.get());
+    }
+
+    @Test
+    public void repeatedReplacementsGiveCorrectResults() {
+        Expression<Double> current = inputs.get(4);
+        for (int i = 0; i < 5; i++) {
+            Expression<Double> next = ResolvedExpression.of(100.0 * i);
+            resolution.replace(current, next);
+            current = next;
+            assertEquals(50.0 + (100.0 * i), resolution.resolve(), 0.0);
+        }
+    }
+
+    @Test
+    public void updatedInputValueIsUsed() {
+        Expression<Double> input = new InputExpression();
+        resolution = ResolvingEngines.incrementalResolutionOf(sumOf(input, sumOf(inputs)));
+        resolution.update(input, 1.0);
+        assertEquals(56.0, resolution.resolve(), 0.0);
+
+        sumCount.set(0);
+        resolution.update(input, 2.0);
+        assertEquals(57.0, resolution.resolve(), 0.0);
+        assertEquals(1, sumCount.get());
+    }
+
+    @Test
+    public void invalidatedNodeIsResolvedAgain() {
+        resolution.invalidate(inputs.get(INPUT_COUNT - 1));
+        assertEquals(55.0, resolution.resolve(), 0.0);
+        assertEquals(4, sumCount.get());
+    }
+
+    @Test
+    public void transformationStrategyIsAppliedOnce() {
+        Expression<Double> input = new InputExpression();
+        Expression<Double> twice = sumOf(sumOf(input, inputs.get(0)), sumOf(input, inputs.get(0)));
+        resolution = ResolvingEngines.incrementalResolutionOf(twice, ResolvingOptions.eliminateCommonSubexpressions());
+        resolution.update(input, 1.0);
+        assertEquals(4.0, resolution.resolve(), 0.0);
+        assertEquals(2, sumCount.get());
+
+        sumCount.set(0);
+        resolution.update(input, 2.0);
+        assertEquals(6.0, resolution.resolve(), 0.0);
+        assertEquals(2, sumCount.get());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void firstOfTwoMergedInputsCannotBeReplaced() {
+        Expression<Double> x = ResolvedExpression.of(1.0);
+        Expression<Double> y = ResolvedExpression.of(1.0);
+        resolution = ResolvingEngines.incrementalResolutionOf(differenceOf(x, y),
+                ResolvingOptions.eliminateCommonSubexpressions());
+        resolution.replace(x, ResolvedExpression.of(5.0));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void secondOfTwoMergedInputsCannotBeReplaced() {
+        Expression<Double> x = ResolvedExpression.of(1.0);
+        Expression<Double> y = ResolvedExpression.of(1.0);
+        resolution = ResolvingEngines.incrementalResolutionOf(differenceOf(x, y),
+                ResolvingOptions.eliminateCommonSubexpressions());
+        resolution.replace(y, ResolvedExpression.of(5.0));
+    }
+
+    @Test
+    public void oneOfTwoEqualInputsIsReplacedWithoutTransformation() {
+        Expression<Double> x = ResolvedExpression.of(1.0);
+        Expression<Double> y = ResolvedExpression.of(1.0);
+        resolution = ResolvingEngines.incrementalResolutionOf(differenceOf(x, y));
+        assertEquals(0.0, resolution.resolve(), 0.0);
+        resolution.replace(y, ResolvedExpression.of(5.0));
+        assertEquals(-4.0, resolution.resolve(), 0.0);
+    }
+
+    @Test
+    public void inputOfTransformedExpressionIsReplacedByOriginalNode() {
+        Expression<Double> x = ResolvedExpression.of(1.0);
+        Expression<Double> y = ResolvedExpression.of(2.0);
+        resolution = ResolvingEngines.incrementalResolutionOf(sumOf(differenceOf(x, y), differenceOf(x, y)),
+                ResolvingOptions.eliminateCommonSubexpressions());
+        assertEquals(-2.0, resolution.resolve(), 0.0);
+        resolution.replace(y, ResolvedExpression.of(5.0));
+        assertEquals(-8.0, resolution.resolve(), 0.0);
+        resolution.replace(x, ResolvedExpression.of(3.0));
+        assertEquals(-4.0, resolution.resolve(), 0.0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void nodeOutsideOfTheExpressionCannotBeReplaced() {
+        resolution.replace(ResolvedExpression.of(1.0), ResolvedExpression.of(2.0));
+    }
+
+    /**
+     * Builds a balanced tree of sums, so that each input has log2(n) ancestors.
+     */
+    private Expression<Double> sumOf(List<Expression<Double>> operands) {
+        if (operands.size() == 1) {
+            return operands.get(0);
+        }
+        int middle = operands.size() / 2;
+        return sumOf(sumOf(operands.subList(0, middle)), sumOf(operands.subList(middle, operands.size())));
+    }
+
+    private Expression<Double> sumOf(Expression<Double> left, Expression<Double> right) {
+        return new BinaryOperationExpression<>(sum, left, right);
+    }
+
+    private static Expression<Double> differenceOf(Expression<Double> left, Expression<Double> right) {
+        return new BinaryOperationExpression<>(new BinaryOperation<Double>() {
+            @Override
+            public Double perform(Double left, Double right) {
+                return left - right;
+            }
+        }, left, right);
+    }
+
+    private static final class InputExpression extends AbstractDeferredExpression<Double> {
+        @Override
+        public List<Node> getChildren() {
+            return Collections.emptyList();
+        }
+    }
+}
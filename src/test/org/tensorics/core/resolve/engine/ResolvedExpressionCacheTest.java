@@ -0,0 +1,173 @@
+// @formatter:off
+ /*******************************************************************************
+ *
+ * This file is part of tensorics.
+ * 
+ * Copyright (c) 2008-2011, CERN. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ ******************************************************************************/
+// @formatter:on
+
+package org.tensorics.core.resolve.engine;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.tensorics.core.expressions.BinaryOperationExpression;
+import org.tensorics.core.expressions.UnaryOperationExpression;
+import org.tensorics.core.math.operations.BinaryOperation;
+import org.tensorics.core.math.operations.UnaryOperation;
+import org.tensorics.core.tensor.ImmutableTensor;
+import org.tensorics.core.tensor.Position;
+import org.tensorics.core.tensor.Tensor;
+import org.tensorics.core.tree.domain.AbstractDeferredExpression;
+import org.tensorics.core.tree.domain.Contexts;
+import org.tensorics.core.tree.domain.EditableResolvingContext;
+import org.tensorics.core.tree.domain.Expression;
+import org.tensorics.core.tree.domain.Node;
+import org.tensorics.core.tree.domain.ResolvedExpression;
+
+public class ResolvedExpressionCacheTest {
+
+    private static final Expression<Double> ONE = ResolvedExpression.of(1.0);
+    private static final Expression<Double> TWO = ResolvedExpression.of(2.0);
+    private static final Expression<Double> THREE = ResolvedExpression.of(3.0);
+    private static final Expression<Double> FOUR = ResolvedExpression.of(4.0);
+
+    private AtomicInteger sumCount;
+    private BinaryOperation<Double> sum;
+    private ResolvedExpressionCache cache;
+    private ResolvingEngine engine;
+
+    @Before
+    public void setUp() {
+        sumCount = new AtomicInteger();
+        sum = new BinaryOperation<Double>() {
+            @Override
+            public Double perform(Double left, Double right) {
+                sumCount.incrementAndGet();
+                return left + right;
+            }
+        };
+        cache = ResolvedExpressionCache.withMaximumWeight(1000);
+        engine = ResolvingEngines.cachingEngine(cache);
+    }
+
+    @Test
+    public void equalExpressionOnSameLeavesIsTakenFromCache() {
+        assertEquals(6.0, engine.resolve(sumOf(sumOf(ONE, TWO), THREE)), 0.0);
+        assertEquals(2, sumCount.get());
+        assertEquals(6.0, engine.resolve(sumOf(sumOf(ONE, TWO), THREE)), 0.0);
+        assertEquals(2, sumCount.get());
+        assertEquals(2, cache.stats().hitCount());
+    }
+
+    @Test
+    public void unchangedSubTreeIsReused() {
+        engine.resolve(sumOf(sumOf(ONE, TWO), THREE));
+        assertEquals(7.0, engine.resolve(sumOf(sumOf(ONE, TWO), FOUR)), 0.0);
+        assertEquals(3, sumCount.get());
+    }
+
+    @Test
+    public void equalLeavesAreIdentifiedByIdentity() {
+        engine.resolve(sumOf(ONE, TWO));
+        assertEquals(3.0, engine.resolve(sumOf(ResolvedExpression.of(1.0), TWO)), 0.0);
+        assertEquals(2, sumCount.get());
+        assertEquals(0, cache.stats().hitCount());
+    }
+
+    @Test
+    public void changedInputIsResolvedAgain() {
+        Expression<Double> input = new InputExpression();
+        EditableResolvingContext context = Contexts.newResolvingContext();
+        context.put(input, 1.0);
+        assertEquals(3.0, engine.resolve(sumOf(input, TWO), context), 0.0);
+        assertEquals(3.0, engine.resolve(sumOf(input, TWO), context), 0.0);
+        assertEquals(1, sumCount.get());
+
+        context.put(input, 5.0);
+        cache.inputChanged(input);
+        assertEquals(7.0, engine.resolve(sumOf(input, TWO), context), 0.0);
+        assertEquals(2, sumCount.get());
+    }
+
+    @Test
+    public void ancestorsOfChangedInitialValueAreResolvedAgain() {
+        Expression<Double> input = new InputExpression();
+        Expression<Double> minusOne = ResolvedExpression.of(-1.0);
+        EditableResolvingContext context = Contexts.newResolvingContext();
+        context.put(input, 10.0);
+        assertEquals(9.0, engine.resolve(sumOf(input, minusOne), context), 0.0);
+
+        EditableResolvingContext otherContext = Contexts.newResolvingContext();
+        otherContext.put(input, 20.0);
+        assertEquals(19.0, engine.resolve(sumOf(input, minusOne), otherContext), 0.0);
+    }
+
+    @Test
+    public void ancestorsOfSameInitialValueAreTakenFromCache() {
+        Expression<Double> input = new InputExpression();
+        Expression<Double> minusOne = ResolvedExpression.of(-1.0);
+        EditableResolvingContext context = Contexts.newResolvingContext();
+        context.put(input, 10.0);
+        assertEquals(9.0, engine.resolve(sumOf(input, minusOne), context), 0.0);
+        assertEquals(9.0, engine.resolve(sumOf(input, minusOne), context), 0.0);
+        assertEquals(1, sumCount.get());
+    }
+
+    @Test
+    public void tensorsHeavierThanMaximumWeightAreNotKept() {
+        cache = ResolvedExpressionCache.withMaximumWeight(10);
+        engine = ResolvingEngines.cachingEngine(cache);
+        engine.resolve(identityOf(tensorOfSize(5)));
+        assertEquals(1, cache.size());
+        engine.resolve(identityOf(tensorOfSize(100)));
+        assertEquals(0, cache.size());
+    }
+
+    private Expression<Double> sumOf(Expression<Double> left, Expression<Double> right) {
+        return new BinaryOperationExpression<>(sum, left, right);
+    }
+
+    private static Expression<Tensor<Double>> identityOf(Tensor<Double> tensor) {
+        return new UnaryOperationExpression<>(new UnaryOperation<Tensor<Double>>() {
+            @Override
+            public Tensor<Double> perform(Tensor<Double> value) {
+                return value;
+            }
+        }, ResolvedExpression.of(tensor));
+    }
+
+    private static Tensor<Double> tensorOfSize(int size) {
+        ImmutableTensor.Builder<Double> builder = ImmutableTensor.builder(Integer.class);
+        for (int i = 0; i < size; i++) {
+            builder.putAt(1.0, Position.of(i));
+        }
+        return builder.build();
+    }
+
+    private static final class InputExpression extends AbstractDeferredExpression<Double> {
+        @Override
+        public List<Node> getChildren() {
+            return Collections.emptyList();
+        }
+    }
+}
@@ -0,0 +1,103 @@
+// @formatter:off
+ /*******************************************************************************
+ *
+ * This file is part of tensorics.
+ * 
+ * Copyright (c) 2008-2011, CERN. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ ******************************************************************************/
+// @formatter:on
+
+package org.tensorics.core.resolve.engine;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+import org.tensorics.core.lang.DoubleScript;
+import org.tensorics.core.tree.domain.AbstractDeferredExpression;
+import org.tensorics.core.tree.domain.Contexts;
+import org.tensorics.core.tree.domain.EditableResolvingContext;
+import org.tensorics.core.tree.domain.Expression;
+import org.tensorics.core.tree.domain.Node;
+import org.tensorics.core.tree.domain.ResolvedExpression;
+
+public class SinglePassResolvingEngineTest {
+
+    private final ResolvingEngine engine = ResolvingEngines.singlePassEngine();
+
+    @Test
+    public void resolvedExpressionIsReturnedDirectly() {
+        assertEquals("A", engine.resolve(ResolvedExpression.of("A")));
+    }
+
+    @Test
+    public void nestedScriptGivesSameResultAsDefaultEngine() {
+        DoubleScript<Double> script = new DoubleScript<Double>() {
+            @Override
+            protected Expression<Double> describe() {
+                Expression<Double> sum = calculate(0.1).plus(0.2);
+                Expression<Double> product = calculate(sum).times(3.0);
+                return calculate(calculate(product).minus(sum)).toThePowerOf(2.0);
+            }
+        };
+        assertEquals(ResolvingEngines.defaultEngine().resolve(script), engine.resolve(script), 1e-12);
+        assertEquals(0.36, engine.resolve(script), 1e-12);
+    }
+
+    @Test
+    public void deepTreeIsResolved() {
+        Double result = engine.resolve(new DoubleScript<Double>() {
+            @Override
+            protected Expression<Double> describe() {
+                Expression<Double> sum = calculate(0.0).plus(0.0);
+                for (int i = 1; i <= 500; i++) {
+                    sum = calculate(sum).plus(calculate((double) i).times(2.0));
+                }
+                return sum;
+            }
+        });
+        assertEquals(250500.0, result, 1e-9);
+    }
+
+    @Test
+    public void valuesFromInitialContextAreUsed() {
+        Expression<Double> unresolvable = new UnresolvableExpression();
+        EditableResolvingContext context = Contexts.newResolvingContext();
+        context.put(unresolvable, 2.0);
+        final Expression<Double> child = unresolvable;
+        Double result = engine.resolve(new DoubleScript<Double>() {
+            @Override
+            protected Expression<Double> describe() {
+                return calculate(child).times(3.0);
+            }
+        }, context);
+        assertEquals(6.0, result, 0.0);
+    }
+
+    @Test(expected = ResolvedContextDidNotGrowException.class)
+    public void expressionWithoutResolverThrows() {
+        engine.resolve(new UnresolvableExpression());
+    }
+
+    private static final class UnresolvableExpression extends AbstractDeferredExpression<Double> {
+        @Override
+        public List<Node> getChildren() {
+            return Collections.emptyList();
+        }
+    }
+}
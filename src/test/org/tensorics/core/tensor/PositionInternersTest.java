@@ -0,0 +1,101 @@
+// @formatter:off
+ /*******************************************************************************
+ *
+ * This file is part of tensorics.
+ * 
+ * Copyright (c) 2008-2011, CERN. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ ******************************************************************************/
+// @formatter:on
+package org.tensorics.core.tensor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableSet;
+
+public class PositionInternersTest {
+
+	@Test
+	public void stripedInternerReturnsSameInstanceForEqualPositions() {
+		assertInternsEqualPositions(PositionInterners.striped());
+	}
+
+	@Test
+	public void threadLocalInternerReturnsSameInstanceForEqualPositions() {
+		assertInternsEqualPositions(PositionInterners.threadLocal());
+	}
+
+	@Test
+	public void arenaReturnsSameInstanceForEqualPositions() {
+		assertInternsEqualPositions(PositionInterners.newArena());
+	}
+
+	@Test
+	public void unknownPolicyPropertyFallsBackToGlobal() {
+		assertSame(PositionInterners.global(), PositionInterners.fromPolicyProperty("globl"));
+		assertSame(PositionInterners.striped(), PositionInterners.fromPolicyProperty("striped"));
+	}
+
+	@Test
+	public void noInternerKeepsInstances() {
+		PositionInterner interner = PositionInterners.none();
+		Position first = Position.of(ImmutableSet.of("A", 1), interner);
+		Position second = Position.of(ImmutableSet.of("A", 1), interner);
+		assertEquals(first, second);
+		assertNotSame(first, second);
+	}
+
+	@Test
+	public void arenaCountsRequestsAndHits() {
+		PositionInterner arena = PositionInterners.newArena();
+		Position.of(ImmutableSet.of("A"), arena);
+		Position.of(ImmutableSet.of("A"), arena);
+		Position.of(ImmutableSet.of("B"), arena);
+
+		InterningStatistics statistics = arena.statistics();
+		assertEquals(3, statistics.requestCount());
+		assertEquals(1, statistics.hitCount());
+		assertEquals(2, statistics.size());
+	}
+
+	@Test
+	public void builderUsesGivenInterner() {
+		PositionInterner arena = PositionInterners.newArena();
+		ImmutableTensor.Builder<Double> builder = ImmutableTensor.builder(ImmutableSet.of(String.class, Integer.class));
+		builder.setPositionInterner(arena);
+		builder.putAt(1.0, "A", 1);
+		builder.at("A", 2).put(2.0);
+		builder.build();
+
+		assertEquals(2, arena.statistics().requestCount());
+		assertEquals(2, arena.statistics().size());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void unknownPolicyThrows() {
+		PositionInterners.fromPolicy("unknown");
+	}
+
+	private static void assertInternsEqualPositions(PositionInterner interner) {
+		Position first = Position.of(ImmutableSet.of("A", 1), interner);
+		Position second = Position.of(ImmutableSet.of(1, "A"), interner);
+		assertSame(first, second);
+	}
+
+}
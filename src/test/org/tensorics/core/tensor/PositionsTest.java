@@ -22,11 +22,14 @@
 package org.tensorics.core.tensor;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
 import static org.tensorics.core.tensor.Positions.union;
 import static org.tensorics.core.testing.TestUtil.assertUtilityClass;
 
 import org.junit.Test;
 
+import com.google.common.collect.ImmutableSet;
+
 public class PositionsTest {
 
     private final static Position POS_A = Position.of("A");
@@ -71,4 +74,28 @@ public class PositionsTest {
         assertEquals(POS_1A, union(POS_1, POS_A));
     }
 
+    @Test
+    public void strippingRemovesGivenDimensions() {
+        Position stripped = Positions.stripping(ImmutableSet.of(Integer.class)).apply(Position.of("A", 1, 2.0));
+        assertEquals(Position.of("A", 2.0), stripped);
+    }
+
+    @Test
+    public void strippingWithoutMatchingDimensionsReturnsSamePosition() {
+        assertSame(POS_A1, Positions.stripping(ImmutableSet.of(Double.class)).apply(POS_A1));
+    }
+
+    @Test
+    public void memoizedStrippingReturnsRememberedPosition() {
+        Positions.DimensionStripper stripper = Positions.memoizedStripping(ImmutableSet.of(Integer.class), 10);
+        Position first = stripper.apply(POS_A1);
+        assertEquals(POS_A, first);
+        assertSame(first, stripper.apply(Position.of("A", 1)));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void memoizedStrippingWithoutCacheSizeThrows() {
+        Positions.memoizedStripping(ImmutableSet.of(Integer.class), 0);
+    }
+
 }
@@ -31,6 +31,7 @@ import static org.tensorics.core.tensor.Shapes.dimensionalIntersection;
 import static org.tensorics.core.tensor.Shapes.intersection;
 import static org.tensorics.core.tensor.Shapes.outerProduct;
 import static org.tensorics.core.testing.TestUtil.assertUtilityClass;
+import static org.tensorics.core.testing.TestUtil.serializedCopy;
 
 import java.util.Collections;
 import java.util.Set;
@@ -38,6 +39,7 @@ import java.util.Set;
 import org.junit.Before;
 import org.junit.Test;
 
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 
 public class ShapesTest {
@@ -239,6 +241,58 @@ public class ShapesTest {
         assertEquals(shapeA1B1A2B2, result);
     }
 
+    @Test
+    public void outerProductOfEnumeratedShapesIsAnEquivalentView() {
+        Shape diagonal = Shape.of(POS_A1, POS_B2);
+        Shape result = outerProduct(diagonal, Shape.of(Position.of(0.1), Position.of(0.2)));
+        assertEquals(4, result.size());
+        assertTrue(result.contains(Position.of("B", 2, 0.2)));
+        assertFalse(result.contains(Position.of("A", 2, 0.1)));
+        assertFalse(result.contains(POS_A1));
+        assertEquals(Shape.of(Position.of("A", 1, 0.1), Position.of("A", 1, 0.2), Position.of("B", 2, 0.1),
+                Position.of("B", 2, 0.2)), result);
+    }
+
+    @Test
+    public void outerProductViewIsSerializable() {
+        Shape result = outerProduct(Shape.of(POS_A1, POS_B2), Shape.of(Position.of(0.1), Position.of(0.2)));
+        Shape copy = serializedCopy(result);
+        assertEquals(result, copy);
+        assertTrue(copy.contains(Position.of("B", 2, 0.2)));
+    }
+
+    @Test
+    public void cartesianProductIsEqualToEnumeratedShape() {
+        assertEquals(shapeA1B1A2B2, cartesianAB12());
+        assertEquals(4, cartesianAB12().size());
+        assertTrue(cartesianAB12().contains(POS_B2));
+        assertFalse(cartesianAB12().contains(POS_A01));
+        assertFalse(cartesianAB12().contains(POS_A));
+    }
+
+    @Test
+    public void outerProductOfCartesianProductsIsCartesianProduct() {
+        Shape result = outerProduct(Shape.cartesianProduct(ImmutableMap.of(String.class, ImmutableSet.of("A", "B"))),
+                Shape.cartesianProduct(ImmutableMap.of(Integer.class, ImmutableSet.of(1, 2))));
+        assertEquals(cartesianAB12(), result);
+        assertEquals(ImmutableSet.of(1, 2), result.coordinatesOfType(Integer.class));
+    }
+
+    @Test
+    public void dimensionStrippedCartesianProduct() {
+        assertEquals(shapeAB, dimensionStripped(cartesianAB12(), ImmutableSet.of(Integer.class)));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void positionSetIsUnmodifiable() {
+        shapeAB.positionSet().add(POS_C);
+    }
+
+    private static Shape cartesianAB12() {
+        return Shape.cartesianProduct(ImmutableMap.of(String.class, ImmutableSet.of("A", "B"), Integer.class,
+                ImmutableSet.of(1, 2)));
+    }
+
     private Shape intersectionAbBc() {
         return intersection(shapeAB, shapeBC);
     }
@@ -0,0 +1,77 @@
+// @formatter:off
+ /*******************************************************************************
+ *
+ * This file is part of tensorics.
+ * 
+ * Copyright (c) 2008-2011, CERN. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ ******************************************************************************/
+// @formatter:on
+
+package org.tensorics.core.tensor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+
+public class SortedCoordinatesTest {
+
+    private final SortedCoordinates<Integer> coordinates = SortedCoordinates.of(ImmutableList.of(30, 10, 40, 20));
+
+    @Test
+    public void coordinatesAreSorted() {
+        assertEquals(ImmutableList.of(10, 20, 30, 40), coordinates.asList());
+    }
+
+    @Test
+    public void indexOfFindsOnlyContainedCoordinates() {
+        assertEquals(2, coordinates.indexOf(30));
+        assertEquals(-1, coordinates.indexOf(25));
+    }
+
+    @Test
+    public void floorIndex() {
+        assertEquals(-1, coordinates.floorIndexOf(5));
+        assertEquals(0, coordinates.floorIndexOf(10));
+        assertEquals(1, coordinates.floorIndexOf(25));
+        assertEquals(3, coordinates.floorIndexOf(50));
+    }
+
+    @Test
+    public void lowerNeighbourIsClampedToTheRange() {
+        assertEquals(0, coordinates.lowerNeighbourIndexOf(5));
+        assertEquals(1, coordinates.lowerNeighbourIndexOf(25));
+        assertEquals(2, coordinates.lowerNeighbourIndexOf(40));
+        assertEquals(2, coordinates.lowerNeighbourIndexOf(50));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void lowerNeighbourRequiresTwoCoordinates() {
+        SortedCoordinates.of(ImmutableList.of(1)).lowerNeighbourIndexOf(1);
+    }
+
+    @Test
+    public void sortedCoordinatesAreCachedInShape() {
+        Shape shape = Shape.of(Position.of(3, "a"), Position.of(1, "a"), Position.of(2, "b"));
+        SortedCoordinates<Integer> sorted = shape.sortedCoordinatesOf(Integer.class);
+
+        assertEquals(ImmutableList.of(1, 2, 3), sorted.asList());
+        assertSame(sorted, shape.sortedCoordinatesOf(Integer.class));
+    }
+
+}
@@ -0,0 +1,198 @@
+// @formatter:off
+ /*******************************************************************************
+ *
+ * This file is part of tensorics.
+ * 
+ * Copyright (c) 2008-2011, CERN. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ ******************************************************************************/
+// @formatter:on
+package org.tensorics.core.tensor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.tensorics.core.testing.TestUtil.serializedCopy;
+
+import java.io.Serializable;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.tensorics.core.tensor.lang.TensorStructurals;
+import org.tensorics.core.tensor.specific.ImmutableDoubleArrayBackedTensor;
+import org.tensorics.core.tensor.specific.PositionIndexer;
+
+import com.google.common.base.Predicate;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Range;
+
+public class TensorViewsTest {
+
+    private Tensor<Double> tensor;
+
+    @Before
+    public void setUp() {
+        ImmutableTensor.Builder<Double> builder = ImmutableTensor.builder(Integer.class, String.class);
+        for (int i = 0; i < 5; i++) {
+            builder.putAt(i * 1.0, i, "a");
+            builder.putAt(i * 10.0, i, "b");
+        }
+        builder.setTensorContext(Context.of(1L));
+        tensor = builder.build();
+    }
+
+    @Test
+    public void rangeFilteredViewContainsOnlyEntriesInRange() {
+        TensorView<Double> view = FilteredTensorView.inRange(tensor, Integer.class, Range.closed(1, 2));
+        assertEquals(4, view.shape().size());
+        assertEquals(20.0, view.get(2, "b"), 0.0);
+        assertFalse(view.shape().contains(3, "a"));
+        assertEquals(tensor.context(), view.context());
+    }
+
+    @Test(expected = NoSuchElementException.class)
+    public void filteredOutEntryIsNotAccessible() {
+        FilteredTensorView.inRange(tensor, Integer.class, Range.closed(1, 2)).get(3, "a");
+    }
+
+    @Test
+    public void chainedFiltersAreCombined() {
+        Tensor<Double> filtered = TensorStructurals.filter(tensor).by(Integer.class, Range.atLeast(2));
+        Tensor<Double> twiceFiltered = TensorStructurals.filter(filtered).by(Integer.class, Range.lessThan(4));
+        assertEquals(ImmutableSet.of(Position.of(2, "a"), Position.of(2, "b"), Position.of(3, "a"),
+                Position.of(3, "b")), twiceFiltered.shape().positionSet());
+    }
+
+    @Test
+    public void maskViewContainsOnlyTrueEntries() {
+        ImmutableTensor.Builder<Boolean> mask = ImmutableTensor.builder(Integer.class, String.class);
+        for (Position position : tensor.shape().positionSet()) {
+            mask.putAt("a".equals(position.coordinateFor(String.class)), position);
+        }
+        Tensor<Double> masked = TensorStructurals.from(tensor).extractWhereTrue(mask.build());
+        assertEquals(5, masked.shape().size());
+        assertEquals(4.0, masked.get(4, "a"), 0.0);
+        assertFalse(masked.shape().contains(4, "b"));
+    }
+
+    @Test
+    public void sliceViewStripsSliceDimensionAndExtendsContext() {
+        Tensor<Double> slice = TensorStructurals.from(tensor).extract("b");
+        assertEquals(ImmutableSet.of(Integer.class), slice.shape().dimensionSet());
+        assertEquals(5, slice.shape().size());
+        assertEquals(30.0, slice.get(3), 0.0);
+        assertTrue(slice.shape().contains(Position.of(3)));
+        assertEquals(Context.of(1L, "b"), slice.context());
+    }
+
+    @Test
+    public void slicingASliceIsBackedByTheOriginal() {
+        Tensor<Double> slice = TensorStructurals.from(TensorStructurals.from(tensor).extract("b")).extract(2);
+        assertEquals(0, slice.shape().dimensionSet().size());
+        assertEquals(20.0, slice.get(Position.empty()), 0.0);
+        assertEquals(Context.of(1L, "b", 2), slice.context());
+    }
+
+    @Test
+    public void materializedViewEqualsCopy() {
+        TensorView<Double> slice = (TensorView<Double>) TensorStructurals.from(tensor).extract("a");
+        Tensor<Double> materialized = slice.materialize();
+        assertEquals(ImmutableTensor.copyOf(slice), materialized);
+        assertEquals(slice.asMap(), materialized.asMap());
+        assertSame(ImmutableTensor.class, materialized.getClass());
+    }
+
+    @Test
+    public void filteredViewIsSerializedAsImmutableCopy() {
+        Tensor<Double> view = TensorStructurals.filter(tensor).by(Integer.class, Range.closed(1, 2));
+        Serializable copy = serializedCopy((Serializable) view);
+        assertSame(ImmutableTensor.class, copy.getClass());
+        assertEquals(view, copy);
+    }
+
+    @Test
+    public void sliceViewIsSerializedAsImmutableCopy() {
+        Tensor<Double> view = TensorStructurals.from(tensor).extract("b");
+        Serializable copy = serializedCopy((Serializable) view);
+        assertSame(ImmutableTensor.class, copy.getClass());
+        assertEquals(view, copy);
+    }
+
+    @Test
+    public void filteredViewIsEqualToCopyWithSameContent() {
+        Tensor<Double> view = TensorStructurals.filter(tensor).by(Integer.class, Range.closed(1, 2));
+        Tensor<Double> copy = ImmutableTensor.copyOf(view);
+        assertTrue(view.equals(copy));
+        assertTrue(copy.equals(view));
+        assertEquals(copy.hashCode(), view.hashCode());
+        assertFalse(view.equals(tensor));
+    }
+
+    @Test
+    public void sliceViewIsEqualToCopyWithSameContent() {
+        Tensor<Double> view = TensorStructurals.from(tensor).extract("b");
+        ImmutableTensor.Builder<Double> builder = ImmutableTensor.builder(Integer.class);
+        for (int i = 0; i < 5; i++) {
+            builder.putAt(i * 10.0, i);
+        }
+        builder.setTensorContext(Context.of(1L, "b"));
+        Tensor<Double> copy = builder.build();
+        assertTrue(view.equals(copy));
+        assertTrue(copy.equals(view));
+        assertEquals(copy.hashCode(), view.hashCode());
+        assertEquals(view, TensorStructurals.from(tensor).extract("b"));
+    }
+
+    @Test
+    public void sizeOfFilteredViewIsOnlyCountedOnce() {
+        final AtomicInteger evaluations = new AtomicInteger();
+        Tensor<Double> view = FilteredTensorView.of(tensor, new Predicate<Position>() {
+            @Override
+            public boolean apply(Position position) {
+                evaluations.incrementAndGet();
+                return position.coordinateFor(Integer.class) > 2;
+            }
+        });
+        assertEquals(4, view.shape().size());
+        int evaluationsForSize = evaluations.get();
+        assertEquals(4, view.shape().size());
+        assertEquals(evaluationsForSize, evaluations.get());
+    }
+
+    @Test
+    public void broadcastedArrayBackedTensorIsLookedUpByProjection() {
+        PositionIndexer indexer = PositionIndexer.builder().put(Integer.class, ImmutableSet.of(1, 2, 3)).build();
+        ImmutableDoubleArrayBackedTensor.Builder builder = ImmutableDoubleArrayBackedTensor.builder(indexer);
+        for (int i = 1; i <= 3; i++) {
+            builder.putAt(i * 1.5, i);
+        }
+        Shape extendingShape = Shape.of(Position.of("x"), Position.of("y"));
+        BroadcastedTensorView<Double> view = new BroadcastedTensorView<>(builder.build(), extendingShape);
+        assertEquals(6, view.shape().size());
+        assertEquals(4.5, view.get(3, "y"), 0.0);
+        assertEquals(6, view.asMap().size());
+        assertEquals(ImmutableTensor.copyOf(view).asMap(), view.asMap());
+    }
+
+    @Test
+    public void slicingWithCoordinateOfTensorDimensionReturnsView() {
+        Tensor<Double> slice = TensorStructurals.from(tensor).reduce(Integer.class).bySlicingAt(4);
+        assertTrue(slice instanceof SlicedTensorView);
+        assertEquals(40.0, slice.get("b"), 0.0);
+    }
+}
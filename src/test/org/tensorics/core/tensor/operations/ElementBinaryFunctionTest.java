@@ -0,0 +1,177 @@
+// @formatter:off
+ /*******************************************************************************
+ *
+ * This file is part of tensorics.
+ * 
+ * Copyright (c) 2008-2011, CERN. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ ******************************************************************************/
+// @formatter:on
+
+package org.tensorics.core.tensor.operations;
+
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.tensorics.core.fields.doubles.Structures.doubles;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.junit.Test;
+import org.tensorics.core.commons.options.ManipulationOption;
+import org.tensorics.core.commons.options.OptionRegistry;
+import org.tensorics.core.lang.ManipulationOptions;
+import org.tensorics.core.tensor.ImmutableTensor;
+import org.tensorics.core.tensor.Position;
+import org.tensorics.core.tensor.Tensor;
+import org.tensorics.core.tensor.options.ParallelExecutionStrategy;
+import org.tensorics.core.tensor.specific.ImmutableDoubleArrayBackedTensor;
+import org.tensorics.core.tensor.specific.ImmutableSparseDoubleTensor;
+import org.tensorics.core.tensor.specific.PositionIndexer;
+
+import com.google.common.collect.ContiguousSet;
+import com.google.common.collect.DiscreteDomain;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Range;
+
+public class ElementBinaryFunctionTest {
+
+    private static final int SIZE = 5000;
+
+    private final OptionRegistry<ManipulationOption> sequentialOptions = ManipulationOptions.defaultOptions(doubles());
+
+    @Test
+    public void parallelExecutionGivesSameResultAsSequential() {
+        Tensor<Double> left = tensorWithOffset(1.0);
+        Tensor<Double> right = tensorWithOffset(0.5);
+        OptionRegistry<ManipulationOption> parallelOptions = sequentialOptions.with(new ParallelExecutionStrategy(1));
+
+        Tensor<Double> sequential = new ElementBinaryFunction<>(doubles().addition(), sequentialOptions).perform(left,
+                right);
+        Tensor<Double> parallel = new ElementBinaryFunction<>(doubles().addition(), parallelOptions).perform(left,
+                right);
+
+        assertEquals(SIZE, parallel.shape().size());
+        assertEquals(sequential.asMap(), parallel.asMap());
+    }
+
+    @Test
+    public void arrayBackedOperandsAreProcessedWithParallelStrategy() {
+        Tensor<Double> left = arrayBackedWithOffset(1.0);
+        Tensor<Double> right = arrayBackedWithOffset(0.5);
+        RecordingStrategy strategy = new RecordingStrategy();
+
+        Tensor<Double> sequential = new ElementBinaryFunction<>(doubles().addition(), sequentialOptions).perform(left,
+                right);
+        Tensor<Double> parallel = new ElementBinaryFunction<>(doubles().addition(), sequentialOptions.with(strategy))
+                .perform(left, right);
+
+        assertThat(parallel, instanceOf(ImmutableDoubleArrayBackedTensor.class));
+        assertEquals(ImmutableList.of(SIZE), strategy.requestedSizes);
+        assertEquals(sequential.asMap(), parallel.asMap());
+    }
+
+    @Test
+    public void arrayBackedOperandIsNegatedWithParallelStrategy() {
+        Tensor<Double> tensor = arrayBackedWithOffset(1.0);
+        RecordingStrategy strategy = new RecordingStrategy();
+
+        Tensor<Double> negated = new ElementUnaryOperation<>(doubles().additiveInversion(), strategy).perform(tensor);
+
+        assertThat(negated, instanceOf(ImmutableDoubleArrayBackedTensor.class));
+        assertTrue(strategy.requestedSizes.contains(SIZE));
+        assertEquals(-(SIZE - 1 + 1.0), negated.get(Position.of(SIZE - 1)), 0.0);
+    }
+
+    @Test
+    public void sparseOperandsAreProcessedWithParallelStrategy() {
+        Tensor<Double> left = sparseWithOffset(1.0);
+        Tensor<Double> right = arrayBackedWithOffset(0.5);
+        RecordingStrategy strategy = new RecordingStrategy();
+
+        Tensor<Double> sequential = new ElementBinaryFunction<>(doubles().addition(), sequentialOptions).perform(left,
+                right);
+        Tensor<Double> parallel = new ElementBinaryFunction<>(doubles().addition(), sequentialOptions.with(strategy))
+                .perform(left, right);
+
+        assertThat(parallel, instanceOf(ImmutableSparseDoubleTensor.class));
+        assertTrue(strategy.requestedSizes.contains(SIZE / 2));
+        assertEquals(SIZE / 2, parallel.shape().size());
+        assertEquals(sequential.asMap(), parallel.asMap());
+    }
+
+    @Test
+    public void parallelStrategyRespectsThreshold() {
+        ParallelExecutionStrategy strategy = new ParallelExecutionStrategy(100);
+        assertFalse(strategy.isParallelFor(99));
+        assertTrue(strategy.isParallelFor(100));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void nonPositiveThresholdThrows() {
+        new ParallelExecutionStrategy(0);
+    }
+
+    private static PositionIndexer indexer() {
+        return PositionIndexer.builder()
+                .put(Integer.class, ContiguousSet.create(Range.closedOpen(0, SIZE), DiscreteDomain.integers())).build();
+    }
+
+    private static Tensor<Double> arrayBackedWithOffset(double offset) {
+        ImmutableDoubleArrayBackedTensor.Builder builder = ImmutableDoubleArrayBackedTensor.builder(indexer());
+        for (int i = 0; i < SIZE; i++) {
+            builder.putAt(i + offset, Position.of(i));
+        }
+        return builder.build();
+    }
+
+    private static Tensor<Double> sparseWithOffset(double offset) {
+        ImmutableSparseDoubleTensor.Builder builder = ImmutableSparseDoubleTensor.builder(indexer());
+        for (int i = 0; i < SIZE; i += 2) {
+            builder.putAt(i + offset, Position.of(i));
+        }
+        return builder.build();
+    }
+
+    /**
+     * A parallel strategy (for any size), which records the sizes for which it was asked.
+     */
+    private static final class RecordingStrategy extends ParallelExecutionStrategy {
+
+        private final List<Integer> requestedSizes = new CopyOnWriteArrayList<>();
+
+        RecordingStrategy() {
+            super(1);
+        }
+
+        @Override
+        public boolean isParallelFor(int numberOfElements) {
+            requestedSizes.add(numberOfElements);
+            return super.isParallelFor(numberOfElements);
+        }
+    }
+
+    private static Tensor<Double> tensorWithOffset(double offset) {
+        ImmutableTensor.Builder<Double> builder = ImmutableTensor.builder(Integer.class);
+        for (int i = 0; i < SIZE; i++) {
+            builder.putAt(i + offset, i);
+        }
+        return builder.build();
+    }
+
+}
@@ -0,0 +1,167 @@
+// @formatter:off
+ /*******************************************************************************
+ *
+ * This file is part of tensorics.
+ * 
+ * Copyright (c) 2008-2011, CERN. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ ******************************************************************************/
+// @formatter:on
+
+package org.tensorics.core.tensor.operations;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.tensorics.core.fields.doubles.Structures.doubles;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.tensorics.core.commons.options.ManipulationOption;
+import org.tensorics.core.commons.options.OptionRegistry;
+import org.tensorics.core.expressions.BinaryOperationExpression;
+import org.tensorics.core.expressions.UnaryOperationExpression;
+import org.tensorics.core.lang.ManipulationOptions;
+import org.tensorics.core.resolve.engine.DefaultResolvingEngine;
+import org.tensorics.core.resolve.resolvers.BinaryOperationResolver;
+import org.tensorics.core.resolve.resolvers.ElementwiseFusionResolver;
+import org.tensorics.core.resolve.resolvers.ListBackedResolverRepository;
+import org.tensorics.core.resolve.resolvers.Resolver;
+import org.tensorics.core.resolve.resolvers.UnaryOperationResolver;
+import org.tensorics.core.tensor.ImmutableTensor;
+import org.tensorics.core.tensor.Tensor;
+import org.tensorics.core.tensor.options.ParallelExecutionStrategy;
+import org.tensorics.core.tree.domain.Contexts;
+import org.tensorics.core.tree.domain.Expression;
+import org.tensorics.core.tree.domain.ResolvedExpression;
+import org.tensorics.core.tree.domain.ResolvingContext;
+
+public class ElementwiseFusionTest {
+
+    private static final int SIZE = 100;
+
+    private final OptionRegistry<ManipulationOption> options = ManipulationOptions.defaultOptions(doubles());
+
+    private ElementBinaryOperation<Double> addition;
+    private ElementBinaryOperation<Double> multiplication;
+    private ElementUnaryOperation<Double> negation;
+
+    private Tensor<Double> a;
+    private Tensor<Double> b;
+    private Tensor<Double> c;
+
+    @Before
+    public void setUp() {
+        addition = new ElementBinaryOperation<>(doubles().addition(), options);
+        multiplication = new ElementBinaryOperation<>(doubles().multiplication(), options);
+        negation = new ElementUnaryOperation<>(doubles().additiveInversion());
+        a = tensorOf(1.0);
+        b = tensorOf(2.0);
+        c = tensorOf(3.0);
+    }
+
+    @Test
+    public void chainIsEvaluatedInOnePassWithSameResult() {
+        Expression<Tensor<Double>> chain = negated(times(plus(resolved(a), resolved(b)), resolved(c)));
+
+        assertTrue(ElementwiseFusion.canFuse(chain, Contexts.newResolvingContext()));
+        Tensor<Double> expected = negation.perform(multiplication.perform(addition.perform(a, b), c));
+        assertEquals(expected.asMap(), ElementwiseFusion.evaluate(chain, Contexts.newResolvingContext()).asMap());
+    }
+
+    @Test
+    public void engineResolvesFusableChain() {
+        final AtomicInteger fusedResolutions = new AtomicInteger();
+        ElementwiseFusionResolver<Double> fusionResolver = new ElementwiseFusionResolver<Double>() {
+            @Override
+            public Tensor<Double> resolve(Expression<Tensor<Double>> expression, ResolvingContext context) {
+                fusedResolutions.incrementAndGet();
+                return super.resolve(expression, context);
+            }
+        };
+        ListBackedResolverRepository repository = new ListBackedResolverRepository();
+        repository.setResolvers(Arrays.<Resolver<?, ?>> asList(fusionResolver, new UnaryOperationResolver<>(),
+                new BinaryOperationResolver<>()));
+        DefaultResolvingEngine engine = new DefaultResolvingEngine();
+        engine.setResolverRepository(repository);
+
+        Expression<Tensor<Double>> chain = times(plus(resolved(a), resolved(b)), resolved(c));
+
+        Tensor<Double> result = engine.resolve(chain);
+        assertEquals(multiplication.perform(addition.perform(a, b), c).asMap(), result.asMap());
+        assertEquals(1, fusedResolutions.get());
+    }
+
+    @Test
+    public void chainIsEvaluatedWithExecutionStrategyOfRoot() {
+        final AtomicInteger requestedSize = new AtomicInteger();
+        ParallelExecutionStrategy strategy = new ParallelExecutionStrategy(1) {
+            @Override
+            public boolean isParallelFor(int numberOfElements) {
+                requestedSize.set(numberOfElements);
+                return super.isParallelFor(numberOfElements);
+            }
+        };
+        ElementBinaryOperation<Double> parallelMultiplication = new ElementBinaryOperation<>(
+                doubles().multiplication(), options.with(strategy));
+        Expression<Tensor<Double>> chain = new BinaryOperationExpression<>(parallelMultiplication,
+                plus(resolved(a), resolved(b)), resolved(c));
+
+        Tensor<Double> result = ElementwiseFusion.evaluate(chain, Contexts.newResolvingContext());
+        assertEquals(SIZE, requestedSize.get());
+        assertEquals(multiplication.perform(addition.perform(a, b), c).asMap(), result.asMap());
+    }
+
+    @Test
+    public void singleOperationIsNotFused() {
+        assertFalse(ElementwiseFusion.canFuse(plus(resolved(a), resolved(b)), Contexts.newResolvingContext()));
+    }
+
+    @Test
+    public void differentShapesAreNotFused() {
+        ImmutableTensor.Builder<Double> builder = ImmutableTensor.builder(Integer.class);
+        builder.putAt(1.0, 0);
+        Expression<Tensor<Double>> chain = times(plus(resolved(a), resolved(b)), resolved(builder.build()));
+        assertFalse(ElementwiseFusion.canFuse(chain, Contexts.newResolvingContext()));
+    }
+
+    private Expression<Tensor<Double>> plus(Expression<Tensor<Double>> left, Expression<Tensor<Double>> right) {
+        return new BinaryOperationExpression<>(addition, left, right);
+    }
+
+    private Expression<Tensor<Double>> times(Expression<Tensor<Double>> left, Expression<Tensor<Double>> right) {
+        return new BinaryOperationExpression<>(multiplication, left, right);
+    }
+
+    private Expression<Tensor<Double>> negated(Expression<Tensor<Double>> operand) {
+        return new UnaryOperationExpression<>(negation, operand);
+    }
+
+    private static Expression<Tensor<Double>> resolved(Tensor<Double> tensor) {
+        return ResolvedExpression.of(tensor);
+    }
+
+    private static Tensor<Double> tensorOf(double factor) {
+        ImmutableTensor.Builder<Double> builder = ImmutableTensor.builder(Integer.class);
+        for (int i = 0; i < SIZE; i++) {
+            builder.putAt(factor * i, i);
+        }
+        return builder.build();
+    }
+
+}
@@ -0,0 +1,128 @@
+// @formatter:off
+ /*******************************************************************************
+ *
+ * This file is part of tensorics.
+ * 
+ * Copyright (c) 2008-2011, CERN. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ ******************************************************************************/
+// @formatter:on
+
+package org.tensorics.core.tensor.operations;
+
+import static org.junit.Assert.assertEquals;
+import static org.tensorics.core.fields.doubles.Structures.doubles;
+
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.Test;
+import org.tensorics.core.reduction.Averaging;
+import org.tensorics.core.reduction.ReductionStrategy;
+import org.tensorics.core.tensor.ImmutableTensor;
+import org.tensorics.core.tensor.Position;
+import org.tensorics.core.tensor.Tensor;
+import org.tensorics.core.tensor.lang.TensorStructurals;
+import org.tensorics.core.tensor.options.ParallelExecutionStrategy;
+
+import com.google.common.collect.ImmutableSet;
+
+public class MultiDimensionTensorReductionTest {
+
+    private static final Set<Class<?>> INTEGER_AND_STRING = ImmutableSet.<Class<?>> of(Integer.class, String.class);
+
+    private final Tensor<Double> tensor = createTensor(20, 5, 3);
+
+    @Test
+    public void averagingOverTwoDimensionsEqualsSuccessiveAveraging() {
+        Tensor<Double> successive = TensorStructurals.from(
+                TensorStructurals.from(tensor).reduce(Integer.class).byAveragingIn(doubles())).reduce(String.class)
+                .byAveragingIn(doubles());
+        Tensor<Double> together = TensorStructurals.from(tensor).reduce(INTEGER_AND_STRING).byAveragingIn(doubles());
+
+        assertEquals(ImmutableSet.of(Long.class), together.shape().dimensionSet());
+        assertEquals(3, together.shape().size());
+        assertEqualValues(successive, together);
+    }
+
+    @Test
+    public void reducedCoordinatesAreKeyedByPosition() {
+        ReductionStrategy<Position, Double> pickingAt7s2 = new ReductionStrategy<Position, Double>() {
+
+            @Override
+            public Double reduce(Map<? extends Position, Double> inputValues, Position position) {
+                return inputValues.get(Position.of(7, "s2"));
+            }
+
+            @Override
+            public Position context(Position originalContext) {
+                return originalContext;
+            }
+        };
+        Tensor<Double> sliced = new MultiDimensionTensorReduction<>(INTEGER_AND_STRING, pickingAt7s2).perform(tensor);
+
+        assertEquals(tensor.get(7, "s2", 1L), sliced.get(1L));
+    }
+
+    @Test
+    public void parallelReductionGivesSameResultAsSequential() {
+        Tensor<Double> bigTensor = createTensor(10, 10, 500);
+        Averaging<Double> averaging = new Averaging<>(doubles());
+
+        Tensor<Double> sequential = new MultiDimensionTensorReduction<>(INTEGER_AND_STRING, averaging)
+                .perform(bigTensor);
+        Tensor<Double> parallel = TensorStructurals.from(bigTensor).reduce(INTEGER_AND_STRING)
+                .using(new ParallelExecutionStrategy(1)).byAveragingIn(doubles());
+
+        assertEquals(500, parallel.shape().size());
+        assertEqualValues(sequential, parallel);
+    }
+
+    @Test
+    public void reducingAllDimensionsGivesZeroDimensionalTensor() {
+        Tensor<Double> reduced = new MultiDimensionTensorReduction<>(ImmutableSet.<Class<?>> of(Integer.class,
+                String.class, Long.class), new Averaging<>(doubles())).perform(createTensor(2, 2, 2));
+
+        assertEquals(0, reduced.shape().dimensionality());
+        assertEquals(4.5, reduced.get(Position.empty()), 0.0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void reducingMissingDimensionThrows() {
+        new MultiDimensionTensorReduction<>(ImmutableSet.<Class<?>> of(Double.class), new Averaging<>(doubles()))
+                .perform(tensor);
+    }
+
+    private static void assertEqualValues(Tensor<Double> expected, Tensor<Double> actual) {
+        assertEquals(expected.shape(), actual.shape());
+        for (Position position : expected.shape().positionSet()) {
+            assertEquals(expected.get(position), actual.get(position), 1e-9);
+        }
+    }
+
+    private static Tensor<Double> createTensor(int integers, int strings, int longs) {
+        ImmutableTensor.Builder<Double> builder = ImmutableTensor.builder(Integer.class, String.class, Long.class);
+        double value = 1.0;
+        for (int i = 0; i < integers; i++) {
+            for (int s = 0; s < strings; s++) {
+                for (long l = 0; l < longs; l++) {
+                    builder.putAt(value++, i, "s" + s, l);
+                }
+            }
+        }
+        return builder.build();
+    }
+
+}
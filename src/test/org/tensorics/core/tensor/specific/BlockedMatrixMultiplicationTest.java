@@ -0,0 +1,190 @@
+// @formatter:off
+ /*******************************************************************************
+ *
+ * This file is part of tensorics.
+ * 
+ * Copyright (c) 2008-2011, CERN. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ ******************************************************************************/
+// @formatter:on
+
+package org.tensorics.core.tensor.specific;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.junit.Assert.assertThat;
+import static org.tensorics.core.fields.doubles.Structures.doubles;
+
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.Test;
+import org.tensorics.core.lang.TensoricDoubleSupport;
+import org.tensorics.core.math.operations.BinaryOperation;
+import org.tensorics.core.tensor.Context;
+import org.tensorics.core.tensor.ImmutableTensor;
+import org.tensorics.core.tensor.Position;
+import org.tensorics.core.tensor.Tensor;
+import org.tensorics.core.tensor.variance.CoContraDimensionPair;
+import org.tensorics.core.tensor.variance.Covariant;
+
+public class BlockedMatrixMultiplicationTest extends TensoricDoubleSupport {
+
+    private static final int ROWS = 70;
+    private static final int INNER = 300;
+    private static final int COLUMNS = 3;
+
+    @Test
+    public void productOverSeveralBlocksIsSameAsInnerProduct() {
+        Tensor<Double> matrix = matrix();
+        Tensor<Double> other = other();
+
+        Tensor<Double> result = calculate(matrix).times(other);
+        assertThat(result, instanceOf(ImmutableDoubleArrayBackedTensor.class));
+        assertThat(result.asMap(), equalTo((Map<Position, Double>) calculate(ImmutableTensor.copyOf(matrix)).times(
+                ImmutableTensor.copyOf(other)).asMap()));
+    }
+
+    @Test
+    public void operandsNotInRowMajorOrderGiveSameResultAsInnerProduct() {
+        Tensor<Double> matrix = matrixWithRows();
+        Tensor<Double> other = other();
+
+        Tensor<Double> result = calculate(matrix).times(other);
+        assertThat(result, instanceOf(ImmutableDoubleArrayBackedTensor.class));
+        assertThat(result.asMap(), equalTo((Map<Position, Double>) calculate(ImmutableTensor.copyOf(matrix)).times(
+                ImmutableTensor.copyOf(other)).asMap()));
+    }
+
+    @Test
+    public void otherOperationsAreAppliedOnBoxedValues() {
+        BinaryOperation<Double> addition = new BinaryOperation<Double>() {
+            @Override
+            public Double perform(Double left, Double right) {
+                return left + right;
+            }
+        };
+        CoContraDimensionPair pair = CoContraDimensionPair.ofLeftRight(CoIndex.class, Integer.class);
+
+        Tensor<Double> primitive = BlockedMatrixMultiplication.multiply(doubles().multiplication(), doubles()
+                .addition(), 0.0, matrix(), other(), pair, Context.empty());
+        Tensor<Double> boxed = BlockedMatrixMultiplication.multiply(doubles().multiplication(), addition, 0.0, matrix(),
+                other(), pair, Context.empty());
+        assertThat(boxed, equalTo(primitive));
+    }
+
+    @Test
+    public void missingInnerCoordinateIsNotMultipliedAsMatrix() {
+        PositionIndexer vectorIndexer = PositionIndexer.builder().put(Integer.class, range(INNER - 1)).build();
+        ImmutableDoubleArrayBackedTensor.Builder builder = ImmutableDoubleArrayBackedTensor.builder(vectorIndexer);
+        for (int k = 0; k < INNER - 1; k++) {
+            builder.putAt(1.0, Position.of(k));
+        }
+        List<CoContraDimensionPair> pairs = Collections.singletonList(CoContraDimensionPair.ofLeftRight(
+                CoIndex.class, Integer.class));
+        assertThat(BlockedMatrixMultiplication.canMultiply(matrix(), builder.build(), pairs), equalTo(false));
+    }
+
+    private static Tensor<Double> matrix() {
+        Set<CoIndex> inner = new LinkedHashSet<>();
+        for (int k = 0; k < INNER; k++) {
+            inner.add(new CoIndex(k));
+        }
+        PositionIndexer indexer = PositionIndexer.builder().put(String.class, rowNames()).put(CoIndex.class, inner)
+                .build();
+        ImmutableDoubleArrayBackedTensor.Builder builder = ImmutableDoubleArrayBackedTensor.builder(indexer);
+        for (String row : rowNames()) {
+            for (int k = 0; k < INNER; k++) {
+                builder.putAt((double) ((row.hashCode() + k) % 7), Position.of(row, new CoIndex(k)));
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * A matrix whose inner dimension comes before the row dimension in the indexer, so that its array is not in
+     * row-major order.
+     */
+    private static Tensor<Double> matrixWithRows() {
+        Set<CoIndex> inner = new LinkedHashSet<>();
+        Set<Row> rows = new LinkedHashSet<>();
+        for (int k = 0; k < INNER; k++) {
+            inner.add(new CoIndex(k));
+        }
+        for (int m = 0; m < ROWS; m++) {
+            rows.add(new Row(m));
+        }
+        PositionIndexer indexer = PositionIndexer.builder().put(Row.class, rows).put(CoIndex.class, inner).build();
+        ImmutableDoubleArrayBackedTensor.Builder builder = ImmutableDoubleArrayBackedTensor.builder(indexer);
+        for (Row row : rows) {
+            for (CoIndex k : inner) {
+                builder.putAt((double) ((row.hashCode() + k.hashCode()) % 7), Position.of(row, k));
+            }
+        }
+        return builder.build();
+    }
+
+    private static Tensor<Double> other() {
+        PositionIndexer indexer = PositionIndexer.builder().put(Integer.class, range(INNER))
+                .put(Long.class, longRange(COLUMNS)).build();
+        ImmutableDoubleArrayBackedTensor.Builder builder = ImmutableDoubleArrayBackedTensor.builder(indexer);
+        for (int k = 0; k < INNER; k++) {
+            for (long column = 0; column < COLUMNS; column++) {
+                builder.putAt((double) (k % 5 - column), Position.of(k, column));
+            }
+        }
+        return builder.build();
+    }
+
+    private static Set<String> rowNames() {
+        Set<String> names = new LinkedHashSet<>();
+        for (int m = 0; m < ROWS; m++) {
+            names.add("R" + m);
+        }
+        return names;
+    }
+
+    private static Set<Integer> range(int size) {
+        Set<Integer> values = new LinkedHashSet<>();
+        for (int i = 0; i < size; i++) {
+            values.add(i);
+        }
+        return values;
+    }
+
+    private static Set<Long> longRange(int size) {
+        Set<Long> values = new LinkedHashSet<>();
+        for (long i = 0; i < size; i++) {
+            values.add(i);
+        }
+        return values;
+    }
+
+    public static final class CoIndex extends Covariant<Integer> {
+        public CoIndex(Integer coordinate) {
+            super(coordinate);
+        }
+    }
+
+    public static final class Row extends Covariant<Integer> {
+        public Row(Integer coordinate) {
+            super(coordinate);
+        }
+    }
+
+}
@@ -0,0 +1,166 @@
+// @formatter:off
+ /*******************************************************************************
+ *
+ * This file is part of tensorics.
+ * 
+ * Copyright (c) 2008-2011, CERN. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ ******************************************************************************/
+// @formatter:on
+package org.tensorics.core.tensor.specific;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.tensorics.core.tensor.FilteredTensorView;
+import org.tensorics.core.tensor.ImmutableTensor;
+import org.tensorics.core.tensor.Position;
+import org.tensorics.core.tensor.Positions;
+import org.tensorics.core.tensor.Tensor;
+import org.tensorics.core.tensor.lang.TensorStructurals;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Range;
+
+public class ChunkedSeriesTensorTest {
+
+    private static final Set<Class<?>> DIMENSIONS = ImmutableSet.<Class<?>> of(Integer.class, String.class);
+
+    private ChunkedSeriesTensor<Integer, Double> series;
+
+    @Before
+    public void setUp() {
+        series = ChunkedSeriesTensor.empty(Integer.class, DIMENSIONS, 3);
+        for (int time = 0; time < 10; time++) {
+            series = series.append(time, slice(time));
+        }
+    }
+
+    private static Map<Position, Double> slice(int time) {
+        return ImmutableMap.of(Position.of("A"), (double) time, Position.of("B"), 10.0 * time);
+    }
+
+    @Test
+    public void appendedSlicesAreStoredInChunks() {
+        assertThat(series.chunkCount(), equalTo(4));
+        assertThat(series.shape().size(), equalTo(20));
+        assertThat(series.shape().dimensionSet(), equalTo(DIMENSIONS));
+        assertThat(series.get(7, "B"), equalTo(70.0));
+        assertThat(series.lastCoordinate(), equalTo(9));
+        assertThat(series.seriesCoordinates(), equalTo(ImmutableList.of(0, 1, 2, 3, 4, 5, 6, 7, 8, 9)));
+    }
+
+    @Test
+    public void appendingDoesNotChangeOriginal() {
+        ChunkedSeriesTensor<Integer, Double> extended = series.append(10, slice(10));
+        assertThat(extended.shape().size(), equalTo(22));
+        assertThat(extended.get(10, "A"), equalTo(10.0));
+        assertThat(series.shape().size(), equalTo(20));
+        assertThat(series.shape().contains(10, "A"), equalTo(false));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void appendingBeforeLastCoordinateThrows() {
+        series.append(9, slice(9));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void appendingWrongDimensionsThrows() {
+        series.append(10, ImmutableMap.of(Position.of("A", 1.0), 1.0));
+    }
+
+    @Test(expected = NoSuchElementException.class)
+    public void getForMissingPositionThrows() {
+        series.get(11, "A");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void getWithWrongDimensionsThrows() {
+        series.get("A");
+    }
+
+    @Test
+    public void contentEqualsImmutableTensor() {
+        ImmutableTensor.Builder<Double> builder = ImmutableTensor.builder(DIMENSIONS);
+        for (int time = 0; time < 10; time++) {
+            for (Map.Entry<Position, Double> entry : slice(time).entrySet()) {
+                builder.putAt(entry.getValue(), Positions.union(entry.getKey(), Position.of(time)));
+            }
+        }
+        Tensor<Double> expected = builder.build();
+        assertThat(series.asMap(), equalTo(expected.asMap()));
+        assertThat(series.shape().positionSet(), equalTo(expected.shape().positionSet()));
+        assertThat(series.equals(expected), equalTo(true));
+        assertThat(expected.equals(series), equalTo(true));
+        assertThat(series.hashCode(), equalTo(expected.hashCode()));
+    }
+
+    @Test
+    public void windowEqualsFilteredCopyWithSameContent() {
+        Tensor<Double> window = TensorStructurals.filter(series).by(Integer.class, Range.closed(3, 5));
+        Tensor<Double> filteredView = FilteredTensorView.inRange(series, Integer.class, Range.closed(3, 5));
+        Tensor<Double> copy = ImmutableTensor.copyOf(filteredView);
+        assertThat(window.equals(filteredView), equalTo(true));
+        assertThat(filteredView.equals(window), equalTo(true));
+        assertThat(window.equals(copy), equalTo(true));
+        assertThat(copy.equals(window), equalTo(true));
+        assertThat(window.hashCode(), equalTo(copy.hashCode()));
+    }
+
+    @Test
+    public void windowContainsOnlySlicesInRange() {
+        ChunkedSeriesTensor<Integer, Double> window = series.window(Range.closedOpen(2, 7));
+        assertThat(window.seriesCoordinates(), equalTo(ImmutableList.of(2, 3, 4, 5, 6)));
+        assertThat(window.shape().size(), equalTo(10));
+        assertThat(window.get(2, "A"), equalTo(2.0));
+        assertThat(window.shape().contains(7, "A"), equalTo(false));
+        assertThat(window.chunkCount(), equalTo(3));
+    }
+
+    @Test
+    public void unboundedWindowsAreSupported() {
+        assertThat(series.window(Range.atLeast(8)).seriesCoordinates(), equalTo(ImmutableList.of(8, 9)));
+        assertThat(series.window(Range.lessThan(2)).seriesCoordinates(), equalTo(ImmutableList.of(0, 1)));
+        assertThat(series.window(Range.<Integer> all()).asMap(), equalTo(series.asMap()));
+        assertThat(series.window(Range.greaterThan(9)).shape().size(), equalTo(0));
+    }
+
+    @Test
+    public void filterByRangeUsesWindow() {
+        Tensor<Double> filtered = TensorStructurals.filter(series).by(Integer.class, Range.closed(3, 5));
+        assertThat(filtered, instanceOf(ChunkedSeriesTensor.class));
+        assertThat(filtered.shape().size(), equalTo(6));
+        assertThat(filtered.get(5, "B"), equalTo(50.0));
+    }
+
+    @Test
+    public void evictionDropsWholeChunksOnly() {
+        ChunkedSeriesTensor<Integer, Double> evicted = series.evictBefore(4);
+        assertThat(evicted.chunkCount(), equalTo(3));
+        assertThat(evicted.seriesCoordinates(), equalTo(ImmutableList.of(3, 4, 5, 6, 7, 8, 9)));
+        assertThat(evicted.shape().contains(2, "A"), equalTo(false));
+        assertThat(series.evictBefore(0), sameInstance(series));
+    }
+}
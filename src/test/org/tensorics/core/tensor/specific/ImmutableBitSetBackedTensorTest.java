@@ -0,0 +1,101 @@
+// @formatter:off
+ /*******************************************************************************
+ *
+ * This file is part of tensorics.
+ * 
+ * Copyright (c) 2008-2011, CERN. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ ******************************************************************************/
+// @formatter:on
+package org.tensorics.core.tensor.specific;
+
+import static javax.measure.unit.SI.METER;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.junit.Assert.assertThat;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.tensorics.core.quantity.ImmutableQuantifiedValue;
+import org.tensorics.core.quantity.QuantifiedValue;
+import org.tensorics.core.tensor.ImmutableTensor;
+import org.tensorics.core.tensor.Position;
+import org.tensorics.core.tensor.Tensor;
+import org.tensorics.core.tensor.lang.QuantityTensors;
+import org.tensorics.core.tensor.lang.TensorStructurals;
+import org.tensorics.core.units.JScienceUnit;
+
+import com.google.common.collect.ImmutableSet;
+
+public class ImmutableBitSetBackedTensorTest {
+
+    private static final ImmutableSet<Integer> INTS = ImmutableSet.of(1, 2, 3, 4);
+    private static final ImmutableSet<String> STRINGS = ImmutableSet.of("A", "B");
+
+    private PositionIndexer indexer;
+    private ImmutableBitSetBackedTensor mask;
+
+    @Before
+    public void setUp() {
+        indexer = PositionIndexer.builder().put(Integer.class, INTS).put(String.class, STRINGS).build();
+        ImmutableBitSetBackedTensor.Builder builder = ImmutableBitSetBackedTensor.builder(indexer);
+        for (Integer intValue : INTS) {
+            builder.putUncheckedAt(intValue % 2 == 0, Position.of(intValue, "A"));
+        }
+        mask = builder.build();
+    }
+
+    @Test
+    public void notPutValuesAreFalse() {
+        assertThat(mask.get(2, "A"), equalTo(true));
+        assertThat(mask.get(3, "A"), equalTo(false));
+        assertThat(mask.get(2, "B"), equalTo(false));
+        assertThat(mask.trueCount(), equalTo(2));
+    }
+
+    @Test
+    public void extractWhereTrueWithSameIndexer() {
+        ImmutableLongArrayBackedTensor.Builder builder = ImmutableLongArrayBackedTensor.builder(indexer);
+        for (Position position : indexer.allPositions()) {
+            builder.putUncheckedAt(position.coordinateFor(Integer.class), position);
+        }
+        Tensor<Long> extracted = TensorStructurals.from((Tensor<Long>) builder.build()).extractWhereTrue(mask);
+        assertThat(extracted.shape().positionSet(), equalTo(ImmutableSet.of(Position.of(2, "A"), Position.of(4, "A"))));
+        assertThat(extracted.get(4, "A"), equalTo(4L));
+    }
+
+    @Test
+    public void extractWhereTrueFromDefaultTensor() {
+        ImmutableTensor.Builder<Integer> builder = ImmutableTensor.builder(Integer.class, String.class);
+        builder.putAt(1, Position.of(1, "A"));
+        builder.putAt(2, Position.of(2, "A"));
+        Tensor<Integer> extracted = TensorStructurals.from((Tensor<Integer>) builder.build()).extractWhereTrue(mask);
+        assertThat(extracted.shape().positionSet(), equalTo(ImmutableSet.of(Position.of(2, "A"))));
+    }
+
+    @Test
+    public void validitiesOfGridShapedTensorAreBitSetBacked() {
+        ImmutableTensor.Builder<QuantifiedValue<Double>> builder = ImmutableTensor.builder(Integer.class);
+        for (Integer intValue : INTS) {
+            builder.putAt(ImmutableQuantifiedValue.of(1.0, JScienceUnit.of(METER)).withValidity(intValue > 2),
+                    Position.of(intValue));
+        }
+        Tensor<Boolean> validities = QuantityTensors.validitiesOf(builder.build());
+        assertThat(validities, instanceOf(ImmutableBitSetBackedTensor.class));
+        assertThat(validities.get(2), equalTo(false));
+        assertThat(validities.get(3), equalTo(true));
+    }
+
+}
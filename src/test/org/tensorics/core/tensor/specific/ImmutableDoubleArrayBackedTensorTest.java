@@ -0,0 +1,142 @@
+// @formatter:off
+ /*******************************************************************************
+ *
+ * This file is part of tensorics.
+ * 
+ * Copyright (c) 2008-2011, CERN. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ ******************************************************************************/
+// @formatter:on
+package org.tensorics.core.tensor.specific;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.tensorics.core.fields.doubles.Structures.doubles;
+import static org.tensorics.core.testing.TestUtil.serializedCopy;
+
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.tensorics.core.lang.DoubleTensorics;
+import org.tensorics.core.tensor.ImmutableTensor;
+import org.tensorics.core.tensor.Position;
+import org.tensorics.core.tensor.Shape;
+import org.tensorics.core.tensor.Tensor;
+import org.tensorics.core.tensor.lang.TensorStructurals;
+
+import com.google.common.collect.ImmutableSet;
+
+public class ImmutableDoubleArrayBackedTensorTest {
+
+    private static final ImmutableSet<Integer> INTS = ImmutableSet.of(1, 2, 3);
+    private static final ImmutableSet<String> STRINGS = ImmutableSet.of("A", "B");
+
+    private PositionIndexer indexer;
+    private ImmutableDoubleArrayBackedTensor tensor;
+
+    @Before
+    public void setUp() {
+        indexer = PositionIndexer.builder().put(Integer.class, INTS).put(String.class, STRINGS).build();
+        tensor = createTensor(1.0);
+    }
+
+    private ImmutableDoubleArrayBackedTensor createTensor(double factor) {
+        ImmutableDoubleArrayBackedTensor.Builder builder = ImmutableDoubleArrayBackedTensor.builder(indexer);
+        for (Integer intValue : INTS) {
+            for (String string : STRINGS) {
+                builder.putUncheckedAt(factor * intValue, Position.of(intValue, string));
+            }
+        }
+        return builder.build();
+    }
+
+    @Test
+    public void positionAtIsInverseOfIndexFor() {
+        for (int i = 0; i < indexer.arraySize(); i++) {
+            assertThat(indexer.indexFor(indexer.positionAt(i)), equalTo(i));
+        }
+    }
+
+    @Test
+    public void shapeIsSerializable() {
+        Shape copy = serializedCopy(tensor.shape());
+        assertThat(copy, equalTo(tensor.shape()));
+        assertTrue(copy.contains(Position.of(2, "B")));
+    }
+
+    @Test
+    public void shapeContainsAllPositions() {
+        assertThat(tensor.shape().size(), equalTo(6));
+        assertTrue(tensor.shape().contains(Position.of(2, "B")));
+        assertFalse(tensor.shape().contains(Position.of(4, "B")));
+        assertThat(ImmutableSet.copyOf(tensor.shape().positionSet()).size(), equalTo(6));
+    }
+
+    @Test
+    public void asMapEqualsImmutableCopy() {
+        Map<Position, Double> map = tensor.asMap();
+        assertThat(map, equalTo(ImmutableTensor.copyOf(tensor).asMap()));
+        assertThat(map.get(Position.of(3, "A")), equalTo(3.0));
+    }
+
+    @Test(expected = NoSuchElementException.class)
+    public void getUnknownCoordinateThrows() {
+        tensor.get(4, "A");
+    }
+
+    @Test
+    public void elementwiseOperationsStayArrayBacked() {
+        Tensor<Double> sum = DoubleTensorics.calculate(tensor).plus(createTensor(2.0));
+        assertThat(sum, instanceOf(ImmutableDoubleArrayBackedTensor.class));
+        assertThat(sum, equalTo((Tensor<Double>) createTensor(3.0)));
+    }
+
+    @Test
+    public void scalarOperationsStayArrayBacked() {
+        Tensor<Double> product = DoubleTensorics.calculate(tensor).elementTimesV(2.0);
+        assertThat(product, instanceOf(ImmutableDoubleArrayBackedTensor.class));
+        assertThat(product, equalTo((Tensor<Double>) createTensor(2.0)));
+    }
+
+    @Test
+    public void unaryOperationsStayArrayBacked() {
+        Tensor<Double> negative = DoubleTensorics.negativeOf(tensor);
+        assertThat(negative, instanceOf(ImmutableDoubleArrayBackedTensor.class));
+        assertThat(negative, equalTo((Tensor<Double>) createTensor(-1.0)));
+    }
+
+    @Test
+    public void reductionStaysArrayBacked() {
+        Tensor<Double> averaged = TensorStructurals.from((Tensor<Double>) tensor).reduce(Integer.class)
+                .byAveragingIn(doubles());
+        assertThat(averaged, instanceOf(ImmutableDoubleArrayBackedTensor.class));
+        assertThat(averaged.asMap(), equalTo(TensorStructurals.from(ImmutableTensor.copyOf(tensor))
+                .reduce(Integer.class).byAveragingIn(doubles()).asMap()));
+        assertThat(averaged.get("B"), equalTo(2.0));
+    }
+
+    @Test
+    public void slicingMissingCoordinateGivesEmptyTensor() {
+        Tensor<Double> sliced = TensorStructurals.from((Tensor<Double>) tensor).reduce(Integer.class).bySlicingAt(5);
+        assertThat(sliced.shape().size(), equalTo(0));
+        assertThat(sliced.shape().dimensionSet(), equalTo((Object) ImmutableSet.of(String.class)));
+    }
+
+}
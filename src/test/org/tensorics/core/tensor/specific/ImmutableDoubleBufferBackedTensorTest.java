@@ -0,0 +1,131 @@
+// @formatter:off
+ /*******************************************************************************
+ *
+ * This file is part of tensorics.
+ * 
+ * Copyright (c) 2008-2011, CERN. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ ******************************************************************************/
+// @formatter:on
+package org.tensorics.core.tensor.specific;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertThat;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.tensorics.core.tensor.Position;
+
+import com.google.common.collect.ImmutableSet;
+
+public class ImmutableDoubleBufferBackedTensorTest {
+
+    private static final ImmutableSet<Integer> INTS = ImmutableSet.of(1, 2, 3);
+    private static final ImmutableSet<String> STRINGS = ImmutableSet.of("A", "B");
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private PositionIndexer indexer;
+
+    @Before
+    public void setUp() {
+        indexer = PositionIndexer.builder().put(Integer.class, INTS).put(String.class, STRINGS).build();
+    }
+
+    @Test
+    public void writtenFileCanBeReopened() throws IOException {
+        Path file = folder.getRoot().toPath().resolve("values.bin");
+        ImmutableDoubleBufferBackedTensor.Builder builder = ImmutableDoubleBufferBackedTensor.mappedBuilder(file,
+                indexer);
+        fill(builder);
+        ImmutableDoubleBufferBackedTensor written = builder.build();
+        assertThat(Files.size(file) % Double.BYTES, equalTo(0L));
+
+        ImmutableDoubleBufferBackedTensor reopened = ImmutableDoubleBufferBackedTensor.openMapped(file, indexer);
+        assertThat(reopened.get(3, "B"), equalTo(written.get(3, "B")));
+        assertThat(reopened.get(2, "A"), equalTo(21.0));
+        assertThat(reopened.asMap(), equalTo(written.asMap()));
+    }
+
+    @Test
+    public void directBufferContainsPutValuesAndZerosOtherwise() {
+        ImmutableDoubleBufferBackedTensor.Builder builder = ImmutableDoubleBufferBackedTensor.directBuilder(indexer);
+        builder.putAt(1.5, Position.of(1, "B"));
+        ImmutableDoubleBufferBackedTensor tensor = builder.build();
+        assertThat(tensor.get(1, "B"), equalTo(1.5));
+        assertThat(tensor.get(1, "A"), equalTo(0.0));
+        assertThat(tensor.shape().size(), equalTo(6));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void putAfterBuildThrows() {
+        ImmutableDoubleBufferBackedTensor.Builder builder = ImmutableDoubleBufferBackedTensor.directBuilder(indexer);
+        builder.build();
+        builder.putAt(1.0, Position.of(1, "A"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void openingWithWrongIndexerThrows() throws IOException {
+        Path file = folder.getRoot().toPath().resolve("values.bin");
+        ImmutableDoubleBufferBackedTensor.Builder builder = ImmutableDoubleBufferBackedTensor.mappedBuilder(file,
+                indexer);
+        fill(builder);
+        builder.build();
+        ImmutableDoubleBufferBackedTensor.openMapped(file,
+                PositionIndexer.builder().put(Integer.class, INTS).build());
+    }
+
+    @Test
+    public void fileCanBeReopenedWithDimensionsPutInOtherOrder() throws IOException {
+        Path file = folder.getRoot().toPath().resolve("values.bin");
+        ImmutableDoubleBufferBackedTensor.Builder builder = ImmutableDoubleBufferBackedTensor.mappedBuilder(file,
+                indexer);
+        fill(builder);
+        ImmutableDoubleBufferBackedTensor written = builder.build();
+
+        PositionIndexer otherOrder = PositionIndexer.builder().put(String.class, STRINGS).put(Integer.class, INTS)
+                .build();
+        ImmutableDoubleBufferBackedTensor reopened = ImmutableDoubleBufferBackedTensor.openMapped(file, otherOrder);
+        assertThat(reopened.get(2, "B"), equalTo(21.0));
+        assertThat(reopened.asMap(), equalTo(written.asMap()));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void openingWithOtherCoordinateOrderThrows() throws IOException {
+        Path file = folder.getRoot().toPath().resolve("values.bin");
+        ImmutableDoubleBufferBackedTensor.Builder builder = ImmutableDoubleBufferBackedTensor.mappedBuilder(file,
+                indexer);
+        fill(builder);
+        builder.build();
+        ImmutableDoubleBufferBackedTensor.openMapped(file, PositionIndexer.builder().put(Integer.class, INTS)
+                .put(String.class, ImmutableSet.of("B", "A")).build());
+    }
+
+    private static void fill(ImmutableDoubleBufferBackedTensor.Builder builder) {
+        for (Integer intValue : INTS) {
+            for (String string : STRINGS) {
+                builder.putUncheckedAt(10.0 * intValue + string.length(), Position.of(intValue, string));
+            }
+        }
+    }
+
+}
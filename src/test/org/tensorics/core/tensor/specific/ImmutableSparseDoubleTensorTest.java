@@ -0,0 +1,247 @@
+// @formatter:off
+ /*******************************************************************************
+ *
+ * This file is part of tensorics.
+ * 
+ * Copyright (c) 2008-2011, CERN. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ ******************************************************************************/
+// @formatter:on
+package org.tensorics.core.tensor.specific;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.junit.Assert.assertThat;
+import static org.tensorics.core.fields.doubles.Structures.doubles;
+
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.tensorics.core.lang.InnerProductTest.CoCoord;
+import org.tensorics.core.lang.InnerProductTest.Coord;
+import org.tensorics.core.lang.TensoricDoubleSupport;
+import org.tensorics.core.tensor.ImmutableTensor;
+import org.tensorics.core.tensor.Position;
+import org.tensorics.core.tensor.Tensor;
+import org.tensorics.core.tensor.lang.TensorStructurals;
+
+import com.google.common.collect.ContiguousSet;
+import com.google.common.collect.DiscreteDomain;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Range;
+
+public class ImmutableSparseDoubleTensorTest extends TensoricDoubleSupport {
+
+    private static final Set<Integer> INTS = ImmutableSet.of(1, 2, 3, 4);
+    private static final Set<String> STRINGS = ImmutableSet.of("A", "B", "C");
+
+    private PositionIndexer indexer;
+    private ImmutableSparseDoubleTensor sparse;
+
+    @Before
+    public void setUp() {
+        indexer = PositionIndexer.builder().put(Integer.class, INTS).put(String.class, STRINGS).buildUnbounded();
+        ImmutableSparseDoubleTensor.Builder builder = ImmutableSparseDoubleTensor.builder(indexer);
+        builder.putAt(4.0, Position.of(4, "C"));
+        builder.putAt(1.0, Position.of(1, "A"));
+        builder.putAt(2.0, Position.of(2, "B"));
+        builder.putAt(3.0, Position.of(3, "A"));
+        sparse = builder.build();
+    }
+
+    @Test
+    public void onlyPutPositionsArePresent() {
+        assertThat(sparse.shape().size(), equalTo(4));
+        assertThat(sparse.shape().contains(Position.of(2, "B")), equalTo(true));
+        assertThat(sparse.shape().contains(Position.of(2, "A")), equalTo(false));
+        assertThat(sparse.get(4, "C"), equalTo(4.0));
+    }
+
+    @Test(expected = java.util.NoSuchElementException.class)
+    public void getForMissingPositionThrows() {
+        sparse.get(2, "A");
+    }
+
+    @Test
+    public void lastPutValueWinsAndRemovedValuesAreAbsent() {
+        ImmutableSparseDoubleTensor.Builder builder = ImmutableSparseDoubleTensor.builder(indexer);
+        builder.putAt(1.0, Position.of(1, "A"));
+        builder.putAt(2.0, Position.of(2, "A"));
+        builder.putAt(5.0, Position.of(1, "A"));
+        builder.removeAt(Position.of(2, "A"));
+        ImmutableSparseDoubleTensor tensor = builder.build();
+        assertThat(tensor.shape().positionSet(), equalTo((Set<Position>) ImmutableSet.of(Position.of(1, "A"))));
+        assertThat(tensor.get(1, "A"), equalTo(5.0));
+    }
+
+    @Test
+    public void indexerTooLargeForArraysCanBeUsed() {
+        Set<Integer> manyInts = ContiguousSet.create(Range.closedOpen(0, 100000), DiscreteDomain.integers());
+        Set<Long> manyLongs = ContiguousSet.create(Range.closedOpen(0L, 100000L), DiscreteDomain.longs());
+        PositionIndexer largeIndexer = PositionIndexer.builder().put(Integer.class, manyInts)
+                .put(Long.class, manyLongs).buildUnbounded();
+        assertThat(largeIndexer.isArrayCapable(), equalTo(false));
+
+        ImmutableSparseDoubleTensor.Builder builder = ImmutableSparseDoubleTensor.builder(largeIndexer);
+        builder.putAt(1.0, Position.of(99999, 99999L));
+        builder.putAt(2.0, Position.of(0, 12345L));
+        ImmutableSparseDoubleTensor tensor = builder.build();
+        assertThat(tensor.get(99999, 99999L), equalTo(1.0));
+        assertThat(tensor.get(0, 12345L), equalTo(2.0));
+        assertThat(tensor.storedSize(), equalTo(2));
+    }
+
+    @Test
+    public void sparsePlusSparseContainsCommonPositions() {
+        ImmutableTensor.Builder<Double> builder = ImmutableTensor.builder(Integer.class, String.class);
+        builder.putAt(20.0, Position.of(2, "B"));
+        builder.putAt(50.0, Position.of(5, "B"));
+        builder.putAt(40.0, Position.of(4, "C"));
+        ImmutableSparseDoubleTensor other = ImmutableSparseDoubleTensor.copyOf(builder.build());
+        Tensor<Double> result = calculate(sparse).plus(other);
+        assertThat(result, instanceOf(ImmutableSparseDoubleTensor.class));
+        assertSameContent(result, calculate(ImmutableTensor.copyOf(sparse)).plus(ImmutableTensor.copyOf(other)));
+        assertThat(result.get(2, "B"), equalTo(22.0));
+    }
+
+    @Test
+    public void sparseTimesDenseWithSameDimensions() {
+        ImmutableDoubleArrayBackedTensor.Builder builder = ImmutableDoubleArrayBackedTensor.builder(PositionIndexer
+                .builder().put(Integer.class, ImmutableSet.of(3, 2, 1)).put(String.class, STRINGS).build());
+        for (Integer intValue : ImmutableSet.of(3, 2, 1)) {
+            for (String string : STRINGS) {
+                builder.putAt(10.0 * intValue, Position.of(intValue, string));
+            }
+        }
+        ImmutableDoubleArrayBackedTensor dense = builder.build();
+        Tensor<Double> result = calculate(dense).elementTimes(sparse);
+        assertThat(result, instanceOf(ImmutableSparseDoubleTensor.class));
+        assertSameContent(result, calculate(ImmutableTensor.copyOf(dense)).elementTimes(ImmutableTensor.copyOf(sparse)));
+        assertThat(result.shape().size(), equalTo(3));
+    }
+
+    @Test
+    public void sparseMinusScalarKeepsPositions() {
+        Tensor<Double> result = calculate(sparse).minus(ImmutableTensor.zeroDimensionalOf(1.0));
+        assertThat(result.shape().positionSet(), equalTo(sparse.shape().positionSet()));
+        assertThat(result.get(4, "C"), equalTo(3.0));
+    }
+
+    @Test
+    public void sparseMatrixTimesVector() {
+        ImmutableTensor.Builder<Double> matrixBuilder = ImmutableTensor.builder(Coord.class, CoCoord.class);
+        matrixBuilder.putAt(1.0, Position.of(Coord.A, CoCoord.of(Coord.A)));
+        matrixBuilder.putAt(2.0, Position.of(Coord.A, CoCoord.of(Coord.C)));
+        matrixBuilder.putAt(3.0, Position.of(Coord.C, CoCoord.of(Coord.B)));
+        Tensor<Double> matrix = matrixBuilder.build();
+        ImmutableTensor.Builder<Double> vectorBuilder = ImmutableTensor.builder(Coord.class);
+        vectorBuilder.putAt(10.0, Position.of(Coord.A));
+        vectorBuilder.putAt(20.0, Position.of(Coord.B));
+        vectorBuilder.putAt(30.0, Position.of(Coord.C));
+        Tensor<Double> vector = vectorBuilder.build();
+
+        Tensor<Double> result = calculate(ImmutableSparseDoubleTensor.copyOf(matrix)).times(
+                ImmutableSparseDoubleTensor.copyOf(vector));
+        assertThat(result, instanceOf(ImmutableDoubleArrayBackedTensor.class));
+        assertSameContent(result, calculate(matrix).times(vector));
+        assertThat(result.get(Coord.A), equalTo(70.0));
+        assertThat(result.get(Coord.C), equalTo(60.0));
+    }
+
+    @Test
+    public void sparseCoContraTimesDenseCoContra() {
+        ImmutableTensor.Builder<Double> sparseBuilder = ImmutableTensor.builder(Coord.class, CoCoord.class);
+        sparseBuilder.putAt(1.0, Position.of(Coord.A, CoCoord.of(Coord.B)));
+        sparseBuilder.putAt(2.0, Position.of(Coord.C, CoCoord.of(Coord.C)));
+        Tensor<Double> left = sparseBuilder.build();
+        Tensor<Double> right = denseCoContra();
+
+        Tensor<Double> result = calculate(ImmutableSparseDoubleTensor.copyOf(left)).times(right);
+        assertThat(result, instanceOf(ImmutableDoubleArrayBackedTensor.class));
+        assertSameContent(result, calculate(left).times(ImmutableTensor.copyOf(right)));
+    }
+
+    @Test
+    public void denseMatrixTimesDenseVectorStaysDense() {
+        Tensor<Double> matrix = denseCoContra();
+        ImmutableDoubleArrayBackedTensor.Builder vectorBuilder = ImmutableDoubleArrayBackedTensor
+                .builder(PositionIndexer.builder().put(Coord.class, ImmutableSet.copyOf(Coord.values())).build());
+        vectorBuilder.putAt(10.0, Position.of(Coord.A));
+        vectorBuilder.putAt(20.0, Position.of(Coord.B));
+        vectorBuilder.putAt(30.0, Position.of(Coord.C));
+        Tensor<Double> vector = vectorBuilder.build();
+
+        Tensor<Double> result = calculate(matrix).times(vector);
+        assertThat(result, instanceOf(ImmutableDoubleArrayBackedTensor.class));
+        assertSameContent(result, calculate(ImmutableTensor.copyOf(matrix)).times(ImmutableTensor.copyOf(vector)));
+        assertThat(result.get(Coord.B), equalTo(3.0 * 10.0 + 4.0 * 20.0 + 5.0 * 30.0));
+    }
+
+    @Test
+    public void sparseTimesBroadcastedDimension() {
+        ImmutableTensor.Builder<Double> builder = ImmutableTensor.builder(CoCoord.class, String.class);
+        builder.putAt(1.0, Position.of(CoCoord.of(Coord.A), "A"));
+        builder.putAt(2.0, Position.of(CoCoord.of(Coord.B), "A"));
+        builder.putAt(3.0, Position.of(CoCoord.of(Coord.B), "B"));
+        Tensor<Double> left = builder.build();
+        ImmutableTensor.Builder<Double> rightBuilder = ImmutableTensor.builder(Coord.class, Integer.class);
+        rightBuilder.putAt(10.0, Position.of(Coord.A, 1));
+        rightBuilder.putAt(20.0, Position.of(Coord.B, 1));
+        rightBuilder.putAt(30.0, Position.of(Coord.B, 2));
+        Tensor<Double> right = rightBuilder.build();
+
+        Tensor<Double> result = calculate(ImmutableSparseDoubleTensor.copyOf(left)).times(
+                ImmutableSparseDoubleTensor.copyOf(right));
+        assertSameContent(result, calculate(left).times(right));
+    }
+
+    @Test
+    public void reductionOnlyConsidersPresentValues() {
+        Tensor<Double> averaged = TensorStructurals.from((Tensor<Double>) sparse).reduce(Integer.class)
+                .byAveragingIn(doubles());
+        assertThat(averaged, instanceOf(ImmutableSparseDoubleTensor.class));
+        assertSameContent(averaged, TensorStructurals.from(ImmutableTensor.copyOf(sparse)).reduce(Integer.class)
+                .byAveragingIn(doubles()));
+        assertThat(averaged.get("A"), equalTo(2.0));
+    }
+
+    @Test
+    public void negativeOfSparseStaysSparse() {
+        Tensor<Double> negative = negativeOf(sparse);
+        assertThat(negative, instanceOf(ImmutableSparseDoubleTensor.class));
+        assertThat(negative.get(2, "B"), equalTo(-2.0));
+    }
+
+    private Tensor<Double> denseCoContra() {
+        ImmutableDoubleArrayBackedTensor.Builder builder = ImmutableDoubleArrayBackedTensor.builder(PositionIndexer
+                .builder().put(Coord.class, ImmutableSet.copyOf(Coord.values()))
+                .put(CoCoord.class, ImmutableSet.of(CoCoord.of(Coord.A), CoCoord.of(Coord.B), CoCoord.of(Coord.C)))
+                .build());
+        for (Coord contra : Coord.values()) {
+            for (Coord co : Coord.values()) {
+                builder.putAt(contra.ordinal() * 3.0 + co.ordinal(), Position.of(contra, CoCoord.of(co)));
+            }
+        }
+        return builder.build();
+    }
+
+    private static void assertSameContent(Tensor<Double> actual, Tensor<Double> expected) {
+        assertThat(actual.shape().dimensionSet(), equalTo(expected.shape().dimensionSet()));
+        assertThat(actual.asMap(), equalTo((Map<Position, Double>) expected.asMap()));
+    }
+
+}
@@ -25,6 +25,12 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
@@ -68,6 +74,27 @@ public class TestUtil {
         return true;
     }
 
+    /**
+     * Serializes the given object and reads it back again.
+     * 
+     * @param object the object to serialize
+     * @return the deserialized copy of the object
+     */
+    @SuppressWarnings("unchecked")
+    public static <T extends Serializable> T serializedCopy(T object) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+                out.writeObject(object);
+            }
+            try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+                return (T) in.readObject();
+            }
+        } catch (IOException | ClassNotFoundException e) {
+            throw new RuntimeException("Error while serializing '" + object + "'.", e);
+        }
+    }
+
     private static void throwVerifyError(Exception e) {
         throw new RuntimeException("Error while validating utility class.", e);
     }
@@ -0,0 +1,125 @@
+// @formatter:off
+ /*******************************************************************************
+ *
+ * This file is part of tensorics.
+ * 
+ * Copyright (c) 2008-2011, CERN. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ ******************************************************************************/
+// @formatter:on
+
+package org.tensorics.core.tree;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.tensorics.core.expressions.BinaryOperationExpression;
+import org.tensorics.core.math.operations.BinaryOperation;
+import org.tensorics.core.resolve.engine.ResolvingEngines;
+import org.tensorics.core.resolve.options.ResolvingOptions;
+import org.tensorics.core.tree.domain.Contexts;
+import org.tensorics.core.tree.domain.EditableResolvingContext;
+import org.tensorics.core.tree.domain.Expression;
+import org.tensorics.core.tree.domain.ResolvedExpression;
+import org.tensorics.core.tree.walking.CommonSubexpressions;
+
+public class CommonSubexpressionsTest {
+
+    private AtomicInteger sumCount;
+    private BinaryOperation<Double> sum;
+    private BinaryOperation<Double> product;
+
+    @Before
+    public void setUp() {
+        sumCount = new AtomicInteger();
+        sum = new BinaryOperation<Double>() {
+            @Override
+            public Double perform(Double left, Double right) {
+                sumCount.incrementAndGet();
+                return left + right;
+            }
+        };
+        product = new BinaryOperation<Double>() {
+            @Override
+            public Double perform(Double left, Double right) {
+                return left * right;
+            }
+        };
+    }
+
+    @Test
+    public void equalSubExpressionsAreReplacedByOneInstance() {
+        BinaryOperationExpression<Double> root = productOfTwoEqualSums();
+        BinaryOperationExpression<Double> rebuilt = CommonSubexpressions.eliminateIn(root,
+                Contexts.newResolvingContext());
+        assertNotSame(root, rebuilt);
+        assertSame(rebuilt.getLeft(), rebuilt.getRight());
+    }
+
+    @Test
+    public void treeWithoutDuplicatesIsKept() {
+        BinaryOperationExpression<Double> root = new BinaryOperationExpression<>(product, sumOf(1.0, 2.0),
+                sumOf(3.0, 4.0));
+        assertSame(root, CommonSubexpressions.eliminateIn(root, Contexts.newResolvingContext()));
+    }
+
+    @Test
+    public void differentOperationsAreNotMerged() {
+        BinaryOperationExpression<Double> root = new BinaryOperationExpression<>(sum, sumOf(1.0, 2.0),
+                new BinaryOperationExpression<>(product, ResolvedExpression.of(1.0), ResolvedExpression.of(2.0)));
+        BinaryOperationExpression<Double> rebuilt = CommonSubexpressions.eliminateIn(root,
+                Contexts.newResolvingContext());
+        assertNotSame(rebuilt.getLeft(), rebuilt.getRight());
+    }
+
+    @Test
+    public void expressionsResolvedInContextAreKept() {
+        BinaryOperationExpression<Double> root = productOfTwoEqualSums();
+        EditableResolvingContext context = Contexts.newResolvingContext();
+        context.put(root.getRight(), 5.0);
+        BinaryOperationExpression<Double> rebuilt = CommonSubexpressions.eliminateIn(root, context);
+        assertSame(root.getRight(), rebuilt.getRight());
+        assertEquals(15.0, ResolvingEngines.defaultEngine().resolve(rebuilt, context), 0.0);
+    }
+
+    @Test
+    public void commonSubExpressionIsResolvedOnlyOnce() {
+        Double result = ResolvingEngines.defaultEngine().resolve(productOfTwoEqualSums(),
+                ResolvingOptions.eliminateCommonSubexpressions());
+        assertEquals(9.0, result, 0.0);
+        assertEquals(1, sumCount.get());
+    }
+
+    @Test
+    public void withoutOptionCommonSubExpressionIsResolvedTwice() {
+        Double result = ResolvingEngines.singlePassEngine().resolve(productOfTwoEqualSums());
+        assertEquals(9.0, result, 0.0);
+        assertEquals(2, sumCount.get());
+    }
+
+    private BinaryOperationExpression<Double> productOfTwoEqualSums() {
+        return new BinaryOperationExpression<>(product, sumOf(1.0, 2.0), sumOf(1.0, 2.0));
+    }
+
+    private Expression<Double> sumOf(double left, double right) {
+        return new BinaryOperationExpression<>(sum, ResolvedExpression.of(left), ResolvedExpression.of(right));
+    }
+
+}
@@ -25,6 +25,7 @@ package org.tensorics.incubate.function;
 import static org.junit.Assert.assertEquals;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import org.junit.Test;
@@ -76,6 +77,44 @@ public class DiscreteFunctionTest {
         assertEquals(0.00, functionToTest.getY(7.5), 0.001);
     }
 
+    @Test
+    public void testGetYsAtSortedXsEqualsSingleLookups() {
+        Builder<Double, Double> builder = SortedMapBackedDiscreteFunction.builder();
+        createDicreteFunction(builder);
+        functionToTest = builder.build();
+        List<Double> xs = Arrays.asList(0.0, 0.5, 2.5, 3.0, 7.5, 9.5, 10.0);
+
+        List<Double> ys = functionToTest.getYs(xs);
+
+        assertEquals(xs.size(), ys.size());
+        for (int i = 0; i < xs.size(); i++) {
+            assertEquals(functionToTest.getY(xs.get(i)), ys.get(i), 0.0);
+        }
+    }
+
+    @Test
+    public void testEvaluateAtResamplesOntoFinerGrid() {
+        Builder<Double, Double> builder = SortedMapBackedDiscreteFunction.builder();
+        createDicreteFunction(builder);
+        functionToTest = builder.build();
+        double[] grid = new double[101];
+        for (int i = 0; i < grid.length; i++) {
+            grid[i] = i * 0.1;
+        }
+
+        double[] resampled = Functions.evaluateAt(functionToTest, grid);
+
+        for (int i = 0; i < grid.length; i++) {
+            assertEquals(functionToTest.getY(grid[i]), resampled[i], 1e-12);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInterpolatingUnsortedValuesThrows() {
+        LinearInterpolationStrategy.interpolate(new double[] { 2.0, 1.0 }, new double[] { 0.0, 3.0 }, new double[] {
+                0.0, 1.0 });
+    }
+
     /**
      * @param builder
      */
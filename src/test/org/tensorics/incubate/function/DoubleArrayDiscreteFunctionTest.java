@@ -0,0 +1,99 @@
+// @formatter:off
+ /*******************************************************************************
+ *
+ * This file is part of tensorics.
+ * 
+ * Copyright (c) 2008-2011, CERN. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ ******************************************************************************/
+// @formatter:on
+
+package org.tensorics.incubate.function;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+public class DoubleArrayDiscreteFunctionTest {
+
+    private static final double PRECISION = 1e-12;
+
+    private final DoubleArrayDiscreteFunction function = DoubleArrayDiscreteFunction.of(
+            new double[] { 2.0, 0.0, 1.0, 3.0 }, new double[] { 4.0, 0.0, 1.0, 9.0 }, new double[] { 0.2, 0.0, 0.1, 0.3 })
+            .withInterpolationStrategy(new LinearInterpolationStrategy());
+
+    @Test
+    public void valuesAreSortedByX() {
+        assertEquals(Arrays.asList(0.0, 1.0, 2.0, 3.0), function.getXs());
+        assertEquals(Arrays.asList(0.0, 1.0, 4.0, 9.0), function.getYs());
+        assertEquals(Arrays.asList(0.0, 0.1, 0.2, 0.3), function.getYsErr());
+    }
+
+    @Test
+    public void containedAndInterpolatedValues() {
+        assertEquals(4.0, function.getY(2.0), PRECISION);
+        assertEquals(2.5, function.getY(1.5), PRECISION);
+    }
+
+    @Test
+    public void batchEvaluationEqualsSingleLookups() {
+        double[] xs = { 0.0, 0.25, 1.0, 2.5, 3.0 };
+        double[] ys = function.getYs(xs);
+        for (int i = 0; i < xs.length; i++) {
+            assertEquals(function.getY(xs[i]), ys[i], PRECISION);
+        }
+    }
+
+    @Test
+    public void builderSortsValues() {
+        DoubleArrayDiscreteFunction.Builder builder = DoubleArrayDiscreteFunction.builder();
+        for (int i = 100; i > 0; i--) {
+            builder.put((double) i, 2.0 * i);
+        }
+        DoubleArrayDiscreteFunction built = builder.withName("built").build();
+
+        assertEquals(100, built.size());
+        assertEquals(1.0, built.xAt(0), 0.0);
+        assertEquals(200.0, built.yAt(99), 0.0);
+        assertEquals("built", built.getName());
+        assertEquals(0, built.getYsErr().size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void duplicatedXsThrow() {
+        DoubleArrayDiscreteFunction.of(new double[] { 1.0, 1.0 }, new double[] { 1.0, 2.0 });
+    }
+
+    @Test(expected = IllegalDiscreteFunctionUsageException.class)
+    public void missingValueWithoutStrategyThrows() {
+        DoubleArrayDiscreteFunction.of(new double[] { 1.0, 2.0 }, new double[] { 1.0, 2.0 }).getY(1.5);
+    }
+
+    @Test
+    public void functionsOperateOnArrays() {
+        DiscreteFunction<Double, Double> converted = Functions.convertToDiscreteFunctionFrom(new double[] { 0.0, 1.0,
+                2.0 }, new double[] { 1.0, 2.0, 3.0 });
+        DiscreteFunction<Double, Double> scaled = Functions.scaleFunction(converted, 2.0);
+
+        assertArrayEquals(new double[] { 2.0, 4.0, 6.0 },
+                ((DoubleArrayDiscreteFunction) scaled).getYs(new double[] { 0.0, 1.0, 2.0 }), 0.0);
+        assertEquals(10.0, Functions.integrate(scaled), PRECISION);
+        assertEquals(Arrays.asList(1.0), Functions.getXsIntersection(converted, function));
+    }
+
+}